@@ -0,0 +1,139 @@
+package com.rakadjiev.connect4.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.impl.BitBoard;
+import com.rakadjiev.connect4.impl.Board;
+import com.rakadjiev.connect4.impl.MultiBitBoard;
+
+/**
+ * Benchmarks of the board operations of each board implementation on the standard board.
+ * 
+ * @author rakadjiev
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BoardBenchmark {
+	
+	/** The number of games in the corpus */
+	private static final int GAMES = 1024;
+	
+	/** The board implementation */
+	@Param({"Board", "BitBoard", "MultiBitBoard"})
+	public String implementation;
+	
+	/** The corpus of games */
+	private int[][] games;
+	/** The index of the next game of the corpus */
+	private int next;
+	
+	/** The board to insert discs into */
+	private IBoard board;
+	/** A board with the discs of a full game, for the read-only benchmarks */
+	private IBoard filled;
+	
+	@Setup
+	public void setUp() throws InvalidInsertException {
+		games = Corpus.games(GAMES);
+		board = createBoard();
+		filled = createBoard();
+		int[] game = games[0];
+		for (int i = 0; i < game.length; i++) {
+			filled.insertDisc(i % 2 == 0 ? 'R' : 'G', game[i]);
+		}
+	}
+	
+	/**
+	 * Create an empty board of the benchmarked implementation.
+	 * 
+	 * @return The board
+	 */
+	private IBoard createBoard() {
+		switch (implementation) {
+		case "Board":
+			return new Board();
+		case "BitBoard":
+			return new BitBoard();
+		case "MultiBitBoard":
+			return new MultiBitBoard(Board.COLS, Board.ROWS);
+		default:
+			throw new IllegalArgumentException("Unknown board implementation: " + implementation);
+		}
+	}
+	
+	/**
+	 * Insert all discs of the next corpus game, without checking for wins, then reset the board.
+	 * 
+	 * @return The number of inserted discs
+	 */
+	@Benchmark
+	public int insertDisc() throws InvalidInsertException {
+		int[] game = games[next++ & (GAMES - 1)];
+		for (int i = 0; i < game.length; i++) {
+			board.insertDisc(i % 2 == 0 ? 'R' : 'G', game[i]);
+		}
+		int discs = board.getNumberOfDiscs();
+		board.reset();
+		return discs;
+	}
+	
+	/**
+	 * Insert all discs of the next corpus game, and check after each insert if the disc is part of a
+	 * winning sequence, then reset the board.
+	 * 
+	 * @return The number of winning discs
+	 */
+	@Benchmark
+	public int isConnected() throws InvalidInsertException {
+		int[] game = games[next++ & (GAMES - 1)];
+		int wins = 0;
+		for (int i = 0; i < game.length; i++) {
+			int row = board.insertDisc(i % 2 == 0 ? 'R' : 'G', game[i]);
+			if (board.isConnected(game[i], row, 4)) {
+				wins++;
+			}
+		}
+		board.reset();
+		return wins;
+	}
+	
+	/**
+	 * Reset the board.
+	 * 
+	 * @return The board
+	 */
+	@Benchmark
+	public IBoard reset() {
+		board.reset();
+		return board;
+	}
+	
+	/**
+	 * Get the string representation of a board with the discs of a full game.
+	 * 
+	 * @return The string representation
+	 */
+	@Benchmark
+	public String toStringFilled() {
+		return filled.toString();
+	}
+
+}
@@ -0,0 +1,105 @@
+package com.rakadjiev.connect4.benchmarks;
+
+import java.util.Random;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.impl.BitBoard;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.impl.Player;
+
+/**
+ * Fixed-seed corpora of games and positions, so that every benchmark run measures the same moves.
+ * 
+ * @author rakadjiev
+ */
+final class Corpus {
+	
+	/** The seed of all corpora */
+	static final long SEED = 0x5EED_C4L;
+	
+	/** The players of the corpus games */
+	static final IPlayer PLAYER_ONE = new Player("RED", 'R');
+	static final IPlayer PLAYER_TWO = new Player("GREEN", 'G');
+	
+	private Corpus() {
+	}
+	
+	/**
+	 * Generate random games on the standard board, each played until it is won or the board is full.
+	 * 
+	 * @param count The number of games
+	 * @return The columns (1-based index) of the moves of each game
+	 */
+	static int[][] games(final int count) {
+		Random random = new Random(SEED);
+		IConnect4 game = new Connect4(new BitBoard(), PLAYER_ONE, PLAYER_TWO);
+		int[][] games = new int[count][];
+		
+		for (int i = 0; i < count; i++) {
+			game.restart();
+			games[i] = play(game, random, Integer.MAX_VALUE);
+		}
+		
+		return games;
+	}
+	
+	/**
+	 * Generate random positions on the standard board with the specified number of moves, in which
+	 * none of the players has won yet.
+	 * 
+	 * @param count The number of positions
+	 * @param moves The number of moves of each position
+	 * @return The columns (1-based index) of the moves of each position
+	 */
+	static int[][] positions(final int count, final int moves) {
+		Random random = new Random(SEED);
+		IConnect4 game = new Connect4(new BitBoard(), PLAYER_ONE, PLAYER_TWO);
+		int[][] positions = new int[count][];
+		
+		for (int i = 0; i < count; i++) {
+			// Retry until a game lasts long enough
+			do {
+				game.restart();
+				positions[i] = play(game, random, moves);
+			} while (game.isWon() || positions[i].length < moves);
+		}
+		
+		return positions;
+	}
+	
+	/**
+	 * Play random moves until the game is finished, or the maximum number of moves has been played.
+	 * 
+	 * @param game The game to play
+	 * @param random The random number generator
+	 * @param maxMoves The maximum number of moves
+	 * @return The columns (1-based index) of the moves
+	 */
+	private static int[] play(final IConnect4 game, final Random random, final int maxMoves) {
+		IBoard board = game.getBoard();
+		int[] moves = new int[board.getCols() * board.getRows()];
+		int movesMade = 0;
+		
+		try {
+			while (!game.isFinished() && movesMade < maxMoves) {
+				int col = random.nextInt(board.getCols()) + 1;
+				if (board.isPopulated(col, board.getRows())) {
+					continue;
+				}
+				game.insertDisc(movesMade % 2 == 0 ? PLAYER_ONE : PLAYER_TWO, col);
+				moves[movesMade++] = col;
+			}
+		} catch (InvalidInsertException e) {
+			// Only columns with space are played
+			throw new IllegalStateException(e);
+		}
+		
+		int[] result = new int[movesMade];
+		System.arraycopy(moves, 0, result, 0, movesMade);
+		return result;
+	}
+
+}
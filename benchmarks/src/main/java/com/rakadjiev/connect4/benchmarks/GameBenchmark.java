@@ -0,0 +1,104 @@
+package com.rakadjiev.connect4.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.impl.BitBoard;
+import com.rakadjiev.connect4.impl.Board;
+import com.rakadjiev.connect4.impl.Connect4;
+
+/**
+ * Benchmarks of full games, including the win check after every move, in games per second.
+ * 
+ * @author rakadjiev
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GameBenchmark {
+	
+	/** The number of games in the corpus */
+	private static final int GAMES = 1024;
+	
+	/** The board implementation */
+	@Param({"Board", "BitBoard"})
+	public String implementation;
+	
+	/** The corpus of games */
+	private int[][] games;
+	/** The index of the next game of the corpus */
+	private int next;
+	/** The random number generator of the playouts, seeded for every trial */
+	private SplittableRandom random;
+	
+	/** The game */
+	private IConnect4 game;
+	
+	@Setup
+	public void setUp() {
+		games = Corpus.games(GAMES);
+		random = new SplittableRandom(Corpus.SEED);
+		IBoard board = "Board".equals(implementation) ? new Board() : new BitBoard();
+		game = new Connect4(board, Corpus.PLAYER_ONE, Corpus.PLAYER_TWO);
+	}
+	
+	/**
+	 * Replay the next corpus game, then restart the game.
+	 * 
+	 * @return If the game has been won
+	 */
+	@Benchmark
+	public boolean replay() throws InvalidInsertException {
+		int[] moves = games[next++ & (GAMES - 1)];
+		boolean won = false;
+		for (int i = 0; i < moves.length; i++) {
+			won = game.insertDisc(i % 2 == 0 ? Corpus.PLAYER_ONE : Corpus.PLAYER_TWO, moves[i]);
+		}
+		game.restart();
+		return won;
+	}
+	
+	/**
+	 * Play a game with random moves until it is finished, then restart the game.
+	 * 
+	 * @return If the game has been won
+	 */
+	@Benchmark
+	public boolean randomPlayout() throws InvalidInsertException {
+		IBoard board = game.getBoard();
+		int cols = board.getCols();
+		int rows = board.getRows();
+		int moves = 0;
+		
+		while (!game.isFinished()) {
+			int col = random.nextInt(cols) + 1;
+			if (board.isPopulated(col, rows)) {
+				continue;
+			}
+			game.insertDisc(moves++ % 2 == 0 ? Corpus.PLAYER_ONE : Corpus.PLAYER_TWO, col);
+		}
+		
+		boolean won = game.isWon();
+		game.restart();
+		return won;
+	}
+
+}
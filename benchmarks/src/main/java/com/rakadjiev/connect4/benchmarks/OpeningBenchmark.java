@@ -0,0 +1,72 @@
+package com.rakadjiev.connect4.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rakadjiev.connect4.impl.Board;
+import com.rakadjiev.connect4.solver.Position;
+import com.rakadjiev.connect4.solver.Solver;
+import com.rakadjiev.connect4.solver.SolverResult;
+import com.rakadjiev.connect4.solver.TranspositionTable;
+import com.rakadjiev.connect4.solver.TranspositionTable.ReplacementPolicy;
+
+/**
+ * Benchmarks of solving early openings of the standard board from scratch, without an opening book,
+ * in seconds per position. Each position is solved once with an empty transposition table, since a
+ * single solve takes from seconds to minutes.
+ * 
+ * @author rakadjiev
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(1)
+public class OpeningBenchmark {
+	
+	/** The moves of the opening (1-based column indices) */
+	@Param({"4453", "4435", "4444", "44444"})
+	public String opening;
+	
+	/** The memory of the transposition table in bytes (the solver's default, and 4 times as much) */
+	@Param({"33554432", "134217728"})
+	public long tableBytes;
+	
+	/** The position of the opening */
+	private Position position;
+	/** The solver */
+	private Solver solver;
+	
+	@Setup(Level.Invocation)
+	public void setUp() {
+		position = new Position(Board.COLS, Board.ROWS);
+		for (int i = 0; i < opening.length(); i++) {
+			position.play(opening.charAt(i) - '0');
+		}
+		solver = new Solver(0, 0, new TranspositionTable(tableBytes, ReplacementPolicy.DEPTH_PREFERRED));
+	}
+	
+	/**
+	 * Solve the opening.
+	 * 
+	 * @return The result
+	 */
+	@Benchmark
+	public SolverResult solve() {
+		return solver.solve(position);
+	}
+
+}
@@ -0,0 +1,91 @@
+package com.rakadjiev.connect4.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rakadjiev.connect4.impl.Board;
+import com.rakadjiev.connect4.solver.ParallelSolver;
+import com.rakadjiev.connect4.solver.Position;
+import com.rakadjiev.connect4.solver.SolverResult;
+import com.rakadjiev.connect4.solver.TranspositionTable;
+import com.rakadjiev.connect4.solver.TranspositionTable.ReplacementPolicy;
+
+/**
+ * Benchmarks of the parallel solver with different numbers of threads, on a corpus of positions,
+ * which take a while to solve. Dividing the time of one thread by the time of n threads gives
+ * the speedup curve.
+ * 
+ * @author rakadjiev
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParallelSolverBenchmark {
+	
+	/** The number of positions in the corpus */
+	private static final int POSITIONS = 16;
+	/** The number of moves played in the corpus positions */
+	private static final int MOVES = 12;
+	/** The memory of the transposition table, which is cleared before every solve */
+	private static final long TABLE_BYTES = 16L * 1024 * 1024;
+	
+	/** The number of threads */
+	@Param({"1", "2", "4", "8"})
+	public int threads;
+	
+	/** The corpus of positions */
+	private Position[] positions;
+	/** The index of the next position of the corpus */
+	private int next;
+	
+	/** The transposition table */
+	private TranspositionTable table;
+	/** The solver */
+	private ParallelSolver solver;
+	
+	@Setup
+	public void setUp() {
+		int[][] corpus = Corpus.positions(POSITIONS, MOVES);
+		positions = new Position[POSITIONS];
+		for (int i = 0; i < POSITIONS; i++) {
+			positions[i] = new Position(Board.COLS, Board.ROWS);
+			for (int col : corpus[i]) {
+				positions[i].play(col);
+			}
+		}
+		table = new TranspositionTable(TABLE_BYTES, ReplacementPolicy.DEPTH_PREFERRED);
+		solver = new ParallelSolver(threads, 0, 0, table);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		solver.close();
+	}
+	
+	/**
+	 * Solve the next corpus position from scratch.
+	 * 
+	 * @return The result
+	 */
+	@Benchmark
+	public SolverResult solve() {
+		table.clear();
+		return solver.solve(positions[next++ % POSITIONS]);
+	}
+
+}
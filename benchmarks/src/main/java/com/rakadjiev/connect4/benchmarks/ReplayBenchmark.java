@@ -0,0 +1,115 @@
+package com.rakadjiev.connect4.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rakadjiev.connect4.replay.ReplaySummary;
+import com.rakadjiev.connect4.replay.ReplayValidator;
+
+/**
+ * Benchmarks of validating a log of corpus games, in megabytes per second. Scanning the mapped log
+ * without replaying the games is the upper bound of the validation.
+ * 
+ * @author rakadjiev
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ReplayBenchmark {
+	
+	/** The number of games in the corpus */
+	private static final int GAMES = 1024;
+	/** The size of the log in megabytes */
+	private static final int LOG_MEGABYTES = 64;
+	
+	/** The log file */
+	private Path log;
+	/** The validator */
+	private ReplayValidator validator;
+	/** The bytes being scanned */
+	private final byte[] chunk = new byte[64 * 1024];
+	
+	@Setup
+	public void setUp() throws IOException {
+		// The corpus games are repeated, one per line, until the log has the required size
+		int[][] games = Corpus.games(GAMES);
+		log = Files.createTempFile("replay", ".log");
+		long size = 0;
+		try (OutputStream out = Files.newOutputStream(log)) {
+			for (int i = 0; size < LOG_MEGABYTES * 1_000_000L; i++) {
+				int[] moves = games[i & (GAMES - 1)];
+				byte[] line = new byte[moves.length + 1];
+				for (int j = 0; j < moves.length; j++) {
+					line[j] = (byte) ('0' + moves[j]);
+				}
+				line[moves.length] = '\n';
+				out.write(line);
+				size += line.length;
+			}
+		}
+		validator = new ReplayValidator();
+	}
+	
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.delete(log);
+	}
+	
+	/**
+	 * Validate the log.
+	 * 
+	 * @return The summary
+	 */
+	@Benchmark
+	@OperationsPerInvocation(LOG_MEGABYTES)
+	public ReplaySummary validate() throws IOException {
+		return validator.validate(log, null);
+	}
+	
+	/**
+	 * Map the log, and count its lines, like the validator reads it.
+	 * 
+	 * @return The number of lines
+	 */
+	@Benchmark
+	@OperationsPerInvocation(LOG_MEGABYTES)
+	public long scan() throws IOException {
+		long lines = 0;
+		try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			while (buffer.hasRemaining()) {
+				int length = Math.min(buffer.remaining(), chunk.length);
+				buffer.get(chunk, 0, length);
+				for (int i = 0; i < length; i++) {
+					if (chunk[i] == '\n') {
+						lines++;
+					}
+				}
+			}
+		}
+		return lines;
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.rakadjiev.connect4.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rakadjiev.connect4.impl.Board;
+import com.rakadjiev.connect4.solver.Position;
+import com.rakadjiev.connect4.solver.Solver;
+import com.rakadjiev.connect4.solver.SolverResult;
+import com.rakadjiev.connect4.solver.TranspositionTable;
+import com.rakadjiev.connect4.solver.TranspositionTable.ReplacementPolicy;
+
+/**
+ * Benchmarks of the solver on a corpus of positions, reporting the solved positions and the
+ * explored positions (nodes) per second.
+ * 
+ * @author rakadjiev
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+	
+	/** The number of positions in the corpus */
+	private static final int POSITIONS = 64;
+	/** The memory of the transposition table, which is cleared before every solve */
+	private static final long TABLE_BYTES = 1L << 20;
+	
+	/** The number of moves played in the corpus positions (the fewer, the harder to solve) */
+	@Param({"24", "18"})
+	public int moves;
+	
+	/** The corpus of positions */
+	private Position[] positions;
+	/** The index of the next position of the corpus */
+	private int next;
+	
+	/** The transposition table */
+	private TranspositionTable table;
+	/** The solver */
+	private Solver solver;
+	
+	/**
+	 * The number of explored positions, reported by JMH as a rate next to the solved positions.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Nodes {
+		
+		/** The number of explored positions */
+		public long nodes;
+		
+		@Setup(Level.Iteration)
+		public void reset() {
+			nodes = 0;
+		}
+	}
+	
+	@Setup
+	public void setUp() {
+		int[][] corpus = Corpus.positions(POSITIONS, moves);
+		positions = new Position[POSITIONS];
+		for (int i = 0; i < POSITIONS; i++) {
+			positions[i] = new Position(Board.COLS, Board.ROWS);
+			for (int col : corpus[i]) {
+				positions[i].play(col);
+			}
+		}
+		table = new TranspositionTable(TABLE_BYTES, ReplacementPolicy.DEPTH_PREFERRED);
+		solver = new Solver(0, 0, table);
+	}
+	
+	/**
+	 * Solve the next corpus position from scratch.
+	 * 
+	 * @param counter The counter of explored positions
+	 * @return The result
+	 */
+	@Benchmark
+	public SolverResult solve(final Nodes counter) {
+		table.clear();
+		SolverResult result = solver.solve(positions[next++ % POSITIONS]);
+		counter.nodes += result.getNodes();
+		return result;
+	}
+
+}
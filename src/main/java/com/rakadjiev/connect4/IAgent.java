@@ -0,0 +1,25 @@
+package com.rakadjiev.connect4;
+
+/**
+ * A player, which chooses its own moves, e.g. a bot, so that games can be played without user input.
+ * 
+ * An agent only gets a read-only view of the board, so it can't change the game it plays.
+ * Agents, which need to try moves while choosing, have to do so on their own copy of the board.
+ * 
+ * @see com.rakadjiev.connect4.agent.GameDriver
+ * @author rakadjiev
+ */
+public interface IAgent extends IPlayer {
+	
+	/**
+	 * Choose the next move. The game isn't finished yet, and it's this agent's turn.
+	 * 
+	 * @param board A read-only view of the board, which throws {@link UnsupportedOperationException} if it is modified
+	 * @param discsToWin The number of connected discs required to win
+	 * @param opponent The other player of the game
+	 * @param budgetMillis The time, within which the move should be chosen, in milliseconds (0 if unlimited)
+	 * @return The column into which to insert the disc (1-based index)
+	 */
+	int chooseMove(IBoard board, int discsToWin, IPlayer opponent, long budgetMillis);
+
+}
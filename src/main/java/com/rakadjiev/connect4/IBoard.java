@@ -1,7 +1,12 @@
 package com.rakadjiev.connect4;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import com.rakadjiev.connect4.exceptions.InvalidInsertException;
 import com.rakadjiev.connect4.exceptions.InvalidLocationException;
+import com.rakadjiev.connect4.exceptions.InvalidRemoveException;
 
 /**
  * A Connect4 board, consisting of a pre-defined number of columns and rows.
@@ -9,7 +14,18 @@ import com.rakadjiev.connect4.exceptions.InvalidLocationException;
  * @author rakadjiev
  */
 public interface IBoard {
-
+	
+	/** Status of {@link #tryInsertDisc(char, int)}: the board has already been won or is full */
+	int BOARD_COMPLETED = -1;
+	/** Status of {@link #tryInsertDisc(char, int)} and {@link #tryRemoveDisc(int)}: the column doesn't exist */
+	int INVALID_COLUMN = -2;
+	/** Status of {@link #tryInsertDisc(char, int)}: the disc isn't a valid disc color */
+	int INVALID_DISC = -3;
+	/** Status of {@link #tryInsertDisc(char, int)}: the column is already full */
+	int COLUMN_FULL = -4;
+	/** Status of {@link #tryRemoveDisc(int)}: the column is empty */
+	int COLUMN_EMPTY = -5;
+	
 	/**
 	 * Insert a disc into the specified column of the board.
 	 * 
@@ -21,6 +37,71 @@ public interface IBoard {
 	 */
 	int insertDisc(char disc, int col) throws InvalidInsertException, InvalidLocationException;
 	
+	/**
+	 * Remove the top disc from the specified column of the board, e.g. to take back a move.
+	 * If the board has been marked as won, the mark is cleared: only the latest inserted disc can 
+	 * complete the board, so discs are expected to be removed in reverse order of insertion.
+	 * 
+	 * @param col The column from which to remove the disc
+	 * @return The disc which has been removed
+	 * @throws InvalidRemoveException If the column is empty
+	 * @throws InvalidLocationException If the specified column is invalid
+	 */
+	char removeDisc(int col) throws InvalidRemoveException, InvalidLocationException;
+	
+	/**
+	 * Insert a disc into the specified column of the board, like {@link #insertDisc(char, int)}, but
+	 * report an invalid insert with a status instead of an exception. Never allocates, so it is
+	 * suitable for probing moves, e.g. in a search.
+	 * 
+	 * @param disc The disc to insert
+	 * @param col The column into which to insert the disc
+	 * @return The row into which the disc was inserted (1-based index), or a negative status if the
+	 * disc cannot be inserted: {@link #BOARD_COMPLETED}, {@link #INVALID_COLUMN}, {@link #INVALID_DISC} or {@link #COLUMN_FULL}
+	 */
+	int tryInsertDisc(char disc, int col);
+	
+	/**
+	 * Remove the top disc from the specified column of the board, like {@link #removeDisc(int)}, but
+	 * report an invalid removal with a status instead of an exception.
+	 * 
+	 * @param col The column from which to remove the disc
+	 * @return The disc which has been removed, or a negative status if there is no disc to remove:
+	 * {@link #INVALID_COLUMN} or {@link #COLUMN_EMPTY}
+	 */
+	int tryRemoveDisc(int col);
+	
+	/**
+	 * Check if a disc can be inserted into the specified column, i.e. the column exists and isn't
+	 * full, and the board hasn't been won yet.
+	 * 
+	 * @param col The column (1-based index)
+	 * @return true if a disc can be inserted
+	 */
+	boolean canPlay(int col);
+	
+	/**
+	 * Get the columns, into which a disc can be inserted, as a bitmask: the bit <code>col - 1</code>
+	 * is set if {@link #canPlay(int)} is true for the column. Only the first 64 columns are included.
+	 * 
+	 * @return The bitmask of playable columns (0 if the board has been won or is full)
+	 */
+	long getPlayableColumns();
+	
+	/**
+	 * Get the next column after the specified one, into which a disc can be inserted. Iterates over
+	 * the playable columns without allocating:
+	 * <pre>
+	 * for (int col = board.nextPlayableColumn(0); col != 0; col = board.nextPlayableColumn(col)) {
+	 *     ...
+	 * }
+	 * </pre>
+	 * 
+	 * @param col The column (1-based index), or 0 to get the first playable column
+	 * @return The first playable column greater than col, or 0 if there is none
+	 */
+	int nextPlayableColumn(int col);
+	
 	/**
 	 * Return the number of columns of this board.
 	 * 
@@ -55,6 +136,19 @@ public interface IBoard {
 	 */
 	char getDisc(int col, int row) throws InvalidLocationException;
 	
+	/**
+	 * Check if the disc at the specified location is part of a sequence of at least the
+	 * specified number of discs of the same color, which are connected horizontally,
+	 * vertically, or diagonally.
+	 * 
+	 * @param col The column of the disc (1-based index)
+	 * @param row The row of the disc (1-based index)
+	 * @param discs The number of connected discs to look for
+	 * @return true if the disc is part of such a sequence, false if it isn't, or if the cell is empty
+	 * @throws InvalidLocationException If an invalid column or row has been specified
+	 */
+	boolean isConnected(int col, int row, int discs) throws InvalidLocationException;
+	
 	/**
 	 * Get the total number of discs inserted into the board.
 	 * 
@@ -81,9 +175,45 @@ public interface IBoard {
 	 */
 	void setWon();
 	
+	/**
+	 * Get a 64-bit key of the discs on the board, e.g. for caches and sets of boards.
+	 * Boards with the same discs in the same cells have the same key, regardless of the order in
+	 * which the discs have been inserted. The key is updated with every inserted disc, so
+	 * getting it is cheap.
+	 * 
+	 * @return The key of the board
+	 */
+	long getKey();
+	
+	/**
+	 * Get a 64-bit key of the discs on the board, which is the same for the board and its mirror
+	 * image, i.e. the board with the columns in reverse order. Since mirrored boards are equivalent
+	 * for the game, this lets caches store them only once.
+	 * 
+	 * @return The key of the board or its mirror image, whichever is smaller
+	 */
+	long getCanonicalKey();
+	
 	/**
 	 * Reset the board to initial state.
 	 */
 	void reset();
 	
+	/**
+	 * Write the discs on the board in a compact binary format, which is a small fraction of the
+	 * size of {@link #toString()}, e.g. to store or send large numbers of boards.
+	 * 
+	 * @param out The output
+	 * @throws IOException If the output can't be written
+	 */
+	void write(DataOutput out) throws IOException;
+	
+	/**
+	 * Replace the discs on the board with a board written by {@link #write(DataOutput)}.
+	 * 
+	 * @param in The input
+	 * @throws IOException If the input can't be read, isn't a valid board, or is a board of a different size
+	 */
+	void read(DataInput in) throws IOException;
+	
 }
@@ -1,8 +1,13 @@
 package com.rakadjiev.connect4;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import com.rakadjiev.connect4.exceptions.InvalidInsertException;
 import com.rakadjiev.connect4.exceptions.InvalidLocationException;
 import com.rakadjiev.connect4.exceptions.InvalidPlayerException;
+import com.rakadjiev.connect4.exceptions.InvalidRemoveException;
 
 /**
  * Connect4 game.
@@ -15,6 +20,13 @@ import com.rakadjiev.connect4.exceptions.InvalidPlayerException;
  */
 public interface IConnect4 {
 	
+	/** Status of {@link #tryInsertDisc(IPlayer, int)}: the disc has been inserted, and the game goes on */
+	int PLAYED = 0;
+	/** Status of {@link #tryInsertDisc(IPlayer, int)}: the disc has been inserted, and the move won the game */
+	int WON = 1;
+	/** Status of {@link #tryInsertDisc(IPlayer, int)}: the player doesn't participate in this game */
+	int INVALID_PLAYER = -6;
+	
 	/**
 	 * Get the board used for this game.
 	 * 
@@ -42,6 +54,27 @@ public interface IConnect4 {
 	 */
 	boolean insertDisc(IPlayer player, int col) throws InvalidInsertException, InvalidPlayerException, InvalidLocationException;
 	
+	/**
+	 * Insert a disc of the specified player into the specified column, like
+	 * {@link #insertDisc(IPlayer, int)}, but report an invalid move with a status instead of an
+	 * exception. An invalid move doesn't change the game.
+	 * 
+	 * @param player The player, who plays
+	 * @param col The column into which to insert the disc
+	 * @return {@link #WON} if the move resulted in victory, {@link #PLAYED} if it didn't, or a negative
+	 * status if the move is invalid: {@link #INVALID_PLAYER}, or one of the statuses of {@link IBoard#tryInsertDisc(char, int)}
+	 */
+	int tryInsertDisc(IPlayer player, int col);
+	
+	/**
+	 * Undo the latest move made with {@link #insertDisc(IPlayer, int)}, and restore the state of the
+	 * game and board from before the move. Can be repeated to undo further moves.
+	 * 
+	 * @return The column of the undone move
+	 * @throws InvalidRemoveException If there is no move to undo
+	 */
+	int undo() throws InvalidRemoveException;
+	
 	/**
 	 * Check if this game has been won by one of the players.
 	 * 
@@ -67,4 +100,38 @@ public interface IConnect4 {
 	 */
 	void restart();
 	
+	/**
+	 * Register a listener, which is called after each change of the game. The same listener can be
+	 * registered with any number of games.
+	 * 
+	 * @param listener The listener
+	 * @throws NullPointerException If listener is null
+	 */
+	void addListener(IGameListener listener) throws NullPointerException;
+	
+	/**
+	 * Unregister a listener.
+	 * 
+	 * @param listener The listener
+	 * @return true if the listener has been registered
+	 */
+	boolean removeListener(IGameListener listener);
+	
+	/**
+	 * Write the record of the game, i.e. its rules and the moves made so far, in a compact binary format,
+	 * e.g. to store or send large numbers of games.
+	 * 
+	 * @param out The output
+	 * @throws IOException If the output can't be written
+	 */
+	void write(DataOutput out) throws IOException;
+	
+	/**
+	 * Restart the game, and replay a game record written by {@link #write(DataOutput)}.
+	 * 
+	 * @param in The input
+	 * @throws IOException If the input can't be read, isn't a valid game record, or is a record of a game with different rules
+	 */
+	void read(DataInput in) throws IOException;
+	
 }
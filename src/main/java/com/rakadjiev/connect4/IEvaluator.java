@@ -0,0 +1,34 @@
+package com.rakadjiev.connect4;
+
+import com.rakadjiev.connect4.solver.Position;
+
+/**
+ * A static evaluation of Connect4 positions, which estimates how good a position is without
+ * searching it, e.g. for depth-limited play.
+ * 
+ * An evaluator may cache data of the latest board size, so it must only be used by one thread at a time.
+ * 
+ * @author rakadjiev
+ */
+public interface IEvaluator {
+	
+	/** The absolute score of a position, in which one of the players has already won */
+	int MAX_SCORE = 1_000_000;
+	
+	/**
+	 * Returns the name of the evaluator.
+	 * 
+	 * @return The name of the evaluator
+	 */
+	String getName();
+	
+	/**
+	 * Evaluate a position, which hasn't been won yet, from the point of view of the player whose turn it is.
+	 * 
+	 * @param position The position
+	 * @return The score of the position, which is positive if it is good for the current player, and
+	 * negative if it is good for the opponent. The absolute score is less than {@link #MAX_SCORE}.
+	 */
+	int evaluate(Position position);
+	
+}
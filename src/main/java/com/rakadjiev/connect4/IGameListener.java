@@ -0,0 +1,63 @@
+package com.rakadjiev.connect4;
+
+/**
+ * Receives the events of a game, e.g. to update a user interface, log or persist games, or collect
+ * statistics, without wrapping the game. Listeners are registered with
+ * {@link IConnect4#addListener(IGameListener)}, and called by the thread, which changes the game,
+ * right after each change. A game without listeners doesn't create any events.
+ * 
+ * All methods do nothing by default, so listeners only implement the events they need. Listeners
+ * should return quickly, since they delay the moves; slow listeners can be wrapped in an
+ * {@link com.rakadjiev.connect4.event.AsyncDispatcher}.
+ * 
+ * @author rakadjiev
+ */
+public interface IGameListener {
+	
+	/**
+	 * Called after a disc has been inserted. If the move has finished the game, {@link #onWon(IConnect4, IPlayer)}
+	 * or {@link #onTie(IConnect4)} follows.
+	 * 
+	 * @param game The game
+	 * @param player The player, who made the move
+	 * @param col The column of the disc (1-based index)
+	 * @param row The row of the disc (1-based index)
+	 */
+	default void onMove(final IConnect4 game, final IPlayer player, final int col, final int row) {
+	}
+	
+	/**
+	 * Called after a move has won the game.
+	 * 
+	 * @param game The game
+	 * @param player The player, who has won
+	 */
+	default void onWon(final IConnect4 game, final IPlayer player) {
+	}
+	
+	/**
+	 * Called after a move has filled the board without winning the game.
+	 * 
+	 * @param game The game
+	 */
+	default void onTie(final IConnect4 game) {
+	}
+	
+	/**
+	 * Called after the latest move has been undone.
+	 * 
+	 * @param game The game
+	 * @param col The column of the undone move (1-based index)
+	 */
+	default void onUndo(final IConnect4 game, final int col) {
+	}
+	
+	/**
+	 * Called after the game has been restarted.
+	 * 
+	 * @param game The game
+	 */
+	default void onRestart(final IConnect4 game) {
+	}
+	
+}
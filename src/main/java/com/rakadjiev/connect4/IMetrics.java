@@ -0,0 +1,129 @@
+package com.rakadjiev.connect4;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A registry of named metrics, i.e. counters, histograms and gauges, through which the game engine
+ * reports what it does, e.g. the number of moves or the time spent checking for wins.
+ * 
+ * Components look up their metrics once, when they are created, from the registry set with
+ * {@link com.rakadjiev.connect4.metrics.Metrics#set(IMetrics)}, and then only record values. The
+ * default registry ignores all values, so its metrics cost next to nothing, and timers don't even
+ * read the clock. Metrics with the same name are shared by all components, which look them up.
+ * 
+ * @author rakadjiev
+ */
+public interface IMetrics {
+	
+	/**
+	 * A counter, which can be incremented by any number of threads.
+	 */
+	interface Counter {
+		
+		/**
+		 * Add 1 to the counter.
+		 */
+		void increment();
+		
+		/**
+		 * Add a value to the counter.
+		 * 
+		 * @param delta The value
+		 */
+		void add(long delta);
+		
+		/**
+		 * Get the sum of all values added so far.
+		 * 
+		 * @return The value of the counter
+		 */
+		long get();
+	}
+	
+	/**
+	 * A histogram of non-negative values, e.g. latencies in nanoseconds, which can be recorded by any
+	 * number of threads. Values are counted in buckets, so percentiles are approximate.
+	 */
+	interface Histogram {
+		
+		/**
+		 * Record a value. Negative values are recorded as 0.
+		 * 
+		 * @param value The value
+		 */
+		void record(long value);
+		
+		/**
+		 * Start timing an operation, which is recorded by {@link #stopTimer(long)}. Reading the clock
+		 * takes about as long as a move, so frequent operations should only time a sample.
+		 * 
+		 * @return The start time in nanoseconds, or 0 if the operation isn't timed
+		 */
+		long startTimer();
+		
+		/**
+		 * Record the time since an operation has been started.
+		 * 
+		 * @param start The start time returned by {@link #startTimer()}
+		 */
+		void stopTimer(long start);
+		
+		/**
+		 * Get the number of recorded values.
+		 * 
+		 * @return The number of values
+		 */
+		long getCount();
+		
+		/**
+		 * Get the mean of the recorded values.
+		 * 
+		 * @return The mean, or 0 if no values have been recorded
+		 */
+		double getMean();
+		
+		/**
+		 * Get the largest recorded value.
+		 * 
+		 * @return The largest value, or 0 if no values have been recorded
+		 */
+		long getMax();
+		
+		/**
+		 * Get the value, which is greater than or equal to the specified percentage of the recorded values.
+		 * 
+		 * @param percentile The percentage (between 0 and 100)
+		 * @return The value, or 0 if no values have been recorded
+		 */
+		long getValueAtPercentile(double percentile);
+	}
+	
+	/**
+	 * Get the counter with the specified name, and create it if it doesn't exist yet.
+	 * 
+	 * @param name The name of the counter
+	 * @return The counter
+	 * @throws IllegalArgumentException If a metric of another kind has the name
+	 */
+	Counter counter(String name) throws IllegalArgumentException;
+	
+	/**
+	 * Get the histogram with the specified name, and create it if it doesn't exist yet.
+	 * 
+	 * @param name The name of the histogram
+	 * @return The histogram
+	 * @throws IllegalArgumentException If a metric of another kind has the name
+	 */
+	Histogram histogram(String name) throws IllegalArgumentException;
+	
+	/**
+	 * Register a gauge, i.e. a value, which is read when the metrics are reported, e.g. the hit count of
+	 * a cache, which counts its hits anyway. A gauge with the same name is replaced.
+	 * 
+	 * @param name The name of the gauge
+	 * @param value Reads the value
+	 * @throws IllegalArgumentException If a metric of another kind has the name
+	 */
+	void gauge(String name, LongSupplier value) throws IllegalArgumentException;
+	
+}
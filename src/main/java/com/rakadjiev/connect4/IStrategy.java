@@ -0,0 +1,34 @@
+package com.rakadjiev.connect4;
+
+import java.util.SplittableRandom;
+
+/**
+ * A strategy, which chooses the moves of a player without human input, e.g. for simulated games.
+ * 
+ * A strategy instance may keep state between moves (e.g. a search table), so it must only be
+ * used by one thread at a time.
+ * 
+ * @author rakadjiev
+ */
+public interface IStrategy {
+	
+	/**
+	 * Returns the name of the strategy.
+	 * 
+	 * @return The name of the strategy
+	 */
+	String getName();
+	
+	/**
+	 * Choose the next move of a player. The game must not be finished yet. The game and its
+	 * board may be modified while choosing, as long as they are restored before returning.
+	 * 
+	 * @param game The game
+	 * @param player The player whose turn it is
+	 * @param opponent The other player of the game
+	 * @param random The random number generator to use for random decisions, which is owned by the calling thread
+	 * @return The column into which the player should insert their disc (1-based index), which isn't full
+	 */
+	int chooseMove(IConnect4 game, IPlayer player, IPlayer opponent, SplittableRandom random);
+	
+}
@@ -0,0 +1,122 @@
+package com.rakadjiev.connect4.agent;
+
+import com.rakadjiev.connect4.IAgent;
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.impl.ReadOnlyBoard;
+import com.rakadjiev.connect4.replay.Outcome;
+
+/**
+ * Plays games between two agents without user input, e.g. bots against each other, on any
+ * {@link IConnect4}, including journaled and served games.
+ * 
+ * The agents take turns, starting with the first agent, and choose their moves on a
+ * {@link ReadOnlyBoard} of the game. An agent, which chooses an invalid move, loses the game with
+ * {@link Outcome#ILLEGAL_MOVE}. The time budget is passed to the agents with every move, but
+ * agents aren't interrupted if they exceed it: the driver records the longest move instead, so
+ * that the caller can tell if an agent kept its budget.
+ * 
+ * A driver is not thread-safe.
+ * 
+ * @author rakadjiev
+ */
+public class GameDriver {
+	
+	/** The game */
+	private final IConnect4 game;
+	/** The read-only view of the game's board */
+	private final IBoard view;
+	/** The first and the second agent */
+	private final IAgent[] agents;
+	/** The time budget per move in milliseconds (0 if unlimited) */
+	private final long budgetMillis;
+	
+	/** The agent, which chose an invalid move in the latest game, or null */
+	private IAgent offender;
+	/** The longest time an agent took for a move in the latest game, in nanoseconds */
+	private long longestMoveNanos;
+	
+	/**
+	 * Create a driver.
+	 * 
+	 * @param game The game, whose players are the agents
+	 * @param first The agent, which moves first
+	 * @param second The agent, which moves second
+	 * @param budgetMillis The time budget per move in milliseconds (0 if unlimited)
+	 * @throws IllegalArgumentException If budgetMillis is negative
+	 * @throws NullPointerException If game or one of the agents is null
+	 */
+	public GameDriver(final IConnect4 game, final IAgent first, final IAgent second, final long budgetMillis) throws IllegalArgumentException, NullPointerException {
+		if (game == null || first == null || second == null) {
+			throw new NullPointerException("Game and agents must not be null.");
+		}
+		if (budgetMillis < 0) {
+			throw new IllegalArgumentException("Invalid budget: " + budgetMillis + ". Budget must not be negative.");
+		}
+		this.game = game;
+		this.view = new ReadOnlyBoard(game.getBoard());
+		this.agents = new IAgent[] { first, second };
+		this.budgetMillis = budgetMillis;
+	}
+	
+	/**
+	 * Restart the game, and play it until it is finished, or an agent chooses an invalid move.
+	 * 
+	 * @return The outcome of the game: {@link Outcome#FIRST_PLAYER_WINS} if the first agent won,
+	 * {@link Outcome#SECOND_PLAYER_WINS}, {@link Outcome#TIE} or {@link Outcome#ILLEGAL_MOVE}
+	 */
+	public Outcome play() {
+		game.restart();
+		offender = null;
+		longestMoveNanos = 0;
+		
+		int current = 0;
+		while (true) {
+			IAgent agent = agents[current];
+			long start = System.nanoTime();
+			int col = agent.chooseMove(view, game.getDiscsToWin(), agents[1 - current], budgetMillis);
+			longestMoveNanos = Math.max(longestMoveNanos, System.nanoTime() - start);
+			
+			int status = game.tryInsertDisc(agent, col);
+			if (status < 0) {
+				offender = agent;
+				return Outcome.ILLEGAL_MOVE;
+			}
+			if (status == IConnect4.WON) {
+				return current == 0 ? Outcome.FIRST_PLAYER_WINS : Outcome.SECOND_PLAYER_WINS;
+			}
+			if (game.isTie()) {
+				return Outcome.TIE;
+			}
+			current = 1 - current;
+		}
+	}
+	
+	/**
+	 * Get the agent, which chose an invalid move in the latest game.
+	 * 
+	 * @return The agent, or null if all moves were valid
+	 */
+	public IAgent getOffender() {
+		return offender;
+	}
+	
+	/**
+	 * Get the longest time an agent took to choose a move in the latest game.
+	 * 
+	 * @return The time in nanoseconds
+	 */
+	public long getLongestMoveNanos() {
+		return longestMoveNanos;
+	}
+	
+	/**
+	 * Get the game.
+	 * 
+	 * @return The game
+	 */
+	public IConnect4 getGame() {
+		return game;
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.rakadjiev.connect4.agent;
+
+import java.util.SplittableRandom;
+
+import com.rakadjiev.connect4.IAgent;
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.IStrategy;
+import com.rakadjiev.connect4.impl.Connect4;
+
+/**
+ * An agent, which chooses its moves with a {@link IStrategy}.
+ * 
+ * Strategies may try moves on the game while choosing, so the agent copies the board into a game
+ * of its own before each move, and lets the strategy choose on the copy. The time budget is
+ * ignored, since strategies have their own search budgets, e.g. {@link com.rakadjiev.connect4.mcts.MctsStrategy}.
+ * 
+ * Like strategies, an agent must only be used by one thread at a time.
+ * 
+ * @author rakadjiev
+ */
+public class StrategyAgent implements IAgent {
+	
+	/** The name of the agent */
+	private final String name;
+	/** The disc color of the agent */
+	private final char disc;
+	/** The strategy */
+	private final IStrategy strategy;
+	/** The random number generator of the strategy */
+	private final SplittableRandom random;
+	
+	/** The copy of the game, on which the strategy chooses (null before the first move) */
+	private Connect4 game;
+	/** The opponent in the copy of the game */
+	private IPlayer opponent;
+	
+	/**
+	 * Create an agent, which is named after its strategy.
+	 * 
+	 * @param strategy The strategy
+	 * @param disc The disc color of the agent
+	 * @param seed The seed of the random number generator of the strategy
+	 * @throws NullPointerException If strategy is null
+	 */
+	public StrategyAgent(final IStrategy strategy, final char disc, final long seed) throws NullPointerException {
+		this(strategy == null ? null : strategy.getName(), disc, strategy, seed);
+	}
+	
+	/**
+	 * Create an agent.
+	 * 
+	 * @param name The name of the agent
+	 * @param disc The disc color of the agent
+	 * @param strategy The strategy
+	 * @param seed The seed of the random number generator of the strategy
+	 * @throws NullPointerException If name or strategy is null
+	 */
+	public StrategyAgent(final String name, final char disc, final IStrategy strategy, final long seed) throws NullPointerException {
+		if (name == null || strategy == null) {
+			throw new NullPointerException("Name and strategy must not be null.");
+		}
+		this.name = name;
+		this.disc = disc;
+		this.strategy = strategy;
+		this.random = new SplittableRandom(seed);
+	}
+	
+	@Override
+	public String getName() {
+		return name;
+	}
+	
+	@Override
+	public char getDisc() {
+		return disc;
+	}
+	
+	/**
+	 * Get the strategy of the agent.
+	 * 
+	 * @return The strategy
+	 */
+	public IStrategy getStrategy() {
+		return strategy;
+	}
+	
+	@Override
+	public int chooseMove(final IBoard board, final int discsToWin, final IPlayer opponent, final long budgetMillis) {
+		if (game == null || opponent != this.opponent || game.getDiscsToWin() != discsToWin
+				|| game.getBoard().getCols() != board.getCols() || game.getBoard().getRows() != board.getRows()) {
+			game = new Connect4(board.getCols(), board.getRows(), discsToWin, this, opponent);
+			this.opponent = opponent;
+		}
+		
+		// Copy the discs column by column, from the bottom up
+		game.restart();
+		IBoard copy = game.getBoard();
+		for (int col = 1; col <= board.getCols(); col++) {
+			for (int row = 1; row <= board.getRows() && board.isPopulated(col, row); row++) {
+				copy.tryInsertDisc(board.getDisc(col, row), col);
+			}
+		}
+		
+		return strategy.chooseMove(game, this, opponent, random);
+	}
+
+}
@@ -0,0 +1,239 @@
+package com.rakadjiev.connect4.book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.rakadjiev.connect4.solver.Position;
+
+/**
+ * A read-only opening book, i.e. a file with the exact scores of all positions up to a number of
+ * moves, as written by {@link OpeningBookGenerator}.
+ * 
+ * The file starts with a header of {@value #HEADER_BYTES} bytes:
+ * <pre>
+ * int  magic ({@value #MAGIC})
+ * int  version ({@value #VERSION})
+ * int  number of columns
+ * int  number of rows
+ * int  maximum number of moves of the positions
+ * int  unused (0)
+ * long number of entries
+ * </pre>
+ * followed by the entries, sorted by key. Each entry is a single <code>long</code>, which packs the
+ * canonical key of a position (see {@link Position#getCanonicalKey()}) in the upper bits, and its
+ * score in the lowest {@value #SCORE_BITS} bits. All numbers are big-endian.
+ * 
+ * The file is memory-mapped, and looked up with a binary search directly on the mapped bytes, so
+ * opening a book doesn't read it, lookups don't allocate, and several JVMs using the same book share
+ * its pages through the operating system's page cache. A book instance is thread-safe.
+ * 
+ * @author rakadjiev
+ */
+public class OpeningBook {
+	
+	/** The first bytes of every book file ("C4BK") */
+	public static final int MAGIC = 0x4334424B;
+	/** The version of the file format */
+	public static final int VERSION = 1;
+	/** The number of bytes of the header */
+	public static final int HEADER_BYTES = 32;
+	/** The number of bits of an entry, which store the score */
+	public static final int SCORE_BITS = 8;
+	/** The maximum number of key bits per position, so that packed entries are positive and sort like their keys */
+	public static final int MAX_KEY_BITS = Long.SIZE - 1 - SCORE_BITS;
+	
+	/** The score returned for positions, which aren't in the book */
+	public static final int NOT_FOUND = Integer.MIN_VALUE;
+	
+	/** The mapped entries (absolute reads only, so the buffer can be shared by threads) */
+	private final ByteBuffer entries;
+	/** The number of entries */
+	private final int count;
+	/** The number of columns of the board */
+	private final int cols;
+	/** The number of rows of the board */
+	private final int rows;
+	/** The maximum number of moves of the positions */
+	private final int maxMoves;
+	
+	/**
+	 * Open a book file.
+	 * 
+	 * @param file The book file
+	 * @throws IOException If the file can't be read, or isn't a valid book
+	 */
+	public OpeningBook(final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_BYTES) {
+				throw new IOException("Invalid opening book: " + file + ". File is too small.");
+			}
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Invalid opening book: " + file + ". Books larger than 2 GB can't be mapped.");
+			}
+			
+			// The mapping stays valid after the channel has been closed
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			buffer.order(ByteOrder.BIG_ENDIAN);
+			
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+				throw new IOException("Invalid opening book: " + file + ". Unknown file format.");
+			}
+			this.cols = buffer.getInt(8);
+			this.rows = buffer.getInt(12);
+			this.maxMoves = buffer.getInt(16);
+			long entryCount = buffer.getLong(24);
+			if (entryCount < 0 || HEADER_BYTES + entryCount * Long.BYTES != size) {
+				throw new IOException("Invalid opening book: " + file + ". Number of entries doesn't match the file size.");
+			}
+			this.count = (int) entryCount;
+			
+			buffer.position(HEADER_BYTES);
+			this.entries = buffer.slice();
+		}
+	}
+	
+	/**
+	 * Get the score of a position.
+	 * 
+	 * @param position The position
+	 * @return The score of the position (see {@link com.rakadjiev.connect4.solver.SolverResult}), or
+	 * {@link #NOT_FOUND} if the position isn't in the book
+	 */
+	public int getScore(final Position position) {
+		if (position.getCols() != cols || position.getRows() != rows || position.getMoves() > maxMoves) {
+			return NOT_FOUND;
+		}
+		return getScore(position.getCanonicalKey());
+	}
+	
+	/**
+	 * Get the score of a position by its canonical key.
+	 * 
+	 * @param canonicalKey The canonical key of the position
+	 * @return The score of the position, or {@link #NOT_FOUND} if the position isn't in the book
+	 */
+	public int getScore(final long canonicalKey) {
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			long entry = entries.getLong(middle << 3);
+			long key = entry >>> SCORE_BITS;
+			if (key < canonicalKey) {
+				low = middle + 1;
+			} else if (key > canonicalKey) {
+				high = middle - 1;
+			} else {
+				return unpackScore(entry);
+			}
+		}
+		return NOT_FOUND;
+	}
+	
+	/**
+	 * Get the best move of a position from the scores of the positions after each move.
+	 * Only positions with fewer moves than the book's maximum have book moves.
+	 * 
+	 * @param position The position, which must not be won yet
+	 * @return The best move (1-based column index), or 0 if the scores of the moves aren't in the book
+	 */
+	public int getBestMove(final Position position) {
+		int bestMove = 0;
+		int bestScore = Integer.MIN_VALUE;
+		
+		for (int col = 1; col <= position.getCols(); col++) {
+			if (!position.canPlay(col)) {
+				continue;
+			}
+			
+			int score;
+			if (position.isWinningMove(col)) {
+				score = (position.getSize() + 1 - position.getMoves()) / 2;
+			} else {
+				Position child = new Position(position);
+				child.play(col);
+				if (child.getMoves() == child.getSize()) {
+					score = 0;
+				} else {
+					int childScore = getScore(child);
+					if (childScore == NOT_FOUND) {
+						return 0;
+					}
+					score = -childScore;
+				}
+			}
+			
+			if (score > bestScore) {
+				bestScore = score;
+				bestMove = col;
+			}
+		}
+		
+		return bestMove;
+	}
+	
+	/**
+	 * Pack a key and a score into an entry.
+	 * 
+	 * @param canonicalKey The canonical key of the position
+	 * @param score The score of the position
+	 * @return The entry
+	 */
+	static long pack(final long canonicalKey, final int score) {
+		return (canonicalKey << SCORE_BITS) | (score & ((1 << SCORE_BITS) - 1));
+	}
+	
+	/**
+	 * Get the score of an entry.
+	 * 
+	 * @param entry The entry
+	 * @return The score
+	 */
+	static int unpackScore(final long entry) {
+		// Sign-extend the lowest bits
+		return (byte) entry;
+	}
+	
+	/**
+	 * Get the number of positions in the book.
+	 * 
+	 * @return The number of positions
+	 */
+	public int size() {
+		return count;
+	}
+	
+	/**
+	 * Get the number of columns of the book's board.
+	 * 
+	 * @return The number of columns
+	 */
+	public int getCols() {
+		return cols;
+	}
+	
+	/**
+	 * Get the number of rows of the book's board.
+	 * 
+	 * @return The number of rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+	
+	/**
+	 * Get the maximum number of moves of the positions in the book.
+	 * 
+	 * @return The maximum number of moves
+	 */
+	public int getMaxMoves() {
+		return maxMoves;
+	}
+
+}
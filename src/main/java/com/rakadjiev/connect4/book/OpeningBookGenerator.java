@@ -0,0 +1,161 @@
+package com.rakadjiev.connect4.book;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.rakadjiev.connect4.impl.Board;
+import com.rakadjiev.connect4.solver.Position;
+import com.rakadjiev.connect4.solver.Solver;
+
+/**
+ * Generates {@link OpeningBook} files, by solving all positions up to a number of moves.
+ * 
+ * Positions are enumerated depth-first from the empty board. Positions, which can be reached by
+ * different orders of moves, and mirror images of positions are only solved once. Positions, in
+ * which a player has already won, or the board is full, aren't stored.
+ * 
+ * Solving early positions exactly is expensive, so books of many moves take a long time to generate.
+ * 
+ * @author rakadjiev
+ */
+public class OpeningBookGenerator {
+	
+	/** The solver */
+	private final Solver solver;
+	
+	/** The canonical keys of all visited positions */
+	private Set<Long> visited;
+	/** The entries found so far */
+	private long[] entries;
+	/** The number of entries found so far */
+	private int count;
+	
+	/**
+	 * Create a generator, which solves the positions with the specified solver.
+	 * 
+	 * @param solver The solver, which must not have a search budget, so that all scores are exact
+	 * @throws IllegalArgumentException If the solver has a search budget
+	 * @throws NullPointerException If solver is null
+	 */
+	public OpeningBookGenerator(final Solver solver) throws IllegalArgumentException, NullPointerException {
+		if (solver == null) {
+			throw new NullPointerException("Solver must not be null.");
+		}
+		if (solver.getMaxNodes() != 0 || solver.getMaxMillis() != 0) {
+			throw new IllegalArgumentException("Solver must not have a search budget.");
+		}
+		this.solver = solver;
+	}
+	
+	/**
+	 * Solve all positions up to the specified number of moves, and write them to a book file.
+	 * 
+	 * @param cols The number of columns of the board
+	 * @param rows The number of rows of the board
+	 * @param maxMoves The maximum number of moves of the positions
+	 * @param file The book file to write. An existing file is overwritten.
+	 * @return The number of positions in the book
+	 * @throws IllegalArgumentException If the board is too large for a book, or maxMoves is negative
+	 * @throws IOException If the file can't be written
+	 */
+	public int generate(final int cols, final int rows, final int maxMoves, final Path file) throws IllegalArgumentException, IOException {
+		if ((long) cols * (rows + 1) > OpeningBook.MAX_KEY_BITS) {
+			throw new IllegalArgumentException("Invalid board size: " + cols + "x" + rows + ". Book keys must fit into " + OpeningBook.MAX_KEY_BITS + " bits, i.e. cols * (rows + 1) <= " + OpeningBook.MAX_KEY_BITS);
+		}
+		if (maxMoves < 0) {
+			throw new IllegalArgumentException("Invalid number of moves: " + maxMoves + ". The number of moves must not be negative.");
+		}
+		
+		visited = new HashSet<>();
+		entries = new long[1024];
+		count = 0;
+		visit(new Position(cols, rows), maxMoves);
+		
+		long[] sorted = Arrays.copyOf(entries, count);
+		Arrays.sort(sorted);
+		visited = null;
+		entries = null;
+		
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+			out.writeInt(OpeningBook.MAGIC);
+			out.writeInt(OpeningBook.VERSION);
+			out.writeInt(cols);
+			out.writeInt(rows);
+			out.writeInt(maxMoves);
+			out.writeInt(0);
+			out.writeLong(sorted.length);
+			for (long entry : sorted) {
+				out.writeLong(entry);
+			}
+		}
+		
+		return sorted.length;
+	}
+	
+	/**
+	 * Solve a position and all positions reachable from it up to the maximum number of moves.
+	 * 
+	 * @param position The position, which isn't won, and isn't full
+	 * @param maxMoves The maximum number of moves of the positions
+	 */
+	private void visit(final Position position, final int maxMoves) {
+		long canonicalKey = position.getCanonicalKey();
+		if (!visited.add(canonicalKey)) {
+			return;
+		}
+		
+		if (count == entries.length) {
+			entries = Arrays.copyOf(entries, count * 2);
+		}
+		entries[count++] = OpeningBook.pack(canonicalKey, solver.solve(position).getScore());
+		
+		if (position.getMoves() == maxMoves) {
+			return;
+		}
+		for (int col = 1; col <= position.getCols(); col++) {
+			if (position.canPlay(col) && !position.isWinningMove(col)) {
+				Position child = new Position(position);
+				child.play(col);
+				if (child.getMoves() < child.getSize()) {
+					visit(child, maxMoves);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Generates an opening book.
+	 * 
+	 * Usage: <code>OpeningBookGenerator file [maxMoves] [cols] [rows]</code>
+	 * 
+	 * @param args The command-line arguments
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err.println("Usage: OpeningBookGenerator file [maxMoves] [cols] [rows]");
+			return;
+		}
+		try {
+			Path file = Paths.get(args[0]);
+			int maxMoves = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+			int cols = args.length > 2 ? Integer.parseInt(args[2]) : Board.COLS;
+			int rows = args.length > 3 ? Integer.parseInt(args[3]) : Board.ROWS;
+			
+			long start = System.nanoTime();
+			int count = new OpeningBookGenerator(new Solver()).generate(cols, rows, maxMoves, file);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			
+			System.out.println(String.format("Wrote %d positions to %s in %.1f s", count, file, seconds));
+		} catch (IllegalArgumentException | IOException e) {
+			System.err.println(e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+package com.rakadjiev.connect4.cache;
+
+import java.util.Arrays;
+
+/**
+ * Estimates how often keys have been used recently, in a fixed amount of memory (a count-min sketch).
+ * 
+ * Each key is counted in 4 counters of 4 bits, chosen by different hashes of the key, and its
+ * frequency is the smallest of them, so collisions with other keys can only overestimate it.
+ * Counters saturate at 15. Once the number of increments reaches 10 times the number of counted
+ * keys, all counters are halved, so the estimates follow changes in the popularity of keys.
+ * 
+ * @author rakadjiev
+ */
+final class FrequencySketch {
+	
+	/** The maximum value of a counter */
+	private static final int MAX_COUNT = 15;
+	/** The multipliers, which derive the 4 counters of a key from its hash */
+	private static final long[] SEEDS = { 0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L };
+	
+	/** The counters, 16 per long */
+	private final long[] table;
+	/** The number of increments after which all counters are halved */
+	private final int sampleSize;
+	/** The number of increments since the counters have been halved */
+	private int additions;
+	
+	/**
+	 * Create a sketch for the specified number of keys.
+	 * 
+	 * @param keys The number of keys the sketch should distinguish (at least 1)
+	 */
+	FrequencySketch(final int keys) {
+		int length = Integer.highestOneBit(Math.max(keys, 16) - 1) << 1;
+		this.table = new long[Math.min(length, 1 << 30)];
+		this.sampleSize = (int) Math.min(10L * keys, Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Get the estimated frequency of a key.
+	 * 
+	 * @param key The key
+	 * @return The estimated number of recent uses (between 0 and 15)
+	 */
+	int frequency(final long key) {
+		long hash = spread(key);
+		int frequency = MAX_COUNT;
+		for (long seed : SEEDS) {
+			long h = hash * seed;
+			int index = (int) (h >>> 32) & (table.length - 1);
+			int shift = ((int) (h >>> 16) & 0xF) << 2;
+			frequency = Math.min(frequency, (int) (table[index] >>> shift) & MAX_COUNT);
+		}
+		return frequency;
+	}
+	
+	/**
+	 * Count a use of a key.
+	 * 
+	 * @param key The key
+	 */
+	void increment(final long key) {
+		long hash = spread(key);
+		boolean added = false;
+		for (long seed : SEEDS) {
+			long h = hash * seed;
+			int index = (int) (h >>> 32) & (table.length - 1);
+			int shift = ((int) (h >>> 16) & 0xF) << 2;
+			if (((table[index] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+				table[index] += 1L << shift;
+				added = true;
+			}
+		}
+		
+		if (added && ++additions == sampleSize) {
+			halve();
+		}
+	}
+	
+	/**
+	 * Halve all counters, so that old uses count less than recent ones.
+	 */
+	private void halve() {
+		for (int i = 0; i < table.length; i++) {
+			// Shifting moves the lowest bit of each counter into the highest bit of the counter below, which is masked out
+			table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+		}
+		additions >>>= 1;
+	}
+	
+	/**
+	 * Reset all counters.
+	 */
+	void clear() {
+		Arrays.fill(table, 0L);
+		additions = 0;
+	}
+	
+	/**
+	 * Mix the bits of a key, since position keys have very regular bits (SplitMix64 finalizer).
+	 * 
+	 * @param key The key
+	 * @return The hash of the key
+	 */
+	private static long spread(final long key) {
+		long z = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+	
+}
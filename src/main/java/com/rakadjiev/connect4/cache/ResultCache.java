@@ -0,0 +1,461 @@
+package com.rakadjiev.connect4.cache;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+/**
+ * A bounded cache of results, keyed by 64-bit position keys, which lets repeated queries of the
+ * same positions skip their evaluation.
+ * 
+ * The cache holds up to a fixed number of entries. Once it is full, the {@link EvictionPolicy}
+ * decides which entry is removed to make room for a new one. The keys, the hash index and the
+ * recency lists are kept in primitive arrays, so apart from the values themselves, the cache
+ * doesn't allocate anything after construction.
+ * 
+ * The counters of hits, misses and evictions are reset when the cache is cleared.
+ * A cache instance is not thread-safe.
+ * 
+ * @param <V> The type of the results
+ * @author rakadjiev
+ */
+public class ResultCache<V> {
+	
+	/**
+	 * Decides which entry is removed, when a new entry is added to a full cache.
+	 */
+	public enum EvictionPolicy {
+		/** The least recently used entry is removed */
+		LRU,
+		/**
+		 * New entries enter a small window of recently used entries. An entry leaving the window only
+		 * replaces an entry of the main part of the cache, if it has been used more often recently, so
+		 * that a burst of positions queried once doesn't push out frequently queried positions (W-TinyLFU)
+		 */
+		W_TINY_LFU
+	}
+	
+	/** The approximate number of bytes used per entry, not counting the memory of the value */
+	public static final int BYTES_PER_ENTRY = 40;
+	/** The maximum number of entries, which keeps the size of the hash index within the limits of arrays */
+	public static final int MAX_CAPACITY = 1 << 28;
+	
+	/** The share of the capacity used for the window of the W-TinyLFU policy, in percent */
+	private static final int WINDOW_PERCENT = 1;
+	/** The share of the main part of the cache used for frequently used entries, in percent */
+	private static final int PROTECTED_PERCENT = 80;
+	
+	/** The segment of new entries (the whole cache with the LRU policy) */
+	private static final int WINDOW = 0;
+	/** The segment of the main part of the cache, which holds entries used once since leaving the window */
+	private static final int PROBATION = 1;
+	/** The segment of the main part of the cache, which holds entries used again since leaving the window */
+	private static final int PROTECTED = 2;
+	
+	/** The value of an empty slot of the hash index */
+	private static final int NO_SLOT = -1;
+	
+	/** The eviction policy */
+	private final EvictionPolicy policy;
+	/** The maximum number of entries */
+	private final int capacity;
+	/** The maximum number of entries in the window and protected segments */
+	private final int maxWindow;
+	private final int maxProtected;
+	
+	/** The keys of the entries, by slot */
+	private final long[] keys;
+	/** The values of the entries, by slot */
+	private final Object[] values;
+	/** The segments of the entries, by slot */
+	private final byte[] segments;
+	/**
+	 * The links of the recency list of each segment, by slot. The lists are circular, and the slots
+	 * after the entries are their heads: the entry after the head is the most recently used one.
+	 */
+	private final int[] previous;
+	private final int[] next;
+	/** The number of entries in each segment */
+	private final int[] sizes = new int[3];
+	/** The slots of the entries, by hash of their keys (open addressing with linear probing) */
+	private final int[] index;
+	/** The recent frequencies of keys (null with the LRU policy) */
+	private final FrequencySketch sketch;
+	
+	/** The number of entries, which occupy the slots from 0 */
+	private int size;
+	
+	/** The number of lookups, which found an entry */
+	private long hits;
+	/** The number of lookups, which didn't find an entry */
+	private long misses;
+	/** The number of entries removed to make room for others */
+	private long evictions;
+	
+	/**
+	 * Create a cache, which holds up to the specified number of entries.
+	 * 
+	 * @param capacity The maximum number of entries
+	 * @param policy The eviction policy
+	 * @throws IllegalArgumentException If capacity is less than 1, or too large for the hash index
+	 * @throws NullPointerException If policy is null
+	 */
+	public ResultCache(final int capacity, final EvictionPolicy policy) throws IllegalArgumentException, NullPointerException {
+		if (capacity < 1 || capacity > MAX_CAPACITY) {
+			throw new IllegalArgumentException("Invalid capacity: " + capacity + ". Capacity must be between 1 and " + MAX_CAPACITY + ".");
+		}
+		if (policy == null) {
+			throw new NullPointerException("Eviction policy must not be null.");
+		}
+		
+		this.policy = policy;
+		this.capacity = capacity;
+		if (policy == EvictionPolicy.LRU) {
+			this.maxWindow = capacity;
+			this.maxProtected = 0;
+			this.sketch = null;
+		} else {
+			this.maxWindow = Math.max(1, (int) ((long) capacity * WINDOW_PERCENT / 100));
+			this.maxProtected = (int) ((long) (capacity - maxWindow) * PROTECTED_PERCENT / 100);
+			this.sketch = new FrequencySketch(capacity);
+		}
+		
+		this.keys = new long[capacity];
+		this.values = new Object[capacity];
+		this.segments = new byte[capacity];
+		this.previous = new int[capacity + 3];
+		this.next = new int[capacity + 3];
+		// The index is at most half full, so that probe sequences stay short
+		this.index = new int[Integer.highestOneBit(capacity) << 2];
+		
+		clear();
+	}
+	
+	/**
+	 * Create a cache, which uses at most approximately the specified amount of memory.
+	 * 
+	 * @param maxBytes The maximum memory to use in bytes
+	 * @param bytesPerValue The approximate memory of a value in bytes
+	 * @param policy The eviction policy
+	 * @param <V> The type of the results
+	 * @return The cache
+	 * @throws IllegalArgumentException If the memory doesn't fit a single entry
+	 * @throws NullPointerException If policy is null
+	 */
+	public static <V> ResultCache<V> withMaxBytes(final long maxBytes, final int bytesPerValue, final EvictionPolicy policy) throws IllegalArgumentException, NullPointerException {
+		long bytesPerEntry = BYTES_PER_ENTRY + Math.max(0, bytesPerValue);
+		if (maxBytes < bytesPerEntry) {
+			throw new IllegalArgumentException("Invalid memory size: " + maxBytes + ". Memory must fit at least one entry (" + bytesPerEntry + " bytes).");
+		}
+		return new ResultCache<>((int) Math.min(maxBytes / bytesPerEntry, MAX_CAPACITY), policy);
+	}
+	
+	/**
+	 * Look up the result of a position.
+	 * 
+	 * @param key The key of the position
+	 * @return The result, or null if the position isn't in the cache
+	 */
+	public V get(final long key) {
+		if (sketch != null) {
+			sketch.increment(key);
+		}
+		
+		int slot = find(key);
+		if (slot == NO_SLOT) {
+			misses++;
+			return null;
+		}
+		
+		hits++;
+		touch(slot);
+		return value(slot);
+	}
+	
+	/**
+	 * Look up the result of a position, and evaluate and store it, if it isn't in the cache.
+	 * 
+	 * @param key The key of the position
+	 * @param evaluation Evaluates the position, if it isn't in the cache
+	 * @return The cached or evaluated result
+	 * @throws NullPointerException If the evaluation returns null
+	 */
+	public V computeIfAbsent(final long key, final LongFunction<? extends V> evaluation) throws NullPointerException {
+		V value = get(key);
+		if (value == null) {
+			value = evaluation.apply(key);
+			put(key, value);
+		}
+		return value;
+	}
+	
+	/**
+	 * Store the result of a position, replacing its previous result. Only lookups count as uses of
+	 * the position for the eviction policy, so storing a result after a failed lookup doesn't count twice.
+	 * 
+	 * @param key The key of the position
+	 * @param value The result
+	 * @throws NullPointerException If value is null
+	 */
+	public void put(final long key, final V value) throws NullPointerException {
+		if (value == null) {
+			throw new NullPointerException("Cached result must not be null.");
+		}
+		
+		int slot = find(key);
+		if (slot != NO_SLOT) {
+			values[slot] = value;
+			touch(slot);
+			return;
+		}
+		
+		slot = size < capacity ? size++ : evict();
+		keys[slot] = key;
+		values[slot] = value;
+		insertIndex(slot);
+		link(slot, WINDOW);
+		
+		// An entry leaving the window moves to the main part, which has room as long as the cache isn't full
+		if (sizes[WINDOW] > maxWindow) {
+			int candidate = previous[capacity + WINDOW];
+			unlink(candidate);
+			link(candidate, PROBATION);
+		}
+	}
+	
+	/**
+	 * Remove all entries and reset the counters.
+	 */
+	public void clear() {
+		Arrays.fill(values, null);
+		Arrays.fill(index, NO_SLOT);
+		for (int segment = WINDOW; segment <= PROTECTED; segment++) {
+			int head = capacity + segment;
+			previous[head] = head;
+			next[head] = head;
+			sizes[segment] = 0;
+		}
+		if (sketch != null) {
+			sketch.clear();
+		}
+		size = 0;
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+	
+	/**
+	 * Remove an entry from the full cache.
+	 * 
+	 * @return The slot of the removed entry, which is free to be reused
+	 */
+	private int evict() {
+		// The least recently used entry of the window competes with the least recently used entry of the main part
+		int candidate = previous[capacity + WINDOW];
+		int victim = sizes[PROBATION] > 0 ? previous[capacity + PROBATION] : previous[capacity + PROTECTED];
+		
+		int evicted = candidate;
+		if (sketch != null && sizes[PROBATION] + sizes[PROTECTED] > 0
+				&& sketch.frequency(keys[candidate]) > sketch.frequency(keys[victim])) {
+			evicted = victim;
+			unlink(candidate);
+			link(candidate, PROBATION);
+		}
+		
+		unlink(evicted);
+		removeIndex(evicted);
+		values[evicted] = null;
+		evictions++;
+		return evicted;
+	}
+	
+	/**
+	 * Update the recency of an entry, which has been used.
+	 * 
+	 * @param slot The slot of the entry
+	 */
+	private void touch(final int slot) {
+		int segment = segments[slot];
+		unlink(slot);
+		if (segment != PROBATION) {
+			link(slot, segment);
+			return;
+		}
+		
+		// Entries used again in the main part are protected, which demotes the least recently used protected entry
+		link(slot, PROTECTED);
+		if (sizes[PROTECTED] > maxProtected) {
+			int demoted = previous[capacity + PROTECTED];
+			unlink(demoted);
+			link(demoted, PROBATION);
+		}
+	}
+	
+	/**
+	 * Insert an entry into a segment as its most recently used entry.
+	 * 
+	 * @param slot The slot of the entry
+	 * @param segment The segment
+	 */
+	private void link(final int slot, final int segment) {
+		int head = capacity + segment;
+		int first = next[head];
+		previous[slot] = head;
+		next[slot] = first;
+		previous[first] = slot;
+		next[head] = slot;
+		segments[slot] = (byte) segment;
+		sizes[segment]++;
+	}
+	
+	/**
+	 * Remove an entry from its segment.
+	 * 
+	 * @param slot The slot of the entry
+	 */
+	private void unlink(final int slot) {
+		next[previous[slot]] = next[slot];
+		previous[next[slot]] = previous[slot];
+		sizes[segments[slot]]--;
+	}
+	
+	/**
+	 * Find the slot of a key.
+	 * 
+	 * @param key The key
+	 * @return The slot of the entry, or {@link #NO_SLOT} if the key isn't in the cache
+	 */
+	private int find(final long key) {
+		int mask = index.length - 1;
+		for (int i = hash(key); index[i] != NO_SLOT; i = (i + 1) & mask) {
+			if (keys[index[i]] == key) {
+				return index[i];
+			}
+		}
+		return NO_SLOT;
+	}
+	
+	/**
+	 * Add an entry to the hash index.
+	 * 
+	 * @param slot The slot of the entry
+	 */
+	private void insertIndex(final int slot) {
+		int mask = index.length - 1;
+		int i = hash(keys[slot]);
+		while (index[i] != NO_SLOT) {
+			i = (i + 1) & mask;
+		}
+		index[i] = slot;
+	}
+	
+	/**
+	 * Remove an entry from the hash index, and move later entries of the probe sequence back into
+	 * the gap, so that lookups don't stop at it.
+	 * 
+	 * @param slot The slot of the entry
+	 */
+	private void removeIndex(final int slot) {
+		int mask = index.length - 1;
+		int gap = hash(keys[slot]);
+		while (index[gap] != slot) {
+			gap = (gap + 1) & mask;
+		}
+		
+		for (int i = (gap + 1) & mask; index[i] != NO_SLOT; i = (i + 1) & mask) {
+			int home = hash(keys[index[i]]);
+			// The entry can move to the gap, unless its home lies cyclically between the gap and its position
+			if (((i - home) & mask) >= ((i - gap) & mask)) {
+				index[gap] = index[i];
+				gap = i;
+			}
+		}
+		index[gap] = NO_SLOT;
+	}
+	
+	/**
+	 * Get the index position of a key. Position keys have very regular bits, so they are scrambled by
+	 * multiplying them with a large odd constant, and the upper half of the product is used.
+	 * 
+	 * @param key The key
+	 * @return The index position
+	 */
+	private int hash(final long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & (index.length - 1);
+	}
+	
+	/**
+	 * Get the value of an entry.
+	 * 
+	 * @param slot The slot of the entry
+	 * @return The value
+	 */
+	@SuppressWarnings("unchecked")
+	private V value(final int slot) {
+		return (V) values[slot];
+	}
+	
+	/**
+	 * Get the eviction policy.
+	 * 
+	 * @return The eviction policy
+	 */
+	public EvictionPolicy getPolicy() {
+		return policy;
+	}
+	
+	/**
+	 * Get the maximum number of entries.
+	 * 
+	 * @return The maximum number of entries
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * Get the number of entries.
+	 * 
+	 * @return The number of entries
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Get the number of lookups, which found an entry, since the cache has been created or cleared.
+	 * 
+	 * @return The number of hits
+	 */
+	public long getHits() {
+		return hits;
+	}
+	
+	/**
+	 * Get the number of lookups, which didn't find an entry, since the cache has been created or cleared.
+	 * 
+	 * @return The number of misses
+	 */
+	public long getMisses() {
+		return misses;
+	}
+	
+	/**
+	 * Get the share of lookups, which found an entry, since the cache has been created or cleared.
+	 * 
+	 * @return The hit rate between 0 and 1
+	 */
+	public double getHitRate() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+	
+	/**
+	 * Get the number of entries removed to make room for others, since the cache has been created or cleared.
+	 * 
+	 * @return The number of evictions
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+}
@@ -0,0 +1,181 @@
+package com.rakadjiev.connect4.evaluator;
+
+import com.rakadjiev.connect4.IEvaluator;
+import com.rakadjiev.connect4.solver.Position;
+
+/**
+ * An evaluator, which scores positions by the threats of both players, i.e. the empty cells which
+ * would complete a sequence of 4 connected discs of a player.
+ * 
+ * For each player, the score adds up:
+ * <ul>
+ * <li>every threat</li>
+ * <li>every threat in a row of the player's parity: near the end of a game, columns are filled up
+ * alternately, so the first player gets the cells in odd rows, and the second player the cells
+ * in even rows (counting from 1 at the bottom). Threats in those rows tend to win by zugzwang.</li>
+ * <li>every threat directly above another threat of the same player, since the lower threat can't
+ * be blocked without giving away the upper one</li>
+ * <li>every disc in the center column (or the two center columns), which is part of the most sequences</li>
+ * </ul>
+ * The score of the position is the difference of the players' scores. A position, in which the
+ * current player can win right away, or in which the opponent has two playable threats, is scored
+ * close to {@link IEvaluator#MAX_SCORE}. All terms are computed with a few bitwise operations over
+ * the bitboards of the position.
+ * 
+ * @author rakadjiev
+ */
+public class ThreatEvaluator implements IEvaluator {
+	
+	/** The default weight of a threat */
+	public static final int DEFAULT_THREAT_WEIGHT = 8;
+	/** The default weight of a threat in a row of the player's parity */
+	public static final int DEFAULT_PARITY_WEIGHT = 8;
+	/** The default weight of a threat directly above another threat */
+	public static final int DEFAULT_STACKED_WEIGHT = 24;
+	/** The default weight of a disc in a center column */
+	public static final int DEFAULT_CENTER_WEIGHT = 3;
+	/** The maximum weight, so that even 64 cells with all weights stay far below the score of a win */
+	public static final int MAX_WEIGHT = 1000;
+	
+	/** The weight of a threat */
+	private final int threatWeight;
+	/** The weight of a threat in a row of the player's parity */
+	private final int parityWeight;
+	/** The weight of a threat directly above another threat */
+	private final int stackedWeight;
+	/** The weight of a disc in a center column */
+	private final int centerWeight;
+	
+	/** The number of columns of the latest board */
+	private int cols;
+	/** The number of rows of the latest board */
+	private int rows;
+	/** The bitboard of the cells in odd rows (1-based index) of the latest board */
+	private long oddRows;
+	/** The bitboard of the cells in even rows (1-based index) of the latest board */
+	private long evenRows;
+	/** The bitboard of the cells in the center columns of the latest board */
+	private long center;
+	
+	/**
+	 * Create an evaluator with the default weights.
+	 */
+	public ThreatEvaluator() {
+		this(DEFAULT_THREAT_WEIGHT, DEFAULT_PARITY_WEIGHT, DEFAULT_STACKED_WEIGHT, DEFAULT_CENTER_WEIGHT);
+	}
+	
+	/**
+	 * Create an evaluator with the specified weights.
+	 * 
+	 * @param threatWeight The weight of a threat
+	 * @param parityWeight The additional weight of a threat in a row of the player's parity
+	 * @param stackedWeight The additional weight of a threat directly above another threat
+	 * @param centerWeight The weight of a disc in a center column
+	 * @throws IllegalArgumentException If a weight is negative or greater than {@value #MAX_WEIGHT}
+	 */
+	public ThreatEvaluator(final int threatWeight, final int parityWeight, final int stackedWeight, final int centerWeight) throws IllegalArgumentException {
+		checkWeight(threatWeight);
+		checkWeight(parityWeight);
+		checkWeight(stackedWeight);
+		checkWeight(centerWeight);
+		this.threatWeight = threatWeight;
+		this.parityWeight = parityWeight;
+		this.stackedWeight = stackedWeight;
+		this.centerWeight = centerWeight;
+	}
+	
+	@Override
+	public String getName() {
+		return "threats";
+	}
+	
+	@Override
+	public int evaluate(final Position position) {
+		if (position.getCols() != cols || position.getRows() != rows) {
+			initMasks(position.getCols(), position.getRows());
+		}
+		
+		long playable = position.getPlayableCells();
+		long threats = position.getThreats();
+		if ((threats & playable) != 0) {
+			// The current player wins with the next move
+			return MAX_SCORE - 1;
+		}
+		long opponentThreats = position.getOpponentThreats();
+		long forced = opponentThreats & playable;
+		if ((forced & (forced - 1)) != 0) {
+			// The opponent has two winning moves, and only one of them can be blocked
+			return -(MAX_SCORE - 2);
+		}
+		
+		// The first player is the one to move if the number of discs is even
+		boolean currentIsFirst = position.getMoves() % 2 == 0;
+		long currentParity = currentIsFirst ? oddRows : evenRows;
+		long opponentParity = currentIsFirst ? evenRows : oddRows;
+		
+		return score(threats, currentParity, position.getCurrentDiscs())
+				- score(opponentThreats, opponentParity, position.getOpponentDiscs());
+	}
+	
+	/**
+	 * Score the threats and discs of a player.
+	 * 
+	 * @param threats The bitboard of the player's threats
+	 * @param parity The bitboard of the rows of the player's parity
+	 * @param discs The bitboard of the player's discs
+	 * @return The score of the player
+	 */
+	private int score(final long threats, final long parity, final long discs) {
+		return threatWeight * Long.bitCount(threats)
+				+ parityWeight * Long.bitCount(threats & parity)
+				+ stackedWeight * Long.bitCount(threats & (threats << 1))
+				+ centerWeight * Long.bitCount(discs & center);
+	}
+	
+	/**
+	 * Check if a weight is within the allowed range.
+	 * 
+	 * @param weight The weight
+	 * @throws IllegalArgumentException If the weight is negative or greater than {@value #MAX_WEIGHT}
+	 */
+	private static void checkWeight(final int weight) throws IllegalArgumentException {
+		if (weight < 0 || weight > MAX_WEIGHT) {
+			throw new IllegalArgumentException("Invalid weight: " + weight + ". Weight must be between 0 and " + MAX_WEIGHT + ".");
+		}
+	}
+	
+	/**
+	 * Compute the masks of a board size.
+	 * 
+	 * @param cols The number of columns
+	 * @param rows The number of rows
+	 */
+	private void initMasks(final int cols, final int rows) {
+		int height = rows + 1;
+		long columnOdd = 0L;
+		long columnEven = 0L;
+		for (int j = 0; j < rows; j++) {
+			// Row j (0-based index) is the odd row j + 1
+			if (j % 2 == 0) {
+				columnOdd |= 1L << j;
+			} else {
+				columnEven |= 1L << j;
+			}
+		}
+		
+		oddRows = 0L;
+		evenRows = 0L;
+		for (int i = 0; i < cols; i++) {
+			oddRows |= columnOdd << (i * height);
+			evenRows |= columnEven << (i * height);
+		}
+		
+		long column = (1L << rows) - 1;
+		center = column << ((cols - 1) / 2 * height);
+		center |= column << (cols / 2 * height);
+		
+		this.cols = cols;
+		this.rows = rows;
+	}
+	
+}
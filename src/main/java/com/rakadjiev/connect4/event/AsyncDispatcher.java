@@ -0,0 +1,340 @@
+package com.rakadjiev.connect4.event;
+
+import java.io.Closeable;
+import java.util.Arrays;
+
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IGameListener;
+import com.rakadjiev.connect4.IPlayer;
+
+/**
+ * A listener, which passes the events of games to another listener on its own thread, so that a
+ * slow listener, e.g. one writing to a database, never delays the moves.
+ * 
+ * Events are queued in a buffer of preallocated arrays, so queueing doesn't allocate, and only
+ * takes a short lock. The dispatcher thread swaps the buffer with a second one, and passes all
+ * events of the batch to the listener, while new events are queued. If the buffer is full, because
+ * the listener can't keep up, new events are dropped and counted, instead of blocking the games.
+ * 
+ * The events of each game are passed in the order they have been fired. Games are passed by
+ * reference, and may have changed further by the time their events are passed, so the listener
+ * should rely on the arguments of the events, rather than the state of the game.
+ * An instance can be registered with any number of games, and is thread-safe.
+ * 
+ * @author rakadjiev
+ */
+public class AsyncDispatcher implements IGameListener, Closeable {
+	
+	/** The number of events, which can be queued, if no capacity is specified */
+	public static final int DEFAULT_CAPACITY = 64 * 1024;
+	
+	/** Event types */
+	private static final byte MOVE = 0;
+	private static final byte WON = 1;
+	private static final byte TIE = 2;
+	private static final byte UNDO = 3;
+	private static final byte RESTART = 4;
+	
+	/** The listener, to which the events are passed */
+	private final IGameListener listener;
+	/** The dispatcher thread */
+	private final Thread thread;
+	
+	/** The batch, into which events are queued, guarded by the dispatcher's monitor like the fields below */
+	private Batch pending;
+	/** The empty batch, which replaces the pending one when it is dispatched, or null while it is being dispatched */
+	private Batch spare;
+	/** If the dispatcher thread waits for events */
+	private boolean waiting;
+	/** If the dispatcher has been closed */
+	private boolean closed;
+	/** The number of queued events */
+	private long queued;
+	/** The number of dispatched events */
+	private long dispatched;
+	/** The number of dropped events */
+	private long dropped;
+	/** The number of events, for which the listener has thrown an exception, only written by the dispatcher thread */
+	private volatile long failures;
+	
+	/**
+	 * Create a dispatcher, which can queue {@value #DEFAULT_CAPACITY} events.
+	 * 
+	 * @param listener The listener, to which the events are passed
+	 * @throws NullPointerException If listener is null
+	 */
+	public AsyncDispatcher(final IGameListener listener) throws NullPointerException {
+		this(listener, DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Create a dispatcher, and start its thread.
+	 * 
+	 * @param listener The listener, to which the events are passed
+	 * @param capacity The number of events, which can be queued
+	 * @throws IllegalArgumentException If capacity is less than 1
+	 * @throws NullPointerException If listener is null
+	 */
+	public AsyncDispatcher(final IGameListener listener, final int capacity) throws IllegalArgumentException, NullPointerException {
+		if (listener == null) {
+			throw new NullPointerException("Listener must not be null.");
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Invalid capacity: " + capacity + ". Capacity must be at least 1.");
+		}
+		this.listener = listener;
+		this.pending = new Batch(capacity);
+		this.spare = new Batch(capacity);
+		this.thread = new Thread(this::dispatch, "game-listener");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+	
+	@Override
+	public void onMove(final IConnect4 game, final IPlayer player, final int col, final int row) {
+		queue(MOVE, game, player, col, row);
+	}
+	
+	@Override
+	public void onWon(final IConnect4 game, final IPlayer player) {
+		queue(WON, game, player, 0, 0);
+	}
+	
+	@Override
+	public void onTie(final IConnect4 game) {
+		queue(TIE, game, null, 0, 0);
+	}
+	
+	@Override
+	public void onUndo(final IConnect4 game, final int col) {
+		queue(UNDO, game, null, col, 0);
+	}
+	
+	@Override
+	public void onRestart(final IConnect4 game) {
+		queue(RESTART, game, null, 0, 0);
+	}
+	
+	/**
+	 * Wait until all events queued so far have been passed to the listener.
+	 * 
+	 * @throws InterruptedException If the current thread is interrupted while waiting
+	 */
+	public synchronized void flush() throws InterruptedException {
+		long target = queued;
+		while (dispatched < target && thread.isAlive()) {
+			wait();
+		}
+	}
+	
+	/**
+	 * Get the number of events, which have been passed to the listener.
+	 * 
+	 * @return The number of dispatched events
+	 */
+	public synchronized long getDispatched() {
+		return dispatched;
+	}
+	
+	/**
+	 * Get the number of events, which have been dropped, because the buffer was full or the dispatcher closed.
+	 * 
+	 * @return The number of dropped events
+	 */
+	public synchronized long getDropped() {
+		return dropped;
+	}
+	
+	/**
+	 * Get the number of events, for which the listener has thrown an exception. The exceptions are
+	 * ignored, so that a failing event doesn't stop the following ones.
+	 * 
+	 * @return The number of failed events
+	 */
+	public long getFailures() {
+		return failures;
+	}
+	
+	/**
+	 * Pass the queued events to the listener, and stop the dispatcher thread. Events fired afterwards are dropped.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+		}
+		joinUninterruptibly(thread);
+	}
+	
+	/**
+	 * Queue an event, or drop it if the buffer is full.
+	 * 
+	 * @param type The type of the event
+	 * @param game The game
+	 * @param player The player, or null
+	 * @param col The column, or 0
+	 * @param row The row, or 0
+	 */
+	private synchronized void queue(final byte type, final IConnect4 game, final IPlayer player, final int col, final int row) {
+		if (closed || pending.size == pending.types.length) {
+			dropped++;
+			return;
+		}
+		pending.add(type, game, player, col, row);
+		queued++;
+		if (waiting) {
+			notifyAll();
+		}
+	}
+	
+	/**
+	 * Pass batches of events to the listener, until the dispatcher is closed.
+	 */
+	private void dispatch() {
+		while (true) {
+			Batch batch;
+			synchronized (this) {
+				while (pending.size == 0 && !closed) {
+					waiting = true;
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						// The thread is only stopped by closing the dispatcher
+					}
+					waiting = false;
+				}
+				if (pending.size == 0) {
+					notifyAll();
+					return;
+				}
+				batch = pending;
+				pending = spare;
+				spare = null;
+			}
+			
+			for (int i = 0; i < batch.size; i++) {
+				try {
+					batch.dispatch(i, listener);
+				} catch (RuntimeException e) {
+					failures++;
+				}
+			}
+			
+			synchronized (this) {
+				dispatched += batch.size;
+				batch.clear();
+				spare = batch;
+				notifyAll();
+			}
+		}
+	}
+	
+	/**
+	 * Wait for a thread to finish, even if the current thread is interrupted, and restore the
+	 * interrupted status afterwards.
+	 * 
+	 * @param thread The thread
+	 */
+	private static void joinUninterruptibly(final Thread thread) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				thread.join();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * A batch of events, stored in parallel arrays.
+	 */
+	private static final class Batch {
+		
+		/** The types of the events */
+		final byte[] types;
+		/** The games of the events */
+		final IConnect4[] games;
+		/** The players of the events */
+		final IPlayer[] players;
+		/** The columns of the events */
+		final int[] cols;
+		/** The rows of the events */
+		final int[] rows;
+		/** The number of events */
+		int size;
+		
+		/**
+		 * Create an empty batch.
+		 * 
+		 * @param capacity The maximum number of events
+		 */
+		Batch(final int capacity) {
+			types = new byte[capacity];
+			games = new IConnect4[capacity];
+			players = new IPlayer[capacity];
+			cols = new int[capacity];
+			rows = new int[capacity];
+		}
+		
+		/**
+		 * Add an event.
+		 * 
+		 * @param type The type of the event
+		 * @param game The game
+		 * @param player The player, or null
+		 * @param col The column, or 0
+		 * @param row The row, or 0
+		 */
+		void add(final byte type, final IConnect4 game, final IPlayer player, final int col, final int row) {
+			types[size] = type;
+			games[size] = game;
+			players[size] = player;
+			cols[size] = col;
+			rows[size] = row;
+			size++;
+		}
+		
+		/**
+		 * Pass an event to a listener.
+		 * 
+		 * @param i The index of the event
+		 * @param listener The listener
+		 */
+		void dispatch(final int i, final IGameListener listener) {
+			switch (types[i]) {
+			case MOVE:
+				listener.onMove(games[i], players[i], cols[i], rows[i]);
+				break;
+			case WON:
+				listener.onWon(games[i], players[i]);
+				break;
+			case TIE:
+				listener.onTie(games[i]);
+				break;
+			case UNDO:
+				listener.onUndo(games[i], cols[i]);
+				break;
+			default:
+				listener.onRestart(games[i]);
+				break;
+			}
+		}
+		
+		/**
+		 * Remove all events, and release their games and players.
+		 */
+		void clear() {
+			Arrays.fill(games, 0, size, null);
+			Arrays.fill(players, 0, size, null);
+			size = 0;
+		}
+	
+	}
+
+}
@@ -0,0 +1,16 @@
+package com.rakadjiev.connect4.exceptions;
+
+/**
+ * Exception thrown in case a disc can't be removed from a Connect4 Board, or a move can't be undone.
+ * 
+ * @author rakadjiev
+ */
+public class InvalidRemoveException extends Exception {
+
+	private static final long serialVersionUID = 6437725092785176154L;
+
+	public InvalidRemoveException(String message) {
+		super(message);
+	}
+	
+}
@@ -0,0 +1,607 @@
+package com.rakadjiev.connect4.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.exceptions.InvalidLocationException;
+import com.rakadjiev.connect4.exceptions.InvalidRemoveException;
+import com.rakadjiev.connect4.io.VarInt;
+
+/**
+ * Base class of Connect4 boards with an arbitrary number of columns and rows.
+ * 
+ * Validates all arguments, and keeps track of the number of discs, the won mark and the Zobrist
+ * keys of the board, so that subclasses only have to store the discs, and find connected discs.
+ * All methods, which subclasses have to implement, take 0-based indices, which have already been
+ * validated.
+ * 
+ * @author rakadjiev
+ */
+public abstract class AbstractBoard implements IBoard {
+	
+	/** The value representing an empty space in the board (default value of char) */
+	protected static final char NO_DISC = '\0';
+	/** The first and last valid disc colors (printable ASCII characters) */
+	protected static final char FIRST_DISC = 32;
+	protected static final char LAST_DISC = 126;
+	
+	/** The flag of the binary format, which marks a board as won */
+	private static final int WON_FLAG = 1;
+	
+	/** The number of columns the board has */
+	protected final int cols;
+	/** The number of rows the board has */
+	protected final int rows;
+	
+	/** The number of discs inserted */
+	private int discsInserted = 0;
+	/** If the board has been marked as won */
+	private boolean isWon;
+	/** The full columns among the first 64 columns, as a bitmask (bit i for the column with 0-based index i) */
+	private long fullColumns = 0L;
+	/** The bitmask of all columns among the first 64 columns */
+	private final long allColumns;
+	
+	/** The Zobrist key of the discs */
+	private long key = 0L;
+	/** The Zobrist key of the discs of the mirrored board */
+	private long mirrorKey = 0L;
+	
+	/**
+	 * Create an empty board.
+	 * 
+	 * @param cols The number of columns
+	 * @param rows The number of rows
+	 * @throws IllegalArgumentException If the board has less than one column or row, or more cells than an int can count
+	 */
+	protected AbstractBoard(final int cols, final int rows) throws IllegalArgumentException {
+		if (cols < 1 || rows < 1 || (long) cols * (rows + 1) > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid board size: " + cols + "x" + rows + ". Board must have at least one column and row.");
+		}
+		this.cols = cols;
+		this.rows = rows;
+		this.allColumns = cols >= Long.SIZE ? -1L : (1L << cols) - 1;
+	}
+	
+	/**
+	 * Insert a disc into the specified column of the board from the top of the board.
+	 * The disc will fall to the first available space in the column and stack on previous discs.
+	 * 
+	 * @param disc The disc to insert. Must be a printable ASCII character.
+	 * @param col The column into which to insert the disc (has to be between 1 and the number of columns)
+	 * @return The row into which the disc was inserted
+	 * @throws InvalidInsertException If the disc cannot be inserted
+	 * @throws InvalidLocationException If the specified column is invalid
+	 */
+	@Override
+	public int insertDisc(final char disc, final int col) throws InvalidInsertException, InvalidLocationException {
+		int row = tryInsertDisc(disc, col);
+		
+		// The messages are only built if the insert failed
+		switch (row) {
+		case BOARD_COMPLETED:
+			throw new InvalidInsertException("The board has already been completed.");
+		case INVALID_COLUMN:
+			checkCol(col);
+			break;
+		case INVALID_DISC:
+			throw new InvalidInsertException("Invalid disc color: '" + String.format ("\\u%04x", (int) disc) + "'. Disc color must be a printable ASCII character");
+		case COLUMN_FULL:
+			throw new InvalidInsertException("Column: '" + col + "' already full.");
+		default:
+			break;
+		}
+		
+		return row;
+	}
+	
+	/**
+	 * Insert a disc into the specified column of the board from the top of the board, or report
+	 * why it can't be inserted. The checks are made in the same order as by {@link #insertDisc(char, int)}.
+	 * 
+	 * @param disc The disc to insert. Must be a printable ASCII character.
+	 * @param col The column into which to insert the disc (has to be between 1 and the number of columns)
+	 * @return The row into which the disc was inserted, or a negative status if the disc cannot be inserted
+	 */
+	@Override
+	public int tryInsertDisc(final char disc, final int col) {
+		// Check if the board has been completed
+		if (isWon() || isFull()) {
+			return BOARD_COMPLETED;
+		}
+		
+		// Check if the specified column exists
+		if (col < 1 || col > cols) {
+			return INVALID_COLUMN;
+		}
+		
+		// Check if the disc representation is valid
+		if (!isValidDisc(disc)) {
+			return INVALID_DISC;
+		}
+		
+		// Internally, we use 0-based indices
+		int colInternal = col - 1;
+		int rowInternal = getHeight(colInternal);
+		
+		// Check if the column is full
+		if (rowInternal == rows) {
+			return COLUMN_FULL;
+		}
+		
+		// Insert the disc into the first empty space
+		setDisc(disc, colInternal, rowInternal);
+		discsInserted++;
+		if (rowInternal == rows - 1 && colInternal < Long.SIZE) {
+			fullColumns |= 1L << colInternal;
+		}
+		
+		key ^= Zobrist.hash(colInternal, rowInternal, disc);
+		mirrorKey ^= Zobrist.hash(cols - 1 - colInternal, rowInternal, disc);
+		
+		return rowInternal + 1;
+	}
+	
+	/**
+	 * Remove the top disc from the specified column of the board.
+	 * 
+	 * @param col The column from which to remove the disc (has to be between 1 and the number of columns)
+	 * @return The disc which has been removed
+	 * @throws InvalidRemoveException If the column is empty
+	 * @throws InvalidLocationException If the specified column is invalid
+	 */
+	@Override
+	public char removeDisc(final int col) throws InvalidRemoveException, InvalidLocationException {
+		int disc = tryRemoveDisc(col);
+		
+		if (disc == INVALID_COLUMN) {
+			checkCol(col);
+		} else if (disc == COLUMN_EMPTY) {
+			throw new InvalidRemoveException("Column: '" + col + "' is empty.");
+		}
+		
+		return (char) disc;
+	}
+	
+	/**
+	 * Remove the top disc from the specified column of the board, or report why it can't be removed.
+	 * 
+	 * @param col The column from which to remove the disc (has to be between 1 and the number of columns)
+	 * @return The disc which has been removed, or a negative status if there is no disc to remove
+	 */
+	@Override
+	public int tryRemoveDisc(final int col) {
+		// Check if the specified column exists
+		if (col < 1 || col > cols) {
+			return INVALID_COLUMN;
+		}
+		
+		// Internally, we use 0-based indices
+		int colInternal = col - 1;
+		int rowInternal = getHeight(colInternal) - 1;
+		
+		// Check if the column is empty
+		if (rowInternal < 0) {
+			return COLUMN_EMPTY;
+		}
+		
+		// Remove the disc
+		char disc = clearDisc(colInternal, rowInternal);
+		discsInserted--;
+		isWon = false;
+		if (colInternal < Long.SIZE) {
+			fullColumns &= ~(1L << colInternal);
+		}
+		
+		key ^= Zobrist.hash(colInternal, rowInternal, disc);
+		mirrorKey ^= Zobrist.hash(cols - 1 - colInternal, rowInternal, disc);
+		
+		return disc;
+	}
+	
+	@Override
+	public boolean canPlay(final int col) {
+		return !isWon && col >= 1 && col <= cols && getHeight(col - 1) < rows;
+	}
+	
+	@Override
+	public long getPlayableColumns() {
+		return isWon ? 0L : allColumns & ~fullColumns;
+	}
+	
+	@Override
+	public int nextPlayableColumn(final int col) {
+		if (isWon || col < 0) {
+			return 0;
+		}
+		
+		// The first 64 columns are found in the bitmask with a single read
+		if (col < Long.SIZE) {
+			long next = allColumns & ~fullColumns & (-1L << col);
+			if (next != 0) {
+				return Long.numberOfTrailingZeros(next) + 1;
+			}
+		}
+		for (int i = Math.max(col, Long.SIZE); i < cols; i++) {
+			if (getHeight(i) < rows) {
+				return i + 1;
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * Check if the disc color/representation is valid.
+	 * Only printable ASCII characters are accepted.
+	 * 
+	 * @param disc The color (char representation) of the disc
+	 * @return true if the disc representation is valid
+	 */
+	private boolean isValidDisc(final char disc) {
+		return disc >= FIRST_DISC && disc <= LAST_DISC;
+	}
+	
+	/**
+	 * Check if the specified column exists.
+	 * 
+	 * @param col The column (1-based index)
+	 * @throws InvalidLocationException If an invalid column has been specified
+	 */
+	private void checkCol(final int col) throws InvalidLocationException {
+		if (col < 1 || col > cols) {
+			throw new InvalidLocationException("Invalid column: '" + col + "'. Column must be between 1 and " + cols);
+		}
+	}
+	
+	/**
+	 * Check if the specified cell exists.
+	 * 
+	 * @param col The column (1-based index)
+	 * @param row The row (1-based index)
+	 * @throws InvalidLocationException If an invalid column or row has been specified
+	 */
+	private void checkLocation(final int col, final int row) throws InvalidLocationException {
+		checkCol(col);
+		if (row < 1 || row > rows) {
+			throw new InvalidLocationException("Invalid row: '" + row + "'. Row must be between 1 and " + rows);
+		}
+	}
+	
+	@Override
+	public boolean isPopulated(final int col, final int row) throws InvalidLocationException {
+		return getDisc(col, row) != NO_DISC;
+	}
+	
+	@Override
+	public char getDisc(final int col, final int row) throws InvalidLocationException {
+		checkLocation(col, row);
+		return getDiscInternal(col - 1, row - 1);
+	}
+	
+	@Override
+	public boolean isConnected(final int col, final int row, final int discs) throws InvalidLocationException {
+		checkLocation(col, row);
+		if (getDiscInternal(col - 1, row - 1) == NO_DISC) {
+			return false;
+		}
+		return isConnectedInternal(col - 1, row - 1, discs);
+	}
+	
+	/**
+	 * Get the number of discs in a column.
+	 * 
+	 * @param colInternal The column (0-based index)
+	 * @return The number of discs in the column, i.e. the row of the first empty space (0-based index)
+	 */
+	protected abstract int getHeight(int colInternal);
+	
+	/**
+	 * Put a disc into an empty cell.
+	 * 
+	 * @param disc The disc
+	 * @param colInternal The column (0-based index)
+	 * @param rowInternal The row (0-based index), which is the first empty space in the column
+	 */
+	protected abstract void setDisc(char disc, int colInternal, int rowInternal);
+	
+	/**
+	 * Remove the disc from a cell.
+	 * 
+	 * @param colInternal The column (0-based index)
+	 * @param rowInternal The row (0-based index), which is the top disc in the column
+	 * @return The disc which has been removed
+	 */
+	protected abstract char clearDisc(int colInternal, int rowInternal);
+	
+	/**
+	 * Get the disc in a cell.
+	 * 
+	 * @param colInternal The column (0-based index)
+	 * @param rowInternal The row (0-based index)
+	 * @return The disc, or {@link #NO_DISC} if the cell is empty
+	 */
+	protected abstract char getDiscInternal(int colInternal, int rowInternal);
+	
+	/**
+	 * Check if the disc in a populated cell is part of a sequence of at least the specified
+	 * number of connected discs of the same color.
+	 * 
+	 * @param colInternal The column (0-based index)
+	 * @param rowInternal The row (0-based index)
+	 * @param discs The number of connected discs to look for
+	 * @return true if the disc is part of such a sequence
+	 */
+	protected abstract boolean isConnectedInternal(int colInternal, int rowInternal, int discs);
+	
+	/**
+	 * Remove all discs.
+	 */
+	protected abstract void clear();
+	
+	@Override
+	public int getCols() {
+		return cols;
+	}
+	
+	@Override
+	public int getRows() {
+		return rows;
+	}
+	
+	@Override
+	public int getNumberOfDiscs() {
+		return discsInserted;
+	}
+	
+	@Override
+	public boolean isFull() {
+		return discsInserted == cols * rows;
+	}
+	
+	@Override
+	public boolean isWon() {
+		return isWon;
+	}
+	
+	@Override
+	public void setWon() {
+		this.isWon = true;
+	}
+	
+	@Override
+	public long getKey() {
+		return key;
+	}
+	
+	@Override
+	public long getCanonicalKey() {
+		return Math.min(key, mirrorKey);
+	}
+	
+	@Override
+	public void reset() {
+		clear();
+		discsInserted = 0;
+		isWon = false;
+		fullColumns = 0L;
+		key = 0L;
+		mirrorKey = 0L;
+	}
+	
+	/**
+	 * Write the discs on the board in a compact binary format:
+	 * <ul>
+	 * <li>the number of columns and rows, as variable-length ints (see {@link VarInt})</li>
+	 * <li>a byte of flags, which marks the board as won</li>
+	 * <li>the number of discs in each column, as variable-length ints</li>
+	 * <li>the number of disc colors, and the colors as bytes, in the order of their first appearance</li>
+	 * <li>the index of each disc's color, column by column from the bottom, with as few bits as the
+	 * number of colors requires (1 bit for 2 colors), packed into bytes from the lowest bit</li>
+	 * </ul>
+	 * A full standard board of 2 players takes 19 bytes, compared to 96 characters of {@link #toString()}.
+	 * 
+	 * @param out The output
+	 * @throws IOException If the output can't be written
+	 */
+	@Override
+	public void write(final DataOutput out) throws IOException {
+		VarInt.write(out, cols);
+		VarInt.write(out, rows);
+		out.writeByte(isWon ? WON_FLAG : 0);
+		
+		// The index of each color in the palette, plus 1, so that 0 marks colors which haven't appeared yet
+		int[] colorIndices = new int[LAST_DISC - FIRST_DISC + 1];
+		char[] palette = new char[colorIndices.length];
+		int colors = 0;
+		for (int i = 0; i < cols; i++) {
+			int height = getHeight(i);
+			VarInt.write(out, height);
+			for (int j = 0; j < height; j++) {
+				char disc = getDiscInternal(i, j);
+				if (colorIndices[disc - FIRST_DISC] == 0) {
+					palette[colors] = disc;
+					colorIndices[disc - FIRST_DISC] = ++colors;
+				}
+			}
+		}
+		
+		out.writeByte(colors);
+		for (int k = 0; k < colors; k++) {
+			out.writeByte(palette[k]);
+		}
+		
+		int bitsPerDisc = bitsPerDisc(colors);
+		int buffer = 0;
+		int bits = 0;
+		for (int i = 0; i < cols && bitsPerDisc > 0; i++) {
+			int height = getHeight(i);
+			for (int j = 0; j < height; j++) {
+				buffer |= (colorIndices[getDiscInternal(i, j) - FIRST_DISC] - 1) << bits;
+				bits += bitsPerDisc;
+				if (bits >= Byte.SIZE) {
+					out.writeByte(buffer);
+					buffer >>>= Byte.SIZE;
+					bits -= Byte.SIZE;
+				}
+			}
+		}
+		if (bits > 0) {
+			out.writeByte(buffer);
+		}
+	}
+	
+	/**
+	 * Replace the discs on the board with a board written by {@link #write(DataOutput)}.
+	 * If the input isn't a valid board, the board may be left partially filled.
+	 * 
+	 * @param in The input
+	 * @throws IOException If the input can't be read, isn't a valid board, or is a board of a different size
+	 */
+	@Override
+	public void read(final DataInput in) throws IOException {
+		int encodedCols = VarInt.read(in);
+		int encodedRows = VarInt.read(in);
+		if (encodedCols != cols || encodedRows != rows) {
+			throw new IOException("Invalid board size: " + encodedCols + "x" + encodedRows + ". Board must be " + cols + "x" + rows + ".");
+		}
+		readDiscs(in);
+	}
+	
+	/**
+	 * Replace the discs on the board with the discs of a board written by {@link #write(DataOutput)},
+	 * whose size has already been read.
+	 * 
+	 * @param in The input, positioned after the size of the board
+	 * @throws IOException If the input can't be read, or isn't a valid board
+	 */
+	void readDiscs(final DataInput in) throws IOException {
+		int flags = in.readUnsignedByte();
+		if ((flags & ~WON_FLAG) != 0) {
+			throw new IOException("Invalid board flags: " + flags + ".");
+		}
+		
+		int[] heights = new int[cols];
+		for (int i = 0; i < cols; i++) {
+			heights[i] = VarInt.read(in);
+			if (heights[i] > rows) {
+				throw new IOException("Invalid number of discs in column " + (i + 1) + ": " + heights[i] + ". Column can hold at most " + rows + " discs.");
+			}
+		}
+		
+		int colors = in.readUnsignedByte();
+		if (colors > LAST_DISC - FIRST_DISC + 1) {
+			throw new IOException("Invalid number of disc colors: " + colors + ".");
+		}
+		char[] palette = new char[colors];
+		for (int k = 0; k < colors; k++) {
+			palette[k] = (char) in.readUnsignedByte();
+			if (!isValidDisc(palette[k])) {
+				throw new IOException("Invalid disc color: '" + String.format ("\\u%04x", (int) palette[k]) + "'. Disc color must be a printable ASCII character");
+			}
+		}
+		
+		reset();
+		
+		int bitsPerDisc = bitsPerDisc(colors);
+		int buffer = 0;
+		int bits = 0;
+		for (int i = 0; i < cols; i++) {
+			for (int j = 0; j < heights[i]; j++) {
+				while (bits < bitsPerDisc) {
+					buffer |= in.readUnsignedByte() << bits;
+					bits += Byte.SIZE;
+				}
+				int colorIndex = buffer & ((1 << bitsPerDisc) - 1);
+				buffer >>>= bitsPerDisc;
+				bits -= bitsPerDisc;
+				if (colorIndex >= colors) {
+					throw new IOException("Invalid color index of disc " + (j + 1) + " in column " + (i + 1) + ": " + colorIndex + ".");
+				}
+				
+				try {
+					insertDisc(palette[colorIndex], i + 1);
+				} catch (InvalidInsertException e) {
+					// Can't happen, since the number of discs and their colors have been validated
+					throw new IOException("Invalid disc in column " + (i + 1) + ": " + e.getMessage(), e);
+				}
+			}
+		}
+		
+		if ((flags & WON_FLAG) != 0) {
+			setWon();
+		}
+	}
+	
+	/**
+	 * Get the number of bits, which hold the index of a disc's color in the binary format.
+	 * 
+	 * @param colors The number of disc colors
+	 * @return The number of bits per disc (0 for a single color)
+	 */
+	private static int bitsPerDisc(final int colors) {
+		return colors <= 1 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(colors - 1);
+	}
+	
+	/**
+	 * Check if another board has the same dimensions and the same discs in the same cells.
+	 * Whether the boards have been marked as won is not compared.
+	 * 
+	 * @param obj The other board
+	 * @return true if the other board is an {@link IBoard} with the same discs
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof IBoard)) {
+			return false;
+		}
+		
+		IBoard other = (IBoard) obj;
+		// Comparing the keys first rules out almost all different boards cheaply
+		if (other.getKey() != key || other.getCols() != cols || other.getRows() != rows) {
+			return false;
+		}
+		for (int i = 0; i < cols; i++) {
+			for (int j = 0; j < rows; j++) {
+				if (getDiscInternal(i, j) != other.getDisc(i + 1, j + 1)) {
+					return false;
+				}
+			}
+		}
+		
+		return true;
+	}
+	
+	@Override
+	public int hashCode() {
+		return Long.hashCode(key);
+	}
+	
+	/**
+	 * Returns a string representation of the board, showing all inserted discs.
+	 * 
+	 * @return String representation of the board's current state
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder((cols * 2 + 2) * rows);
+		
+		for (int j = rows-1; j >= 0; j--) {
+			sb.append('|');
+			for (int i = 0; i < cols; i++) {
+				char disc = getDiscInternal(i, j);
+				
+				sb.append(disc == NO_DISC ? ' ' : disc);
+				sb.append('|');
+			}
+			sb.append('\n');
+		}
+		
+		return sb.toString();
+	}
+}
@@ -0,0 +1,183 @@
+package com.rakadjiev.connect4.impl;
+
+import java.util.Arrays;
+
+/**
+ * A Connect4 board with the same rules as {@link Board}, which stores the discs of each color as
+ * a bitboard, i.e. a single <code>long</code>, in which every cell of the board is represented
+ * by one bit.
+ * 
+ * The bits are assigned column by column, from the bottom to the top. Each column has one
+ * additional (always empty) bit on top, which separates it from the next column, so that
+ * connected discs never wrap around from one column to another. The standard board uses
+ * these bits:
+ * 
+ * <pre>
+ *  6 13 20 27 34 41 48
+ *  5 12 19 26 33 40 47
+ *  4 11 18 25 32 39 46
+ *  3 10 17 24 31 38 45
+ *  2  9 16 23 30 37 44
+ *  1  8 15 22 29 36 43
+ *  0  7 14 21 28 35 42
+ * </pre>
+ * 
+ * With this layout, inserting a disc only sets a bit, and connected discs are found with a
+ * few shifts and ANDs per direction, instead of walking the board cell by cell. The board must
+ * fit into 64 bits, i.e. cols * (rows + 1) &lt;= 64, see {@link #fits(int, int)}. Larger boards
+ * can use {@link MultiBitBoard}.
+ * 
+ * @author rakadjiev
+ */
+public class BitBoard extends AbstractBoard {
+	
+	/** The number of bits per column (including the separator bit) */
+	private final int height;
+	
+	/** The bitboards of each disc color, indexed by the color's offset from {@link #FIRST_DISC} */
+	private final long[] discMasks = new long[LAST_DISC - FIRST_DISC + 1];
+	/** The disc color of each cell, indexed by the cell's bit */
+	private final char[] discs;
+	/** The number of discs in each column */
+	private final int[] heights;
+	/** The bitboard of all inserted discs, regardless of color */
+	private long mask = 0L;
+	
+	/**
+	 * Create a standard board with {@value Board#COLS} columns and {@value Board#ROWS} rows.
+	 */
+	public BitBoard() {
+		this(Board.COLS, Board.ROWS);
+	}
+	
+	/**
+	 * Create a board with the specified number of columns and rows.
+	 * 
+	 * @param cols The number of columns
+	 * @param rows The number of rows
+	 * @throws IllegalArgumentException If the board has less than one column or row, or doesn't fit into a bitboard
+	 */
+	public BitBoard(final int cols, final int rows) throws IllegalArgumentException {
+		super(cols, rows);
+		if (!fits(cols, rows)) {
+			throw new IllegalArgumentException("Invalid board size: " + cols + "x" + rows + ". Board must fit into " + Long.SIZE + " bits, i.e. cols * (rows + 1) <= " + Long.SIZE);
+		}
+		this.height = rows + 1;
+		this.discs = new char[cols * height];
+		this.heights = new int[cols];
+	}
+	
+	/**
+	 * Check if a board with the specified number of columns and rows fits into a bitboard.
+	 * 
+	 * @param cols The number of columns
+	 * @param rows The number of rows
+	 * @return true if cols * (rows + 1) &lt;= 64
+	 */
+	public static boolean fits(final int cols, final int rows) {
+		return (long) cols * (rows + 1) <= Long.SIZE;
+	}
+	
+	@Override
+	protected int getHeight(final int colInternal) {
+		return heights[colInternal];
+	}
+	
+	@Override
+	protected void setDisc(final char disc, final int colInternal, final int rowInternal) {
+		// Set the bit of the first empty space in the column
+		int bit = colInternal * height + rowInternal;
+		long move = 1L << bit;
+		mask |= move;
+		discMasks[disc - FIRST_DISC] |= move;
+		discs[bit] = disc;
+		heights[colInternal] = rowInternal + 1;
+	}
+	
+	@Override
+	protected char clearDisc(final int colInternal, final int rowInternal) {
+		// Clear the bit of the top disc in the column
+		int bit = colInternal * height + rowInternal;
+		long move = 1L << bit;
+		char disc = discs[bit];
+		mask ^= move;
+		discMasks[disc - FIRST_DISC] ^= move;
+		discs[bit] = NO_DISC;
+		heights[colInternal] = rowInternal;
+		return disc;
+	}
+	
+	@Override
+	protected char getDiscInternal(final int colInternal, final int rowInternal) {
+		return discs[colInternal * height + rowInternal];
+	}
+	
+	@Override
+	protected boolean isConnectedInternal(final int colInternal, final int rowInternal, final int discs) {
+		int bit = colInternal * height + rowInternal;
+		long disc = 1L << bit;
+		long position = discMasks[this.discs[bit] - FIRST_DISC];
+		
+		// Horizontal, vertical, and the two diagonals
+		return isConnected(position, disc, height, discs)
+				|| isConnected(position, disc, 1, discs)
+				|| isConnected(position, disc, height + 1, discs)
+				|| isConnected(position, disc, height - 1, discs);
+	}
+	
+	/**
+	 * Check if a disc is part of a sequence of connected discs in one direction.
+	 * 
+	 * Shifting the bitboard by the distance between two neighboring cells in the direction and
+	 * ANDing it with itself leaves only the cells, which are followed by a disc of the same color.
+	 * Repeating this yields the start cells of all sequences of the required length, which are
+	 * then spread over the full sequence to check if they cover the disc.
+	 * 
+	 * @param position The bitboard of the disc's color
+	 * @param disc The bitboard containing only the disc
+	 * @param shift The distance between two neighboring cells in the direction
+	 * @param discs The number of connected discs to look for
+	 * @return true if the disc is part of a sequence of the required length
+	 */
+	private static boolean isConnected(final long position, final long disc, final int shift, final int discs) {
+		// A sequence which would span more bits than the bitboard has can't exist
+		if ((long) (discs - 1) * shift >= Long.SIZE) {
+			return false;
+		}
+		
+		long starts = position;
+		for (int i = 1; i < discs; i++) {
+			starts &= position >>> (i * shift);
+		}
+		
+		long sequences = starts;
+		for (int i = 1; i < discs; i++) {
+			sequences |= starts << (i * shift);
+		}
+		
+		return (sequences & disc) != 0;
+	}
+	
+	@Override
+	protected void clear() {
+		Arrays.fill(discMasks, 0L);
+		Arrays.fill(discs, NO_DISC);
+		Arrays.fill(heights, 0);
+		mask = 0L;
+	}
+	
+	@Override
+	public boolean equals(final Object obj) {
+		if (obj instanceof BitBoard) {
+			BitBoard other = (BitBoard) obj;
+			return other.getKey() == getKey() && other.cols == cols && other.rows == rows
+					&& other.mask == mask && Arrays.equals(discs, other.discs);
+		}
+		return super.equals(obj);
+	}
+	
+	@Override
+	public int hashCode() {
+		return super.hashCode();
+	}
+}
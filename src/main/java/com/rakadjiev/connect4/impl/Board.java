@@ -1,8 +1,6 @@
 package com.rakadjiev.connect4.impl;
 
-import com.rakadjiev.connect4.IBoard;
-import com.rakadjiev.connect4.exceptions.InvalidInsertException;
-import com.rakadjiev.connect4.exceptions.InvalidLocationException;
+import java.util.Arrays;
 
 /**
  * A Connect4 board, consisting of a pre-defined number of columns and rows.
@@ -12,171 +10,124 @@ import com.rakadjiev.connect4.exceptions.InvalidLocationException;
  * horizontally, vertically, or diagonally.
  * If the board fills up and the board hasn't been completed yet, then that's a tie.
  * 
+ * This board stores the discs in a plain array, and works with boards of any size. Where the
+ * board fits, {@link BitBoard} and {@link MultiBitBoard} are faster, see {@link BoardFactory}.
+ * 
  * @author rakadjiev
  */
-public class Board implements IBoard {
-
-	/** The number of columns the board has */
+public class Board extends AbstractBoard {
+	
+	/** The number of columns of the standard board */
 	public static final int COLS = 7;
-	/** The number of rows the board has */
+	/** The number of rows of the standard board */
 	public static final int ROWS = 6;
 	
-	/** The value representing an empty space in the board (default value of char) */
-	private static final char NO_DISC = '\0';
+	/** The axes along which to search for connected discs: horizontal, vertical and the two diagonals */
+	private static final int[] searchCols = {1, 0, 1, 1};
+	private static final int[] searchRows = {0, 1, 1, -1};
 	
 	/** The discs inserted to the board */
-	private char[][] discs = new char[COLS][ROWS];
-	
-	/** The number of discs inserted */
-	private int discsInserted = 0;
-	/** If the board has been marked as won */
-	private boolean isWon;
+	private final char[][] discs;
 	
 	/**
-	 * Insert a disc into the specified column of the board from the top of the board.
-	 * The disc will fall to the first available space in the column and stack on previous discs.
-	 * 
-	 * @param disc The disc to insert. Must be a printable ASCII character.
-	 * @param col The column into which to insert the disc (has to be between 1 and {@value #COLS})
-	 * @return The row into which the disc was inserted
-	 * @throws InvalidInsertException If the disc cannot be inserted
-	 * @throws InvalidLocationException If the specified column is invalid
+	 * Create a standard board with {@value #COLS} columns and {@value #ROWS} rows.
 	 */
-	@Override
-	public int insertDisc(final char disc, final int col) throws InvalidInsertException, InvalidLocationException {
-		// Check if the board has been completed
-		if (isWon() || isFull()) {
-			throw new InvalidInsertException("The board has already been completed.");
-		}
-		
-		// Check if the specified column exists
-		if (col < 1 || col > COLS) {
-			throw new InvalidLocationException("Invalid column: '" + col + "'. Column must be between 1 and " + COLS);
-		}
-		
-		// Check if the disc representation is valid
-		if (!isValidDisc(disc)) {
-			throw new InvalidInsertException("Invalid disc color: '" + String.format ("\\u%04x", (int) disc) + "'. Disc color must be a printable ASCII character");
-		}
-		
-		// Check if the column is full
-		if (isPopulated(col, ROWS)) {
-			throw new InvalidInsertException("Column: '" + col + "' already full.");
-		}
-		
-		// Internally, we use 0-based indices
-		int colInternal = col - 1;
-		int rowInternal = 0;
-		
-		// Find the first empty space in the column
-		while (discs[colInternal][rowInternal] != NO_DISC && rowInternal < ROWS) {
-			rowInternal++;
-		}
-		
-		// Insert the disc into the first empty space
-		discs[colInternal][rowInternal] = disc;
-		discsInserted++;
-		
-		return rowInternal + 1;
+	public Board() {
+		this(COLS, ROWS);
 	}
 	
 	/**
-	 * Check if the disc color/representation is valid.
-	 * Only printable ASCII characters are accepted.
+	 * Create a board with the specified number of columns and rows.
 	 * 
-	 * @param disc The color (char representation) of the disc
-	 * @return true if the disc representation is valid
+	 * @param cols The number of columns
+	 * @param rows The number of rows
+	 * @throws IllegalArgumentException If the board has less than one column or row
 	 */
-	private boolean isValidDisc(final char disc) {
-		boolean result = false;
-		
-		if (disc > 31 && disc < 127) {
-			result = true;
-		}
-		
-		return result;
+	public Board(final int cols, final int rows) throws IllegalArgumentException {
+		super(cols, rows);
+		this.discs = new char[cols][rows];
 	}
 	
 	@Override
-	public boolean isPopulated(final int col, final int row) throws InvalidLocationException {
-		boolean result = false;
-		
-		if (getDisc(col, row) != NO_DISC) {
-			result = true;
-		}
+	protected int getHeight(final int colInternal) {
+		int rowInternal = 0;
 		
-		return result;
-	}
-	
-	@Override
-	public char getDisc(final int col, final int row) throws InvalidLocationException {
-		if (col < 1 || col > COLS) {
-			throw new InvalidLocationException("Invalid column: '" + col + "'. Column must be between 1 and " + COLS);
-		}
-		if (row < 1 || row > COLS) {
-			throw new InvalidLocationException("Invalid row: '" + row + "'. Row must be between 1 and " + ROWS);
+		// Find the first empty space in the column
+		while (rowInternal < rows && discs[colInternal][rowInternal] != NO_DISC) {
+			rowInternal++;
 		}
 		
-		return discs[col - 1][row - 1];
+		return rowInternal;
 	}
 	
 	@Override
-	public int getCols() {
-		return COLS;
-	}
-
-	@Override
-	public int getRows() {
-		return ROWS;
-	}
-	
-	@Override
-	public int getNumberOfDiscs() {
-		return discsInserted;
-	}
-	
-	@Override
-	public boolean isFull() {
-		return discsInserted == COLS * ROWS;
+	protected void setDisc(final char disc, final int colInternal, final int rowInternal) {
+		discs[colInternal][rowInternal] = disc;
 	}
 	
 	@Override
-	public boolean isWon() {
-		return isWon;
+	protected char clearDisc(final int colInternal, final int rowInternal) {
+		char disc = discs[colInternal][rowInternal];
+		discs[colInternal][rowInternal] = NO_DISC;
+		return disc;
 	}
 	
 	@Override
-	public void setWon() {
-		this.isWon = true;
+	protected char getDiscInternal(final int colInternal, final int rowInternal) {
+		return discs[colInternal][rowInternal];
 	}
 	
 	@Override
-	public void reset() {
-		discs = new char[COLS][ROWS];
-		discsInserted = 0;
-		isWon = false;
+	protected boolean isConnectedInternal(final int colInternal, final int rowInternal, final int discs) {
+		char disc = this.discs[colInternal][rowInternal];
+		
+		/*
+		 * Walk along each axis in both directions from the disc, counting discs of the same 
+		 * color until a non-matching disc or the edge of the board is reached.
+		 */
+		for (int searchIdx = 0; searchIdx < searchCols.length; searchIdx++) {
+			// The start disc is part of the sequence
+			int discsConnected = 1 
+					+ countConnected(disc, colInternal, rowInternal, searchCols[searchIdx], searchRows[searchIdx])
+					+ countConnected(disc, colInternal, rowInternal, -searchCols[searchIdx], -searchRows[searchIdx]);
+			
+			if (discsConnected >= discs) {
+				return true;
+			}
+		}
+		
+		return false;
 	}
 	
 	/**
-	 * Returns a string representation of the board, showing all inserted discs.
+	 * Count the discs of the specified color, which follow the start cell in the specified direction 
+	 * without interruption. The start cell itself is not counted.
 	 * 
-	 * @return String representation of the board's current state
+	 * @param disc The color of the disc
+	 * @param colInternal The column of the start cell (0-based index)
+	 * @param rowInternal The row of the start cell (0-based index)
+	 * @param colStep The column increment of the direction
+	 * @param rowStep The row increment of the direction
+	 * @return The number of connected discs in the specified direction
 	 */
-	@Override
-	public String toString() {
-		StringBuilder sb = new StringBuilder();
+	private int countConnected(final char disc, final int colInternal, final int rowInternal, final int colStep, final int rowStep) {
+		int count = 0;
 		
-		for (int j = ROWS-1; j >= 0; j--) {
-			sb.append('|');
-			for (int i = 0; i < COLS; i++) {
-				char disc = discs[i][j] == NO_DISC ? ' ' : discs[i][j];
-				
-				sb.append(disc);
-				sb.append('|');
-			}
-			sb.append('\n');
+		int i = colInternal + colStep;
+		int j = rowInternal + rowStep;
+		while (i >= 0 && i < cols && j >= 0 && j < rows && discs[i][j] == disc) {
+			count++;
+			i += colStep;
+			j += rowStep;
 		}
 		
-		return sb.toString();
+		return count;
+	}
+	
+	@Override
+	protected void clear() {
+		for (char[] column : discs) {
+			Arrays.fill(column, NO_DISC);
+		}
 	}
 }
@@ -0,0 +1,106 @@
+package com.rakadjiev.connect4.impl;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.io.VarInt;
+
+/**
+ * Creates boards of arbitrary size, picking the fastest implementation which fits the board:
+ * <ul>
+ * <li>{@link BitBoard} if the board fits into a single <code>long</code>, e.g. the standard 7x6, 8x7 or 9x6 board</li>
+ * <li>{@link MultiBitBoard} if the board fits into a multi-word bitset, e.g. a 9x7 board</li>
+ * <li>{@link Board} for all larger boards</li>
+ * </ul>
+ * 
+ * @author rakadjiev
+ */
+public final class BoardFactory {
+	
+	/**
+	 * The maximum number of columns and rows of boards and games read from records. The limit
+	 * protects readers from corrupt or malicious records, whose sizes would allocate more memory
+	 * than is available.
+	 */
+	public static final int MAX_RECORD_SIZE = 64;
+	
+	private BoardFactory() {
+	}
+	
+	/**
+	 * Create a standard board with {@value Board#COLS} columns and {@value Board#ROWS} rows.
+	 * 
+	 * @return The board
+	 */
+	public static IBoard createBoard() {
+		return createBoard(Board.COLS, Board.ROWS);
+	}
+	
+	/**
+	 * Create a board with the specified number of columns and rows.
+	 * 
+	 * @param cols The number of columns
+	 * @param rows The number of rows
+	 * @return The board
+	 * @throws IllegalArgumentException If the board has less than one column or row
+	 */
+	public static IBoard createBoard(final int cols, final int rows) throws IllegalArgumentException {
+		return newBoard(cols, rows);
+	}
+	
+	/**
+	 * Create a board of the size of a board written by {@link IBoard#write(java.io.DataOutput)}, and
+	 * read its discs.
+	 * 
+	 * @param in The input
+	 * @return The board
+	 * @throws IOException If the input can't be read, or isn't a valid board, e.g. has more than
+	 * {@value #MAX_RECORD_SIZE} columns or rows
+	 */
+	public static IBoard readBoard(final DataInput in) throws IOException {
+		int cols = VarInt.read(in);
+		int rows = VarInt.read(in);
+		checkRecordSize(cols, rows);
+		AbstractBoard board;
+		try {
+			board = newBoard(cols, rows);
+		} catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+		board.readDiscs(in);
+		return board;
+	}
+	
+	/**
+	 * Check the size of a board read from a record, before anything is allocated for it.
+	 * 
+	 * @param cols The number of columns
+	 * @param rows The number of rows
+	 * @throws IOException If the board has more than {@value #MAX_RECORD_SIZE} columns or rows
+	 */
+	static void checkRecordSize(final int cols, final int rows) throws IOException {
+		if (cols > MAX_RECORD_SIZE || rows > MAX_RECORD_SIZE) {
+			throw new IOException("Invalid board: " + cols + "x" + rows + ". Records must have at most " + MAX_RECORD_SIZE + " columns and rows.");
+		}
+	}
+	
+	/**
+	 * Create a board with the fastest implementation for its size.
+	 * 
+	 * @param cols The number of columns
+	 * @param rows The number of rows
+	 * @return The board
+	 * @throws IllegalArgumentException If the board has less than one column or row
+	 */
+	private static AbstractBoard newBoard(final int cols, final int rows) throws IllegalArgumentException {
+		if (BitBoard.fits(cols, rows)) {
+			return new BitBoard(cols, rows);
+		}
+		if (MultiBitBoard.fits(cols, rows)) {
+			return new MultiBitBoard(cols, rows);
+		}
+		return new Board(cols, rows);
+	}
+
+}
@@ -1,50 +1,151 @@
 package com.rakadjiev.connect4.impl;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 import com.rakadjiev.connect4.IBoard;
 import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IGameListener;
+import com.rakadjiev.connect4.IMetrics;
 import com.rakadjiev.connect4.IPlayer;
 import com.rakadjiev.connect4.exceptions.InvalidInsertException;
 import com.rakadjiev.connect4.exceptions.InvalidLocationException;
 import com.rakadjiev.connect4.exceptions.InvalidPlayerException;
+import com.rakadjiev.connect4.exceptions.InvalidRemoveException;
+import com.rakadjiev.connect4.io.VarInt;
+import com.rakadjiev.connect4.metrics.Metrics;
 
 /**
  * @see IConnect4
  * @author rakadjiev
- *
+ * 
  */
 public class Connect4 implements IConnect4 {
-
-	/** The number of connected discs required to win */
-	private static final int DISCS_TO_WIN = 4;
 	
-	/** The directions in which to search for connected discs */
-	private static final int[] searchCols = {-1, -1, -1, 0, 1, 1, 1};
-	private static final int[] searchRows = {1, 0, -1, -1, -1, 0, 1};
+	/** The number of connected discs required to win the standard game */
+	public static final int DISCS_TO_WIN = 4;
+	
+	/** The number of moves between moves, whose insert and win check are timed, since reading the clock takes about as long as a move */
+	public static final int TIMER_SAMPLE_INTERVAL = 16;
+	
+	/** The listeners of games without listeners */
+	private static final IGameListener[] NO_LISTENERS = new IGameListener[0];
 	
+	/** The number of connected discs required to win */
+	private final int discsToWin;
 	/** The Connect4 board */
 	private final IBoard board;
 	/** The Connect4 players */
 	private final IPlayer[] players;
 	
-	/** For reading user input from stdin */
-	private static final Scanner scanner = new Scanner(System.in);
+	/** The columns of the moves made so far, in the order they have been made */
+	private final int[] moves;
+	/** The indices of the players, who made the moves so far */
+	private final byte[] movePlayers;
+	/** The number of moves made so far */
+	private int movesMade = 0;
+	
+	/** The listeners, replaced by a new array when they change, so that firing an event without listeners is a length check */
+	private IGameListener[] listeners = NO_LISTENERS;
+	
+	/** Counts the valid moves */
+	private final IMetrics.Counter moveCounter;
+	/** Counts the invalid moves */
+	private final IMetrics.Counter illegalMoveCounter;
+	/** Times the inserts of discs */
+	private final IMetrics.Histogram insertTimer;
+	/** Times the win checks */
+	private final IMetrics.Histogram winCheckTimer;
+	/** Times the rendering of the board in interactive games */
+	private final IMetrics.Histogram renderTimer;
+	/** The number of moves until the next timed move */
+	private int movesUntilTimed = TIMER_SAMPLE_INTERVAL;
 	
 	/**
-	 * Create a new Connect4 game.
+	 * For reading user input from stdin. Only created when an interactive game starts, so
+	 * games played programmatically (e.g. many at once) don't touch stdin.
+	 */
+	private static final class Stdin {
+		private static final Scanner scanner = new Scanner(System.in);
+	}
+	
+	/**
+	 * Create a new Connect4 game on the standard board with {@value Board#COLS} columns and 
+	 * {@value Board#ROWS} rows, which is won by connecting {@value #DISCS_TO_WIN} discs.
 	 * 
 	 * @param playerOne The first player
 	 * @param playerTwo The second player
 	 * @throws NullPointerException If playerOne or playerTwo is null
 	 */
 	public Connect4(final IPlayer playerOne, final IPlayer playerTwo) throws NullPointerException {
+		this(BoardFactory.createBoard(), DISCS_TO_WIN, playerOne, playerTwo);
+	}
+	
+	/**
+	 * Create a new Connect4 game on a board of the specified size, e.g. an 8x7 board or a connect-5 game.
+	 * The fastest board implementation for the size is picked by {@link BoardFactory}.
+	 * 
+	 * @param cols The number of columns of the board
+	 * @param rows The number of rows of the board
+	 * @param discsToWin The number of connected discs required to win
+	 * @param playerOne The first player
+	 * @param playerTwo The second player
+	 * @throws IllegalArgumentException If the board has less than one column or row, or discsToWin is less than 1
+	 * @throws NullPointerException If playerOne or playerTwo is null
+	 */
+	public Connect4(final int cols, final int rows, final int discsToWin, final IPlayer playerOne, final IPlayer playerTwo) throws IllegalArgumentException, NullPointerException {
+		this(BoardFactory.createBoard(cols, rows), discsToWin, playerOne, playerTwo);
+	}
+	
+	/**
+	 * Create a new Connect4 game, which is played on the specified board, and won by connecting 
+	 * {@value #DISCS_TO_WIN} discs.
+	 * 
+	 * @param board The board to play on
+	 * @param playerOne The first player
+	 * @param playerTwo The second player
+	 * @throws NullPointerException If board, playerOne or playerTwo is null
+	 */
+	public Connect4(final IBoard board, final IPlayer playerOne, final IPlayer playerTwo) throws NullPointerException {
+		this(board, DISCS_TO_WIN, playerOne, playerTwo);
+	}
+	
+	/**
+	 * Create a new Connect4 game, which is played on the specified board.
+	 * 
+	 * @param board The board to play on
+	 * @param discsToWin The number of connected discs required to win
+	 * @param playerOne The first player
+	 * @param playerTwo The second player
+	 * @throws IllegalArgumentException If discsToWin is less than 1
+	 * @throws NullPointerException If board, playerOne or playerTwo is null
+	 */
+	public Connect4(final IBoard board, final int discsToWin, final IPlayer playerOne, final IPlayer playerTwo) throws IllegalArgumentException, NullPointerException {
+		if (discsToWin < 1) {
+			throw new IllegalArgumentException("Invalid number of discs to win: " + discsToWin + ". At least one disc is required to win.");
+		}
+		if (board == null) {
+			throw new NullPointerException("Board must not be null.");
+		}
 		if (playerOne == null || playerTwo == null) {
 			throw new NullPointerException("Players must not be null.");
 		}
-		this.board = new Board();
+		this.board = board;
+		this.discsToWin = discsToWin;
 		this.players = new IPlayer[]{playerOne, playerTwo};
+		this.moves = new int[board.getCols() * board.getRows()];
+		this.movePlayers = new byte[moves.length];
+		
+		IMetrics metrics = Metrics.get();
+		this.moveCounter = metrics.counter("connect4.moves");
+		this.illegalMoveCounter = metrics.counter("connect4.illegalMoves");
+		this.insertTimer = metrics.histogram("connect4.insertNanos");
+		this.winCheckTimer = metrics.histogram("connect4.winCheckNanos");
+		this.renderTimer = metrics.histogram("connect4.renderNanos");
 	}
 	
 	/**
@@ -61,7 +162,7 @@ public class Connect4 implements IConnect4 {
 			// Keeps track of whose turn it is
 			int currentPlayerId = -1;
 			
-			System.out.println(board.toString());
+			System.out.println(render());
 			
 			// Play until the game is finished
 			while (!board.isFull() || board.isWon()) {
@@ -74,12 +175,12 @@ public class Connect4 implements IConnect4 {
 				
 				// The player can try again until they make a valid move
 				while (!validMove) {
-					System.out.print("Player " + (currentPlayerId + 1) + " [" + currentPlayer.getName() + "] - choose column (1-" + Board.COLS + "): ");
+					System.out.print("Player " + (currentPlayerId + 1) + " [" + currentPlayer.getName() + "] - choose column (1-" + board.getCols() + "): ");
 					
 					// Read which column the player chose
 					String colString = null;
 					try {
-						colString = scanner.nextLine().trim();
+						colString = Stdin.scanner.nextLine().trim();
 					} catch (NoSuchElementException | IllegalStateException e) {
 						// The scanner/stream has been closed, we can't continue
 						return;
@@ -106,7 +207,7 @@ public class Connect4 implements IConnect4 {
 					validMove = true;
 				}
 				
-				System.out.println(board.toString());
+				System.out.println(render());
 				
 				// Check if the player won the game with their last move
 				if (board.isWon()) {
@@ -122,7 +223,7 @@ public class Connect4 implements IConnect4 {
 			}
 			
 			System.out.print("Play again? [y/n] ");
-			String playAgain = scanner.nextLine().trim();
+			String playAgain = Stdin.scanner.nextLine().trim();
 			if (!playAgain.equalsIgnoreCase("y")) {
 				finished = true;
 			} else {
@@ -134,32 +235,91 @@ public class Connect4 implements IConnect4 {
 	
 	@Override
 	public boolean insertDisc(final IPlayer player, final int col) throws InvalidInsertException, InvalidPlayerException, InvalidLocationException {
-		boolean validPlayer = false;
-		for (IPlayer somePlayer : players) {
-			if (somePlayer == player) {
-				validPlayer = true;
+		int status = tryInsertDisc(player, col);
+		
+		if (status == INVALID_PLAYER) {
+			throw new InvalidPlayerException("Player " + (player != null ? player.getName() : "null") + " doesn't participate in this game.");
+		}
+		if (status < 0) {
+			// A failed insert doesn't change the board, so repeating it throws the board's exception
+			board.insertDisc(player.getDisc(), col);
+			throw new IllegalStateException("Insert into column " + col + " failed with status " + status + ".");
+		}
+		
+		return status == WON;
+	}
+	
+	@Override
+	public int tryInsertDisc(final IPlayer player, final int col) {
+		int playerIndex = -1;
+		for (int i = 0; i < players.length; i++) {
+			if (players[i] == player) {
+				playerIndex = i;
 				break;
 			}
 		}
 		
-		if (!validPlayer) {
-			throw new InvalidPlayerException("Player " + (player != null ? player.getName() : "null") + " doesn't participate in this game.");
+		if (playerIndex < 0) {
+			illegalMoveCounter.increment();
+			return INVALID_PLAYER;
 		}
 		
-		int row = board.insertDisc(player.getDisc(), col);
+		boolean timed = --movesUntilTimed == 0;
+		long start = 0;
+		if (timed) {
+			movesUntilTimed = TIMER_SAMPLE_INTERVAL;
+			start = insertTimer.startTimer();
+		}
+		int row = board.tryInsertDisc(player.getDisc(), col);
+		if (row < 0) {
+			illegalMoveCounter.increment();
+			return row;
+		}
+		moves[movesMade] = col;
+		movePlayers[movesMade++] = (byte) playerIndex;
 		
+		if (timed) {
+			insertTimer.stopTimer(start);
+			start = winCheckTimer.startTimer();
+		}
 		boolean isWon = checkWin(col, row);
+		if (timed) {
+			winCheckTimer.stopTimer(start);
+		}
+		moveCounter.increment();
 		// Update the board's status
 		if (isWon) {
 			board.setWon();
 		}
 		
-		return isWon;
+		if (listeners.length != 0) {
+			fireMove(player, col, row, isWon);
+		}
+		return isWon ? WON : PLAYED;
+	}
+	
+	@Override
+	public int undo() throws InvalidRemoveException {
+		if (movesMade == 0) {
+			throw new InvalidRemoveException("There is no move to undo.");
+		}
+		
+		int col = moves[movesMade - 1];
+		// Removing the latest disc also clears the board's won mark, since only the latest disc can win
+		board.removeDisc(col);
+		movesMade--;
+		
+		if (listeners.length != 0) {
+			for (IGameListener listener : listeners) {
+				listener.onUndo(this, col);
+			}
+		}
+		return col;
 	}
 	
 	@Override
 	public int getDiscsToWin() {
-		return DISCS_TO_WIN;
+		return discsToWin;
 	}
 	
 	@Override
@@ -180,6 +340,37 @@ public class Connect4 implements IConnect4 {
 	@Override
 	public void restart() {
 		board.reset();
+		movesMade = 0;
+		
+		if (listeners.length != 0) {
+			for (IGameListener listener : listeners) {
+				listener.onRestart(this);
+			}
+		}
+	}
+	
+	@Override
+	public void addListener(final IGameListener listener) throws NullPointerException {
+		if (listener == null) {
+			throw new NullPointerException("Listener must not be null.");
+		}
+		IGameListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+		added[listeners.length] = listener;
+		listeners = added;
+	}
+	
+	@Override
+	public boolean removeListener(final IGameListener listener) {
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == listener) {
+				IGameListener[] removed = listeners.length == 1 ? NO_LISTENERS : new IGameListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, removed, 0, i);
+				System.arraycopy(listeners, i + 1, removed, i, listeners.length - i - 1);
+				listeners = removed;
+				return true;
+			}
+		}
+		return false;
 	}
 	
 	@Override
@@ -187,9 +378,94 @@ public class Connect4 implements IConnect4 {
 		return board;
 	}
 	
+	/**
+	 * Write the record of the game in a compact binary format:
+	 * <ul>
+	 * <li>the number of columns and rows, the number of discs to win, and the number of moves, as
+	 * variable-length ints (see {@link VarInt})</li>
+	 * <li>each move as a variable-length int of <code>(col - 1) * 2 + player</code>, where player is
+	 * 0 for the first and 1 for the second player, i.e. a byte per move on boards of up to 64 columns</li>
+	 * </ul>
+	 * Discs which have been on the board before the first move aren't part of the record.
+	 * 
+	 * @param out The output
+	 * @throws IOException If the output can't be written
+	 */
+	@Override
+	public void write(final DataOutput out) throws IOException {
+		VarInt.write(out, board.getCols());
+		VarInt.write(out, board.getRows());
+		VarInt.write(out, discsToWin);
+		VarInt.write(out, movesMade);
+		for (int i = 0; i < movesMade; i++) {
+			VarInt.write(out, (moves[i] - 1) << 1 | movePlayers[i]);
+		}
+	}
+	
+	@Override
+	public void read(final DataInput in) throws IOException {
+		int cols = VarInt.read(in);
+		int rows = VarInt.read(in);
+		int encodedDiscsToWin = VarInt.read(in);
+		if (cols != board.getCols() || rows != board.getRows() || encodedDiscsToWin != discsToWin) {
+			throw new IOException("Invalid game: " + cols + "x" + rows + " board with " + encodedDiscsToWin + " discs to win. Game must have a "
+					+ board.getCols() + "x" + board.getRows() + " board with " + discsToWin + " discs to win.");
+		}
+		restart();
+		readMoves(in);
+	}
+	
+	/**
+	 * Create a game with the rules of a game record written by {@link #write(DataOutput)}, and replay its moves.
+	 * 
+	 * @param in The input
+	 * @param playerOne The first player
+	 * @param playerTwo The second player
+	 * @return The game
+	 * @throws IOException If the input can't be read, or isn't a valid game record, e.g. has more than
+	 * {@value BoardFactory#MAX_RECORD_SIZE} columns or rows
+	 * @throws NullPointerException If playerOne or playerTwo is null
+	 */
+	public static Connect4 readGame(final DataInput in, final IPlayer playerOne, final IPlayer playerTwo) throws IOException, NullPointerException {
+		int cols = VarInt.read(in);
+		int rows = VarInt.read(in);
+		BoardFactory.checkRecordSize(cols, rows);
+		int discsToWin = VarInt.read(in);
+		Connect4 game;
+		try {
+			game = new Connect4(cols, rows, discsToWin, playerOne, playerTwo);
+		} catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+		game.readMoves(in);
+		return game;
+	}
+	
+	/**
+	 * Replay the moves of a game record, whose rules have already been read.
+	 * 
+	 * @param in The input, positioned after the rules of the game
+	 * @throws IOException If the input can't be read, or contains invalid moves
+	 */
+	private void readMoves(final DataInput in) throws IOException {
+		int count = VarInt.read(in);
+		if (count > moves.length) {
+			throw new IOException("Invalid number of moves: " + count + ". Board holds at most " + moves.length + " discs.");
+		}
+		
+		for (int i = 0; i < count; i++) {
+			int move = VarInt.read(in);
+			try {
+				insertDisc(players[move & 1], (move >>> 1) + 1);
+			} catch (InvalidInsertException | InvalidLocationException e) {
+				throw new IOException("Invalid move " + (i + 1) + ": " + e.getMessage(), e);
+			}
+		}
+	}
+	
 	/**
 	 * Checks if the latest inserted disc in the specified position is part of a winning 
-	 * combination, i.e. a sequence of at least {@value #DISCS_TO_WIN} discs of the same 
+	 * combination, i.e. a sequence of at least the required number of discs of the same 
 	 * color, which are connected horizontally, vertically, or diagonally.
 	 * 
 	 * @param col The column of the disc
@@ -200,60 +476,48 @@ public class Connect4 implements IConnect4 {
 	private boolean checkWin(final int col, final int row) throws InvalidLocationException {
 		
 		// If we have less discs in total than the number required to win, we short-circuit
-		if (board.getNumberOfDiscs() < DISCS_TO_WIN) {
+		if (board.getNumberOfDiscs() < discsToWin) {
 			return false;
 		}
 		
-		char disc = board.getDisc(col, row);
-		boolean result = false;
-		
-		/*
-		 * Search in the following directions for discs of the same color:
-		 * 
-		 * - Horizontal: left, right
-		 * - Vertical: bottom
-		 * - Diagonal: top-left, bottom-left, bottom-right, top-right
-		 * 
-		 * Note that we don't search towards the top, since this method is supposed 
-		 * to be used for newly inserted discs, which means that there can't be any 
-		 * discs above.
-		 * 
-		 * As soon as we find a non-matching disc in the current search direction, we 
-		 * abort that search.
-		 * As soon as we find the required number of matching discs in any direction, 
-		 * we return true.
-		 */
-		for (int searchIdx = 0; searchIdx < searchCols.length; searchIdx++) {
-			// The start disc is the first of the sequence
-			int discsConnected = 1;
-			
-			int i = col + searchCols[searchIdx];
-			int j = row + searchRows[searchIdx];
-			// Move in the specified direction, disc by disc
-			while (i > 0 && i <= Board.COLS && j > 0 && j <= Board.ROWS && discsConnected < DISCS_TO_WIN) {
-				/* 
-				 * If the disc is the same color as the start disc, then we increment the 
-				 * connected count.
-				 * Otherwise, we abandon that direction
-				 */
-				if (board.getDisc(i, j) == disc) {
-					discsConnected++;
-				} else {
-					break;
-				}
-				// Move to the next disc in the current direction
-				i = i + searchCols[searchIdx];
-				j = j + searchRows[searchIdx];
+		// The search itself depends on how the board stores its discs
+		return board.isConnected(col, row, discsToWin);
+	}
+	
+	/**
+	 * Render the board of an interactive game.
+	 * 
+	 * @return The board as text
+	 */
+	private String render() {
+		long start = renderTimer.startTimer();
+		String rendered = board.toString();
+		renderTimer.stopTimer(start);
+		return rendered;
+	}
+	
+	/**
+	 * Notify the listeners of a move, and of the end of the game if the move has finished it.
+	 * Kept out of {@link #tryInsertDisc(IPlayer, int)}, so that the move path stays small for games without listeners.
+	 * 
+	 * @param player The player, who made the move
+	 * @param col The column of the disc
+	 * @param row The row of the disc
+	 * @param isWon If the move has won the game
+	 */
+	private void fireMove(final IPlayer player, final int col, final int row, final boolean isWon) {
+		for (IGameListener listener : listeners) {
+			listener.onMove(this, player, col, row);
+		}
+		if (isWon) {
+			for (IGameListener listener : listeners) {
+				listener.onWon(this, player);
 			}
-			
-			// Check if we have found the required number of connected discs
-			if (discsConnected == DISCS_TO_WIN) {
-				result = true;
-				break;
+		} else if (board.isFull()) {
+			for (IGameListener listener : listeners) {
+				listener.onTie(this);
 			}
 		}
-		
-		return result;
 	}
 	
 	public static void main(String[] args) {
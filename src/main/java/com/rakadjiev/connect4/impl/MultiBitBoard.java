@@ -0,0 +1,152 @@
+package com.rakadjiev.connect4.impl;
+
+import java.util.Arrays;
+
+/**
+ * A Connect4 board with the same rules as {@link Board}, which stores the discs of each color as
+ * a bitset spanning several <code>long</code> words, for boards which don't fit into a single
+ * {@link BitBoard}.
+ * 
+ * The bits are assigned as in {@link BitBoard}: column by column, from the bottom to the top,
+ * with one (always empty) separator bit on top of each column. Thanks to the separator bits,
+ * a neighboring cell in any direction is always at the same bit distance, and walking past the
+ * edge of the board always hits an empty bit, so connected discs are found by stepping through
+ * the bitset without checking the column and row of each cell.
+ * 
+ * @author rakadjiev
+ */
+public class MultiBitBoard extends AbstractBoard {
+	
+	/** The maximum number of bits (cols * (rows + 1)) of a board, which keeps each bitset at 8 KB */
+	public static final int MAX_BITS = 1 << 16;
+	
+	/** The number of bits per column (including the separator bit) */
+	private final int height;
+	/** The number of bits of the board */
+	private final int bits;
+	
+	/** The bitsets of each disc color, indexed by the color's offset from {@link #FIRST_DISC}, created on first use */
+	private final long[][] discMasks = new long[LAST_DISC - FIRST_DISC + 1][];
+	/** The disc color of each cell, indexed by the cell's bit */
+	private final char[] discs;
+	/** The number of discs in each column */
+	private final int[] heights;
+	
+	/**
+	 * Create a board with the specified number of columns and rows.
+	 * 
+	 * @param cols The number of columns
+	 * @param rows The number of rows
+	 * @throws IllegalArgumentException If the board has less than one column or row, or more than {@value #MAX_BITS} bits
+	 */
+	public MultiBitBoard(final int cols, final int rows) throws IllegalArgumentException {
+		super(cols, rows);
+		if (!fits(cols, rows)) {
+			throw new IllegalArgumentException("Invalid board size: " + cols + "x" + rows + ". Board must fit into " + MAX_BITS + " bits, i.e. cols * (rows + 1) <= " + MAX_BITS);
+		}
+		this.height = rows + 1;
+		this.bits = cols * height;
+		this.discs = new char[bits];
+		this.heights = new int[cols];
+	}
+	
+	/**
+	 * Check if a board with the specified number of columns and rows fits into a multi-word bitset.
+	 * 
+	 * @param cols The number of columns
+	 * @param rows The number of rows
+	 * @return true if cols * (rows + 1) &lt;= {@value #MAX_BITS}
+	 */
+	public static boolean fits(final int cols, final int rows) {
+		return (long) cols * (rows + 1) <= MAX_BITS;
+	}
+	
+	@Override
+	protected int getHeight(final int colInternal) {
+		return heights[colInternal];
+	}
+	
+	@Override
+	protected void setDisc(final char disc, final int colInternal, final int rowInternal) {
+		int bit = colInternal * height + rowInternal;
+		long[] words = discMasks[disc - FIRST_DISC];
+		if (words == null) {
+			words = new long[(bits + Long.SIZE - 1) / Long.SIZE];
+			discMasks[disc - FIRST_DISC] = words;
+		}
+		words[bit >>> 6] |= 1L << bit;
+		discs[bit] = disc;
+		heights[colInternal] = rowInternal + 1;
+	}
+	
+	@Override
+	protected char clearDisc(final int colInternal, final int rowInternal) {
+		int bit = colInternal * height + rowInternal;
+		char disc = discs[bit];
+		discMasks[disc - FIRST_DISC][bit >>> 6] &= ~(1L << bit);
+		discs[bit] = NO_DISC;
+		heights[colInternal] = rowInternal;
+		return disc;
+	}
+	
+	@Override
+	protected char getDiscInternal(final int colInternal, final int rowInternal) {
+		return discs[colInternal * height + rowInternal];
+	}
+	
+	@Override
+	protected boolean isConnectedInternal(final int colInternal, final int rowInternal, final int discs) {
+		int bit = colInternal * height + rowInternal;
+		long[] words = discMasks[this.discs[bit] - FIRST_DISC];
+		
+		// Horizontal, vertical, and the two diagonals
+		return isConnected(words, bit, height, discs)
+				|| isConnected(words, bit, 1, discs)
+				|| isConnected(words, bit, height + 1, discs)
+				|| isConnected(words, bit, height - 1, discs);
+	}
+	
+	/**
+	 * Check if a disc is part of a sequence of connected discs in one direction, by counting
+	 * the set bits on both sides of it.
+	 * 
+	 * @param words The bitset of the disc's color
+	 * @param bit The bit of the disc
+	 * @param shift The distance between two neighboring cells in the direction
+	 * @param discs The number of connected discs to look for
+	 * @return true if the disc is part of a sequence of the required length
+	 */
+	private boolean isConnected(final long[] words, final int bit, final int shift, final int discs) {
+		// The disc itself is part of the sequence
+		int discsConnected = 1;
+		for (int i = bit + shift; i < bits && isSet(words, i) && discsConnected < discs; i += shift) {
+			discsConnected++;
+		}
+		for (int i = bit - shift; i >= 0 && isSet(words, i) && discsConnected < discs; i -= shift) {
+			discsConnected++;
+		}
+		return discsConnected >= discs;
+	}
+	
+	/**
+	 * Check if a bit is set in a bitset.
+	 * 
+	 * @param words The bitset
+	 * @param bit The bit
+	 * @return true if the bit is set
+	 */
+	private static boolean isSet(final long[] words, final int bit) {
+		return (words[bit >>> 6] & (1L << bit)) != 0;
+	}
+	
+	@Override
+	protected void clear() {
+		for (long[] words : discMasks) {
+			if (words != null) {
+				Arrays.fill(words, 0L);
+			}
+		}
+		Arrays.fill(discs, NO_DISC);
+		Arrays.fill(heights, 0);
+	}
+}
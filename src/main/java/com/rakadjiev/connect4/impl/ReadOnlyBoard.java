@@ -0,0 +1,154 @@
+package com.rakadjiev.connect4.impl;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.exceptions.InvalidLocationException;
+
+/**
+ * A read-only view of a board, e.g. for agents, which must not change the game they play.
+ * The view always shows the current discs of the board. All methods, which would modify the
+ * board, throw an {@link UnsupportedOperationException}.
+ * 
+ * @author rakadjiev
+ */
+public class ReadOnlyBoard implements IBoard {
+	
+	/** The board */
+	private final IBoard board;
+	
+	/**
+	 * Create a read-only view of a board.
+	 * 
+	 * @param board The board
+	 * @throws NullPointerException If board is null
+	 */
+	public ReadOnlyBoard(final IBoard board) throws NullPointerException {
+		if (board == null) {
+			throw new NullPointerException("Board must not be null.");
+		}
+		this.board = board;
+	}
+	
+	@Override
+	public int insertDisc(final char disc, final int col) {
+		throw readOnly();
+	}
+	
+	@Override
+	public char removeDisc(final int col) {
+		throw readOnly();
+	}
+	
+	@Override
+	public int tryInsertDisc(final char disc, final int col) {
+		throw readOnly();
+	}
+	
+	@Override
+	public int tryRemoveDisc(final int col) {
+		throw readOnly();
+	}
+	
+	@Override
+	public boolean canPlay(final int col) {
+		return board.canPlay(col);
+	}
+	
+	@Override
+	public long getPlayableColumns() {
+		return board.getPlayableColumns();
+	}
+	
+	@Override
+	public int nextPlayableColumn(final int col) {
+		return board.nextPlayableColumn(col);
+	}
+	
+	@Override
+	public int getCols() {
+		return board.getCols();
+	}
+	
+	@Override
+	public int getRows() {
+		return board.getRows();
+	}
+	
+	@Override
+	public boolean isPopulated(final int col, final int row) throws InvalidLocationException {
+		return board.isPopulated(col, row);
+	}
+	
+	@Override
+	public char getDisc(final int col, final int row) throws InvalidLocationException {
+		return board.getDisc(col, row);
+	}
+	
+	@Override
+	public boolean isConnected(final int col, final int row, final int discs) throws InvalidLocationException {
+		return board.isConnected(col, row, discs);
+	}
+	
+	@Override
+	public int getNumberOfDiscs() {
+		return board.getNumberOfDiscs();
+	}
+	
+	@Override
+	public boolean isFull() {
+		return board.isFull();
+	}
+	
+	@Override
+	public boolean isWon() {
+		return board.isWon();
+	}
+	
+	@Override
+	public void setWon() {
+		throw readOnly();
+	}
+	
+	@Override
+	public long getKey() {
+		return board.getKey();
+	}
+	
+	@Override
+	public long getCanonicalKey() {
+		return board.getCanonicalKey();
+	}
+	
+	@Override
+	public void reset() {
+		throw readOnly();
+	}
+	
+	@Override
+	public void write(final DataOutput out) throws IOException {
+		board.write(out);
+	}
+	
+	@Override
+	public void read(final DataInput in) {
+		throw readOnly();
+	}
+	
+	@Override
+	public String toString() {
+		return board.toString();
+	}
+	
+	/**
+	 * Create the exception thrown by the methods, which would modify the board.
+	 * 
+	 * @return The exception
+	 */
+	private static UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("The board is read-only.");
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.rakadjiev.connect4.impl;
+
+/**
+ * Zobrist hashing of Connect4 boards.
+ * 
+ * Every combination of cell and disc color has a pseudo-random 64-bit value, and the key of a board
+ * is the XOR of the values of all its discs. Inserting or removing a disc therefore updates the key
+ * with a single XOR, and the key doesn't depend on the order in which the discs have been inserted.
+ * 
+ * Instead of a table of random values, which would have to be sized for the largest board, the
+ * values are derived from the cell and disc color with a strong 64-bit mixing function.
+ * 
+ * @author rakadjiev
+ */
+final class Zobrist {
+	
+	private Zobrist() {
+	}
+	
+	/**
+	 * Get the value of a disc in a cell.
+	 * 
+	 * @param colInternal The column (0-based index)
+	 * @param rowInternal The row (0-based index)
+	 * @param disc The disc color
+	 * @return The pseudo-random value of the disc in the cell
+	 */
+	static long hash(final int colInternal, final int rowInternal, final char disc) {
+		// Every combination maps to a distinct input, which is then mixed (SplitMix64 finalizer)
+		long z = (((long) colInternal << 40) | ((long) rowInternal << 16) | disc) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.rakadjiev.connect4.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Reads and writes non-negative ints with a variable number of bytes (unsigned LEB128), so that
+ * small values, like board sizes and moves, take a single byte.
+ * 
+ * Each byte holds 7 bits of the value, starting with the lowest ones, and its highest bit is set
+ * if more bytes follow. Values below 128 take 1 byte, values below 16384 take 2 bytes, etc.
+ * 
+ * @author rakadjiev
+ */
+public final class VarInt {
+	
+	/** The maximum number of bytes of an int */
+	public static final int MAX_BYTES = 5;
+	
+	private VarInt() {
+	}
+	
+	/**
+	 * Write a value.
+	 * 
+	 * @param out The output
+	 * @param value The value (must not be negative)
+	 * @throws IOException If the output can't be written
+	 * @throws IllegalArgumentException If value is negative
+	 */
+	public static void write(final DataOutput out, final int value) throws IOException, IllegalArgumentException {
+		if (value < 0) {
+			throw new IllegalArgumentException("Invalid value: " + value + ". Value must not be negative.");
+		}
+		int remaining = value;
+		while (remaining >= 0x80) {
+			out.writeByte(remaining & 0x7F | 0x80);
+			remaining >>>= 7;
+		}
+		out.writeByte(remaining);
+	}
+	
+	/**
+	 * Read a value.
+	 * 
+	 * @param in The input
+	 * @return The value
+	 * @throws IOException If the input can't be read, ends within the value, or the value doesn't fit into an int
+	 */
+	public static int read(final DataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < MAX_BYTES * 7; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if (b < 0x80) {
+				if (shift == (MAX_BYTES - 1) * 7 && b > 0x07) {
+					throw new IOException("Invalid variable-length int: value doesn't fit into an int.");
+				}
+				return value;
+			}
+		}
+		throw new IOException("Invalid variable-length int: more than " + MAX_BYTES + " bytes.");
+	}
+	
+	/**
+	 * Get the number of bytes of a value.
+	 * 
+	 * @param value The value (must not be negative)
+	 * @return The number of bytes written by {@link #write(DataOutput, int)}
+	 */
+	public static int size(final int value) {
+		int bytes = 1;
+		for (int remaining = value >>> 7; remaining != 0; remaining >>>= 7) {
+			bytes++;
+		}
+		return bytes;
+	}
+
+}
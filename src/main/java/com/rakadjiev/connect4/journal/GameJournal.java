@@ -0,0 +1,793 @@
+package com.rakadjiev.connect4.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.exceptions.InvalidRemoveException;
+import com.rakadjiev.connect4.impl.BoardFactory;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.impl.Player;
+import com.rakadjiev.connect4.io.VarInt;
+
+/**
+ * Persists games in a directory, so that they survive restarts and crashes: each change of a game is
+ * appended to a journal, and all games are periodically written to a snapshot. Opening a journal
+ * recovers the games from the latest snapshot and the records appended after it.
+ * 
+ * The journal is split into segments, and each snapshot starts a new segment, so recovery only
+ * replays the segments from the one started by the latest snapshot, and older files are deleted.
+ * Records are collected in a buffer, and written to the current segment in blocks of about
+ * {@value #DEFAULT_BLOCK_BYTES} bytes, which start with a header of {@value #BLOCK_HEADER_BYTES} bytes:
+ * <pre>
+ * int  number of bytes of the records
+ * int  CRC-32 of the sequence number and the records
+ * long sequence number of the first record
+ * </pre>
+ * Each record is a type byte and the id of a game as a <code>long</code>, followed by the arguments
+ * of the type, e.g. a move as a variable-length int (see {@link VarInt}), so a move takes 10 bytes.
+ * Records are numbered consecutively, and each game keeps the number of its latest record, which
+ * is also written to the snapshot, so records, which are already part of a snapshot, are skipped
+ * during recovery.
+ * 
+ * Appending a record doesn't wait for the disk: records become durable with {@link #sync()}.
+ * Syncs are group-committed, i.e. threads syncing at the same time share a single
+ * <code>fsync</code>, and records are appended while it runs. A crash loses the records appended
+ * after the latest sync, and recovery cuts off a block, which has only been written partly, so
+ * that the segment stays valid, once the next segment is started.
+ * 
+ * Each journaled game has its own lock, so games can be played by any number of threads at the
+ * same time, and the journal only serializes appending the records to the buffer. A journal
+ * instance is thread-safe.
+ * 
+ * @author rakadjiev
+ */
+public class GameJournal implements Closeable {
+	
+	/** The first bytes of every snapshot file ("C4SN") */
+	public static final int MAGIC = 0x4334534E;
+	/** The version of the file formats */
+	public static final int VERSION = 1;
+	/** The number of bytes of a block header */
+	public static final int BLOCK_HEADER_BYTES = 16;
+	/** The number of bytes of records, which are written to the journal at once, if no block size is specified */
+	public static final int DEFAULT_BLOCK_BYTES = 64 * 1024;
+	
+	/** Record of a game with its players and moves, appended when the game is created or read */
+	static final byte GAME = 1;
+	/** Record of a move */
+	static final byte MOVE = 2;
+	/** Record of an undone move */
+	static final byte UNDO = 3;
+	/** Record of a restart */
+	static final byte RESTART = 4;
+	/** Record of a removed game */
+	static final byte REMOVE = 5;
+	
+	/** The names of segment files, numbered by segment */
+	private static final Pattern SEGMENT_FILE = Pattern.compile("journal-(\\d{16})\\.log");
+	/** The names of snapshot files, numbered by the segment they start */
+	private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d{16})\\.bin");
+	/** The offset of the number of games in a snapshot file, after the magic, the version, the sequence number and the next id */
+	private static final long SNAPSHOT_COUNT_OFFSET = 2 * Integer.BYTES + 2 * Long.BYTES;
+	/** The name of a snapshot file, while it is being written */
+	private static final String SNAPSHOT_TEMP_FILE = "snapshot.tmp";
+	
+	/** The directory of the journal */
+	private final Path dir;
+	/** The number of bytes of records, which are written to the journal at once */
+	private final int blockBytes;
+	/** The games by id */
+	private final ConcurrentHashMap<Long, JournaledGame> games = new ConcurrentHashMap<>();
+	
+	/** The block being collected, guarded by the journal's monitor like the rest of the writer's state */
+	private final Block block = new Block();
+	/** The output of the block */
+	private final DataOutputStream out = new DataOutputStream(block);
+	/** The current segment */
+	private FileChannel channel;
+	/** The number of the current segment */
+	private long segment;
+	/** The sequence number of the latest appended record */
+	private long sequence;
+	/** The sequence number of the latest record written to the current segment */
+	private long written;
+	/** The id of the next game */
+	private long nextId = 1;
+	/** The error, which has made the journal unusable, or null */
+	private IOException failure;
+	
+	/** The lock of syncs and segment switches, so that only one thread at a time waits for the disk */
+	private final Object syncLock = new Object();
+	/** The sequence number of the latest durable record */
+	private volatile long durable;
+	/** The lock of snapshots */
+	private final Object snapshotLock = new Object();
+	
+	/**
+	 * Open a journal with blocks of {@value #DEFAULT_BLOCK_BYTES} bytes.
+	 * 
+	 * @param dir The directory of the journal, which is created if it doesn't exist
+	 * @throws IOException If the directory can't be read or written, or doesn't contain a valid journal
+	 * @see #GameJournal(Path, int)
+	 */
+	public GameJournal(final Path dir) throws IOException {
+		this(dir, DEFAULT_BLOCK_BYTES);
+	}
+	
+	/**
+	 * Open a journal, recover its games, and write them to a new snapshot, so that the next recovery
+	 * doesn't replay the same records again.
+	 * 
+	 * @param dir The directory of the journal, which is created if it doesn't exist
+	 * @param blockBytes The number of bytes of records, which are written to the journal at once
+	 * @throws IOException If the directory can't be read or written, or doesn't contain a valid journal
+	 * @throws IllegalArgumentException If blockBytes is less than 1
+	 */
+	public GameJournal(final Path dir, final int blockBytes) throws IOException, IllegalArgumentException {
+		if (blockBytes < 1) {
+			throw new IllegalArgumentException("Invalid block size: " + blockBytes + ". Block must hold at least one byte.");
+		}
+		this.dir = dir;
+		this.blockBytes = blockBytes;
+		
+		Files.createDirectories(dir);
+		List<Long> snapshots = list(SNAPSHOT_FILE);
+		if (!snapshots.isEmpty()) {
+			segment = snapshots.get(snapshots.size() - 1);
+			readSnapshot(snapshotFile(segment));
+		}
+		List<Long> segments = list(SEGMENT_FILE);
+		for (int i = 0; i < segments.size(); i++) {
+			if (segments.get(i) >= segment) {
+				replay(segmentFile(segments.get(i)), i == segments.size() - 1);
+				segment = segments.get(i);
+			}
+		}
+		written = sequence;
+		durable = sequence;
+		snapshot();
+	}
+	
+	/**
+	 * Create a game, and append it to the journal.
+	 * 
+	 * @param cols The number of columns of the board
+	 * @param rows The number of rows of the board
+	 * @param discsToWin The number of connected discs required to win
+	 * @param playerOne The first player
+	 * @param playerTwo The second player
+	 * @return The game
+	 * @throws IOException If the journal can't be written
+	 * @throws IllegalArgumentException If the board size or the number of discs to win is invalid, or
+	 * the board has more than {@value BoardFactory#MAX_RECORD_SIZE} columns or rows, so its record couldn't be read back
+	 * @throws NullPointerException If playerOne or playerTwo is null
+	 */
+	public JournaledGame create(final int cols, final int rows, final int discsToWin, final IPlayer playerOne, final IPlayer playerTwo) throws IOException, IllegalArgumentException, NullPointerException {
+		if (cols > BoardFactory.MAX_RECORD_SIZE || rows > BoardFactory.MAX_RECORD_SIZE) {
+			throw new IllegalArgumentException("Invalid board: " + cols + "x" + rows + ". Journaled games must have at most " + BoardFactory.MAX_RECORD_SIZE + " columns and rows.");
+		}
+		Connect4 game = new Connect4(cols, rows, discsToWin, playerOne, playerTwo);
+		long id;
+		synchronized (this) {
+			id = nextId++;
+		}
+		JournaledGame journaled = new JournaledGame(this, id, game, playerOne, playerTwo);
+		// The game is added first, so that a snapshot, which has started a new segment before the record, contains it
+		synchronized (journaled) {
+			games.put(id, journaled);
+			journaled.setSequence(appendGame(journaled));
+		}
+		return journaled;
+	}
+	
+	/**
+	 * Get a game.
+	 * 
+	 * @param id The id of the game
+	 * @return The game, or null if there is no game with the id
+	 */
+	public JournaledGame get(final long id) {
+		return games.get(id);
+	}
+	
+	/**
+	 * Get all games.
+	 * 
+	 * @return An unmodifiable view of the games
+	 */
+	public Collection<JournaledGame> getGames() {
+		return Collections.unmodifiableCollection(games.values());
+	}
+	
+	/**
+	 * Get the number of games.
+	 * 
+	 * @return The number of games
+	 */
+	public int size() {
+		return games.size();
+	}
+	
+	/**
+	 * Remove a game from the journal, e.g. after it has finished. Changes made to the game afterwards
+	 * aren't journaled.
+	 * 
+	 * @param id The id of the game
+	 * @return true if the game has been removed, false if there is no game with the id
+	 * @throws IOException If the journal can't be written
+	 */
+	public boolean remove(final long id) throws IOException {
+		JournaledGame game = games.get(id);
+		if (game == null) {
+			return false;
+		}
+		synchronized (game) {
+			if (!games.remove(id, game)) {
+				return false;
+			}
+			game.setRemoved();
+			game.setSequence(append(REMOVE, id));
+		}
+		return true;
+	}
+	
+	/**
+	 * Make all records appended so far durable. If another thread is already syncing, waits for it,
+	 * and then syncs the records appended in the meantime by all threads at once.
+	 * 
+	 * @throws IOException If the journal can't be written
+	 */
+	public void sync() throws IOException {
+		long target;
+		synchronized (this) {
+			checkFailure();
+			target = sequence;
+		}
+		synchronized (syncLock) {
+			if (durable >= target) {
+				return;
+			}
+			long synced;
+			FileChannel current;
+			synchronized (this) {
+				writeBlock();
+				synced = written;
+				current = channel;
+			}
+			try {
+				current.force(false);
+			} catch (IOException e) {
+				fail(e);
+			}
+			durable = synced;
+		}
+	}
+	
+	/**
+	 * Write all games to a new snapshot, and delete the files, which aren't needed for recovery anymore.
+	 * Games can be played while the snapshot is being written.
+	 * 
+	 * @throws IOException If the snapshot or the journal can't be written
+	 */
+	public void snapshot() throws IOException {
+		synchronized (snapshotLock) {
+			long snapshotSegment;
+			long snapshotSequence;
+			long snapshotNextId;
+			synchronized (syncLock) {
+				FileChannel previous;
+				synchronized (this) {
+					checkFailure();
+					writeBlock();
+					previous = channel;
+				}
+				// Most of the segment is forced while records are still appended, and only the rest while they wait
+				forceSegment(previous);
+				synchronized (this) {
+					writeBlock();
+					// The segment must be durable before the next one exists, since only the last segment may be torn after a crash
+					forceSegment(previous);
+					if (previous != null) {
+						try {
+							previous.close();
+						} catch (IOException e) {
+							fail(e);
+						}
+					}
+					try {
+						channel = FileChannel.open(segmentFile(segment + 1), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+					} catch (IOException e) {
+						fail(e);
+					}
+					segment++;
+					snapshotSegment = segment;
+					snapshotSequence = sequence;
+					snapshotNextId = nextId;
+				}
+				durable = snapshotSequence;
+			}
+			
+			// Changes made from now on are appended to the new segment, and replayed after the snapshot
+			List<JournaledGame> snapshotGames = new ArrayList<>(games.values());
+			Path temp = dir.resolve(SNAPSHOT_TEMP_FILE);
+			try (FileChannel file = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				DataOutputStream snapshotOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(file), DEFAULT_BLOCK_BYTES));
+				snapshotOut.writeInt(MAGIC);
+				snapshotOut.writeInt(VERSION);
+				snapshotOut.writeLong(snapshotSequence);
+				snapshotOut.writeLong(snapshotNextId);
+				snapshotOut.writeInt(0);
+				int count = 0;
+				for (JournaledGame game : snapshotGames) {
+					synchronized (game) {
+						// A game removed meanwhile would be restored, since its record is newer than the removal
+						if (game.isRemoved()) {
+							continue;
+						}
+						snapshotOut.writeLong(game.getSequence());
+						writeGame(snapshotOut, game);
+						count++;
+					}
+				}
+				snapshotOut.flush();
+				// The number of games is only known now, after the games removed meanwhile have been skipped
+				file.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, count), SNAPSHOT_COUNT_OFFSET);
+				file.force(true);
+			}
+			Files.move(temp, snapshotFile(snapshotSegment), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			
+			for (long old : list(SNAPSHOT_FILE)) {
+				if (old < snapshotSegment) {
+					Files.deleteIfExists(snapshotFile(old));
+				}
+			}
+			for (long old : list(SEGMENT_FILE)) {
+				if (old < snapshotSegment) {
+					Files.deleteIfExists(segmentFile(old));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Get the sequence number of the latest appended record.
+	 * 
+	 * @return The sequence number, which is 0 if no records have been appended yet
+	 */
+	public synchronized long getSequence() {
+		return sequence;
+	}
+	
+	/**
+	 * Get the sequence number of the latest durable record, i.e. the latest record, which will be recovered after a crash.
+	 * 
+	 * @return The sequence number
+	 */
+	public long getDurableSequence() {
+		return durable;
+	}
+	
+	/**
+	 * Sync the journal, and close it. Changes made to the games afterwards throw an {@link java.io.UncheckedIOException}.
+	 * 
+	 * @throws IOException If the journal can't be written
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (!channel.isOpen()) {
+				return;
+			}
+		}
+		try {
+			sync();
+		} finally {
+			synchronized (this) {
+				if (failure == null) {
+					failure = new IOException("Journal has been closed.");
+				}
+				channel.close();
+			}
+		}
+	}
+	
+	/**
+	 * Append the record of a game, i.e. its players and all its moves.
+	 * 
+	 * @param game The game, whose lock must be held
+	 * @return The sequence number of the record
+	 * @throws IOException If the journal can't be written
+	 */
+	synchronized long appendGame(final JournaledGame game) throws IOException {
+		checkFailure();
+		out.writeByte(GAME);
+		writeGame(out, game);
+		return endRecord();
+	}
+	
+	/**
+	 * Append the record of a move.
+	 * 
+	 * @param id The id of the game, whose lock must be held
+	 * @param move The move, encoded as <code>(col - 1) * 2 + player</code>
+	 * @return The sequence number of the record
+	 * @throws IOException If the journal can't be written
+	 */
+	synchronized long appendMove(final long id, final int move) throws IOException {
+		checkFailure();
+		out.writeByte(MOVE);
+		out.writeLong(id);
+		VarInt.write(out, move);
+		return endRecord();
+	}
+	
+	/**
+	 * Append a record without arguments.
+	 * 
+	 * @param type The type of the record
+	 * @param id The id of the game, whose lock must be held
+	 * @return The sequence number of the record
+	 * @throws IOException If the journal can't be written
+	 */
+	synchronized long append(final byte type, final long id) throws IOException {
+		checkFailure();
+		out.writeByte(type);
+		out.writeLong(id);
+		return endRecord();
+	}
+	
+	/**
+	 * Number the record, which has been appended to the block, and write the block if it is full.
+	 * 
+	 * @return The sequence number of the record
+	 * @throws IOException If the journal can't be written
+	 */
+	private long endRecord() throws IOException {
+		sequence++;
+		if (block.size() - BLOCK_HEADER_BYTES >= blockBytes) {
+			writeBlock();
+		}
+		return sequence;
+	}
+	
+	/**
+	 * Write the block to the current segment, unless it is empty. Must be called with the journal's monitor held.
+	 * 
+	 * @throws IOException If the journal can't be written
+	 */
+	private void writeBlock() throws IOException {
+		if (block.size() == BLOCK_HEADER_BYTES) {
+			return;
+		}
+		ByteBuffer buffer = block.seal(written + 1);
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (IOException e) {
+			fail(e);
+		}
+		block.reset();
+		written = sequence;
+	}
+	
+	/**
+	 * Make the journal unusable after an error, since records may have been lost.
+	 * 
+	 * @param e The error
+	 * @throws IOException Always the error
+	 */
+	private void fail(final IOException e) throws IOException {
+		synchronized (this) {
+			failure = e;
+		}
+		throw e;
+	}
+	
+	/**
+	 * Force a segment to the disk.
+	 * 
+	 * @param segmentChannel The segment, or null before the first segment has been started
+	 * @throws IOException If the segment can't be written
+	 */
+	private void forceSegment(final FileChannel segmentChannel) throws IOException {
+		if (segmentChannel != null) {
+			try {
+				segmentChannel.force(false);
+			} catch (IOException e) {
+				fail(e);
+			}
+		}
+	}
+	
+	/**
+	 * Check if the journal can still be written. Must be called with the journal's monitor held.
+	 * 
+	 * @throws IOException If the journal is unusable
+	 */
+	private void checkFailure() throws IOException {
+		if (failure != null) {
+			throw new IOException("Journal is unusable: " + failure.getMessage(), failure);
+		}
+	}
+	
+	/**
+	 * Write the id, the players and the moves of a game.
+	 * 
+	 * @param output The output
+	 * @param game The game, whose lock must be held
+	 * @throws IOException If the output can't be written
+	 */
+	private static void writeGame(final DataOutputStream output, final JournaledGame game) throws IOException {
+		output.writeLong(game.getId());
+		output.writeUTF(game.getPlayerOne().getName());
+		output.writeChar(game.getPlayerOne().getDisc());
+		output.writeUTF(game.getPlayerTwo().getName());
+		output.writeChar(game.getPlayerTwo().getDisc());
+		game.getGame().write(output);
+	}
+	
+	/**
+	 * Read a game written by {@link #writeGame(DataOutputStream, JournaledGame)}.
+	 * 
+	 * @param in The input
+	 * @return The game
+	 * @throws IOException If the input can't be read, or isn't a valid game
+	 */
+	private JournaledGame readGame(final DataInputStream in) throws IOException {
+		long id = in.readLong();
+		IPlayer playerOne = new Player(in.readUTF(), in.readChar());
+		IPlayer playerTwo = new Player(in.readUTF(), in.readChar());
+		JournaledGame game = new JournaledGame(this, id, Connect4.readGame(in, playerOne, playerTwo), playerOne, playerTwo);
+		nextId = Math.max(nextId, id + 1);
+		return game;
+	}
+	
+	/**
+	 * Read the games of a snapshot.
+	 * 
+	 * @param file The snapshot file
+	 * @throws IOException If the file can't be read, or isn't a valid snapshot
+	 */
+	private void readSnapshot(final Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), DEFAULT_BLOCK_BYTES))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Invalid snapshot: " + file + ". Unknown file format.");
+			}
+			sequence = in.readLong();
+			nextId = in.readLong();
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				long gameSequence = in.readLong();
+				JournaledGame game = readGame(in);
+				game.setSequence(gameSequence);
+				games.put(game.getId(), game);
+			}
+		} catch (EOFException e) {
+			throw new IOException("Invalid snapshot: " + file + ". File is incomplete.", e);
+		}
+	}
+	
+	/**
+	 * Replay the records of a segment.
+	 * 
+	 * @param file The segment file
+	 * @param last If the segment is the latest one, whose last block may be incomplete after a crash, and is cut off then
+	 * @throws IOException If the file can't be read, or isn't a valid segment
+	 */
+	private void replay(final Path file, final boolean last) throws IOException {
+		long size = Files.size(file);
+		long offset = 0;
+		boolean torn = false;
+		byte[] records = new byte[0];
+		CRC32 crc = new CRC32();
+		
+		try (InputStream stream = Files.newInputStream(file)) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(stream, DEFAULT_BLOCK_BYTES));
+			while (offset < size) {
+				boolean valid = size - offset >= BLOCK_HEADER_BYTES;
+				int length = 0;
+				int checksum = 0;
+				long firstSequence = 0;
+				if (valid) {
+					length = in.readInt();
+					checksum = in.readInt();
+					firstSequence = in.readLong();
+					valid = length > 0 && length <= size - offset - BLOCK_HEADER_BYTES;
+				}
+				if (valid) {
+					if (records.length < length) {
+						records = new byte[length];
+					}
+					in.readFully(records, 0, length);
+					crc.reset();
+					crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, firstSequence).array());
+					crc.update(records, 0, length);
+					valid = (int) crc.getValue() == checksum;
+				}
+				if (!valid) {
+					if (last) {
+						// The block has only been written partly before a crash, and has never been synced
+						torn = true;
+						break;
+					}
+					throw new IOException("Invalid journal: " + file + ". Block at offset " + offset + " is incomplete or corrupt.");
+				}
+				if (firstSequence != sequence + 1) {
+					throw new IOException("Invalid journal: " + file + ". Block at offset " + offset + " starts with record " + firstSequence
+							+ ", but the next record is " + (sequence + 1) + ".");
+				}
+				
+				DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(records, 0, length));
+				while (recordIn.available() > 0) {
+					sequence++;
+					replayRecord(recordIn);
+				}
+				offset += BLOCK_HEADER_BYTES + length;
+			}
+		} catch (EOFException e) {
+			throw new IOException("Invalid journal: " + file + ". Record at offset " + offset + " is incomplete.", e);
+		}
+		
+		if (torn) {
+			// Otherwise the block would be in the middle of the journal after a crash before the next snapshot
+			try (FileChannel segmentChannel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				segmentChannel.truncate(offset);
+				segmentChannel.force(true);
+			}
+		}
+	}
+	
+	/**
+	 * Apply a record to the games, unless the game already contains it.
+	 * 
+	 * @param in The input, positioned at the record with the current sequence number
+	 * @throws IOException If the input can't be read, or isn't a valid record
+	 */
+	private void replayRecord(final DataInputStream in) throws IOException {
+		byte type = in.readByte();
+		if (type == GAME) {
+			JournaledGame game = readGame(in);
+			JournaledGame existing = games.get(game.getId());
+			if (existing == null || existing.getSequence() < sequence) {
+				game.setSequence(sequence);
+				games.put(game.getId(), game);
+			}
+			return;
+		}
+		
+		if (type < MOVE || type > REMOVE) {
+			throw new IOException("Invalid journal record: unknown type " + type + ".");
+		}
+		
+		long id = in.readLong();
+		int move = type == MOVE ? VarInt.read(in) : 0;
+		JournaledGame game = games.get(id);
+		// Records of games, which have been removed before the snapshot, or are part of it, are skipped
+		if (game == null || game.getSequence() >= sequence) {
+			return;
+		}
+		switch (type) {
+		case MOVE:
+			game.replayMove(move);
+			break;
+		case UNDO:
+			try {
+				game.getGame().undo();
+			} catch (InvalidRemoveException e) {
+				throw new IOException("Invalid undo of game " + id + ": " + e.getMessage(), e);
+			}
+			break;
+		case RESTART:
+			game.getGame().restart();
+			break;
+		default:
+			games.remove(id);
+			break;
+		}
+		game.setSequence(sequence);
+	}
+	
+	/**
+	 * List the numbers of the files with the specified name pattern.
+	 * 
+	 * @param pattern The pattern of the file names, whose first group is the number
+	 * @return The numbers, in ascending order
+	 * @throws IOException If the directory can't be read
+	 */
+	private List<Long> list(final Pattern pattern) throws IOException {
+		List<Long> numbers = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+			for (Path file : files) {
+				Matcher matcher = pattern.matcher(file.getFileName().toString());
+				if (matcher.matches()) {
+					numbers.add(Long.parseLong(matcher.group(1)));
+				}
+			}
+		}
+		Collections.sort(numbers);
+		return numbers;
+	}
+	
+	/**
+	 * Get the file of a segment.
+	 * 
+	 * @param number The number of the segment
+	 * @return The file
+	 */
+	private Path segmentFile(final long number) {
+		return dir.resolve(String.format("journal-%016d.log", number));
+	}
+	
+	/**
+	 * Get the file of a snapshot.
+	 * 
+	 * @param number The number of the segment started by the snapshot
+	 * @return The file
+	 */
+	private Path snapshotFile(final long number) {
+		return dir.resolve(String.format("snapshot-%016d.bin", number));
+	}
+	
+	/**
+	 * A growable buffer of records, which starts with room for the block header.
+	 */
+	private static final class Block extends ByteArrayOutputStream {
+		
+		/**
+		 * Create an empty block.
+		 */
+		Block() {
+			super(DEFAULT_BLOCK_BYTES + BLOCK_HEADER_BYTES);
+			reset();
+		}
+		
+		@Override
+		public void reset() {
+			count = BLOCK_HEADER_BYTES;
+		}
+		
+		/**
+		 * Fill in the header of the block.
+		 * 
+		 * @param firstSequence The sequence number of the first record
+		 * @return A buffer of the header and the records
+		 */
+		ByteBuffer seal(final long firstSequence) {
+			ByteBuffer buffer = ByteBuffer.wrap(buf, 0, count);
+			buffer.putInt(0, count - BLOCK_HEADER_BYTES);
+			buffer.putLong(8, firstSequence);
+			CRC32 crc = new CRC32();
+			crc.update(buf, 8, count - 8);
+			buffer.putInt(4, (int) crc.getValue());
+			return buffer;
+		}
+	
+	}
+
+}
@@ -0,0 +1,331 @@
+package com.rakadjiev.connect4.journal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IGameListener;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.exceptions.InvalidLocationException;
+import com.rakadjiev.connect4.exceptions.InvalidPlayerException;
+import com.rakadjiev.connect4.exceptions.InvalidRemoveException;
+import com.rakadjiev.connect4.impl.Connect4;
+
+/**
+ * A game of a {@link GameJournal}, which appends each change of the game to the journal: moves,
+ * undone moves, restarts, and games read with {@link #read(DataInput)}. Invalid moves don't
+ * change the game, so they aren't journaled.
+ * 
+ * The methods of the game are synchronized, so that each change and its record are made at once,
+ * and the game can be used by several threads. Changes made directly to the board, instead of
+ * through the game, aren't journaled. If the journal can't be written, the change is made, but an
+ * {@link UncheckedIOException} is thrown, and the journal rejects all further changes.
+ * 
+ * @author rakadjiev
+ */
+public class JournaledGame implements IConnect4 {
+	
+	/** The journal */
+	private final GameJournal journal;
+	/** The id of the game in the journal */
+	private final long id;
+	/** The game */
+	private final Connect4 game;
+	/** The players */
+	private final IPlayer[] players;
+	
+	/** The sequence number of the latest record of the game */
+	private long sequence;
+	/** If the game has been removed from the journal, so that its changes aren't journaled anymore */
+	private boolean removed;
+	/** The listeners, which are called with this game instead of the journaled one, so that they can't bypass the journal */
+	private IGameListener[] listeners = new IGameListener[0];
+	/** The listener of the journaled game, which forwards its events to the listeners */
+	private final IGameListener forwarder = new IGameListener() {
+		
+		@Override
+		public void onMove(final IConnect4 source, final IPlayer player, final int col, final int row) {
+			for (IGameListener listener : listeners) {
+				listener.onMove(JournaledGame.this, player, col, row);
+			}
+		}
+		
+		@Override
+		public void onWon(final IConnect4 source, final IPlayer player) {
+			for (IGameListener listener : listeners) {
+				listener.onWon(JournaledGame.this, player);
+			}
+		}
+		
+		@Override
+		public void onTie(final IConnect4 source) {
+			for (IGameListener listener : listeners) {
+				listener.onTie(JournaledGame.this);
+			}
+		}
+		
+		@Override
+		public void onUndo(final IConnect4 source, final int col) {
+			for (IGameListener listener : listeners) {
+				listener.onUndo(JournaledGame.this, col);
+			}
+		}
+		
+		@Override
+		public void onRestart(final IConnect4 source) {
+			for (IGameListener listener : listeners) {
+				listener.onRestart(JournaledGame.this);
+			}
+		}
+		
+	};
+	
+	/**
+	 * Create a journaled game.
+	 * 
+	 * @param journal The journal
+	 * @param id The id of the game in the journal
+	 * @param game The game
+	 * @param playerOne The first player of the game
+	 * @param playerTwo The second player of the game
+	 */
+	JournaledGame(final GameJournal journal, final long id, final Connect4 game, final IPlayer playerOne, final IPlayer playerTwo) {
+		this.journal = journal;
+		this.id = id;
+		this.game = game;
+		this.players = new IPlayer[] { playerOne, playerTwo };
+	}
+	
+	/**
+	 * Get the id of the game in the journal, which stays the same after recovery.
+	 * 
+	 * @return The id of the game
+	 */
+	public long getId() {
+		return id;
+	}
+	
+	/**
+	 * Get the first player. Recovered games have new players with the names and discs of the original ones.
+	 * 
+	 * @return The first player
+	 */
+	public IPlayer getPlayerOne() {
+		return players[0];
+	}
+	
+	/**
+	 * Get the second player. Recovered games have new players with the names and discs of the original ones.
+	 * 
+	 * @return The second player
+	 */
+	public IPlayer getPlayerTwo() {
+		return players[1];
+	}
+	
+	@Override
+	public synchronized IBoard getBoard() {
+		return game.getBoard();
+	}
+	
+	@Override
+	public int getDiscsToWin() {
+		return game.getDiscsToWin();
+	}
+	
+	@Override
+	public synchronized boolean insertDisc(final IPlayer player, final int col) throws InvalidInsertException, InvalidPlayerException, InvalidLocationException {
+		boolean won = game.insertDisc(player, col);
+		journalMove(player, col);
+		return won;
+	}
+	
+	@Override
+	public synchronized int tryInsertDisc(final IPlayer player, final int col) {
+		int status = game.tryInsertDisc(player, col);
+		if (status >= 0) {
+			journalMove(player, col);
+		}
+		return status;
+	}
+	
+	@Override
+	public synchronized int undo() throws InvalidRemoveException {
+		int col = game.undo();
+		journal(GameJournal.UNDO);
+		return col;
+	}
+	
+	@Override
+	public synchronized boolean isWon() {
+		return game.isWon();
+	}
+	
+	@Override
+	public synchronized boolean isTie() {
+		return game.isTie();
+	}
+	
+	@Override
+	public synchronized boolean isFinished() {
+		return game.isFinished();
+	}
+	
+	@Override
+	public synchronized void restart() {
+		game.restart();
+		journal(GameJournal.RESTART);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * The listener is called with this game as the source of the events, while the game's lock is held.
+	 */
+	@Override
+	public synchronized void addListener(final IGameListener listener) throws NullPointerException {
+		if (listener == null) {
+			throw new NullPointerException("Listener must not be null.");
+		}
+		if (listeners.length == 0) {
+			game.addListener(forwarder);
+		}
+		IGameListener[] added = Arrays.copyOf(listeners, listeners.length + 1);
+		added[listeners.length] = listener;
+		listeners = added;
+	}
+	
+	@Override
+	public synchronized boolean removeListener(final IGameListener listener) {
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == listener) {
+				IGameListener[] removedListeners = new IGameListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, removedListeners, 0, i);
+				System.arraycopy(listeners, i + 1, removedListeners, i, listeners.length - i - 1);
+				listeners = removedListeners;
+				if (listeners.length == 0) {
+					game.removeListener(forwarder);
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public synchronized void write(final DataOutput out) throws IOException {
+		game.write(out);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * The whole game is journaled, even if the record is invalid and only part of it has been replayed.
+	 */
+	@Override
+	public synchronized void read(final DataInput in) throws IOException {
+		try {
+			game.read(in);
+		} finally {
+			if (!removed) {
+				sequence = journal.appendGame(this);
+			}
+		}
+	}
+	
+	/**
+	 * Get the game, which is journaled.
+	 * 
+	 * @return The game
+	 */
+	Connect4 getGame() {
+		return game;
+	}
+	
+	/**
+	 * Get the sequence number of the latest record of the game.
+	 * 
+	 * @return The sequence number
+	 */
+	long getSequence() {
+		return sequence;
+	}
+	
+	/**
+	 * Set the sequence number of the latest record of the game.
+	 * 
+	 * @param sequence The sequence number
+	 */
+	void setSequence(final long sequence) {
+		this.sequence = sequence;
+	}
+	
+	/**
+	 * Mark the game as removed from the journal.
+	 */
+	void setRemoved() {
+		removed = true;
+	}
+	
+	/**
+	 * Check if the game has been removed from the journal. Must be called with the game's monitor held.
+	 * 
+	 * @return true if the game has been removed
+	 */
+	boolean isRemoved() {
+		return removed;
+	}
+	
+	/**
+	 * Make a move read from the journal.
+	 * 
+	 * @param move The move, encoded as <code>(col - 1) * 2 + player</code>, like in {@link Connect4#write(DataOutput)}
+	 * @throws IOException If the move is invalid
+	 */
+	void replayMove(final int move) throws IOException {
+		try {
+			game.insertDisc(players[move & 1], (move >>> 1) + 1);
+		} catch (InvalidInsertException | InvalidLocationException e) {
+			throw new IOException("Invalid move of game " + id + ": " + e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * Append a move, which has been made, to the journal.
+	 * 
+	 * @param player The player, who played
+	 * @param col The column of the move
+	 */
+	private void journalMove(final IPlayer player, final int col) {
+		if (removed) {
+			return;
+		}
+		try {
+			sequence = journal.appendMove(id, (col - 1) << 1 | (player == players[0] ? 0 : 1));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Append a change without arguments to the journal.
+	 * 
+	 * @param type The type of the record
+	 */
+	private void journal(final byte type) {
+		if (removed) {
+			return;
+		}
+		try {
+			sequence = journal.append(type, id);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
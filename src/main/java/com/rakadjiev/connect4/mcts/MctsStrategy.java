@@ -0,0 +1,604 @@
+package com.rakadjiev.connect4.mcts;
+
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IMetrics;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.IStrategy;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.exceptions.InvalidRemoveException;
+import com.rakadjiev.connect4.impl.BoardFactory;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.metrics.Metrics;
+import com.rakadjiev.connect4.simulation.MoveGenerator;
+import com.rakadjiev.connect4.simulation.RandomStrategy;
+
+/**
+ * A strategy, which chooses moves by Monte Carlo Tree Search with the UCT selection rule. Unlike
+ * the solver, it supports boards of any size and any number of discs to win, e.g. 9x7 boards.
+ * 
+ * Each iteration descends the tree from the current position, choosing the child with the best
+ * upper confidence bound (the average result of its playouts, plus an exploration term, which
+ * grows for rarely visited children). The first leaf reached is expanded by one child per playable
+ * column, the game is played to the end from the first unvisited child by a playout policy, and
+ * the result is added to all nodes on the path. The move played is the most visited child.
+ * 
+ * The tree is stored in a {@link NodeArena} of limited size, which grows with the tree, so a short
+ * search only takes the memory it needs, and a long one no more than the limit: once the arena is
+ * full, the search goes on with the nodes it has. After a move and the opponent's reply, the
+ * subtree of the new position is kept for the next move, as long as the arena is less than half
+ * full. Otherwise, the tree is rebuilt from scratch.
+ * 
+ * With several threads, each thread plays on its own copy of the board with its own playout
+ * policy. Descending and updating the tree is guarded by the arena's lock, while the playouts,
+ * which take most of the time, run in parallel. A node on the path of a running playout counts
+ * as lost (virtual loss), so that the other threads explore other paths meanwhile.
+ * 
+ * A strategy instance must only be used by one thread at a time.
+ * 
+ * @author rakadjiev
+ */
+public class MctsStrategy implements IStrategy {
+	
+	/** The default exploration constant */
+	public static final double DEFAULT_EXPLORATION = Math.sqrt(2);
+	/** The default maximum number of iterations per move */
+	public static final long DEFAULT_MAX_ITERATIONS = 10_000;
+	/** The default memory of the tree */
+	public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+	/** The minimum number of nodes of the tree */
+	private static final int MIN_NODES = 256;
+	
+	/** The exploration constant */
+	private final double exploration;
+	/** Creates the playout policy of each thread */
+	private final Supplier<IStrategy> playoutPolicy;
+	/** The maximum number of iterations per move (0 if unlimited) */
+	private final long maxIterations;
+	/** The maximum time per move in milliseconds (0 if unlimited) */
+	private final long maxMillis;
+	/** The tree */
+	private final NodeArena arena;
+	/** The states of the threads, the calling thread's first */
+	private final Worker[] workers;
+	/** Counts the iterations of all searches */
+	private final IMetrics.Counter iterationCounter = Metrics.get().counter("mcts.iterations");
+	
+	/** The root of the tree */
+	private int root = -1;
+	/** The child of the root played by the latest move, or -1 if the tree can't be reused */
+	private int playedChild = -1;
+	/** The key of the board after the latest move */
+	private long playedKey;
+	/** The disc of the player, who made the latest move */
+	private char playedDisc;
+	
+	/** The number of iterations of the latest move */
+	private long iterations;
+	/** The deadline of the current move (0 if unlimited) */
+	private long deadline;
+	/** The number of playouts, which the root had from previous moves when the latest move started */
+	private long reusedVisits;
+	
+	/**
+	 * Create a strategy with random playouts, which runs {@value #DEFAULT_MAX_ITERATIONS} iterations
+	 * per move on one thread, with a tree of up to {@value #DEFAULT_MAX_BYTES} bytes.
+	 */
+	public MctsStrategy() {
+		this(DEFAULT_MAX_ITERATIONS, 0);
+	}
+	
+	/**
+	 * Create a strategy with random playouts and a search budget, which runs on one thread, with
+	 * a tree of up to {@value #DEFAULT_MAX_BYTES} bytes.
+	 * 
+	 * @param maxIterations The maximum number of iterations per move (0 if unlimited)
+	 * @param maxMillis The maximum time per move in milliseconds (0 if unlimited)
+	 * @throws IllegalArgumentException If the budget is negative or unlimited
+	 */
+	public MctsStrategy(final long maxIterations, final long maxMillis) throws IllegalArgumentException {
+		this(DEFAULT_EXPLORATION, RandomStrategy::new, maxIterations, maxMillis, DEFAULT_MAX_BYTES, 1);
+	}
+	
+	/**
+	 * Create a strategy.
+	 * 
+	 * @param exploration The exploration constant, which weighs rarely visited moves against moves with good results
+	 * @param playoutPolicy Creates a playout policy for each thread
+	 * @param maxIterations The maximum number of iterations per move (0 if unlimited)
+	 * @param maxMillis The maximum time per move in milliseconds (0 if unlimited)
+	 * @param maxBytes The maximum memory of the tree in bytes
+	 * @param threads The number of threads
+	 * @throws IllegalArgumentException If the budget is negative or unlimited, the exploration constant
+	 * is negative, the memory is too small, or threads is less than 1
+	 * @throws NullPointerException If playoutPolicy is null
+	 */
+	public MctsStrategy(final double exploration, final Supplier<IStrategy> playoutPolicy, final long maxIterations, final long maxMillis, final long maxBytes, final int threads) throws IllegalArgumentException, NullPointerException {
+		if (!(exploration >= 0)) {
+			throw new IllegalArgumentException("Invalid exploration constant: " + exploration + ". Exploration constant must not be negative.");
+		}
+		if (playoutPolicy == null) {
+			throw new NullPointerException("Playout policy must not be null.");
+		}
+		if (maxIterations < 0 || maxMillis < 0) {
+			throw new IllegalArgumentException("Search budget must not be negative.");
+		}
+		if (maxIterations == 0 && maxMillis == 0) {
+			throw new IllegalArgumentException("Search budget must not be unlimited.");
+		}
+		if (maxBytes < (long) MIN_NODES * NodeArena.BYTES_PER_NODE) {
+			throw new IllegalArgumentException("Invalid memory size: " + maxBytes + ". Memory must fit at least " + MIN_NODES + " nodes (" + MIN_NODES * NodeArena.BYTES_PER_NODE + " bytes).");
+		}
+		if (threads < 1) {
+			throw new IllegalArgumentException("Invalid number of threads: " + threads + ". At least one thread is required.");
+		}
+		this.exploration = exploration;
+		this.playoutPolicy = playoutPolicy;
+		this.maxIterations = maxIterations;
+		this.maxMillis = maxMillis;
+		this.arena = new NodeArena((int) Math.min(maxBytes / NodeArena.BYTES_PER_NODE, NodeArena.MAX_CAPACITY));
+		this.workers = new Worker[threads];
+	}
+	
+	@Override
+	public String getName() {
+		return "mcts";
+	}
+	
+	@Override
+	public int chooseMove(final IConnect4 game, final IPlayer player, final IPlayer opponent, final SplittableRandom random) {
+		IBoard board = game.getBoard();
+		initRoot(board, opponent.getDisc());
+		
+		for (int i = 0; i < workers.length; i++) {
+			if (workers[i] == null) {
+				workers[i] = new Worker(playoutPolicy.get());
+			}
+			workers[i].init(board, game.getDiscsToWin(), player, opponent, random.split());
+		}
+		
+		iterations = 0;
+		deadline = maxMillis > 0 ? System.nanoTime() + maxMillis * 1_000_000 : 0;
+		Thread[] helpers = new Thread[workers.length - 1];
+		for (int i = 1; i < workers.length; i++) {
+			helpers[i - 1] = new Thread(workers[i], "mcts-helper-" + i);
+			helpers[i - 1].setDaemon(true);
+			helpers[i - 1].start();
+		}
+		try {
+			workers[0].run();
+		} finally {
+			for (Thread helper : helpers) {
+				joinUninterruptibly(helper);
+			}
+		}
+		iterationCounter.add(iterations);
+		
+		int child = bestChild();
+		int col;
+		if (child < 0) {
+			// The tree couldn't be expanded, e.g. for boards with more columns than the arena has nodes
+			playedChild = -1;
+			col = board.nextPlayableColumn(0);
+		} else {
+			playedChild = child;
+			col = arena.move[child];
+		}
+		
+		// Remember the board after the move, to find the opponent's reply in the tree
+		board.tryInsertDisc(player.getDisc(), col);
+		playedKey = board.getKey();
+		playedDisc = player.getDisc();
+		board.tryRemoveDisc(col);
+		
+		return col;
+	}
+	
+	/**
+	 * Get the number of iterations of the latest move.
+	 * 
+	 * @return The number of iterations
+	 */
+	public long getIterations() {
+		return iterations;
+	}
+	
+	/**
+	 * Get the number of playouts, which the tree already had from previous moves when the latest move started.
+	 * 
+	 * @return The number of reused playouts (0 if the tree has been rebuilt)
+	 */
+	public long getReusedVisits() {
+		return reusedVisits;
+	}
+	
+	/**
+	 * Get the number of nodes of the tree.
+	 * 
+	 * @return The number of nodes
+	 */
+	public int getTreeSize() {
+		return arena.size();
+	}
+	
+	/**
+	 * Get the maximum number of nodes of the tree.
+	 * 
+	 * @return The maximum number of nodes
+	 */
+	public int getTreeCapacity() {
+		return arena.getCapacity();
+	}
+	
+	/**
+	 * Get the number of threads.
+	 * 
+	 * @return The number of threads
+	 */
+	public int getThreads() {
+		return workers.length;
+	}
+	
+	/**
+	 * Set the root of the tree to the current position: the grandchild of the previous root, which
+	 * matches the opponent's reply to the latest move, or a new tree.
+	 * 
+	 * @param board The board of the current position
+	 * @param opponentDisc The disc of the opponent
+	 */
+	private void initRoot(final IBoard board, final char opponentDisc) {
+		int reused = -1;
+		if (playedChild >= 0 && arena.firstChild[playedChild] >= 0 && arena.size() < arena.getCapacity() / 2 && playedDisc != opponentDisc) {
+			int first = arena.firstChild[playedChild];
+			for (int node = first; node < first + arena.childCount[playedChild]; node++) {
+				// Take back the reply, which would have been played in the node's column, and compare the boards
+				int col = arena.move[node];
+				int disc = board.tryRemoveDisc(col);
+				if (disc < 0) {
+					continue;
+				}
+				boolean matches = disc == opponentDisc && board.getKey() == playedKey;
+				board.tryInsertDisc((char) disc, col);
+				if (matches) {
+					reused = node;
+					break;
+				}
+			}
+		}
+		
+		if (reused >= 0) {
+			root = reused;
+			reusedVisits = arena.visits[root];
+		} else {
+			arena.clear();
+			root = arena.allocate(1);
+			reusedVisits = 0;
+		}
+		playedChild = -1;
+	}
+	
+	/**
+	 * Get the most visited child of the root, or a child, which wins right away.
+	 * 
+	 * @return The child, or -1 if the root hasn't been expanded
+	 */
+	private int bestChild() {
+		int first = arena.firstChild[root];
+		if (first < 0) {
+			return -1;
+		}
+		int best = first;
+		for (int node = first; node < first + arena.childCount[root]; node++) {
+			if (arena.terminal[node] == NodeArena.WIN) {
+				return node;
+			}
+			if (arena.visits[node] > arena.visits[best]) {
+				best = node;
+			}
+		}
+		return best;
+	}
+	
+	/**
+	 * Choose the child of a node with the best upper confidence bound. Unvisited children are chosen
+	 * first, and children which win right away are always chosen.
+	 * 
+	 * @param node The expanded node
+	 * @return The child
+	 */
+	private int select(final int node) {
+		int first = arena.firstChild[node];
+		int end = first + arena.childCount[node];
+		double logVisits = Math.log(Math.max(1, arena.visits[node] + arena.virtualLoss[node]));
+		
+		int best = first;
+		double bestBound = Double.NEGATIVE_INFINITY;
+		for (int child = first; child < end; child++) {
+			if (arena.terminal[child] == NodeArena.WIN) {
+				return child;
+			}
+			// Running playouts count as visits without a win
+			int visits = arena.visits[child] + arena.virtualLoss[child];
+			if (visits == 0) {
+				return child;
+			}
+			double bound = arena.score[child] / (2.0 * visits) + exploration * Math.sqrt(logVisits / visits);
+			if (bound > bestBound) {
+				bestBound = bound;
+				best = child;
+			}
+		}
+		return best;
+	}
+	
+	/**
+	 * Check if the search budget allows another iteration. Must be called while holding the arena's lock.
+	 * 
+	 * @return true if another iteration can be started
+	 */
+	private boolean hasBudget() {
+		return (maxIterations == 0 || iterations < maxIterations) && (deadline == 0 || System.nanoTime() - deadline < 0);
+	}
+	
+	/**
+	 * Wait for a thread to finish, even if the current thread is interrupted, and restore the
+	 * interrupted status afterwards.
+	 * 
+	 * @param thread The thread
+	 */
+	private static void joinUninterruptibly(final Thread thread) {
+		boolean interrupted = false;
+		while (true) {
+			try {
+				thread.join();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * The state of a searching thread: its copy of the game, its playout policy, and the path of its current iteration.
+	 */
+	private final class Worker implements Runnable {
+		
+		/** The playout policy */
+		private final IStrategy policy;
+		
+		/** The copy of the game, on which the moves of the iterations are played and taken back */
+		private IConnect4 game;
+		/** The board of the copy */
+		private IBoard board;
+		/** Orders the children of expanded nodes */
+		private MoveGenerator generator;
+		/** The player, who chooses the move */
+		private IPlayer player;
+		/** The opponent */
+		private IPlayer opponent;
+		/** The random number generator of the playouts */
+		private SplittableRandom random;
+		/** The nodes of the current iteration, starting with the root */
+		private int[] path;
+		/** The playable columns of a node during expansion */
+		private int[] moves;
+		
+		/**
+		 * Create a worker.
+		 * 
+		 * @param policy The playout policy
+		 */
+		Worker(final IStrategy policy) {
+			this.policy = policy;
+		}
+		
+		/**
+		 * Copy the current position of a game.
+		 * 
+		 * @param original The board of the game
+		 * @param discsToWin The number of connected discs required to win
+		 * @param player The player, who chooses the move
+		 * @param opponent The opponent
+		 * @param random The random number generator of the playouts
+		 */
+		void init(final IBoard original, final int discsToWin, final IPlayer player, final IPlayer opponent, final SplittableRandom random) {
+			int cols = original.getCols();
+			int rows = original.getRows();
+			if (board == null || board.getCols() != cols || board.getRows() != rows) {
+				board = BoardFactory.createBoard(cols, rows);
+				generator = new MoveGenerator(cols);
+				path = new int[cols * rows + 1];
+				moves = new int[cols];
+			} else {
+				board.reset();
+			}
+			
+			try {
+				for (int i = 1; i <= cols; i++) {
+					for (int j = 1; j <= rows && original.isPopulated(i, j); j++) {
+						board.insertDisc(original.getDisc(i, j), i);
+					}
+				}
+			} catch (InvalidInsertException e) {
+				// The discs come from a valid board of the same size
+				throw new IllegalStateException(e);
+			}
+			
+			this.game = new Connect4(board, discsToWin, player, opponent);
+			this.player = player;
+			this.opponent = opponent;
+			this.random = random;
+		}
+		
+		@Override
+		public void run() {
+			while (true) {
+				int depth;
+				byte terminal;
+				synchronized (arena) {
+					if (!hasBudget()) {
+						return;
+					}
+					iterations++;
+					depth = descend();
+					// Another thread may grow the arena during the playout, so the leaf is read under the lock
+					terminal = arena.terminal[path[depth]];
+				}
+				
+				// The player, who made the move into the leaf, is the chooser at odd depths
+				IPlayer mover = depth % 2 == 1 ? player : opponent;
+				int result;
+				int playoutMoves = 0;
+				if (terminal == NodeArena.WIN) {
+					result = 2;
+				} else if (terminal == NodeArena.TIE || board.isFull()) {
+					result = 1;
+				} else {
+					// The result is seen from the mover of the leaf, whose opponent plays next
+					result = 2;
+					IPlayer current = mover == player ? opponent : player;
+					while (true) {
+						int col = policy.chooseMove(game, current, current == player ? opponent : player, random);
+						int status = game.tryInsertDisc(current, col);
+						if (status < 0) {
+							throw new IllegalStateException("Playout policy " + policy.getName() + " chose an invalid move: " + col + " (status " + status + ").");
+						}
+						playoutMoves++;
+						if (status == IConnect4.WON) {
+							result = current == mover ? 2 : 0;
+							break;
+						}
+						if (board.isFull()) {
+							result = 1;
+							break;
+						}
+						current = current == player ? opponent : player;
+					}
+				}
+				
+				synchronized (arena) {
+					backpropagate(depth, result);
+				}
+				undo(playoutMoves + depth);
+			}
+		}
+		
+		/**
+		 * Descend from the root to a leaf, expand it if possible, and play the moves of the path on the
+		 * copy of the game. Must be called while holding the arena's lock.
+		 * 
+		 * @return The depth of the leaf, whose path is in {@link #path}
+		 */
+		private int descend() {
+			int node = root;
+			int depth = 0;
+			path[0] = node;
+			arena.virtualLoss[node]++;
+			
+			while (arena.terminal[node] == NodeArena.NOT_TERMINAL && !board.isFull()) {
+				if (arena.firstChild[node] < 0 && !expand(node, depth)) {
+					break;
+				}
+				int child = select(node);
+				play(depth, arena.move[child]);
+				node = child;
+				path[++depth] = node;
+				arena.virtualLoss[node]++;
+				if (arena.visits[node] == 0) {
+					// Only the first unvisited node of the path is added to the tree
+					break;
+				}
+			}
+			return depth;
+		}
+		
+		/**
+		 * Add a child for each playable column of a node, center first, and mark the moves, which end the game.
+		 * 
+		 * @param node The node, which hasn't been expanded
+		 * @param depth The depth of the node
+		 * @return true if the node has been expanded, false if the arena is full
+		 */
+		private boolean expand(final int node, final int depth) {
+			int count = generator.centerFirst(board, moves);
+			int first = arena.allocate(count);
+			if (first < 0) {
+				return false;
+			}
+			
+			for (int i = 0; i < count; i++) {
+				int child = first + i;
+				arena.move[child] = (short) moves[i];
+				int status = play(depth, moves[i]);
+				if (status == IConnect4.WON) {
+					arena.terminal[child] = NodeArena.WIN;
+				} else if (board.isFull()) {
+					arena.terminal[child] = NodeArena.TIE;
+				}
+				undo(1);
+			}
+			arena.childCount[node] = (short) count;
+			arena.firstChild[node] = first;
+			return true;
+		}
+		
+		/**
+		 * Play the move into a child of a node on the copy of the game.
+		 * 
+		 * @param depth The depth of the node
+		 * @param col The column of the move
+		 * @return The status of the move
+		 */
+		private int play(final int depth, final int col) {
+			// The chooser moves at the root and every other level below it
+			int status = game.tryInsertDisc(depth % 2 == 0 ? player : opponent, col);
+			if (status < 0) {
+				throw new IllegalStateException("Invalid move in the tree: " + col + " (status " + status + ").");
+			}
+			return status;
+		}
+		
+		/**
+		 * Add the result of a playout to the nodes on the path, and remove their virtual loss.
+		 * Must be called while holding the arena's lock.
+		 * 
+		 * @param depth The depth of the leaf
+		 * @param result The result for the player, who made the move into the leaf (2 for a win, 1 for a tie, 0 for a loss)
+		 */
+		private void backpropagate(final int depth, final int result) {
+			int r = result;
+			for (int i = depth; i >= 0; i--) {
+				int node = path[i];
+				arena.visits[node]++;
+				arena.score[node] += r;
+				arena.virtualLoss[node]--;
+				// The result of the parent's mover is the opposite
+				r = 2 - r;
+			}
+		}
+		
+		/**
+		 * Take back moves on the copy of the game.
+		 * 
+		 * @param count The number of moves
+		 */
+		private void undo(final int count) {
+			try {
+				for (int i = 0; i < count; i++) {
+					game.undo();
+				}
+			} catch (InvalidRemoveException e) {
+				// Only moves played on the copy are taken back
+				throw new IllegalStateException(e);
+			}
+		}
+	
+	}
+
+}
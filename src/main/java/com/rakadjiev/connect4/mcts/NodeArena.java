@@ -0,0 +1,143 @@
+package com.rakadjiev.connect4.mcts;
+
+import java.util.Arrays;
+
+/**
+ * The nodes of a search tree, stored in primitive arrays instead of one object per node.
+ * 
+ * A node is an index into the arrays. The children of a node are allocated together, so they
+ * occupy consecutive indices, and a node only stores the index of its first child and the number
+ * of children. Nodes are never freed individually: once the arena is full, no more nodes can be
+ * allocated until it is cleared.
+ * 
+ * The arrays start small, and double when they are full, up to the capacity, so a short search
+ * doesn't pay for the memory of a long one. Growing replaces the arrays, so they must be read
+ * through the arena's fields after each allocation.
+ * 
+ * The arena isn't thread-safe, so concurrent searches must synchronize on it.
+ * 
+ * @author rakadjiev
+ */
+final class NodeArena {
+	
+	/** The number of bytes used per node */
+	static final int BYTES_PER_NODE = Integer.BYTES + Short.BYTES + Short.BYTES + Byte.BYTES + Integer.BYTES + Long.BYTES + Short.BYTES;
+	/** The maximum number of nodes */
+	static final int MAX_CAPACITY = 1 << 28;
+	/** The initial length of the arrays */
+	private static final int INITIAL_LENGTH = 1024;
+	
+	/** The node hasn't ended the game */
+	static final byte NOT_TERMINAL = 0;
+	/** The move into the node has won the game */
+	static final byte WIN = 1;
+	/** The move into the node has filled the board without winning */
+	static final byte TIE = 2;
+	
+	/** The index of the first child, or -1 if the node hasn't been expanded */
+	int[] firstChild;
+	/** The number of children */
+	short[] childCount;
+	/** The column of the move into the node (1-based index) */
+	short[] move;
+	/** If the move into the node has ended the game */
+	byte[] terminal;
+	/** The number of playouts through the node */
+	int[] visits;
+	/** The results of the playouts through the node for the player, who made the move into the node (2 per win, 1 per tie) */
+	long[] score;
+	/** The number of playouts through the node, which are still running */
+	short[] virtualLoss;
+	
+	/** The maximum number of nodes */
+	private final int capacity;
+	/** The number of allocated nodes */
+	private int size;
+	
+	/**
+	 * Create an empty arena.
+	 * 
+	 * @param capacity The maximum number of nodes (between 1 and {@value #MAX_CAPACITY})
+	 */
+	NodeArena(final int capacity) {
+		this.capacity = capacity;
+		int length = Math.min(capacity, INITIAL_LENGTH);
+		firstChild = new int[length];
+		childCount = new short[length];
+		move = new short[length];
+		terminal = new byte[length];
+		visits = new int[length];
+		score = new long[length];
+		virtualLoss = new short[length];
+	}
+	
+	/**
+	 * Allocate consecutive unexpanded nodes without any playouts.
+	 * 
+	 * @param count The number of nodes
+	 * @return The index of the first node, or -1 if the arena doesn't have enough space left
+	 */
+	int allocate(final int count) {
+		if (count > capacity - size) {
+			return -1;
+		}
+		if (count > firstChild.length - size) {
+			grow(size + count);
+		}
+		int first = size;
+		for (int i = first; i < first + count; i++) {
+			firstChild[i] = -1;
+			childCount[i] = 0;
+			move[i] = 0;
+			terminal[i] = NOT_TERMINAL;
+			visits[i] = 0;
+			score[i] = 0L;
+			virtualLoss[i] = 0;
+		}
+		size += count;
+		return first;
+	}
+	
+	/**
+	 * Enlarge the arrays to at least a number of nodes, doubling their length, but not beyond the capacity.
+	 * 
+	 * @param minLength The minimum length of the arrays
+	 */
+	private void grow(final int minLength) {
+		int length = (int) Math.min(capacity, Math.max(minLength, 2L * firstChild.length));
+		firstChild = Arrays.copyOf(firstChild, length);
+		childCount = Arrays.copyOf(childCount, length);
+		move = Arrays.copyOf(move, length);
+		terminal = Arrays.copyOf(terminal, length);
+		visits = Arrays.copyOf(visits, length);
+		score = Arrays.copyOf(score, length);
+		virtualLoss = Arrays.copyOf(virtualLoss, length);
+	}
+	
+	/**
+	 * Remove all nodes.
+	 */
+	void clear() {
+		// The nodes are reset when they are allocated again
+		size = 0;
+	}
+	
+	/**
+	 * Get the number of allocated nodes.
+	 * 
+	 * @return The number of nodes
+	 */
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * Get the maximum number of nodes.
+	 * 
+	 * @return The capacity
+	 */
+	int getCapacity() {
+		return capacity;
+	}
+	
+}
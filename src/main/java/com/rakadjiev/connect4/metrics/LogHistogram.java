@@ -0,0 +1,166 @@
+package com.rakadjiev.connect4.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.rakadjiev.connect4.IMetrics;
+
+/**
+ * A histogram with logarithmic buckets, like HdrHistogram: values below {@value #SUB_BUCKETS} have
+ * their own bucket, and each power of 2 above is split into {@value #SUB_BUCKETS} buckets of equal
+ * width, so values are counted with a relative error of at most 1/{@value #SUB_BUCKETS}, and all
+ * non-negative longs fit into {@value #BUCKETS} buckets.
+ * 
+ * Recording a value is an atomic increment of its bucket, an atomic addition to the sum, and
+ * usually a single read of the maximum, without locks or allocation. The buckets are striped by
+ * thread, i.e. each of a few threads records into its own copy, so threads recording at the same
+ * time don't contend for the same cache lines. Reading the histogram merges the stripes, so it is
+ * much slower than recording, and meant for reports.
+ * 
+ * @author rakadjiev
+ */
+public class LogHistogram implements IMetrics.Histogram {
+	
+	/** The number of bits of the values, which determine their bucket within a power of 2 */
+	public static final int SUB_BUCKET_BITS = 5;
+	/** The number of buckets per power of 2 */
+	public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	/** The number of buckets */
+	public static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	/** The maximum number of stripes */
+	public static final int MAX_STRIPES = 8;
+	
+	/** The index of the sum of the values in a stripe */
+	private static final int SUM = BUCKETS;
+	/** The index of the maximum value in a stripe */
+	private static final int MAX = BUCKETS + 1;
+	/** The number of longs of a stripe, padded by a cache line, so that stripes don't share cache lines */
+	private static final int STRIDE = BUCKETS + 2 + 8;
+	
+	/** The stripes of the buckets, the sum and the maximum */
+	private final AtomicLongArray counts;
+	/** The mask of the stripe index bits */
+	private final int stripeMask;
+	
+	/**
+	 * Create a histogram with a stripe per available processor, up to {@value #MAX_STRIPES}.
+	 */
+	public LogHistogram() {
+		int stripes = Integer.highestOneBit(Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()));
+		this.counts = new AtomicLongArray(stripes * STRIDE);
+		this.stripeMask = stripes - 1;
+	}
+	
+	@Override
+	public void record(final long value) {
+		long v = Math.max(0, value);
+		int stripe = ((int) Thread.currentThread().getId() & stripeMask) * STRIDE;
+		counts.incrementAndGet(stripe + getBucket(v));
+		counts.addAndGet(stripe + SUM, v);
+		long max = counts.get(stripe + MAX);
+		while (v > max && !counts.compareAndSet(stripe + MAX, max, v)) {
+			max = counts.get(stripe + MAX);
+		}
+	}
+	
+	@Override
+	public long startTimer() {
+		return System.nanoTime();
+	}
+	
+	@Override
+	public void stopTimer(final long start) {
+		record(System.nanoTime() - start);
+	}
+	
+	@Override
+	public long getCount() {
+		long count = 0;
+		for (int stripe = 0; stripe < counts.length(); stripe += STRIDE) {
+			for (int i = 0; i < BUCKETS; i++) {
+				count += counts.get(stripe + i);
+			}
+		}
+		return count;
+	}
+	
+	@Override
+	public double getMean() {
+		long count = getCount();
+		long sum = 0;
+		for (int stripe = 0; stripe < counts.length(); stripe += STRIDE) {
+			sum += counts.get(stripe + SUM);
+		}
+		return count == 0 ? 0 : (double) sum / count;
+	}
+	
+	@Override
+	public long getMax() {
+		long max = 0;
+		for (int stripe = 0; stripe < counts.length(); stripe += STRIDE) {
+			max = Math.max(max, counts.get(stripe + MAX));
+		}
+		return max;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * The value is the largest value of the bucket, which contains the percentile, but at most the largest recorded value.
+	 */
+	@Override
+	public long getValueAtPercentile(final double percentile) {
+		long[] buckets = new long[BUCKETS];
+		long count = 0;
+		for (int stripe = 0; stripe < counts.length(); stripe += STRIDE) {
+			for (int i = 0; i < BUCKETS; i++) {
+				long c = counts.get(stripe + i);
+				buckets[i] += c;
+				count += c;
+			}
+		}
+		if (count == 0) {
+			return 0;
+		}
+		
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += buckets[i];
+			if (seen >= rank) {
+				return Math.min(getHighestValue(i), getMax());
+			}
+		}
+		return getMax();
+	}
+	
+	/**
+	 * Get the bucket of a value.
+	 * 
+	 * @param value The value (must not be negative)
+	 * @return The index of the bucket
+	 */
+	public static int getBucket(final long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		// The highest bit selects the power of 2, and the next SUB_BUCKET_BITS bits the bucket within it
+		int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1;
+		return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+	}
+	
+	/**
+	 * Get the largest value of a bucket.
+	 * 
+	 * @param bucket The index of the bucket
+	 * @return The largest value, which is counted in the bucket
+	 */
+	public static long getHighestValue(final int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+	
+}
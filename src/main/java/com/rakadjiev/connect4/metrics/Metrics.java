@@ -0,0 +1,45 @@
+package com.rakadjiev.connect4.metrics;
+
+import com.rakadjiev.connect4.IMetrics;
+
+/**
+ * Holds the registry, in which the components of the game engine look up their metrics.
+ * 
+ * The registry is {@link NoMetrics} by default, so the engine isn't instrumented unless a registry
+ * is set, e.g. a {@link MetricsRegistry} at the start of a program. Components look up their
+ * metrics when they are created, so components created before setting the registry keep using
+ * the previous one.
+ * 
+ * @author rakadjiev
+ */
+public final class Metrics {
+	
+	/** The current registry */
+	private static volatile IMetrics metrics = NoMetrics.INSTANCE;
+	
+	private Metrics() {
+	}
+	
+	/**
+	 * Get the current registry.
+	 * 
+	 * @return The registry
+	 */
+	public static IMetrics get() {
+		return metrics;
+	}
+	
+	/**
+	 * Set the registry, in which components created from now on look up their metrics.
+	 * 
+	 * @param registry The registry, or {@link NoMetrics#INSTANCE} to stop instrumenting new components
+	 * @throws NullPointerException If registry is null
+	 */
+	public static void set(final IMetrics registry) throws NullPointerException {
+		if (registry == null) {
+			throw new NullPointerException("Registry must not be null.");
+		}
+		metrics = registry;
+	}
+	
+}
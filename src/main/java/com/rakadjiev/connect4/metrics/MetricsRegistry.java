@@ -0,0 +1,154 @@
+package com.rakadjiev.connect4.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import com.rakadjiev.connect4.IMetrics;
+
+/**
+ * A registry, which keeps its metrics in memory, and reports them as text. Counters are striped
+ * (see {@link LongAdder}), so threads incrementing the same counter don't contend, and histograms
+ * are {@link LogHistogram}s. A registry instance is thread-safe.
+ * 
+ * The engine reports the following metrics, once the registry has been set with {@link Metrics#set(IMetrics)}:
+ * <ul>
+ * <li><code>connect4.moves</code>, <code>connect4.illegalMoves</code>: the valid and invalid moves
+ * of all games, including the moves tried by strategies</li>
+ * <li><code>connect4.insertNanos</code>, <code>connect4.winCheckNanos</code>: the time to insert a
+ * disc and to check if it has won, of every {@value com.rakadjiev.connect4.impl.Connect4#TIMER_SAMPLE_INTERVAL}th move</li>
+ * <li><code>connect4.renderNanos</code>: the time to render the board of an interactive game</li>
+ * <li><code>solver.nodes</code>, <code>solver.solveNanos</code>: the positions explored by the
+ * solvers, and the time per solved position</li>
+ * <li><code>solver.tableProbes</code>, <code>solver.tableHits</code>: the lookups in transposition tables</li>
+ * <li><code>solver.cacheHits</code>, <code>solver.cacheMisses</code>: the lookups of caching solvers</li>
+ * <li><code>mcts.iterations</code>: the iterations of Monte Carlo tree searches</li>
+ * </ul>
+ * 
+ * @author rakadjiev
+ */
+public class MetricsRegistry implements IMetrics {
+	
+	/** The metrics by name: counters, histograms and gauges */
+	private final ConcurrentHashMap<String, Object> metrics = new ConcurrentHashMap<>();
+	
+	@Override
+	public Counter counter(final String name) throws IllegalArgumentException {
+		return get(name, StripedCounter.class, metrics.computeIfAbsent(name, n -> new StripedCounter()));
+	}
+	
+	@Override
+	public Histogram histogram(final String name) throws IllegalArgumentException {
+		return get(name, LogHistogram.class, metrics.computeIfAbsent(name, n -> new LogHistogram()));
+	}
+	
+	@Override
+	public void gauge(final String name, final LongSupplier value) throws IllegalArgumentException {
+		if (value == null) {
+			throw new NullPointerException("Gauge must not be null.");
+		}
+		Gauge gauge = new Gauge(value);
+		get(name, Gauge.class, metrics.merge(name, gauge, (old, added) -> old instanceof Gauge ? added : old));
+	}
+	
+	/**
+	 * Report all metrics, one per line, sorted by name: counters and gauges with their values, and
+	 * histograms with their count, mean, percentiles and maximum, e.g.
+	 * <pre>
+	 * connect4.moves 1200345
+	 * connect4.insertNanos count=75021 mean=41.3 p50=38 p90=55 p99=120 p99.9=1535 max=20481
+	 * </pre>
+	 * 
+	 * @return The report
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder();
+		for (Map.Entry<String, Object> entry : new TreeMap<>(metrics).entrySet()) {
+			report.append(entry.getKey()).append(' ');
+			Object metric = entry.getValue();
+			if (metric instanceof Histogram) {
+				Histogram histogram = (Histogram) metric;
+				report.append("count=").append(histogram.getCount())
+						.append(" mean=").append(String.format("%.1f", histogram.getMean()))
+						.append(" p50=").append(histogram.getValueAtPercentile(50))
+						.append(" p90=").append(histogram.getValueAtPercentile(90))
+						.append(" p99=").append(histogram.getValueAtPercentile(99))
+						.append(" p99.9=").append(histogram.getValueAtPercentile(99.9))
+						.append(" max=").append(histogram.getMax());
+			} else if (metric instanceof Counter) {
+				report.append(((Counter) metric).get());
+			} else {
+				report.append(((Gauge) metric).value.getAsLong());
+			}
+			report.append('\n');
+		}
+		return report.toString();
+	}
+	
+	@Override
+	public String toString() {
+		return report();
+	}
+	
+	/**
+	 * Check the kind of a metric.
+	 * 
+	 * @param name The name of the metric
+	 * @param kind The expected kind
+	 * @param metric The metric
+	 * @param <T> The kind of the metric
+	 * @return The metric
+	 * @throws IllegalArgumentException If the metric isn't of the expected kind
+	 */
+	private static <T> T get(final String name, final Class<T> kind, final Object metric) throws IllegalArgumentException {
+		if (!kind.isInstance(metric)) {
+			throw new IllegalArgumentException("Invalid metric: '" + name + "'. Metric is a " + metric.getClass().getSimpleName() + ", not a " + kind.getSimpleName() + ".");
+		}
+		return kind.cast(metric);
+	}
+	
+	/**
+	 * A counter, which is striped to avoid contention.
+	 */
+	private static final class StripedCounter implements Counter {
+		
+		/** The striped sum */
+		private final LongAdder sum = new LongAdder();
+		
+		@Override
+		public void increment() {
+			sum.increment();
+		}
+		
+		@Override
+		public void add(final long delta) {
+			sum.add(delta);
+		}
+		
+		@Override
+		public long get() {
+			return sum.sum();
+		}
+	}
+	
+	/**
+	 * A value, which is read when the metrics are reported.
+	 */
+	private static final class Gauge {
+		
+		/** Reads the value */
+		private final LongSupplier value;
+		
+		/**
+		 * Create a gauge.
+		 * 
+		 * @param value Reads the value
+		 */
+		Gauge(final LongSupplier value) {
+			this.value = value;
+		}
+	}
+	
+}
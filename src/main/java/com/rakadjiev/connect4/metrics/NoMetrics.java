@@ -0,0 +1,89 @@
+package com.rakadjiev.connect4.metrics;
+
+import java.util.function.LongSupplier;
+
+import com.rakadjiev.connect4.IMetrics;
+
+/**
+ * A registry, whose metrics ignore all values. Its counter and histogram are shared constants with
+ * empty methods, which the JIT compiler removes, so instrumented code runs as fast as without metrics.
+ * 
+ * @author rakadjiev
+ */
+public final class NoMetrics implements IMetrics {
+	
+	/** The only instance */
+	public static final NoMetrics INSTANCE = new NoMetrics();
+	
+	/** The counter of all names */
+	private static final Counter COUNTER = new Counter() {
+		
+		@Override
+		public void increment() {
+		}
+		
+		@Override
+		public void add(final long delta) {
+		}
+		
+		@Override
+		public long get() {
+			return 0;
+		}
+	};
+	
+	/** The histogram of all names */
+	private static final Histogram HISTOGRAM = new Histogram() {
+		
+		@Override
+		public void record(final long value) {
+		}
+		
+		@Override
+		public long startTimer() {
+			return 0;
+		}
+		
+		@Override
+		public void stopTimer(final long start) {
+		}
+		
+		@Override
+		public long getCount() {
+			return 0;
+		}
+		
+		@Override
+		public double getMean() {
+			return 0;
+		}
+		
+		@Override
+		public long getMax() {
+			return 0;
+		}
+		
+		@Override
+		public long getValueAtPercentile(final double percentile) {
+			return 0;
+		}
+	};
+	
+	private NoMetrics() {
+	}
+	
+	@Override
+	public Counter counter(final String name) {
+		return COUNTER;
+	}
+	
+	@Override
+	public Histogram histogram(final String name) {
+		return HISTOGRAM;
+	}
+	
+	@Override
+	public void gauge(final String name, final LongSupplier value) {
+	}
+	
+}
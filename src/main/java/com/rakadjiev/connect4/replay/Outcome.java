@@ -0,0 +1,19 @@
+package com.rakadjiev.connect4.replay;
+
+/**
+ * The outcome of a replayed game.
+ * 
+ * @author rakadjiev
+ */
+public enum Outcome {
+	/** The first player connected 4 discs */
+	FIRST_PLAYER_WINS,
+	/** The second player connected 4 discs */
+	SECOND_PLAYER_WINS,
+	/** The board filled up without a winner */
+	TIE,
+	/** The moves ended before the game was finished */
+	UNFINISHED,
+	/** A move was invalid: not a column of the board, a full column, or a move after the game was finished */
+	ILLEGAL_MOVE
+}
@@ -0,0 +1,79 @@
+package com.rakadjiev.connect4.replay;
+
+/**
+ * The statistics of a log of replayed games.
+ * 
+ * @author rakadjiev
+ */
+public class ReplaySummary {
+	
+	/** The number of games of each outcome, indexed by the outcome's ordinal */
+	private final long[] outcomes;
+	/** The total number of valid moves of all games */
+	private final long moves;
+	/** The number of bytes read */
+	private final long bytes;
+	
+	/**
+	 * Create a new summary.
+	 * 
+	 * @param outcomes The number of games of each outcome, indexed by the outcome's ordinal
+	 * @param moves The total number of valid moves of all games
+	 * @param bytes The number of bytes read
+	 */
+	public ReplaySummary(final long[] outcomes, final long moves, final long bytes) {
+		this.outcomes = outcomes.clone();
+		this.moves = moves;
+		this.bytes = bytes;
+	}
+	
+	/**
+	 * Get the number of games.
+	 * 
+	 * @return The number of games
+	 */
+	public long getGames() {
+		long games = 0;
+		for (long count : outcomes) {
+			games += count;
+		}
+		return games;
+	}
+	
+	/**
+	 * Get the number of games with the specified outcome.
+	 * 
+	 * @param outcome The outcome
+	 * @return The number of games
+	 */
+	public long getGames(final Outcome outcome) {
+		return outcomes[outcome.ordinal()];
+	}
+	
+	/**
+	 * Get the total number of valid moves of all games, i.e. not counting illegal moves, and the moves after them.
+	 * 
+	 * @return The number of moves
+	 */
+	public long getMoves() {
+		return moves;
+	}
+	
+	/**
+	 * Get the number of bytes read.
+	 * 
+	 * @return The number of bytes
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+	
+	@Override
+	public String toString() {
+		return "games=" + getGames() + ", firstPlayerWins=" + getGames(Outcome.FIRST_PLAYER_WINS)
+				+ ", secondPlayerWins=" + getGames(Outcome.SECOND_PLAYER_WINS) + ", ties=" + getGames(Outcome.TIE)
+				+ ", unfinished=" + getGames(Outcome.UNFINISHED) + ", illegal=" + getGames(Outcome.ILLEGAL_MOVE)
+				+ ", moves=" + moves + ", bytes=" + bytes;
+	}
+
+}
@@ -0,0 +1,362 @@
+package com.rakadjiev.connect4.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.rakadjiev.connect4.impl.Board;
+import com.rakadjiev.connect4.solver.Position;
+
+/**
+ * Validates and scores logs of played games, without creating any objects per game.
+ * 
+ * A log is a text file with one game per line, and each game is a sequence of moves, i.e. the
+ * digits of the columns (1-based) into which the players alternately inserted their discs, starting
+ * with the first player, e.g. <code>4453</code>. Carriage returns, spaces and tabs are ignored, and
+ * empty lines are skipped. All other characters are illegal moves.
+ * 
+ * The log is read as a stream of bytes: files are memory-mapped window by window, and other inputs
+ * are read through a reused buffer. All games are replayed on a bitboard like the one of
+ * {@link Position}, which is kept in local variables while a chunk of bytes is processed: a table
+ * maps each digit to the bottom cell of its column, so a move is checked and played with a few bit
+ * operations, instead of exceptions, and validating a log takes constant memory, regardless of its
+ * size and the number of games. Each game is reported to a {@link Listener}, and the validator
+ * returns a {@link ReplaySummary} of all games.
+ * 
+ * Games require 4 connected discs to win, on boards of up to 9 columns, which fit into a bitboard.
+ * A validator instance is not thread-safe, but can be reused for any number of logs.
+ * 
+ * @author rakadjiev
+ */
+public class ReplayValidator {
+	
+	/**
+	 * Receives the outcome of each game of a log.
+	 */
+	public interface Listener {
+		
+		/**
+		 * Called after a game has been replayed.
+		 * 
+		 * @param line The line of the game in the log (1-based index)
+		 * @param outcome The outcome of the game
+		 * @param moves The number of valid moves
+		 * @param illegalMove The first illegal move (1-based index), or 0 if all moves are valid
+		 */
+		void onGame(long line, Outcome outcome, int moves, int illegalMove);
+	}
+	
+	/** The number of bytes, which are mapped or read at once, if no buffer size is specified */
+	public static final int DEFAULT_BUFFER_BYTES = 64 * 1024 * 1024;
+	/** The maximum number of columns, which can be written as a single digit */
+	public static final int MAX_COLS = 9;
+	
+	/** A listener, which ignores all games */
+	private static final Listener NO_LISTENER = (line, outcome, moves, illegalMove) -> { };
+	
+	/** The number of bytes, which are copied at once from mapped or direct buffers, which are slow to read byte by byte */
+	private static final int CHUNK_BYTES = 64 * 1024;
+	
+	/** State of a game, which is being played */
+	private static final int PLAYING = 0;
+	/** State of a game, which has been won by the player of the latest move */
+	private static final int WON = 1;
+	/** State of a game, which has ended in a tie */
+	private static final int TIED = 2;
+	/** State of a game with an illegal move, after which all moves are ignored */
+	private static final int ILLEGAL = 3;
+	
+	/** The number of bytes, which are mapped or read at once */
+	private final int bufferBytes;
+	/** The bytes being processed */
+	private final byte[] chunk = new byte[CHUNK_BYTES];
+	/** The bottom cell of the column of each byte, which is the digit of a column, or 0 for all other bytes */
+	private final long[] bottoms = new long[256];
+	/** The bitboard containing all cells of the board */
+	private final long boardMask;
+	/** The number of bits per column (including the separator bit) */
+	private final int height;
+	/** The number of cells of the board */
+	private final int size;
+	
+	/** The listener of the current log */
+	private Listener listener;
+	/** The number of games of each outcome in the current log, indexed by the outcome's ordinal */
+	private final long[] outcomes = new long[Outcome.values().length];
+	/** The total number of valid moves in the current log */
+	private long totalMoves;
+	/** The number of bytes read of the current log */
+	private long bytes;
+	
+	/** The current line */
+	private long line;
+	/** The discs of the player to move in the current game */
+	private long current;
+	/** All discs of the current game */
+	private long mask;
+	/** The number of valid moves of the current game */
+	private int moves;
+	/** The state of the current game, which contains a move if it isn't {@link #PLAYING} */
+	private int state;
+	
+	/**
+	 * Create a validator for games on the standard board with {@value Board#COLS} columns and {@value Board#ROWS} rows.
+	 */
+	public ReplayValidator() {
+		this(Board.COLS, Board.ROWS, DEFAULT_BUFFER_BYTES);
+	}
+	
+	/**
+	 * Create a validator for games on a board of the specified size.
+	 * 
+	 * @param cols The number of columns of the board (at most {@value #MAX_COLS})
+	 * @param rows The number of rows of the board
+	 * @param bufferBytes The number of bytes, which are mapped or read at once
+	 * @throws IllegalArgumentException If the board has more than {@value #MAX_COLS} columns, or doesn't fit into a bitboard, or bufferBytes is less than 1
+	 */
+	public ReplayValidator(final int cols, final int rows, final int bufferBytes) throws IllegalArgumentException {
+		if (cols > MAX_COLS) {
+			throw new IllegalArgumentException("Invalid board size: " + cols + "x" + rows + ". Board must have at most " + MAX_COLS + " columns.");
+		}
+		if (bufferBytes < 1) {
+			throw new IllegalArgumentException("Invalid buffer size: " + bufferBytes + ". Buffer must hold at least one byte.");
+		}
+		if (cols < 1 || rows < 1 || cols * (rows + 1) > Long.SIZE || (Position.DISCS_TO_WIN - 1) * (rows + 2) >= Long.SIZE) {
+			throw new IllegalArgumentException("Invalid board size: " + cols + "x" + rows + ". Board must fit into a bitboard.");
+		}
+		this.bufferBytes = bufferBytes;
+		this.height = rows + 1;
+		this.size = cols * rows;
+		long bottom = 0L;
+		for (int col = 0; col < cols; col++) {
+			bottoms['1' + col] = 1L << (col * height);
+			bottom |= bottoms['1' + col];
+		}
+		this.boardMask = bottom * ((1L << rows) - 1);
+	}
+	
+	/**
+	 * Validate a log file, which is memory-mapped window by window.
+	 * 
+	 * @param file The log file
+	 * @param listener The listener of the games, or null if only the summary is required
+	 * @return The summary of all games
+	 * @throws IOException If the file can't be read
+	 */
+	public ReplaySummary validate(final Path file, final Listener listener) throws IOException {
+		start(listener);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			for (long offset = 0; offset < size; offset += bufferBytes) {
+				process(channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(bufferBytes, size - offset)));
+			}
+		}
+		return finish();
+	}
+	
+	/**
+	 * Validate a log, which is read from a channel, e.g. a pipe or a socket.
+	 * 
+	 * @param channel The channel, which is read until its end, but not closed
+	 * @param listener The listener of the games, or null if only the summary is required
+	 * @return The summary of all games
+	 * @throws IOException If the channel can't be read
+	 */
+	public ReplaySummary validate(final ReadableByteChannel channel, final Listener listener) throws IOException {
+		start(listener);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(Math.min(bufferBytes, 1024 * 1024));
+		while (channel.read(buffer) >= 0) {
+			buffer.flip();
+			process(buffer);
+			buffer.clear();
+		}
+		return finish();
+	}
+	
+	/**
+	 * Reset the state for a new log.
+	 * 
+	 * @param listener The listener of the games, or null
+	 */
+	private void start(final Listener listener) {
+		this.listener = listener != null ? listener : NO_LISTENER;
+		Arrays.fill(outcomes, 0);
+		totalMoves = 0;
+		bytes = 0;
+		line = 1;
+		startGame();
+	}
+	
+	/**
+	 * Report the last game, if the log doesn't end with a line break, and summarize the log.
+	 * 
+	 * @return The summary of all games
+	 */
+	private ReplaySummary finish() {
+		if (moves > 0 || state != PLAYING) {
+			endGame(moves, state);
+		}
+		return new ReplaySummary(outcomes, totalMoves, bytes);
+	}
+	
+	/**
+	 * Replay the moves in a buffer. Games may continue from the previous buffer, and in the next one.
+	 * 
+	 * @param buffer The buffer, which is read from its position to its limit
+	 */
+	private void process(final ByteBuffer buffer) {
+		long[] bottoms = this.bottoms;
+		long boardMask = this.boardMask;
+		int height = this.height;
+		int size = this.size;
+		
+		while (buffer.hasRemaining()) {
+			int length = Math.min(buffer.remaining(), CHUNK_BYTES);
+			buffer.get(chunk, 0, length);
+			long current = this.current;
+			long mask = this.mask;
+			int moves = this.moves;
+			int state = this.state;
+			
+			for (int i = 0; i < length; i++) {
+				int b = chunk[i] & 0xFF;
+				long bottom = bottoms[b];
+				if (bottom != 0 && state == PLAYING) {
+					// The carry stops at the lowest empty cell, which is the separator bit if the column is full
+					long cell = (mask + bottom) & ~mask;
+					if ((cell & boardMask) != 0) {
+						long discs = current | cell;
+						mask |= cell;
+						current = discs ^ mask;
+						moves++;
+						if (moves >= 2 * Position.DISCS_TO_WIN - 1 && isWon(discs, height)) {
+							state = WON;
+						} else if (moves == size) {
+							state = TIED;
+						}
+						continue;
+					}
+					state = ILLEGAL;
+				} else if (b == '\n') {
+					if (moves > 0 || state != PLAYING) {
+						endGame(moves, state);
+						current = 0L;
+						mask = 0L;
+						moves = 0;
+						state = PLAYING;
+					}
+					line++;
+				} else if (b != '\r' && b != ' ' && b != '\t') {
+					// Any other byte, and any move after the end of the game, is illegal
+					state = ILLEGAL;
+				}
+			}
+			
+			this.current = current;
+			this.mask = mask;
+			this.moves = moves;
+			this.state = state;
+			bytes += length;
+		}
+	}
+	
+	/**
+	 * Check if a player has connected {@value Position#DISCS_TO_WIN} discs, like {@link Position#isWon()},
+	 * but with a single branch for all directions, since the result is hard to predict.
+	 * 
+	 * @param discs The discs of the player
+	 * @param height The number of bits per column
+	 * @return true if 4 discs are connected
+	 */
+	private static boolean isWon(final long discs, final int height) {
+		return (aligned(discs, 1) | aligned(discs, height) | aligned(discs, height - 1) | aligned(discs, height + 1)) != 0;
+	}
+	
+	/**
+	 * Get the discs, which start a sequence of 4 connected discs in one direction.
+	 * 
+	 * @param discs The bitboard
+	 * @param shift The distance of neighboring cells in the direction
+	 * @return The bitboard of the first discs of the sequences
+	 */
+	private static long aligned(final long discs, final int shift) {
+		long pairs = discs & (discs >>> shift);
+		return pairs & (pairs >>> (2 * shift));
+	}
+	
+	/**
+	 * Report a game.
+	 * 
+	 * @param moves The number of valid moves of the game
+	 * @param state The state of the game
+	 */
+	private void endGame(final int moves, final int state) {
+		Outcome outcome;
+		switch (state) {
+		case WON:
+			outcome = moves % 2 == 1 ? Outcome.FIRST_PLAYER_WINS : Outcome.SECOND_PLAYER_WINS;
+			break;
+		case TIED:
+			outcome = Outcome.TIE;
+			break;
+		case ILLEGAL:
+			outcome = Outcome.ILLEGAL_MOVE;
+			break;
+		default:
+			outcome = Outcome.UNFINISHED;
+			break;
+		}
+		outcomes[outcome.ordinal()]++;
+		totalMoves += moves;
+		listener.onGame(line, outcome, moves, state == ILLEGAL ? moves + 1 : 0);
+	}
+	
+	/**
+	 * Reset the state for a new game.
+	 */
+	private void startGame() {
+		current = 0L;
+		mask = 0L;
+		moves = 0;
+		state = PLAYING;
+	}
+	
+	/**
+	 * Validates a log of games, and prints the statistics.
+	 * 
+	 * Usage: <code>ReplayValidator file [cols] [rows]</code>, where file is "-" to read the log from stdin.
+	 * 
+	 * @param args The command-line arguments
+	 */
+	public static void main(String[] args) {
+		try {
+			if (args.length < 1) {
+				throw new IllegalArgumentException("Missing log file.");
+			}
+			int cols = args.length > 1 ? Integer.parseInt(args[1]) : Board.COLS;
+			int rows = args.length > 2 ? Integer.parseInt(args[2]) : Board.ROWS;
+			ReplayValidator validator = new ReplayValidator(cols, rows, DEFAULT_BUFFER_BYTES);
+			
+			long start = System.nanoTime();
+			ReplaySummary summary = "-".equals(args[0])
+					? validator.validate(Channels.newChannel(System.in), null)
+					: validator.validate(Paths.get(args[0]), null);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			
+			System.out.println(summary);
+			System.out.println(String.format("%.0f MB/s", summary.getBytes() / 1e6 / seconds));
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: ReplayValidator file [cols] [rows]");
+		} catch (IOException e) {
+			System.err.println("Reading the log failed: " + e.getMessage());
+		}
+	}
+
+}
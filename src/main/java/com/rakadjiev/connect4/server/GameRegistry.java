@@ -0,0 +1,449 @@
+package com.rakadjiev.connect4.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IPlayer;
+
+/**
+ * A registry of live games, keyed by id, which can be used by any number of threads, e.g. by
+ * the connection handlers of a server hosting a large number of concurrent games.
+ * 
+ * The games are split into shards by id, and each shard is a hash table of primitive arrays with
+ * its own lock, which is only held to look up, add or remove a game. Moves and other actions on
+ * a game are serialized by the lock of the game's entry, so actions on different games never wait
+ * for each other, and there is no lock over all games. A shard's lock is never held while waiting
+ * for the lock of an entry, so actions may use the registry themselves, e.g. remove their game.
+ * 
+ * Games are evicted by {@link #evict()}: games, which have finished in an action of the registry,
+ * and games, which haven't been accessed for longer than the time-to-live, so the memory stays
+ * bounded even if clients abandon their games. The owner of the registry is expected to call it
+ * periodically.
+ * 
+ * @author rakadjiev
+ */
+public class GameRegistry {
+	
+	/** Status of {@link #tryInsertDisc(long, IPlayer, int)}: there is no game with the id */
+	public static final int UNKNOWN_GAME = -7;
+	/** The default number of shards */
+	public static final int DEFAULT_SHARDS = 64;
+	
+	/** The shards, which store the games */
+	private final Shard[] shards;
+	/** The time after which games, which haven't been accessed, are evicted, in milliseconds */
+	private final long ttlMillis;
+	/** The clock, in milliseconds */
+	private final LongSupplier clock;
+	/** The id of the next game */
+	private final AtomicLong nextId = new AtomicLong(1);
+	/** The number of games */
+	private final AtomicInteger size = new AtomicInteger();
+	
+	/**
+	 * Create a registry with {@value #DEFAULT_SHARDS} shards.
+	 * 
+	 * @param ttlMillis The time after which games, which haven't been accessed, are evicted, in milliseconds
+	 * @throws IllegalArgumentException If the time-to-live isn't positive
+	 */
+	public GameRegistry(final long ttlMillis) throws IllegalArgumentException {
+		this(DEFAULT_SHARDS, ttlMillis, System::currentTimeMillis);
+	}
+	
+	/**
+	 * Create a registry.
+	 * 
+	 * @param shards The number of shards, which is rounded up to a power of 2, e.g. a few times the number of threads
+	 * @param ttlMillis The time after which games, which haven't been accessed, are evicted, in milliseconds
+	 * @param clock The clock, in milliseconds
+	 * @throws IllegalArgumentException If the number of shards or the time-to-live isn't positive
+	 * @throws NullPointerException If clock is null
+	 */
+	public GameRegistry(final int shards, final long ttlMillis, final LongSupplier clock) throws IllegalArgumentException, NullPointerException {
+		if (shards < 1 || shards > 1 << 16) {
+			throw new IllegalArgumentException("Invalid number of shards: " + shards + ". Number of shards must be between 1 and " + (1 << 16) + ".");
+		}
+		if (ttlMillis < 1) {
+			throw new IllegalArgumentException("Invalid time-to-live: " + ttlMillis + ". Time-to-live must be positive.");
+		}
+		if (clock == null) {
+			throw new NullPointerException("Clock must not be null.");
+		}
+		this.shards = new Shard[shards == 1 ? 1 : Integer.highestOneBit(shards - 1) << 1];
+		for (int i = 0; i < this.shards.length; i++) {
+			this.shards[i] = new Shard();
+		}
+		this.ttlMillis = ttlMillis;
+		this.clock = clock;
+	}
+	
+	/**
+	 * Add a game.
+	 * 
+	 * @param game The game
+	 * @return The id of the game
+	 * @throws NullPointerException If game is null
+	 */
+	public long register(final IConnect4 game) throws NullPointerException {
+		if (game == null) {
+			throw new NullPointerException("Game must not be null.");
+		}
+		Entry entry = new Entry(nextId.getAndIncrement(), game, clock.getAsLong());
+		Shard shard = shard(entry.id);
+		synchronized (shard) {
+			shard.put(entry);
+		}
+		size.incrementAndGet();
+		return entry.id;
+	}
+	
+	/**
+	 * Check if a game is in the registry.
+	 * 
+	 * @param id The id of the game
+	 * @return true if the game hasn't been removed or evicted
+	 */
+	public boolean contains(final long id) {
+		return find(id) != null;
+	}
+	
+	/**
+	 * Apply an action to a game, e.g. to make a move or read its state. Actions on the same game are
+	 * applied one at a time, while actions on other games can be applied at the same time.
+	 * Applying an action counts as access to the game.
+	 * 
+	 * @param id The id of the game
+	 * @param action The action, which must not keep the game after returning
+	 * @param <R> The type of the result
+	 * @return The result of the action
+	 * @throws IllegalArgumentException If there is no game with the id
+	 */
+	public <R> R withGame(final long id, final Function<? super IConnect4, R> action) throws IllegalArgumentException {
+		Entry entry = find(id);
+		if (entry != null) {
+			synchronized (entry) {
+				if (!entry.removed) {
+					entry.lastAccess = clock.getAsLong();
+					try {
+						return action.apply(entry.game);
+					} finally {
+						entry.finished = entry.game.isFinished();
+					}
+				}
+			}
+		}
+		throw new IllegalArgumentException("Unknown game: " + id + ".");
+	}
+	
+	/**
+	 * Insert a disc of a player into a game, serialized with all other actions on the game.
+	 * 
+	 * @param id The id of the game
+	 * @param player The player, who plays
+	 * @param col The column into which to insert the disc
+	 * @return The status of {@link IConnect4#tryInsertDisc(IPlayer, int)}, or {@link #UNKNOWN_GAME}
+	 */
+	public int tryInsertDisc(final long id, final IPlayer player, final int col) {
+		Entry entry = find(id);
+		if (entry != null) {
+			synchronized (entry) {
+				if (!entry.removed) {
+					entry.lastAccess = clock.getAsLong();
+					int status = entry.game.tryInsertDisc(player, col);
+					entry.finished = entry.game.isFinished();
+					return status;
+				}
+			}
+		}
+		return UNKNOWN_GAME;
+	}
+	
+	/**
+	 * Remove a game. Actions, which are being applied to the game, are completed first.
+	 * 
+	 * @param id The id of the game
+	 * @return true if the game has been removed, false if it hasn't been in the registry
+	 */
+	public boolean remove(final long id) {
+		Entry entry = find(id);
+		if (entry == null) {
+			return false;
+		}
+		synchronized (entry) {
+			if (entry.removed) {
+				return false;
+			}
+			entry.removed = true;
+		}
+		unlink(entry);
+		size.decrementAndGet();
+		return true;
+	}
+	
+	/**
+	 * Remove all games, which have finished, or haven't been accessed for longer than the time-to-live.
+	 * 
+	 * @return The number of evicted games
+	 * @see #evict(Consumer)
+	 */
+	public int evict() {
+		return evict(game -> {
+			// The games are only dropped
+		});
+	}
+	
+	/**
+	 * Remove all games, which have finished, or haven't been accessed for longer than the time-to-live,
+	 * e.g. to notify their players. The candidates of a shard are collected under its lock, and each
+	 * of them is then removed under its own lock, so that games, which are accessed meanwhile, are kept.
+	 * 
+	 * @param listener The listener, which is called with each evicted game, without holding any locks
+	 * @return The number of evicted games
+	 * @throws NullPointerException If listener is null
+	 */
+	public int evict(final Consumer<? super IConnect4> listener) throws NullPointerException {
+		if (listener == null) {
+			throw new NullPointerException("Listener must not be null.");
+		}
+		List<Entry> candidates = new ArrayList<>();
+		int evicted = 0;
+		for (Shard shard : shards) {
+			long idleSince = clock.getAsLong() - ttlMillis;
+			candidates.clear();
+			synchronized (shard) {
+				shard.collect(idleSince, candidates);
+			}
+			for (Entry entry : candidates) {
+				synchronized (entry) {
+					if (entry.removed || (entry.lastAccess > idleSince && !entry.game.isFinished())) {
+						continue;
+					}
+					entry.removed = true;
+				}
+				unlink(entry);
+				size.decrementAndGet();
+				evicted++;
+				listener.accept(entry.game);
+			}
+		}
+		return evicted;
+	}
+	
+	/**
+	 * Get the number of games.
+	 * 
+	 * @return The number of games
+	 */
+	public int size() {
+		return size.get();
+	}
+	
+	/**
+	 * Get the number of shards.
+	 * 
+	 * @return The number of shards
+	 */
+	public int getShards() {
+		return shards.length;
+	}
+	
+	/**
+	 * Get the time after which games, which haven't been accessed, are evicted.
+	 * 
+	 * @return The time-to-live in milliseconds
+	 */
+	public long getTtlMillis() {
+		return ttlMillis;
+	}
+	
+	/**
+	 * Look up the entry of a game.
+	 * 
+	 * @param id The id of the game
+	 * @return The entry, or null if there is no game with the id
+	 */
+	private Entry find(final long id) {
+		Shard shard = shard(id);
+		synchronized (shard) {
+			return shard.get(id);
+		}
+	}
+	
+	/**
+	 * Remove the entry of a game, which has been marked as removed, from its shard.
+	 * 
+	 * @param entry The entry
+	 */
+	private void unlink(final Entry entry) {
+		Shard shard = shard(entry.id);
+		synchronized (shard) {
+			if (shard.get(entry.id) == entry) {
+				shard.remove(entry.id);
+			}
+		}
+	}
+	
+	/**
+	 * Get the shard of a game. Ids are consecutive, so the lowest bits spread them evenly.
+	 * 
+	 * @param id The id of the game
+	 * @return The shard
+	 */
+	private Shard shard(final long id) {
+		return shards[(int) id & (shards.length - 1)];
+	}
+	
+	/**
+	 * A game in the registry. Its monitor serializes the actions on the game.
+	 */
+	private static final class Entry {
+		
+		/** The id of the game */
+		final long id;
+		/** The game */
+		final IConnect4 game;
+		/** The time of the latest access in milliseconds */
+		volatile long lastAccess;
+		/** If the game has finished after the latest action, so that it can be evicted without waiting for it */
+		volatile boolean finished;
+		/** If the game has been removed, guarded by the entry's monitor */
+		boolean removed;
+		
+		/**
+		 * Create an entry.
+		 * 
+		 * @param id The id of the game
+		 * @param game The game
+		 * @param now The current time in milliseconds
+		 */
+		Entry(final long id, final IConnect4 game, final long now) {
+			this.id = id;
+			this.game = game;
+			this.lastAccess = now;
+		}
+	
+	}
+	
+	/**
+	 * A hash table of entries with open addressing, guarded by its monitor.
+	 */
+	private static final class Shard {
+		
+		/** The initial number of slots */
+		private static final int INITIAL_SLOTS = 16;
+		
+		/** The entries by slot, or null for empty slots */
+		private Entry[] slots = new Entry[INITIAL_SLOTS];
+		/** The number of entries */
+		private int size;
+		
+		/**
+		 * Find the entry of a game.
+		 * 
+		 * @param id The id of the game
+		 * @return The entry, or null if there is none
+		 */
+		Entry get(final long id) {
+			int mask = slots.length - 1;
+			for (int i = hash(id, mask); slots[i] != null; i = (i + 1) & mask) {
+				if (slots[i].id == id) {
+					return slots[i];
+				}
+			}
+			return null;
+		}
+		
+		/**
+		 * Add the entry of a game, which isn't in the table yet.
+		 * 
+		 * @param entry The entry
+		 */
+		void put(final Entry entry) {
+			// The table is at most half full, so that probe sequences stay short
+			if (2 * (size + 1) > slots.length) {
+				Entry[] old = slots;
+				slots = new Entry[old.length * 2];
+				for (Entry e : old) {
+					if (e != null) {
+						insert(e);
+					}
+				}
+			}
+			insert(entry);
+			size++;
+		}
+		
+		/**
+		 * Remove the entry of a game, and move later entries of the probe sequence back into the gap,
+		 * so that lookups don't stop at it.
+		 * 
+		 * @param id The id of the game, which must be in the table
+		 */
+		void remove(final long id) {
+			int mask = slots.length - 1;
+			int gap = hash(id, mask);
+			while (slots[gap].id != id) {
+				gap = (gap + 1) & mask;
+			}
+			
+			for (int i = (gap + 1) & mask; slots[i] != null; i = (i + 1) & mask) {
+				int home = hash(slots[i].id, mask);
+				// The entry can move to the gap, unless its home lies cyclically between the gap and its position
+				if (((i - home) & mask) >= ((i - gap) & mask)) {
+					slots[gap] = slots[i];
+					gap = i;
+				}
+			}
+			slots[gap] = null;
+			size--;
+		}
+		
+		/**
+		 * Collect the entries of games, which have finished, or haven't been accessed after the specified time.
+		 * 
+		 * @param idleSince Games, which have been accessed last at or before this time, are collected
+		 * @param candidates The list, to which the entries are added
+		 */
+		void collect(final long idleSince, final List<Entry> candidates) {
+			for (Entry entry : slots) {
+				if (entry != null && (entry.finished || entry.lastAccess <= idleSince)) {
+					candidates.add(entry);
+				}
+			}
+		}
+		
+		/**
+		 * Put an entry into the first empty slot of its probe sequence.
+		 * 
+		 * @param entry The entry
+		 */
+		private void insert(final Entry entry) {
+			int mask = slots.length - 1;
+			int i = hash(entry.id, mask);
+			while (slots[i] != null) {
+				i = (i + 1) & mask;
+			}
+			slots[i] = entry;
+		}
+		
+		/**
+		 * Get the home slot of a game. The ids within a shard are scrambled by multiplying them with a
+		 * large odd constant, and the upper half of the product is used.
+		 * 
+		 * @param id The id of the game
+		 * @param mask The mask of the slot bits
+		 * @return The slot
+		 */
+		private static int hash(final long id, final int mask) {
+			return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+		}
+	
+	}
+
+}
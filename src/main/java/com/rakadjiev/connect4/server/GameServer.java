@@ -0,0 +1,699 @@
+package com.rakadjiev.connect4.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.IStrategy;
+import com.rakadjiev.connect4.impl.Board;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.impl.Player;
+import com.rakadjiev.connect4.simulation.Simulator;
+
+/**
+ * A server, which hosts any number of concurrent games for clients connected over TCP, e.g. for
+ * tournaments or matches between humans and bots.
+ * 
+ * All connections are served by a single thread with a {@link Selector}, so a connection only
+ * costs its buffers, and each game only its own {@link Connect4} and board. Moves of bots are
+ * chosen on the same thread, so bots are limited to the strategies, which need neither much time
+ * nor much memory per game (see {@link #BOT_STRATEGIES}). The games are kept in a
+ * {@link GameRegistry}, which evicts games, which haven't been joined or played for longer than the
+ * time-to-live, e.g. games waiting for a second player, who never comes.
+ * 
+ * The protocol consists of ASCII lines. The client sends commands:
+ * <ul>
+ * <li><code>NEW [cols rows discsToWin] [strategy]</code>: create a game and play the first player.
+ * If a strategy (one of {@link #BOT_STRATEGIES}, see {@link Simulator#createStrategy(String)}) is
+ * given, a bot plays the second player, otherwise another client has to join the game. Boards are limited to
+ * {@link #MAX_BOARD_SIZE} columns and rows.</li>
+ * <li><code>JOIN id</code>: play the second player of a game created by another client</li>
+ * <li><code>MOVE col</code>: insert a disc into a column (1-based index)</li>
+ * <li><code>STATE</code>: get the game record, i.e. the rules and moves of the game in the binary
+ * format of {@link IConnect4#write(java.io.DataOutput)}, encoded in Base64</li>
+ * <li><code>QUIT</code>: close the connection, and leave the game</li>
+ * </ul>
+ * The server replies:
+ * <ul>
+ * <li><code>GAME id disc cols rows discsToWin</code>: the client plays the game with the disc</li>
+ * <li><code>START</code>: both players are present, and the first player moves</li>
+ * <li><code>MOVED disc col</code>: a player has inserted a disc into a column</li>
+ * <li><code>WIN disc</code> or <code>TIE</code>: the game has finished, and the clients can start another one</li>
+ * <li><code>LEFT</code>: the opponent has left the game, which has been abandoned</li>
+ * <li><code>EXPIRED</code>: the game hasn't been played for longer than the time-to-live, and has been abandoned</li>
+ * <li><code>STATE record</code>: the game record</li>
+ * <li><code>ERROR message</code>: the command has been rejected</li>
+ * </ul>
+ * 
+ * @author rakadjiev
+ */
+public class GameServer implements Runnable, Closeable {
+	
+	/** The default port */
+	public static final int DEFAULT_PORT = 4004;
+	/** The maximum length of a command line in bytes */
+	public static final int MAX_LINE_BYTES = 256;
+	/** The size of the output buffer of a connection in bytes */
+	public static final int OUTPUT_BYTES = 16 * 1024;
+	/**
+	 * The maximum number of columns, rows and discs to win of a game created by a client. The
+	 * limit protects the server from boards, which don't fit into memory, and keeps the encoded
+	 * record of a full board (about 5.5 KB) within {@link #OUTPUT_BYTES}.
+	 */
+	public static final int MAX_BOARD_SIZE = 64;
+	/**
+	 * The strategies of bots. The search strategies aren't offered: they would block the selector
+	 * thread for seconds per move, and allocate a tree or a transposition table per game.
+	 */
+	public static final List<String> BOT_STRATEGIES = Collections.unmodifiableList(Arrays.asList("random", "heuristic", "evaluator"));
+	/** The default time after which games, which haven't been joined or played, are evicted, in milliseconds */
+	public static final long DEFAULT_TTL_MILLIS = 30 * 60 * 1000L;
+	/** The longest time between two evictions in milliseconds */
+	private static final long MAX_EVICTION_MILLIS = 60 * 1000L;
+	
+	/** The disc of the first player */
+	private static final char FIRST_DISC = 'R';
+	/** The disc of the second player */
+	private static final char SECOND_DISC = 'G';
+	
+	/** The selector of all channels */
+	private final Selector selector;
+	/** The listening channel */
+	private final ServerSocketChannel serverChannel;
+	/** The games waiting for a second player or being played */
+	private final GameRegistry games;
+	/** The time between two evictions in milliseconds */
+	private final long evictionMillis;
+	/** The sessions with pending output */
+	private final List<Session> pending = new ArrayList<>();
+	/** The random number generator of the bots */
+	private final SplittableRandom random;
+	
+	/** The time of the next eviction in milliseconds */
+	private long nextEviction;
+	/** The number of games, for other threads */
+	private volatile int gameCount;
+	/** The number of connections, for other threads */
+	private volatile int connectionCount;
+	/** Set once the server is closed */
+	private volatile boolean closed;
+	/** Set once the server runs */
+	private volatile boolean running;
+	/** The thread started by {@link #start()}, or null */
+	private Thread thread;
+	
+	/**
+	 * Create a server, which listens on the specified address, and evicts games after
+	 * {@value #DEFAULT_TTL_MILLIS} milliseconds without moves.
+	 * 
+	 * @param address The address, e.g. with port 0 for any free port
+	 * @param seed The seed of the random decisions of bots
+	 * @throws IOException If the address can't be bound
+	 * @see #GameServer(InetSocketAddress, long, long)
+	 */
+	public GameServer(final InetSocketAddress address, final long seed) throws IOException {
+		this(address, seed, DEFAULT_TTL_MILLIS);
+	}
+	
+	/**
+	 * Create a server, which listens on the specified address. Connections are only accepted
+	 * once the server runs.
+	 * 
+	 * @param address The address, e.g. with port 0 for any free port
+	 * @param seed The seed of the random decisions of bots
+	 * @param ttlMillis The time after which games, which haven't been joined or played, are evicted, in milliseconds
+	 * @throws IOException If the address can't be bound
+	 * @throws IllegalArgumentException If the time-to-live isn't positive
+	 */
+	public GameServer(final InetSocketAddress address, final long seed, final long ttlMillis) throws IOException, IllegalArgumentException {
+		this.games = new GameRegistry(ttlMillis);
+		// Games are evicted at most half a time-to-live late
+		this.evictionMillis = Math.max(1, Math.min(ttlMillis / 2, MAX_EVICTION_MILLIS));
+		this.selector = Selector.open();
+		this.serverChannel = ServerSocketChannel.open();
+		try {
+			serverChannel.bind(address);
+			serverChannel.configureBlocking(false);
+			serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		} catch (IOException e) {
+			serverChannel.close();
+			selector.close();
+			throw e;
+		}
+		this.random = new SplittableRandom(seed);
+	}
+	
+	/**
+	 * Get the port, on which the server listens.
+	 * 
+	 * @return The port
+	 */
+	public int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+	
+	/**
+	 * Get the number of games, which wait for a second player or are being played.
+	 * 
+	 * @return The number of games
+	 */
+	public int getGames() {
+		return gameCount;
+	}
+	
+	/**
+	 * Get the number of connected clients.
+	 * 
+	 * @return The number of connections
+	 */
+	public int getConnections() {
+		return connectionCount;
+	}
+	
+	/**
+	 * Run the server in a new daemon thread.
+	 * 
+	 * @throws IllegalStateException If the server has already been started
+	 */
+	public synchronized void start() throws IllegalStateException {
+		if (thread != null) {
+			throw new IllegalStateException("The server has already been started.");
+		}
+		thread = new Thread(this, "game-server");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Serve the clients in the calling thread, until the server is closed.
+	 */
+	@Override
+	public void run() {
+		running = true;
+		nextEviction = System.currentTimeMillis() + evictionMillis;
+		try {
+			while (!closed) {
+				selector.select(evictionMillis);
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+					} else {
+						Session session = (Session) key.attachment();
+						if (key.isReadable()) {
+							read(session);
+						}
+						if (key.isValid() && key.isWritable()) {
+							flush(session);
+						}
+					}
+				}
+				
+				if (System.currentTimeMillis() >= nextEviction) {
+					games.evict(this::expire);
+					gameCount = games.size();
+					nextEviction = System.currentTimeMillis() + evictionMillis;
+				}
+				
+				// The replies of all commands are written at once
+				for (int i = 0; i < pending.size(); i++) {
+					flush(pending.get(i));
+				}
+				pending.clear();
+			}
+		} catch (IOException e) {
+			if (!closed) {
+				throw new IllegalStateException("The server failed: " + e.getMessage(), e);
+			}
+		} finally {
+			closeAll();
+		}
+	}
+	
+	/**
+	 * Stop the server, and close all connections. If the server runs in another thread, the
+	 * connections are closed by that thread, and this method only waits for it if the server
+	 * has been started with {@link #start()}.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		selector.wakeup();
+		Thread started;
+		synchronized (this) {
+			started = thread;
+		}
+		if (started != null && started != Thread.currentThread()) {
+			try {
+				started.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		} else if (!running) {
+			closeAll();
+		}
+	}
+	
+	/**
+	 * Queue a line to send to a client.
+	 * 
+	 * @param session The session of the client
+	 * @param line The line
+	 */
+	void send(final Session session, final String line) {
+		if (session.send(line) || session.overflow) {
+			pending.add(session);
+		}
+	}
+	
+	/**
+	 * Accept a new connection.
+	 * 
+	 * @throws IOException If the connection can't be configured
+	 */
+	private void accept() throws IOException {
+		SocketChannel channel = serverChannel.accept();
+		if (channel == null) {
+			return;
+		}
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+		key.attach(new Session(channel, key, MAX_LINE_BYTES, OUTPUT_BYTES));
+		connectionCount++;
+	}
+	
+	/**
+	 * Read from a connection, and handle all complete lines.
+	 * 
+	 * @param session The session of the connection
+	 */
+	private void read(final Session session) {
+		int read;
+		try {
+			read = session.channel.read(session.in);
+		} catch (IOException e) {
+			read = -1;
+		}
+		if (read < 0) {
+			disconnect(session);
+			return;
+		}
+		
+		session.in.flip();
+		int start = 0;
+		int limit = session.in.limit();
+		byte[] bytes = session.in.array();
+		for (int i = 0; i < limit && session.key.isValid(); i++) {
+			if (bytes[i] == '\n') {
+				int end = i > start && bytes[i - 1] == '\r' ? i - 1 : i;
+				handle(session, new String(bytes, start, end - start, StandardCharsets.US_ASCII));
+				start = i + 1;
+			}
+		}
+		if (!session.key.isValid()) {
+			return;
+		}
+		session.in.position(start);
+		session.in.compact();
+		
+		if (!session.in.hasRemaining()) {
+			send(session, "ERROR Line too long. Lines must not exceed " + MAX_LINE_BYTES + " bytes.");
+			session.in.clear();
+		}
+	}
+	
+	/**
+	 * Write the pending output of a connection, or disconnect it if the output doesn't fit into its buffer.
+	 * 
+	 * @param session The session of the connection
+	 */
+	private void flush(final Session session) {
+		if (!session.key.isValid()) {
+			return;
+		}
+		if (session.overflow) {
+			disconnect(session);
+			return;
+		}
+		try {
+			session.flush();
+		} catch (IOException e) {
+			disconnect(session);
+		}
+	}
+	
+	/**
+	 * Handle a command.
+	 * 
+	 * @param session The session, which has sent the command
+	 * @param line The command line
+	 */
+	private void handle(final Session session, final String line) {
+		String[] args = line.trim().split("\\s+");
+		try {
+			switch (args[0].toUpperCase()) {
+			case "NEW":
+				create(session, args);
+				break;
+			case "JOIN":
+				join(session, args);
+				break;
+			case "MOVE":
+				move(session, args);
+				break;
+			case "STATE":
+				state(session);
+				break;
+			case "QUIT":
+				disconnect(session);
+				break;
+			case "":
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown command: '" + args[0] + "'.");
+			}
+		} catch (IllegalArgumentException | IllegalStateException e) {
+			send(session, "ERROR " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Create a game, in which the client plays the first player.
+	 * 
+	 * @param session The session of the client
+	 * @param args The command and its arguments: <code>NEW [cols rows discsToWin] [strategy]</code>
+	 * @throws IllegalArgumentException If the arguments are invalid
+	 * @throws IllegalStateException If the client already plays a game
+	 */
+	private void create(final Session session, final String[] args) throws IllegalArgumentException, IllegalStateException {
+		checkNoGame(session);
+		if (args.length != 1 && args.length != 2 && args.length != 4 && args.length != 5) {
+			throw new IllegalArgumentException("Invalid arguments. Usage: NEW [cols rows discsToWin] [strategy]");
+		}
+		int cols = args.length >= 4 ? Integer.parseInt(args[1]) : Board.COLS;
+		int rows = args.length >= 4 ? Integer.parseInt(args[2]) : Board.ROWS;
+		int discsToWin = args.length >= 4 ? Integer.parseInt(args[3]) : Connect4.DISCS_TO_WIN;
+		if (cols < 1 || rows < 1 || cols > MAX_BOARD_SIZE || rows > MAX_BOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid board: " + cols + "x" + rows + ". Boards must have 1 to " + MAX_BOARD_SIZE + " columns and rows.");
+		}
+		if (discsToWin < 1 || discsToWin > MAX_BOARD_SIZE) {
+			throw new IllegalArgumentException("Invalid number of discs to win: " + discsToWin + ". Games must require 1 to " + MAX_BOARD_SIZE + " discs to win.");
+		}
+		IStrategy bot = args.length == 2 || args.length == 5 ? createBot(args[args.length - 1]) : null;
+		
+		IPlayer[] players = { new Player("Player one", FIRST_DISC), new Player(bot != null ? bot.getName() : "Player two", SECOND_DISC) };
+		ServerGame game = new ServerGame(cols, rows, discsToWin, players, bot);
+		game.id = games.register(game);
+		gameCount = games.size();
+		seat(session, game, 0);
+		if (game.isStarted()) {
+			send(session, "START");
+		}
+	}
+	
+	/**
+	 * Create the strategy of a bot.
+	 * 
+	 * @param name The name of the strategy, one of {@link #BOT_STRATEGIES}
+	 * @return The strategy
+	 * @throws IllegalArgumentException If the strategy isn't offered for bots
+	 */
+	private static IStrategy createBot(final String name) throws IllegalArgumentException {
+		if (!BOT_STRATEGIES.contains(name)) {
+			throw new IllegalArgumentException("Unknown bot strategy: '" + name + "'. Bots must play random, heuristic or evaluator.");
+		}
+		return Simulator.createStrategy(name);
+	}
+	
+	/**
+	 * Join a game as the second player.
+	 * 
+	 * @param session The session of the client
+	 * @param args The command and its arguments: <code>JOIN id</code>
+	 * @throws IllegalArgumentException If the arguments are invalid
+	 * @throws IllegalStateException If the client already plays a game, or the game can't be joined
+	 */
+	private void join(final Session session, final String[] args) throws IllegalArgumentException, IllegalStateException {
+		checkNoGame(session);
+		if (args.length != 2) {
+			throw new IllegalArgumentException("Invalid arguments. Usage: JOIN id");
+		}
+		long id = Long.parseLong(args[1]);
+		if (!games.contains(id)) {
+			throw new IllegalArgumentException("Unknown game: '" + args[1] + "'.");
+		}
+		games.withGame(id, joined -> {
+			ServerGame game = (ServerGame) joined;
+			if (game.isStarted()) {
+				throw new IllegalStateException("Game " + game.id + " already has two players.");
+			}
+			seat(session, game, 1);
+			game.broadcast(this, "START");
+			return game;
+		});
+	}
+	
+	/**
+	 * Play a move of the client, and the reply of the bot, if any.
+	 * 
+	 * @param session The session of the client
+	 * @param args The command and its arguments: <code>MOVE col</code>
+	 * @throws IllegalArgumentException If the arguments are invalid, or the move is invalid
+	 * @throws IllegalStateException If the client doesn't play a started game, or it isn't its turn
+	 */
+	private void move(final Session session, final String[] args) throws IllegalArgumentException, IllegalStateException {
+		ServerGame game = session.game;
+		if (game == null || !game.isStarted()) {
+			throw new IllegalStateException("No game is being played.");
+		}
+		if (game.turn != session.seat) {
+			throw new IllegalStateException("It's not your turn.");
+		}
+		if (args.length != 2) {
+			throw new IllegalArgumentException("Invalid arguments. Usage: MOVE col");
+		}
+		
+		int col = Integer.parseInt(args[1]);
+		if (play(game, col) && game.bot != null) {
+			IPlayer bot = game.players[1];
+			try {
+				play(game, game.bot.chooseMove(game, bot, game.players[0], random));
+			} catch (IllegalArgumentException | IllegalStateException e) {
+				// The bot doesn't support the game, so it can't go on
+				game.broadcast(this, "ERROR Bot " + game.bot.getName() + " failed: " + e.getMessage());
+				game.broadcast(this, "LEFT");
+				finish(game);
+			}
+		}
+	}
+	
+	/**
+	 * Play a move of the player whose turn it is, and report it to the clients.
+	 * 
+	 * @param game The game
+	 * @param col The column (1-based index)
+	 * @return true if the game goes on
+	 * @throws IllegalArgumentException If the move is invalid
+	 */
+	private boolean play(final ServerGame game, final int col) throws IllegalArgumentException {
+		IPlayer player = game.players[game.turn];
+		int status = games.tryInsertDisc(game.id, player, col);
+		switch (status) {
+		case IConnect4.WON:
+			game.broadcast(this, "MOVED " + player.getDisc() + " " + col);
+			game.broadcast(this, "WIN " + player.getDisc());
+			finish(game);
+			return false;
+		case IConnect4.PLAYED:
+			game.broadcast(this, "MOVED " + player.getDisc() + " " + col);
+			if (game.isTie()) {
+				game.broadcast(this, "TIE");
+				finish(game);
+				return false;
+			}
+			game.turn = 1 - game.turn;
+			return true;
+		case IBoard.INVALID_COLUMN:
+			throw new IllegalArgumentException("Invalid column: '" + col + "'. Column must be between 1 and " + game.getBoard().getCols() + ".");
+		case IBoard.COLUMN_FULL:
+			throw new IllegalArgumentException("Column: '" + col + "' already full.");
+		case GameRegistry.UNKNOWN_GAME:
+			throw new IllegalStateException("Game " + game.id + " has expired.");
+		default:
+			throw new IllegalArgumentException("Invalid move: '" + col + "' (status " + status + ").");
+		}
+	}
+	
+	/**
+	 * Send the game record of the client's game.
+	 * 
+	 * @param session The session of the client
+	 * @throws IllegalStateException If the client doesn't play a game
+	 */
+	private void state(final Session session) throws IllegalStateException {
+		if (session.game == null) {
+			throw new IllegalStateException("No game is being played.");
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			session.game.write(new DataOutputStream(bytes));
+		} catch (IOException e) {
+			// Writing into memory doesn't fail
+			throw new IllegalStateException(e);
+		}
+		send(session, "STATE " + Base64.getEncoder().encodeToString(bytes.toByteArray()));
+	}
+	
+	/**
+	 * Check that a client doesn't play a game yet.
+	 * 
+	 * @param session The session of the client
+	 * @throws IllegalStateException If the client already plays a game
+	 */
+	private static void checkNoGame(final Session session) throws IllegalStateException {
+		if (session.game != null) {
+			throw new IllegalStateException("Game " + session.game.id + " is still being played.");
+		}
+	}
+	
+	/**
+	 * Seat a client in a game.
+	 * 
+	 * @param session The session of the client
+	 * @param game The game
+	 * @param seat The seat (0 for the first, 1 for the second player)
+	 */
+	private void seat(final Session session, final ServerGame game, final int seat) {
+		game.sessions[seat] = session;
+		session.game = game;
+		session.seat = seat;
+		IBoard board = game.getBoard();
+		send(session, "GAME " + game.id + " " + game.players[seat].getDisc() + " " + board.getCols() + " " + board.getRows() + " " + game.getDiscsToWin());
+	}
+	
+	/**
+	 * Remove a finished or abandoned game, so that its clients can start other games.
+	 * 
+	 * @param game The game
+	 */
+	private void finish(final ServerGame game) {
+		games.remove(game.id);
+		gameCount = games.size();
+		release(game);
+	}
+	
+	/**
+	 * Notify the clients of a game, which has been evicted, that it has expired.
+	 * 
+	 * @param evicted The game
+	 */
+	private void expire(final IConnect4 evicted) {
+		ServerGame game = (ServerGame) evicted;
+		game.broadcast(this, "EXPIRED");
+		release(game);
+	}
+	
+	/**
+	 * Release the clients of a game, which has been removed, so that they can start other games.
+	 * 
+	 * @param game The game
+	 */
+	private static void release(final ServerGame game) {
+		for (Session session : game.sessions) {
+			if (session != null) {
+				session.game = null;
+			}
+		}
+	}
+	
+	/**
+	 * Close a connection, and abandon its game.
+	 * 
+	 * @param session The session of the connection
+	 */
+	private void disconnect(final Session session) {
+		ServerGame game = session.game;
+		if (game != null) {
+			game.sessions[session.seat] = null;
+			game.broadcast(this, "LEFT");
+			finish(game);
+		}
+		session.key.cancel();
+		try {
+			session.channel.close();
+		} catch (IOException e) {
+			// The connection is gone anyway
+		}
+		connectionCount--;
+	}
+	
+	/**
+	 * Close all connections, the listening channel and the selector.
+	 */
+	private void closeAll() {
+		if (!selector.isOpen()) {
+			return;
+		}
+		for (SelectionKey key : selector.keys()) {
+			try {
+				key.channel().close();
+			} catch (IOException e) {
+				// Closing the other channels is more important
+			}
+		}
+		try {
+			selector.close();
+		} catch (IOException e) {
+			// Nothing is left to clean up
+		}
+		gameCount = 0;
+		connectionCount = 0;
+	}
+	
+	/**
+	 * Runs a server until the process is stopped.
+	 * 
+	 * Usage: <code>GameServer [port] [seed]</code>
+	 * 
+	 * @param args The command-line arguments
+	 */
+	public static void main(String[] args) {
+		try {
+			int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+			long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+			try (GameServer server = new GameServer(new InetSocketAddress(port), seed)) {
+				System.out.println("Listening on port " + server.getPort());
+				server.run();
+			}
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: GameServer [port] [seed]");
+		} catch (IOException e) {
+			System.err.println("Starting the server failed: " + e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.rakadjiev.connect4.server;
+
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.IStrategy;
+import com.rakadjiev.connect4.impl.Connect4;
+
+/**
+ * A game hosted by the {@link GameServer}, between two clients, or between a client and a bot.
+ * Only used by the server's selector thread.
+ * 
+ * @author rakadjiev
+ */
+final class ServerGame extends Connect4 {
+	
+	/** The id of the game in the server's {@link GameRegistry}, or 0 before it is registered */
+	long id;
+	/** The players, the first player's first */
+	final IPlayer[] players;
+	/** The sessions of the players, or null for the bot and empty seats */
+	final Session[] sessions = new Session[2];
+	/** The strategy of the second player, or null if a client plays it */
+	final IStrategy bot;
+	
+	/** The seat of the player whose turn it is */
+	int turn;
+	
+	/**
+	 * Create a game.
+	 * 
+	 * @param cols The number of columns of the board
+	 * @param rows The number of rows of the board
+	 * @param discsToWin The number of connected discs required to win
+	 * @param players The players, the first player's first
+	 * @param bot The strategy of the second player, or null if a client plays it
+	 * @throws IllegalArgumentException If the board size or the number of discs to win is invalid
+	 */
+	ServerGame(final int cols, final int rows, final int discsToWin, final IPlayer[] players, final IStrategy bot) throws IllegalArgumentException {
+		super(cols, rows, discsToWin, players[0], players[1]);
+		this.players = players;
+		this.bot = bot;
+	}
+	
+	/**
+	 * Check if both players are present.
+	 * 
+	 * @return true if the game has started
+	 */
+	boolean isStarted() {
+		return bot != null || sessions[1] != null;
+	}
+	
+	/**
+	 * Send a line to all clients of the game.
+	 * 
+	 * @param server The server, which flushes the sessions
+	 * @param line The line
+	 */
+	void broadcast(final GameServer server, final String line) {
+		for (Session session : sessions) {
+			if (session != null) {
+				server.send(session, line);
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,79 @@
+package com.rakadjiev.connect4.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The connection of a client to the {@link GameServer}, with its input and output buffers, and
+ * the game it plays. Only used by the server's selector thread.
+ * 
+ * @author rakadjiev
+ */
+final class Session {
+	
+	/** The channel of the connection */
+	final SocketChannel channel;
+	/** The selection key of the channel */
+	final SelectionKey key;
+	/** The bytes received, which don't form a complete line yet */
+	final ByteBuffer in;
+	/** The bytes to send, which haven't been written to the channel yet */
+	final ByteBuffer out;
+	
+	/** The game the client plays, or null */
+	ServerGame game;
+	/** The seat of the client in the game (0 for the first, 1 for the second player) */
+	int seat;
+	/** If more output has been sent than fits into the output buffer */
+	boolean overflow;
+	
+	/**
+	 * Create a session.
+	 * 
+	 * @param channel The channel of the connection
+	 * @param key The selection key of the channel
+	 * @param lineBytes The maximum length of a received line
+	 * @param outputBytes The size of the output buffer
+	 */
+	Session(final SocketChannel channel, final SelectionKey key, final int lineBytes, final int outputBytes) {
+		this.channel = channel;
+		this.key = key;
+		this.in = ByteBuffer.allocate(lineBytes);
+		this.out = ByteBuffer.allocate(outputBytes);
+	}
+	
+	/**
+	 * Queue a line to send to the client.
+	 * 
+	 * @param line The line, without the line separator
+	 * @return true if the output buffer has been empty before, i.e. the session has to be flushed
+	 */
+	boolean send(final String line) {
+		boolean wasEmpty = out.position() == 0;
+		byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+		if (bytes.length + 1 > out.remaining()) {
+			// The client doesn't read its output, so it is disconnected
+			overflow = true;
+			return false;
+		}
+		out.put(bytes).put((byte) '\n');
+		return wasEmpty;
+	}
+	
+	/**
+	 * Write as much of the queued output as the channel accepts, and wait for the channel to
+	 * become writable if some output is left.
+	 * 
+	 * @throws IOException If writing fails
+	 */
+	void flush() throws IOException {
+		out.flip();
+		channel.write(out);
+		out.compact();
+		key.interestOps(out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+	}
+	
+}
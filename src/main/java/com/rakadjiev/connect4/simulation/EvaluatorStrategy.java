@@ -0,0 +1,165 @@
+package com.rakadjiev.connect4.simulation;
+
+import java.util.SplittableRandom;
+
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IEvaluator;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.IStrategy;
+import com.rakadjiev.connect4.evaluator.ThreatEvaluator;
+import com.rakadjiev.connect4.solver.Position;
+
+/**
+ * A strategy, which searches a fixed number of moves ahead (with alpha-beta pruning), and scores
+ * the positions at the end of the search with an {@link IEvaluator}. Moves are tried center first,
+ * and ties between the best moves are broken randomly.
+ * Only games, which {@link Position} supports, can be played.
+ * 
+ * @author rakadjiev
+ */
+public class EvaluatorStrategy implements IStrategy {
+	
+	/** The default number of moves to search ahead */
+	public static final int DEFAULT_DEPTH = 4;
+	/** A bound greater than all scores, including wins */
+	private static final int INFINITY = Integer.MAX_VALUE / 2;
+	
+	/** The evaluator */
+	private final IEvaluator evaluator;
+	/** The number of moves to search ahead */
+	private final int depth;
+	
+	/** The move generator of the latest board size */
+	private MoveGenerator generator;
+	/** The number of evaluated positions since the strategy has been created */
+	private long evaluations;
+	
+	/**
+	 * Create a strategy, which searches {@value #DEFAULT_DEPTH} moves ahead with a {@link ThreatEvaluator}.
+	 */
+	public EvaluatorStrategy() {
+		this(new ThreatEvaluator(), DEFAULT_DEPTH);
+	}
+	
+	/**
+	 * Create a strategy with the specified evaluator and search depth.
+	 * 
+	 * @param evaluator The evaluator
+	 * @param depth The number of moves to search ahead
+	 * @throws IllegalArgumentException If the depth isn't positive
+	 * @throws NullPointerException If evaluator is null
+	 */
+	public EvaluatorStrategy(final IEvaluator evaluator, final int depth) throws IllegalArgumentException, NullPointerException {
+		if (evaluator == null) {
+			throw new NullPointerException("Evaluator must not be null.");
+		}
+		if (depth < 1) {
+			throw new IllegalArgumentException("Invalid depth: " + depth + ". Depth must be positive.");
+		}
+		this.evaluator = evaluator;
+		this.depth = depth;
+	}
+	
+	@Override
+	public String getName() {
+		return "evaluator";
+	}
+	
+	@Override
+	public int chooseMove(final IConnect4 game, final IPlayer player, final IPlayer opponent, final SplittableRandom random) {
+		Position position = new Position(game.getBoard(), player.getDisc());
+		int cols = position.getCols();
+		if (generator == null || generator.getCols() != cols) {
+			generator = new MoveGenerator(cols);
+		}
+		
+		int bestCol = 0;
+		int bestScore = Integer.MIN_VALUE;
+		int ties = 0;
+		for (int i = 0; i < cols; i++) {
+			int col = generator.getCenterOrder(i);
+			if (!position.canPlay(col)) {
+				continue;
+			}
+			if (position.isWinningMove(col)) {
+				return col;
+			}
+			
+			position.play(col);
+			// The window is widened by one to keep moves with the same score, which are tied randomly
+			int score = -negamax(position, depth - 1, -INFINITY, bestScore == Integer.MIN_VALUE ? INFINITY : -bestScore + 1);
+			position.undo(col);
+			
+			if (score > bestScore) {
+				bestScore = score;
+				bestCol = col;
+				ties = 1;
+			} else if (score == bestScore && random.nextInt(++ties) == 0) {
+				// Reservoir sampling picks each of the tied moves with the same probability
+				bestCol = col;
+			}
+		}
+		
+		return bestCol;
+	}
+	
+	/**
+	 * Get the number of positions evaluated since the strategy has been created.
+	 * 
+	 * @return The number of evaluated positions
+	 */
+	public long getEvaluations() {
+		return evaluations;
+	}
+	
+	/**
+	 * Search a position with alpha-beta pruning.
+	 * 
+	 * @param position The position, which hasn't been won
+	 * @param depth The remaining number of moves to search
+	 * @param alpha The score, which the current player can already reach
+	 * @param beta The score, which the opponent can already hold the current player to
+	 * @return The score of the position from the current player's point of view
+	 */
+	private int negamax(final Position position, final int depth, int alpha, final int beta) {
+		if (position.getMoves() == position.getSize()) {
+			return 0;
+		}
+		if (depth == 0) {
+			evaluations++;
+			return evaluator.evaluate(position);
+		}
+		
+		int cols = position.getCols();
+		for (int i = 0; i < cols; i++) {
+			int col = generator.getCenterOrder(i);
+			if (position.canPlay(col) && position.isWinningMove(col)) {
+				// Earlier wins are better
+				return IEvaluator.MAX_SCORE + depth;
+			}
+		}
+		
+		int best = Integer.MIN_VALUE;
+		for (int i = 0; i < cols; i++) {
+			int col = generator.getCenterOrder(i);
+			if (!position.canPlay(col)) {
+				continue;
+			}
+			position.play(col);
+			int score = -negamax(position, depth - 1, -beta, -alpha);
+			position.undo(col);
+			
+			if (score > best) {
+				best = score;
+				if (score > alpha) {
+					alpha = score;
+					if (alpha >= beta) {
+						break;
+					}
+				}
+			}
+		}
+		return best;
+	}
+	
+}
@@ -0,0 +1,105 @@
+package com.rakadjiev.connect4.simulation;
+
+import java.util.SplittableRandom;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.IStrategy;
+
+/**
+ * A strategy, which looks one move ahead for each player:
+ * <ol>
+ * <li>If the player can win with a move, it plays it</li>
+ * <li>Otherwise, if the opponent could win with a move, it blocks it</li>
+ * <li>Otherwise, it plays a move, which doesn't let the opponent win right on top of it,
+ * preferring columns close to the center, which are part of more possible sequences</li>
+ * </ol>
+ * Ties are broken randomly. Moves are tried on the game's board with {@link IBoard#tryInsertDisc(char, int)}
+ * and taken back with {@link IBoard#tryRemoveDisc(int)}, so choosing a move doesn't allocate.
+ * 
+ * @author rakadjiev
+ */
+public class HeuristicStrategy implements IStrategy {
+	
+	@Override
+	public String getName() {
+		return "heuristic";
+	}
+	
+	@Override
+	public int chooseMove(final IConnect4 game, final IPlayer player, final IPlayer opponent, final SplittableRandom random) {
+		IBoard board = game.getBoard();
+		int cols = board.getCols();
+		int discsToWin = game.getDiscsToWin();
+		
+		// Win if possible, then block the opponent's win
+		int col = findWinningMove(board, player.getDisc(), discsToWin);
+		if (col != 0) {
+			return col;
+		}
+		col = findWinningMove(board, opponent.getDisc(), discsToWin);
+		if (col != 0) {
+			return col;
+		}
+		
+		// Pick the best safe move, starting at a random column so that ties are broken randomly
+		int bestCol = 0;
+		int bestScore = Integer.MIN_VALUE;
+		int offset = random.nextInt(cols);
+		for (int i = 0; i < cols; i++) {
+			int candidate = (i + offset) % cols + 1;
+			if (!board.canPlay(candidate)) {
+				continue;
+			}
+			
+			// The distance from the center, doubled to stay integral for even numbers of columns
+			int score = -Math.abs(2 * candidate - cols - 1);
+			if (!isSafe(board, candidate, player.getDisc(), opponent.getDisc(), discsToWin)) {
+				// Losing moves are only played if there is nothing else
+				score -= 2 * cols;
+			}
+			if (score > bestScore) {
+				bestScore = score;
+				bestCol = candidate;
+			}
+		}
+		
+		return bestCol;
+	}
+	
+	/**
+	 * Find a move, with which a disc would connect the required number of discs.
+	 * 
+	 * @param board The board
+	 * @param disc The disc to play
+	 * @param discsToWin The number of connected discs required to win
+	 * @return The column of the winning move (1-based index), or 0 if there is none
+	 */
+	private static int findWinningMove(final IBoard board, final char disc, final int discsToWin) {
+		for (int col = board.nextPlayableColumn(0); col != 0; col = board.nextPlayableColumn(col)) {
+			if (MoveGenerator.isWinningMove(board, col, disc, discsToWin)) {
+				return col;
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * Check if playing a column doesn't let the opponent win by playing the same column right after.
+	 * 
+	 * @param board The board
+	 * @param col The column, which must not be full (1-based index)
+	 * @param disc The disc of the player
+	 * @param opponentDisc The disc of the opponent
+	 * @param discsToWin The number of connected discs required to win
+	 * @return true if the move is safe
+	 */
+	private static boolean isSafe(final IBoard board, final int col, final char disc, final char opponentDisc, final int discsToWin) {
+		int row = board.tryInsertDisc(disc, col);
+		boolean safe = row == board.getRows() || !MoveGenerator.isWinningMove(board, col, opponentDisc, discsToWin);
+		board.tryRemoveDisc(col);
+		return safe;
+	}
+	
+}
@@ -0,0 +1,148 @@
+package com.rakadjiev.connect4.simulation;
+
+import com.rakadjiev.connect4.IBoard;
+
+/**
+ * Generates the playable columns of a board in the order, in which a search or playout should try
+ * them:
+ * <ol>
+ * <li>moves, which connect the required number of discs for the player</li>
+ * <li>moves, which block a column, into which the opponent could insert a winning disc</li>
+ * <li>all other moves, the columns close to the center first, since they are part of more possible sequences</li>
+ * </ol>
+ * Moves are written into an array provided by the caller, and tried on the board with
+ * {@link IBoard#tryInsertDisc(char, int)} and {@link IBoard#tryRemoveDisc(int)}, so generating
+ * moves doesn't allocate. A generator only holds the center-first order of a board size, so
+ * it can be shared by any number of boards of that size, but not by boards of other sizes.
+ * 
+ * @author rakadjiev
+ */
+public class MoveGenerator {
+	
+	/** The columns, center first (1-based indices) */
+	private final int[] centerOrder;
+	
+	/**
+	 * Create a generator for boards with the specified number of columns.
+	 * 
+	 * @param cols The number of columns
+	 * @throws IllegalArgumentException If the number of columns isn't positive
+	 */
+	public MoveGenerator(final int cols) throws IllegalArgumentException {
+		if (cols < 1) {
+			throw new IllegalArgumentException("Invalid number of columns: " + cols + ". Number of columns must be positive.");
+		}
+		
+		centerOrder = new int[cols];
+		// The center column, or the left one of the two center columns
+		int center = (cols + 1) / 2;
+		for (int i = 0; i < cols; i++) {
+			// Alternate around the center, the left side first
+			if (cols % 2 == 1) {
+				centerOrder[i] = i % 2 == 1 ? center - (i + 1) / 2 : center + i / 2;
+			} else {
+				centerOrder[i] = i % 2 == 0 ? center - i / 2 : center + 1 + i / 2;
+			}
+		}
+	}
+	
+	/**
+	 * Get the number of columns of the boards, for which this generator creates moves.
+	 * 
+	 * @return The number of columns
+	 */
+	public int getCols() {
+		return centerOrder.length;
+	}
+	
+	/**
+	 * Get the column at a position of the center-first order.
+	 * 
+	 * @param index The position in the order (0-based index)
+	 * @return The column (1-based index)
+	 */
+	public int getCenterOrder(final int index) {
+		return centerOrder[index];
+	}
+	
+	/**
+	 * Write the playable columns of a board into an array, center first.
+	 * 
+	 * @param board The board, which must have the number of columns of this generator
+	 * @param moves The array to write into, which must fit the number of columns
+	 * @return The number of moves written
+	 */
+	public int centerFirst(final IBoard board, final int[] moves) {
+		int count = 0;
+		for (int col : centerOrder) {
+			if (board.canPlay(col)) {
+				moves[count++] = col;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Write the playable columns of a board into an array, winning moves first, then moves blocking
+	 * a win of the opponent, then all other moves center first.
+	 * 
+	 * @param board The board, which must have the number of columns of this generator
+	 * @param disc The disc of the player to move
+	 * @param opponentDisc The disc of the opponent
+	 * @param discsToWin The number of connected discs required to win
+	 * @param moves The array to write into, which must fit the number of columns
+	 * @return The number of moves written
+	 */
+	public int threatsFirst(final IBoard board, final char disc, final char opponentDisc, final int discsToWin, final int[] moves) {
+		int count = centerFirst(board, moves);
+		
+		// Move the wins to the front, then the blocks behind them, keeping the center-first order within each group
+		int front = promote(board, disc, discsToWin, moves, 0, count);
+		promote(board, opponentDisc, discsToWin, moves, front, count);
+		
+		return count;
+	}
+	
+	/**
+	 * Check if inserting a disc into a column would connect the required number of discs.
+	 * The board is left unchanged.
+	 * 
+	 * @param board The board
+	 * @param col The column, which must be playable (1-based index)
+	 * @param disc The disc to play
+	 * @param discsToWin The number of connected discs required to win
+	 * @return true if the move wins
+	 */
+	public static boolean isWinningMove(final IBoard board, final int col, final char disc, final int discsToWin) {
+		int row = board.tryInsertDisc(disc, col);
+		boolean won = board.isConnected(col, row, discsToWin);
+		board.tryRemoveDisc(col);
+		return won;
+	}
+	
+	/**
+	 * Move the columns, into which a disc would win, to the front of a range of moves, keeping the
+	 * order of the other moves.
+	 * 
+	 * @param board The board
+	 * @param disc The disc to play
+	 * @param discsToWin The number of connected discs required to win
+	 * @param moves The moves
+	 * @param from The start of the range (inclusive)
+	 * @param to The end of the range (exclusive)
+	 * @return The end of the promoted moves
+	 */
+	private static int promote(final IBoard board, final char disc, final int discsToWin, final int[] moves, final int from, final int to) {
+		int front = from;
+		for (int i = from; i < to; i++) {
+			int col = moves[i];
+			if (isWinningMove(board, col, disc, discsToWin)) {
+				// Shift the moves in between back by one
+				System.arraycopy(moves, front, moves, front + 1, i - front);
+				moves[front++] = col;
+			}
+		}
+		return front;
+	}
+	
+}
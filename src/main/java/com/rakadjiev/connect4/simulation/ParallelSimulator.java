@@ -0,0 +1,212 @@
+package com.rakadjiev.connect4.simulation;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.rakadjiev.connect4.IStrategy;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.impl.Player;
+
+/**
+ * Plays series of games between two strategies on multiple cores.
+ * 
+ * The games are split into batches of {@value #BATCH_GAMES} games, which are distributed over
+ * a {@link ForkJoinPool} by recursively splitting the range of batches. Each batch is played on
+ * its own {@link Simulator}, with new game and strategy instances, so nothing is shared between
+ * the threads except the result counters, which are {@link LongAdder}s.
+ * 
+ * Every batch draws its random decisions from a generator seeded by the batch's index, and starts
+ * with new strategies, so that strategies, which keep state between moves (e.g. the transposition
+ * table of {@link SolverStrategy}, or the search tree of an MCTS strategy), play the same games no
+ * matter which batches a thread has played before. Thus the results only depend on the seed and
+ * the number of games, not on the number of threads or the order in which the batches are
+ * played, as long as each strategy decides by its own state and the random generator only, e.g.
+ * not by time budgets or its own threads.
+ * 
+ * @author rakadjiev
+ */
+public class ParallelSimulator {
+	
+	/** The number of games per batch (even, so that both strategies start equally often) */
+	public static final int BATCH_GAMES = 1024;
+	
+	/** The number of columns of the board */
+	private final int cols;
+	/** The number of rows of the board */
+	private final int rows;
+	/** The number of connected discs required to win */
+	private final int discsToWin;
+	/** Create the first and the second strategy for each batch */
+	private final Supplier<IStrategy> strategyOne;
+	private final Supplier<IStrategy> strategyTwo;
+	/** The seed, from which the seeds of the batches are derived */
+	private final long seed;
+	/** The number of worker threads */
+	private final int parallelism;
+	
+	/**
+	 * Create a parallel simulator.
+	 * 
+	 * @param cols The number of columns of the board
+	 * @param rows The number of rows of the board
+	 * @param discsToWin The number of connected discs required to win
+	 * @param strategyOne Creates a new instance of the first strategy
+	 * @param strategyTwo Creates a new instance of the second strategy
+	 * @param seed The seed of the random number generators
+	 * @param parallelism The number of worker threads
+	 * @throws IllegalArgumentException If parallelism is less than 1
+	 * @throws NullPointerException If strategyOne or strategyTwo is null
+	 */
+	public ParallelSimulator(final int cols, final int rows, final int discsToWin, final Supplier<IStrategy> strategyOne, final Supplier<IStrategy> strategyTwo, final long seed, final int parallelism) throws IllegalArgumentException, NullPointerException {
+		if (strategyOne == null || strategyTwo == null) {
+			throw new NullPointerException("Strategies must not be null.");
+		}
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Invalid parallelism: " + parallelism + ". At least one thread is required.");
+		}
+		this.cols = cols;
+		this.rows = rows;
+		this.discsToWin = discsToWin;
+		this.strategyOne = strategyOne;
+		this.strategyTwo = strategyTwo;
+		this.seed = seed;
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * Play a series of games. The strategies take turns in making the first move.
+	 * 
+	 * @param games The number of games to play
+	 * @return The statistics of the games
+	 * @throws IllegalArgumentException If the number of games is negative, or the rules are invalid
+	 * @throws IllegalStateException If a strategy chooses an invalid move
+	 */
+	public SimulationResult play(final long games) throws IllegalArgumentException, IllegalStateException {
+		if (games < 0) {
+			throw new IllegalArgumentException("Invalid number of games: " + games + ". The number of games must not be negative.");
+		}
+		// Fail in the calling thread if the rules are invalid
+		new Connect4(cols, rows, discsToWin, new Player("One", 'X'), new Player("Two", 'O'));
+		
+		Batches batches = new Batches(games);
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.invoke(batches.new Task(0, (games + BATCH_GAMES - 1) / BATCH_GAMES));
+		} finally {
+			pool.shutdown();
+		}
+		
+		return batches.getResult();
+	}
+	
+	/**
+	 * Get the number of worker threads.
+	 * 
+	 * @return The number of worker threads
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+	
+	/**
+	 * Get the seed of a batch, so that neighboring batches get unrelated random numbers.
+	 * 
+	 * @param batch The index of the batch
+	 * @return The seed of the batch
+	 */
+	private long batchSeed(final long batch) {
+		long z = seed + (batch + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+	
+	/**
+	 * The batches of a single call to {@link ParallelSimulator#play(long)}, with their shared counters.
+	 */
+	private class Batches {
+		
+		/** The number of games */
+		private final long games;
+		
+		/** The result counters */
+		private final LongAdder wins = new LongAdder();
+		private final LongAdder losses = new LongAdder();
+		private final LongAdder ties = new LongAdder();
+		private final LongAdder starterWins = new LongAdder();
+		private final LongAdder moves = new LongAdder();
+		
+		/**
+		 * Create the batches of a series of games.
+		 * 
+		 * @param games The number of games
+		 */
+		Batches(final long games) {
+			this.games = games;
+		}
+		
+		/**
+		 * Play a batch with new strategies, and add its statistics to the counters.
+		 * 
+		 * @param batch The index of the batch
+		 */
+		void play(final long batch) {
+			long batchGames = Math.min(BATCH_GAMES, games - batch * BATCH_GAMES);
+			Simulator simulator = new Simulator(cols, rows, discsToWin, strategyOne.get(), strategyTwo.get(), seed);
+			SimulationResult result = simulator.play(batchGames, batchSeed(batch));
+			wins.add(result.getWins());
+			losses.add(result.getLosses());
+			ties.add(result.getTies());
+			starterWins.add(result.getStarterWins());
+			moves.add(result.getMoves());
+		}
+		
+		/**
+		 * Get the statistics of all games played so far.
+		 * 
+		 * @return The statistics
+		 */
+		SimulationResult getResult() {
+			return new SimulationResult(wins.sum() + losses.sum() + ties.sum(), wins.sum(), losses.sum(), ties.sum(), starterWins.sum(), moves.sum());
+		}
+		
+		/**
+		 * Plays a range of batches, splitting it in half until a single batch is left.
+		 */
+		private class Task extends RecursiveAction {
+			
+			private static final long serialVersionUID = -2319054871205613240L;
+			
+			/** The first batch of the range */
+			private final long from;
+			/** The batch after the last batch of the range */
+			private final long to;
+			
+			/**
+			 * Create a task for a range of batches.
+			 * 
+			 * @param from The first batch of the range
+			 * @param to The batch after the last batch of the range
+			 */
+			Task(final long from, final long to) {
+				this.from = from;
+				this.to = to;
+			}
+			
+			@Override
+			protected void compute() {
+				if (to - from <= 1) {
+					if (to > from) {
+						play(from);
+					}
+					return;
+				}
+				long middle = (from + to) >>> 1;
+				invokeAll(new Task(from, middle), new Task(middle, to));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.rakadjiev.connect4.simulation;
+
+import java.util.SplittableRandom;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.IStrategy;
+
+/**
+ * A strategy, which plays a uniformly random column, which isn't full.
+ * 
+ * @author rakadjiev
+ */
+public class RandomStrategy implements IStrategy {
+	
+	@Override
+	public String getName() {
+		return "random";
+	}
+	
+	@Override
+	public int chooseMove(final IConnect4 game, final IPlayer player, final IPlayer opponent, final SplittableRandom random) {
+		IBoard board = game.getBoard();
+		int cols = board.getCols();
+		
+		// The playable columns of common boards are a single bitmask, from which a random bit is picked
+		if (cols <= Long.SIZE) {
+			long playable = board.getPlayableColumns();
+			for (int n = random.nextInt(Long.bitCount(playable)); n > 0; n--) {
+				// Clear the lowest set bit
+				playable &= playable - 1;
+			}
+			return Long.numberOfTrailingZeros(playable) + 1;
+		}
+		
+		// Otherwise, retrying is cheaper than collecting the playable columns, since most columns are playable
+		int col;
+		do {
+			col = random.nextInt(cols) + 1;
+		} while (!board.canPlay(col));
+		
+		return col;
+	}
+	
+}
@@ -0,0 +1,132 @@
+package com.rakadjiev.connect4.simulation;
+
+/**
+ * The statistics of a series of simulated games between two strategies, from the point of view
+ * of the first strategy.
+ * 
+ * @author rakadjiev
+ */
+public class SimulationResult {
+	
+	/** The number of games played */
+	private final long games;
+	/** The number of games won by the first strategy */
+	private final long wins;
+	/** The number of games won by the second strategy */
+	private final long losses;
+	/** The number of games, which ended with a tie */
+	private final long ties;
+	/** The number of games won by the strategy, which made the first move */
+	private final long starterWins;
+	/** The total number of moves of all games */
+	private final long moves;
+	
+	/**
+	 * Create a new result.
+	 * 
+	 * @param games The number of games played
+	 * @param wins The number of games won by the first strategy
+	 * @param losses The number of games won by the second strategy
+	 * @param ties The number of games, which ended with a tie
+	 * @param starterWins The number of games won by the strategy, which made the first move
+	 * @param moves The total number of moves of all games
+	 */
+	public SimulationResult(final long games, final long wins, final long losses, final long ties, final long starterWins, final long moves) {
+		this.games = games;
+		this.wins = wins;
+		this.losses = losses;
+		this.ties = ties;
+		this.starterWins = starterWins;
+		this.moves = moves;
+	}
+	
+	/**
+	 * Combine this result with the result of another series of games between the same strategies.
+	 * 
+	 * @param other The other result
+	 * @return The result of both series
+	 */
+	public SimulationResult add(final SimulationResult other) {
+		return new SimulationResult(games + other.games, wins + other.wins, losses + other.losses,
+				ties + other.ties, starterWins + other.starterWins, moves + other.moves);
+	}
+	
+	/**
+	 * Get the number of games played.
+	 * 
+	 * @return The number of games played
+	 */
+	public long getGames() {
+		return games;
+	}
+	
+	/**
+	 * Get the number of games won by the first strategy.
+	 * 
+	 * @return The number of wins
+	 */
+	public long getWins() {
+		return wins;
+	}
+	
+	/**
+	 * Get the number of games won by the second strategy.
+	 * 
+	 * @return The number of losses
+	 */
+	public long getLosses() {
+		return losses;
+	}
+	
+	/**
+	 * Get the number of games, which ended with a tie.
+	 * 
+	 * @return The number of ties
+	 */
+	public long getTies() {
+		return ties;
+	}
+	
+	/**
+	 * Get the number of games won by the strategy, which made the first move.
+	 * 
+	 * @return The number of games won by the starting strategy
+	 */
+	public long getStarterWins() {
+		return starterWins;
+	}
+	
+	/**
+	 * Get the total number of moves of all games.
+	 * 
+	 * @return The number of moves
+	 */
+	public long getMoves() {
+		return moves;
+	}
+	
+	/**
+	 * Get the share of games won by the first strategy.
+	 * 
+	 * @return The win rate between 0 and 1
+	 */
+	public double getWinRate() {
+		return games == 0 ? 0 : (double) wins / games;
+	}
+	
+	/**
+	 * Get the average number of moves per game.
+	 * 
+	 * @return The average number of moves
+	 */
+	public double getAverageMoves() {
+		return games == 0 ? 0 : (double) moves / games;
+	}
+	
+	@Override
+	public String toString() {
+		return "games=" + games + ", wins=" + wins + ", losses=" + losses + ", ties=" + ties
+				+ ", starterWins=" + starterWins + ", averageMoves=" + String.format("%.2f", getAverageMoves());
+	}
+
+}
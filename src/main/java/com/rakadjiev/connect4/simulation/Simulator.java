@@ -0,0 +1,217 @@
+package com.rakadjiev.connect4.simulation;
+
+import java.util.SplittableRandom;
+
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.IStrategy;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.impl.Board;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.impl.Player;
+import com.rakadjiev.connect4.mcts.MctsStrategy;
+
+/**
+ * Plays series of games between two strategies without any user interaction, and collects
+ * win/loss/tie statistics.
+ * 
+ * A simulator plays all its games on the same game instance, which is restarted after every game,
+ * and draws all random decisions from its own seeded random number generator, so the same seed
+ * yields the same games. A simulator is not thread-safe: concurrent simulations need one simulator
+ * (with its own strategy instances) per thread.
+ * 
+ * @author rakadjiev
+ */
+public class Simulator {
+	
+	/** The game */
+	private final IConnect4 game;
+	/** The players of the first and the second strategy */
+	private final IPlayer[] players;
+	/** The first and the second strategy */
+	private final IStrategy[] strategies;
+	/** The random number generator */
+	private SplittableRandom random;
+	
+	/**
+	 * Create a simulator for the standard game.
+	 * 
+	 * @param strategyOne The first strategy
+	 * @param strategyTwo The second strategy
+	 * @param seed The seed of the random number generator
+	 * @throws NullPointerException If strategyOne or strategyTwo is null
+	 */
+	public Simulator(final IStrategy strategyOne, final IStrategy strategyTwo, final long seed) throws NullPointerException {
+		this(Board.COLS, Board.ROWS, Connect4.DISCS_TO_WIN, strategyOne, strategyTwo, seed);
+	}
+	
+	/**
+	 * Create a simulator for a game with the specified rules.
+	 * 
+	 * @param cols The number of columns of the board
+	 * @param rows The number of rows of the board
+	 * @param discsToWin The number of connected discs required to win
+	 * @param strategyOne The first strategy
+	 * @param strategyTwo The second strategy
+	 * @param seed The seed of the random number generator
+	 * @throws IllegalArgumentException If the board has less than one column or row, or discsToWin is less than 1
+	 * @throws NullPointerException If strategyOne or strategyTwo is null
+	 */
+	public Simulator(final int cols, final int rows, final int discsToWin, final IStrategy strategyOne, final IStrategy strategyTwo, final long seed) throws IllegalArgumentException, NullPointerException {
+		if (strategyOne == null || strategyTwo == null) {
+			throw new NullPointerException("Strategies must not be null.");
+		}
+		this.players = new IPlayer[]{new Player(strategyOne.getName(), 'X'), new Player(strategyTwo.getName(), 'O')};
+		this.strategies = new IStrategy[]{strategyOne, strategyTwo};
+		this.game = new Connect4(cols, rows, discsToWin, players[0], players[1]);
+		this.random = new SplittableRandom(seed);
+	}
+	
+	/**
+	 * Play a series of games. The strategies take turns in making the first move.
+	 * 
+	 * @param games The number of games to play
+	 * @return The statistics of the games
+	 * @throws IllegalArgumentException If the number of games is negative
+	 * @throws IllegalStateException If a strategy chooses an invalid move
+	 */
+	public SimulationResult play(final long games) throws IllegalArgumentException, IllegalStateException {
+		if (games < 0) {
+			throw new IllegalArgumentException("Invalid number of games: " + games + ". The number of games must not be negative.");
+		}
+		
+		long wins = 0;
+		long losses = 0;
+		long starterWins = 0;
+		long moves = 0;
+		
+		for (long i = 0; i < games; i++) {
+			int starter = (int) (i & 1);
+			int winner = playGame(starter);
+			if (winner == 0) {
+				wins++;
+			} else if (winner == 1) {
+				losses++;
+			}
+			if (winner == starter) {
+				starterWins++;
+			}
+			moves += game.getBoard().getNumberOfDiscs();
+		}
+		
+		return new SimulationResult(games, wins, losses, games - wins - losses, starterWins, moves);
+	}
+	
+	/**
+	 * Play a series of games with a new random number generator, e.g. to make a batch of games
+	 * reproducible regardless of the games played before.
+	 * 
+	 * @param games The number of games to play
+	 * @param seed The seed of the new random number generator
+	 * @return The statistics of the games
+	 * @throws IllegalArgumentException If the number of games is negative
+	 * @throws IllegalStateException If a strategy chooses an invalid move
+	 */
+	public SimulationResult play(final long games, final long seed) throws IllegalArgumentException, IllegalStateException {
+		random = new SplittableRandom(seed);
+		return play(games);
+	}
+	
+	/**
+	 * Play a single game. The game is left in its final state until the next game starts.
+	 * 
+	 * @param starter The strategy, which makes the first move (0 for the first, 1 for the second strategy)
+	 * @return The strategy, which won (0 for the first, 1 for the second strategy), or -1 if the game ended with a tie
+	 * @throws IllegalStateException If a strategy chooses an invalid move
+	 */
+	public int playGame(final int starter) throws IllegalStateException {
+		game.restart();
+		
+		int current = starter;
+		while (true) {
+			IPlayer player = players[current];
+			int col = strategies[current].chooseMove(game, player, players[1 - current], random);
+			
+			try {
+				if (game.insertDisc(player, col)) {
+					return current;
+				}
+			} catch (InvalidInsertException e) {
+				throw new IllegalStateException("Strategy " + strategies[current].getName() + " chose an invalid move: " + e.getMessage(), e);
+			}
+			
+			if (game.isTie()) {
+				return -1;
+			}
+			current = 1 - current;
+		}
+	}
+	
+	/**
+	 * Get the game, on which the games are played.
+	 * 
+	 * @return The game
+	 */
+	public IConnect4 getGame() {
+		return game;
+	}
+	
+	/**
+	 * Create a strategy by its name.
+	 * 
+	 * @param name The name of the strategy: random, heuristic, evaluator, mcts or solver
+	 * @return A new instance of the strategy
+	 * @throws IllegalArgumentException If there is no strategy with the name
+	 */
+	public static IStrategy createStrategy(final String name) throws IllegalArgumentException {
+		switch (name) {
+		case "random":
+			return new RandomStrategy();
+		case "heuristic":
+			return new HeuristicStrategy();
+		case "evaluator":
+			return new EvaluatorStrategy();
+		case "mcts":
+			return new MctsStrategy();
+		case "solver":
+			return new SolverStrategy();
+		default:
+			throw new IllegalArgumentException("Unknown strategy: '" + name + "'. Strategy must be random, heuristic, evaluator, mcts or solver.");
+		}
+	}
+	
+	/**
+	 * Simulates games between two strategies on all cores, and prints the statistics.
+	 * 
+	 * Usage: <code>Simulator [games] [strategyOne] [strategyTwo] [seed] [cols] [rows] [discsToWin] [threads]</code>,
+	 * e.g. <code>Simulator 1000000 heuristic random 42</code>.
+	 * 
+	 * @param args The command-line arguments
+	 */
+	public static void main(String[] args) {
+		try {
+			long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+			String strategyOne = createStrategy(args.length > 1 ? args[1] : "heuristic").getName();
+			String strategyTwo = createStrategy(args.length > 2 ? args[2] : "random").getName();
+			long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+			int cols = args.length > 4 ? Integer.parseInt(args[4]) : Board.COLS;
+			int rows = args.length > 5 ? Integer.parseInt(args[5]) : Board.ROWS;
+			int discsToWin = args.length > 6 ? Integer.parseInt(args[6]) : Connect4.DISCS_TO_WIN;
+			int threads = args.length > 7 ? Integer.parseInt(args[7]) : Runtime.getRuntime().availableProcessors();
+			
+			ParallelSimulator simulator = new ParallelSimulator(cols, rows, discsToWin,
+					() -> createStrategy(strategyOne), () -> createStrategy(strategyTwo), seed, threads);
+			
+			long start = System.nanoTime();
+			SimulationResult result = simulator.play(games);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			
+			System.out.println(strategyOne + " vs. " + strategyTwo + " (seed " + seed + ", " + threads + " threads): " + result);
+			System.out.println(String.format("%.0f games/s", games / seconds));
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: Simulator [games] [strategyOne] [strategyTwo] [seed] [cols] [rows] [discsToWin] [threads]");
+		}
+	}
+
+}
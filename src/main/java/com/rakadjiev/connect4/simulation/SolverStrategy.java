@@ -0,0 +1,56 @@
+package com.rakadjiev.connect4.simulation;
+
+import java.util.SplittableRandom;
+
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.IStrategy;
+import com.rakadjiev.connect4.solver.Solver;
+import com.rakadjiev.connect4.solver.TranspositionTable;
+import com.rakadjiev.connect4.solver.TranspositionTable.ReplacementPolicy;
+
+/**
+ * A strategy, which plays the best move found by the {@link Solver} within a search budget.
+ * With an unlimited budget, it plays perfectly, but early moves can take very long.
+ * Only games, which the solver supports, can be played.
+ * 
+ * @author rakadjiev
+ */
+public class SolverStrategy implements IStrategy {
+	
+	/** The default maximum number of positions to explore per move */
+	public static final long DEFAULT_MAX_NODES = 100_000;
+	/** The memory of the transposition table */
+	private static final long TABLE_BYTES = 4L * 1024 * 1024;
+	
+	/** The solver */
+	private final Solver solver;
+	
+	/**
+	 * Create a strategy, which explores up to {@value #DEFAULT_MAX_NODES} positions per move.
+	 */
+	public SolverStrategy() {
+		this(DEFAULT_MAX_NODES);
+	}
+	
+	/**
+	 * Create a strategy with a search budget.
+	 * 
+	 * @param maxNodes The maximum number of positions to explore per move (0 if unlimited)
+	 * @throws IllegalArgumentException If a negative budget has been specified
+	 */
+	public SolverStrategy(final long maxNodes) throws IllegalArgumentException {
+		this.solver = new Solver(maxNodes, 0, new TranspositionTable(TABLE_BYTES, ReplacementPolicy.DEPTH_PREFERRED));
+	}
+	
+	@Override
+	public String getName() {
+		return "solver";
+	}
+	
+	@Override
+	public int chooseMove(final IConnect4 game, final IPlayer player, final IPlayer opponent, final SplittableRandom random) {
+		return solver.solve(game, player).getBestMove();
+	}
+	
+}
@@ -0,0 +1,141 @@
+package com.rakadjiev.connect4.solver;
+
+import java.util.function.Function;
+
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IMetrics;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.cache.ResultCache;
+import com.rakadjiev.connect4.cache.ResultCache.EvictionPolicy;
+import com.rakadjiev.connect4.metrics.Metrics;
+
+/**
+ * Solves Connect4 positions with another solver, and remembers the results in a {@link ResultCache},
+ * so that repeated queries of the same positions don't search at all.
+ * 
+ * Positions are cached by their canonical key, so a position and its mirror image share one
+ * entry, and the best move is mirrored as needed. Only exact results are cached: the result of a
+ * search, which ran out of budget, is returned, but the position is searched again when it is
+ * queried again, since a later search may have a larger budget, or find more results in the
+ * solver's transposition table. Results returned from the cache report 0 explored positions. The cache only holds positions of one board
+ * size, and is cleared when a position of another size is solved.
+ * 
+ * A solver instance is not thread-safe.
+ * 
+ * @author rakadjiev
+ */
+public class CachingSolver {
+	
+	/** The number of results cached, if no cache is specified */
+	public static final int DEFAULT_MAX_ENTRIES = 1 << 16;
+	/** The approximate memory of a cached result in bytes */
+	public static final int BYTES_PER_RESULT = 32;
+	
+	/** Solves the positions, which aren't in the cache */
+	private final Function<Position, SolverResult> solver;
+	/** The results of solved positions, by canonical key */
+	private final ResultCache<SolverResult> cache;
+	/** Counts the positions found in caches */
+	private final IMetrics.Counter hitCounter = Metrics.get().counter("solver.cacheHits");
+	/** Counts the positions, which had to be solved */
+	private final IMetrics.Counter missCounter = Metrics.get().counter("solver.cacheMisses");
+	
+	/** The number of columns and rows of the positions in the cache */
+	private int cols;
+	private int rows;
+	
+	/**
+	 * Create a solver, which caches up to {@value #DEFAULT_MAX_ENTRIES} results of another solver,
+	 * with the W-TinyLFU eviction policy.
+	 * 
+	 * @param solver The solver of positions, which aren't in the cache
+	 * @throws NullPointerException If solver is null
+	 */
+	public CachingSolver(final Solver solver) throws NullPointerException {
+		this(solver == null ? null : solver::solve, new ResultCache<>(DEFAULT_MAX_ENTRIES, EvictionPolicy.W_TINY_LFU));
+	}
+	
+	/**
+	 * Create a solver, which caches the results of another solver, e.g. <code>parallelSolver::solve</code>.
+	 * 
+	 * @param solver Solves positions, which aren't in the cache
+	 * @param cache The cache, which must not be used by anything else
+	 * @throws NullPointerException If solver or cache is null
+	 */
+	public CachingSolver(final Function<Position, SolverResult> solver, final ResultCache<SolverResult> cache) throws NullPointerException {
+		if (solver == null) {
+			throw new NullPointerException("Solver must not be null.");
+		}
+		if (cache == null) {
+			throw new NullPointerException("Result cache must not be null.");
+		}
+		this.solver = solver;
+		this.cache = cache;
+	}
+	
+	/**
+	 * Solve the current position of a game, for the specified player.
+	 * 
+	 * @param game The game
+	 * @param player The player whose turn it is
+	 * @return The result, from the point of view of the player
+	 * @throws IllegalArgumentException If the game's rules or board size aren't supported
+	 * @throws IllegalStateException If the game has already finished
+	 */
+	public SolverResult solve(final IConnect4 game, final IPlayer player) throws IllegalArgumentException, IllegalStateException {
+		if (game.isFinished()) {
+			throw new IllegalStateException("The game has already finished.");
+		}
+		if (game.getDiscsToWin() != Position.DISCS_TO_WIN) {
+			throw new IllegalArgumentException("Unsupported number of discs to win: " + game.getDiscsToWin() + ". Only " + Position.DISCS_TO_WIN + " is supported.");
+		}
+		
+		return solve(new Position(game.getBoard(), player.getDisc()));
+	}
+	
+	/**
+	 * Solve a position, which hasn't been won yet, or return its cached result.
+	 * 
+	 * @param root The position to solve. It isn't modified.
+	 * @return The result, from the point of view of the player whose turn it is
+	 * @throws IllegalStateException If the board is already full
+	 */
+	public SolverResult solve(final Position root) throws IllegalStateException {
+		// Keys of different board sizes aren't comparable
+		if (root.getCols() != cols || root.getRows() != rows) {
+			cache.clear();
+			cols = root.getCols();
+			rows = root.getRows();
+		}
+		
+		// The cached best move is the one of the position with the canonical key
+		long key = root.getCanonicalKey();
+		boolean mirrored = key != root.getKey();
+		
+		SolverResult cached = cache.get(key);
+		if (cached != null) {
+			hitCounter.increment();
+			int bestMove = mirrored ? cols + 1 - cached.getBestMove() : cached.getBestMove();
+			return new SolverResult(cached.getScore(), bestMove, cached.isExact(), cached.getDepth(), 0);
+		}
+		
+		missCounter.increment();
+		SolverResult result = solver.apply(root);
+		if (!result.isExact()) {
+			return result;
+		}
+		int canonicalMove = mirrored ? cols + 1 - result.getBestMove() : result.getBestMove();
+		cache.put(key, new SolverResult(result.getScore(), canonicalMove, result.isExact(), result.getDepth(), result.getNodes()));
+		return result;
+	}
+	
+	/**
+	 * Get the cache, e.g. to check its hit rate.
+	 * 
+	 * @return The cache
+	 */
+	public ResultCache<SolverResult> getCache() {
+		return cache;
+	}
+	
+}
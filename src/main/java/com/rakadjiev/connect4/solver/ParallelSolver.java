@@ -0,0 +1,252 @@
+package com.rakadjiev.connect4.solver;
+
+import java.io.Closeable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IMetrics;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.book.OpeningBook;
+import com.rakadjiev.connect4.metrics.Metrics;
+
+/**
+ * Solves Connect4 positions with multiple threads, which share one transposition table (Lazy SMP).
+ * 
+ * All threads search the same position independently, but each helper thread tries the columns
+ * in a different order, so it explores other parts of the tree first. The threads don't
+ * communicate except through the shared {@link TranspositionTable}, which is lock-free: results
+ * found by one thread let the other threads skip the positions. The result is the result of the
+ * main thread, which searches exactly like a single-threaded {@link Solver} with the same budget,
+ * so it reaches the same exact score. Among several moves with the best score, the best move may
+ * differ from the single-threaded search, since the shared table changes the order in which the
+ * main thread proves them. Once the main thread is done, the helper threads are stopped.
+ * 
+ * The search budget applies to the main thread. The number of explored positions reported in the
+ * result is the total of all threads.
+ * 
+ * The helper threads are started with the solver, and reused for all positions, so that a query
+ * doesn't pay for starting threads. They are stopped when the solver is closed.
+ * 
+ * A solver instance is not thread-safe, i.e. it solves one position at a time.
+ * 
+ * @author rakadjiev
+ */
+public class ParallelSolver implements Closeable {
+	
+	/** The number of threads */
+	private final int threads;
+	/** The shared results of explored positions */
+	private final TranspositionTable table;
+	/** The solvers of the threads, the main thread's first */
+	private final Solver[] solvers;
+	/** Stops the searches of the helper threads */
+	private final AtomicBoolean stop = new AtomicBoolean();
+	/** Runs the searches of the helper threads (null if there is only the main thread) */
+	private final ExecutorService helpers;
+	/** Counts the lookups in transposition tables */
+	private final IMetrics.Counter tableProbeCounter = Metrics.get().counter("solver.tableProbes");
+	/** Counts the successful lookups in transposition tables */
+	private final IMetrics.Counter tableHitCounter = Metrics.get().counter("solver.tableHits");
+	
+	/** The number of columns and rows of the previous position, whose results are in the table */
+	private int cols;
+	private int rows;
+	/** If the solver has been closed */
+	private boolean closed;
+	
+	/**
+	 * Create a solver without a search budget, and a transposition table of {@value Solver#DEFAULT_TABLE_BYTES} bytes,
+	 * which prefers results of deeper searches.
+	 * 
+	 * @param threads The number of threads
+	 * @throws IllegalArgumentException If threads is less than 1
+	 */
+	public ParallelSolver(final int threads) throws IllegalArgumentException {
+		this(threads, 0, 0, new TranspositionTable(Solver.DEFAULT_TABLE_BYTES, TranspositionTable.ReplacementPolicy.DEPTH_PREFERRED));
+	}
+	
+	/**
+	 * Create a solver with a search budget and a transposition table.
+	 * 
+	 * @param threads The number of threads
+	 * @param maxNodes The maximum number of positions for the main thread to explore per search (0 if unlimited)
+	 * @param maxMillis The maximum time per search in milliseconds (0 if unlimited)
+	 * @param table The transposition table, which must not be used by any other solver
+	 * @throws IllegalArgumentException If threads is less than 1, or a negative budget has been specified
+	 * @throws NullPointerException If table is null
+	 */
+	public ParallelSolver(final int threads, final long maxNodes, final long maxMillis, final TranspositionTable table) throws IllegalArgumentException, NullPointerException {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Invalid number of threads: " + threads + ". At least one thread is required.");
+		}
+		if (maxNodes < 0 || maxMillis < 0) {
+			throw new IllegalArgumentException("Search budget must not be negative.");
+		}
+		if (table == null) {
+			throw new NullPointerException("Transposition table must not be null.");
+		}
+		this.threads = threads;
+		this.table = table;
+		this.solvers = new Solver[threads];
+		solvers[0] = new Solver(maxNodes, maxMillis, table, 0, null);
+		for (int i = 1; i < threads; i++) {
+			solvers[i] = new Solver(0, 0, table, i, stop);
+		}
+		if (threads > 1) {
+			AtomicInteger helperCount = new AtomicInteger();
+			this.helpers = Executors.newFixedThreadPool(threads - 1, runnable -> {
+				Thread thread = new Thread(runnable, "solver-helper-" + helperCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		} else {
+			this.helpers = null;
+		}
+	}
+	
+	/**
+	 * Solve the current position of a game, for the specified player.
+	 * 
+	 * @param game The game
+	 * @param player The player whose turn it is
+	 * @return The result, from the point of view of the player
+	 * @throws IllegalArgumentException If the game's rules or board size aren't supported
+	 * @throws IllegalStateException If the game has already finished
+	 */
+	public SolverResult solve(final IConnect4 game, final IPlayer player) throws IllegalArgumentException, IllegalStateException {
+		if (game.isFinished()) {
+			throw new IllegalStateException("The game has already finished.");
+		}
+		if (game.getDiscsToWin() != Position.DISCS_TO_WIN) {
+			throw new IllegalArgumentException("Unsupported number of discs to win: " + game.getDiscsToWin() + ". Only " + Position.DISCS_TO_WIN + " is supported.");
+		}
+		
+		return solve(new Position(game.getBoard(), player.getDisc()));
+	}
+	
+	/**
+	 * Solve a position, which hasn't been won yet.
+	 * 
+	 * @param root The position to solve. It isn't modified.
+	 * @return The result, from the point of view of the player whose turn it is
+	 * @throws IllegalStateException If the board is already full, or the solver has been closed
+	 */
+	public SolverResult solve(final Position root) throws IllegalStateException {
+		if (closed) {
+			throw new IllegalStateException("The solver has been closed.");
+		}
+		if (root.getMoves() == root.getSize()) {
+			throw new IllegalStateException("The board is already full.");
+		}
+		
+		// Keys of different board sizes aren't comparable
+		if (root.getCols() != cols || root.getRows() != rows) {
+			table.clear();
+			cols = root.getCols();
+			rows = root.getRows();
+		}
+		
+		long probes = table.getProbes();
+		long hits = table.getHits();
+		
+		stop.set(false);
+		@SuppressWarnings("unchecked")
+		Future<SolverResult>[] helperResults = new Future[threads - 1];
+		for (int i = 1; i < threads; i++) {
+			final Solver solver = solvers[i];
+			helperResults[i - 1] = helpers.submit(() -> solver.solve(root));
+		}
+		
+		SolverResult result;
+		long nodes = 0;
+		try {
+			result = solvers[0].solve(root);
+		} finally {
+			stop.set(true);
+			// The helpers must be done before the next search, since they use the shared table and their solvers
+			for (Future<SolverResult> helperResult : helperResults) {
+				nodes += getUninterruptibly(helperResult).getNodes();
+			}
+		}
+		
+		nodes += result.getNodes();
+		tableProbeCounter.add(table.getProbes() - probes);
+		tableHitCounter.add(table.getHits() - hits);
+		
+		return new SolverResult(result.getScore(), result.getBestMove(), result.isExact(), result.getDepth(), nodes);
+	}
+	
+	/**
+	 * Wait for the search of a helper thread to finish, even if the current thread is interrupted,
+	 * and restore the interrupted status afterwards.
+	 * 
+	 * @param future The search
+	 * @return The result of the search
+	 * @throws IllegalStateException If the search has failed
+	 */
+	private static SolverResult getUninterruptibly(final Future<SolverResult> future) throws IllegalStateException {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return future.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("Helper search failed.", e.getCause());
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * Stop the helper threads. The solver can't solve any more positions afterwards.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		if (helpers != null) {
+			helpers.shutdown();
+		}
+	}
+	
+	/**
+	 * Set an opening book for all threads, whose scores are used instead of searching the positions in it.
+	 * 
+	 * @param book The opening book, or null to search all positions
+	 * @see Solver#setOpeningBook(OpeningBook)
+	 */
+	public void setOpeningBook(final OpeningBook book) {
+		for (Solver solver : solvers) {
+			solver.setOpeningBook(book);
+		}
+	}
+	
+	/**
+	 * Get the number of threads.
+	 * 
+	 * @return The number of threads
+	 */
+	public int getThreads() {
+		return threads;
+	}
+	
+	/**
+	 * Get the shared transposition table, e.g. to check its hit rate.
+	 * 
+	 * @return The transposition table
+	 */
+	public TranspositionTable getTranspositionTable() {
+		return table;
+	}
+
+}
@@ -0,0 +1,476 @@
+package com.rakadjiev.connect4.solver;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.exceptions.InvalidLocationException;
+
+/**
+ * A compact Connect4 position, as seen from the player whose turn it is.
+ * 
+ * The position consists of two bitboards (see {@link com.rakadjiev.connect4.impl.BitBoard} for the
+ * bit layout): one with the discs of the current player, and one with all discs on the board.
+ * The discs of the opponent are the difference of the two. Playing a move simply sets a bit and
+ * swaps the players, and can be undone just as cheaply, so a search can use a single instance for
+ * the whole tree.
+ * 
+ * The position is only suitable for games, which require 4 connected discs to win, on boards where
+ * every column fits into a <code>long</code> together with one separator bit per column.
+ * 
+ * @author rakadjiev
+ */
+public class Position {
+	
+	/** The number of connected discs required to win */
+	public static final int DISCS_TO_WIN = 4;
+	
+	/** The number of columns of the board */
+	private final int cols;
+	/** The number of rows of the board */
+	private final int rows;
+	/** The number of bits per column (including the separator bit) */
+	private final int height;
+	/** The bitboard containing the bottom cell of each column */
+	private final long bottomMask;
+	/** The bitboard containing all cells of the board */
+	private final long boardMask;
+	
+	/** The discs of the current player */
+	private long current;
+	/** All discs on the board */
+	private long mask;
+	/** The number of discs on the board */
+	private int moves;
+	
+	/**
+	 * Create an empty position.
+	 * 
+	 * @param cols The number of columns of the board
+	 * @param rows The number of rows of the board
+	 * @throws IllegalArgumentException If the board doesn't fit into a bitboard
+	 */
+	public Position(final int cols, final int rows) throws IllegalArgumentException {
+		if (cols < 1 || rows < 1 || cols * (rows + 1) > Long.SIZE || (DISCS_TO_WIN - 1) * (rows + 2) >= Long.SIZE) {
+			throw new IllegalArgumentException("Invalid board size: " + cols + "x" + rows + ". Board must fit into a bitboard.");
+		}
+		this.cols = cols;
+		this.rows = rows;
+		this.height = rows + 1;
+		
+		long bottom = 0L;
+		for (int i = 0; i < cols; i++) {
+			bottom |= 1L << (i * height);
+		}
+		this.bottomMask = bottom;
+		this.boardMask = bottom * ((1L << rows) - 1);
+	}
+	
+	/**
+	 * Create a copy of a position.
+	 * 
+	 * @param position The position to copy
+	 */
+	public Position(final Position position) {
+		this.cols = position.cols;
+		this.rows = position.rows;
+		this.height = position.height;
+		this.bottomMask = position.bottomMask;
+		this.boardMask = position.boardMask;
+		this.current = position.current;
+		this.mask = position.mask;
+		this.moves = position.moves;
+	}
+	
+	/**
+	 * Create a position from its key, which makes the key a compact serialized form of a
+	 * position, e.g. to store large numbers of positions as a single <code>long</code> each.
+	 * 
+	 * @param cols The number of columns of the board
+	 * @param rows The number of rows of the board
+	 * @param key The key of the position, see {@link #getKey()}
+	 * @throws IllegalArgumentException If the board doesn't fit into a bitboard, or key isn't the key of a position of the board
+	 */
+	public Position(final int cols, final int rows, final long key) throws IllegalArgumentException {
+		this(cols, rows);
+		
+		long columnBits = (1L << height) - 1;
+		for (int i = 0; i < cols; i++) {
+			// Each column holds its discs plus the mask of its discs, so adding 1 sets the bit above the top disc
+			long column = ((key >>> (i * height)) & columnBits) + 1;
+			int discs = Long.SIZE - 1 - Long.numberOfLeadingZeros(column);
+			if (discs > rows) {
+				throw new IllegalArgumentException("Invalid key: " + Long.toHexString(key) + ". Key must be the key of a " + cols + "x" + rows + " position.");
+			}
+			current |= (column ^ (1L << discs)) << (i * height);
+			mask |= ((1L << discs) - 1) << (i * height);
+			moves += discs;
+		}
+		if (cols * height < Long.SIZE && key >>> (cols * height) != 0) {
+			throw new IllegalArgumentException("Invalid key: " + Long.toHexString(key) + ". Key must be the key of a " + cols + "x" + rows + " position.");
+		}
+	}
+	
+	/**
+	 * Create the position of a board, as seen from the player with the specified disc color.
+	 * All discs of other colors are considered to belong to the opponent.
+	 * 
+	 * @param board The board
+	 * @param disc The disc color of the player whose turn it is
+	 * @throws IllegalArgumentException If the board doesn't fit into a bitboard
+	 */
+	public Position(final IBoard board, final char disc) throws IllegalArgumentException {
+		this(board.getCols(), board.getRows());
+		
+		try {
+			for (int i = 0; i < cols; i++) {
+				for (int j = 0; j < rows && board.isPopulated(i + 1, j + 1); j++) {
+					long cell = 1L << (i * height + j);
+					mask |= cell;
+					if (board.getDisc(i + 1, j + 1) == disc) {
+						current |= cell;
+					}
+					moves++;
+				}
+			}
+		} catch (InvalidLocationException e) {
+			// Can't happen, we only visit cells within the board's dimensions
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Get the number of columns of the board.
+	 * 
+	 * @return The number of columns of the board
+	 */
+	public int getCols() {
+		return cols;
+	}
+	
+	/**
+	 * Get the number of rows of the board.
+	 * 
+	 * @return The number of rows of the board
+	 */
+	public int getRows() {
+		return rows;
+	}
+	
+	/**
+	 * Get the number of discs on the board.
+	 * 
+	 * @return The number of discs on the board
+	 */
+	public int getMoves() {
+		return moves;
+	}
+	
+	/**
+	 * Get the number of cells of the board.
+	 * 
+	 * @return The number of cells of the board
+	 */
+	public int getSize() {
+		return cols * rows;
+	}
+	
+	/**
+	 * Get a key, which uniquely identifies this position among all positions of the same board size.
+	 * 
+	 * @return The key of this position
+	 */
+	public long getKey() {
+		// A column with h discs adds up to a value between 2^h - 1 and 2^(h+1) - 2, which encodes the column height
+		return current + mask;
+	}
+	
+	/**
+	 * Get a key, which is the same for this position and its mirror image, i.e. the position with the
+	 * columns in reverse order. Mirrored positions have the same score, so e.g. an opening book only
+	 * has to store one of them.
+	 * 
+	 * @return The key of this position or its mirror image, whichever is smaller
+	 */
+	public long getCanonicalKey() {
+		long key = getKey();
+		long columnBits = (1L << height) - 1;
+		long mirrored = 0L;
+		for (int i = 0; i < cols; i++) {
+			mirrored |= ((key >>> (i * height)) & columnBits) << ((cols - 1 - i) * height);
+		}
+		return Math.min(key, mirrored);
+	}
+	
+	/**
+	 * Check if a disc can be inserted into the specified column.
+	 * 
+	 * @param col The column (1-based index)
+	 * @return true if the column exists and isn't full
+	 */
+	public boolean canPlay(final int col) {
+		return col >= 1 && col <= cols && (mask & topMask(col - 1)) == 0;
+	}
+	
+	/**
+	 * Insert a disc of the current player into the specified column, and hand over the turn to the opponent.
+	 * 
+	 * @param col The column (1-based index), which must be playable
+	 */
+	public void play(final int col) {
+		playMove((mask + bottomMask(col - 1)) & columnMask(col - 1));
+	}
+	
+	/**
+	 * Remove all discs, so the position can be reused for another game on the same board.
+	 */
+	public void reset() {
+		current = 0L;
+		mask = 0L;
+		moves = 0;
+	}
+	
+	/**
+	 * Check if the current player wins by inserting a disc into the specified column.
+	 * 
+	 * @param col The column (1-based index), which must be playable
+	 * @return true if the move wins the game
+	 */
+	public boolean isWinningMove(final int col) {
+		return (winningPositions(current) & possibleMoves() & columnMask(col - 1)) != 0;
+	}
+	
+	/**
+	 * Remove the top disc of the specified column, which must be the latest move, and hand the turn
+	 * back to the player who made it.
+	 * 
+	 * @param col The column (1-based index), which must not be empty
+	 */
+	public void undo(final int col) {
+		undoMove(Long.highestOneBit(mask & columnMask(col - 1)));
+	}
+	
+	/**
+	 * Get the discs of the player whose turn it is.
+	 * 
+	 * @return The bitboard of the current player's discs
+	 */
+	public long getCurrentDiscs() {
+		return current;
+	}
+	
+	/**
+	 * Get the discs of the opponent of the player whose turn it is.
+	 * 
+	 * @return The bitboard of the opponent's discs
+	 */
+	public long getOpponentDiscs() {
+		return current ^ mask;
+	}
+	
+	/**
+	 * Get the cells into which a disc can be inserted.
+	 * 
+	 * @return The bitboard of the playable cells, one per non-full column
+	 */
+	public long getPlayableCells() {
+		return possibleMoves();
+	}
+	
+	/**
+	 * Get the empty cells, which would complete a sequence of {@value #DISCS_TO_WIN} connected discs
+	 * of the current player, regardless of whether they are playable yet.
+	 * 
+	 * @return The bitboard of the current player's threats
+	 */
+	public long getThreats() {
+		return winningPositions(current);
+	}
+	
+	/**
+	 * Get the empty cells, which would complete a sequence of {@value #DISCS_TO_WIN} connected discs
+	 * of the opponent, regardless of whether they are playable yet.
+	 * 
+	 * @return The bitboard of the opponent's threats
+	 */
+	public long getOpponentThreats() {
+		return winningPositions(current ^ mask);
+	}
+	
+	/**
+	 * Check if the player, who made the latest move, has connected 4 discs. This is cheaper than
+	 * checking {@link #isWinningMove(int)} before each move, e.g. to replay games.
+	 * 
+	 * @return true if the opponent of the current player has connected 4 discs
+	 */
+	public boolean isWon() {
+		long discs = current ^ mask;
+		return isAligned(discs, 1) || isAligned(discs, height) || isAligned(discs, height - 1) || isAligned(discs, height + 1);
+	}
+	
+	/**
+	 * Insert a disc of the current player, and hand over the turn to the opponent.
+	 * 
+	 * @param move The bitboard containing only the cell of the new disc
+	 */
+	void playMove(final long move) {
+		current ^= mask;
+		mask |= move;
+		moves++;
+	}
+	
+	/**
+	 * Undo a move made by {@link #playMove(long)}, and hand the turn back to the player who made it.
+	 * 
+	 * @param move The bitboard containing only the cell of the disc to remove
+	 */
+	void undoMove(final long move) {
+		mask ^= move;
+		current ^= mask;
+		moves--;
+	}
+	
+	/**
+	 * Check if the current player can win with their next move.
+	 * 
+	 * @return true if the current player can win with their next move
+	 */
+	boolean canWinNext() {
+		return (winningPositions(current) & possibleMoves()) != 0;
+	}
+	
+	/**
+	 * Get the cells into which a disc can be inserted.
+	 * 
+	 * @return The bitboard of the playable cells, one per non-full column
+	 */
+	long possibleMoves() {
+		return (mask + bottomMask) & boardMask;
+	}
+	
+	/**
+	 * Get the playable cells, which don't let the opponent win with their next move.
+	 * If the opponent has a winning move, only the cell blocking it is returned. If the opponent has
+	 * more than one winning move, nothing can be done, and no cells are returned.
+	 * 
+	 * This method must only be called if the current player can't win with their next move.
+	 * 
+	 * @return The bitboard of the non-losing playable cells
+	 */
+	long possibleNonLosingMoves() {
+		long possible = possibleMoves();
+		long opponentWin = winningPositions(current ^ mask);
+		long forced = possible & opponentWin;
+		if (forced != 0) {
+			if ((forced & (forced - 1)) != 0) {
+				// The opponent has more than one winning move
+				return 0;
+			}
+			possible = forced;
+		}
+		// Don't play directly below a cell, into which the opponent could insert a winning disc
+		return possible & ~(opponentWin >>> 1);
+	}
+	
+	/**
+	 * Score a move for move ordering, by the number of cells, into which the current player could insert
+	 * a winning disc after the move.
+	 * 
+	 * @param move The bitboard containing only the cell of the move
+	 * @return The score of the move
+	 */
+	int moveScore(final long move) {
+		return Long.bitCount(winningPositions(current | move));
+	}
+	
+	/**
+	 * Get the column of a move.
+	 * 
+	 * @param move The bitboard containing only the cell of the move
+	 * @return The column (1-based index)
+	 */
+	int columnOf(final long move) {
+		return Long.numberOfTrailingZeros(move) / height + 1;
+	}
+	
+	/**
+	 * Get all cells of a column.
+	 * 
+	 * @param colInternal The column (0-based index)
+	 * @return The bitboard of the column
+	 */
+	long columnMask(final int colInternal) {
+		return ((1L << rows) - 1) << (colInternal * height);
+	}
+	
+	/**
+	 * Get the bottom cell of a column.
+	 * 
+	 * @param colInternal The column (0-based index)
+	 * @return The bitboard of the bottom cell
+	 */
+	private long bottomMask(final int colInternal) {
+		return 1L << (colInternal * height);
+	}
+	
+	/**
+	 * Get the top cell of a column.
+	 * 
+	 * @param colInternal The column (0-based index)
+	 * @return The bitboard of the top cell
+	 */
+	private long topMask(final int colInternal) {
+		return 1L << (rows - 1 + colInternal * height);
+	}
+	
+	/**
+	 * Get the empty cells, which would complete a sequence of {@value #DISCS_TO_WIN} connected discs
+	 * if a disc was inserted into them, regardless of whether they are playable yet.
+	 * 
+	 * @param position The discs of the player
+	 * @return The bitboard of the winning cells
+	 */
+	private long winningPositions(final long position) {
+		// Vertical: three discs below the cell
+		long r = (position << 1) & (position << 2) & (position << 3);
+		
+		// Horizontal and the two diagonals: the cell can be at any place within the sequence
+		r |= winningPositions(position, height);
+		r |= winningPositions(position, height - 1);
+		r |= winningPositions(position, height + 1);
+		
+		return r & (boardMask ^ mask);
+	}
+	
+	/**
+	 * Check if a bitboard contains 4 discs, which are connected in one direction.
+	 * 
+	 * @param discs The bitboard
+	 * @param shift The distance of neighboring cells in the direction
+	 * @return true if 4 discs are connected
+	 */
+	private static boolean isAligned(final long discs, final int shift) {
+		long pairs = discs & (discs >>> shift);
+		return (pairs & (pairs >>> (2 * shift))) != 0;
+	}
+	
+	/**
+	 * Get the cells which would complete a sequence of {@value #DISCS_TO_WIN} connected discs in the
+	 * direction with the specified distance between neighboring cells.
+	 * 
+	 * @param position The discs of the player
+	 * @param shift The distance between two neighboring cells in the direction
+	 * @return The bitboard of the winning cells (including occupied ones)
+	 */
+	private static long winningPositions(final long position, final int shift) {
+		long r;
+		// Two discs on the left of the cell
+		long p = (position << shift) & (position << 2 * shift);
+		r = p & (position << 3 * shift);
+		r |= p & (position >>> shift);
+		// Two discs on the right of the cell
+		p = (position >>> shift) & (position >>> 2 * shift);
+		r |= p & (position << shift);
+		r |= p & (position >>> 3 * shift);
+		
+		return r;
+	}
+
+}
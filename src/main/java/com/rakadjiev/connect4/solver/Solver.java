@@ -0,0 +1,554 @@
+package com.rakadjiev.connect4.solver;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IMetrics;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.book.OpeningBook;
+import com.rakadjiev.connect4.metrics.Metrics;
+
+/**
+ * Computes the exact game-theoretic score and best move of Connect4 positions.
+ * 
+ * The solver runs a negamax search with alpha-beta pruning over a single {@link Position}, which
+ * is modified and restored move by move. The search:
+ * <ul>
+ * <li>narrows down the score with null-window searches, which prune much more than a full window</li>
+ * <li>tries moves with the most winning opportunities first, and the center columns first among equal moves</li>
+ * <li>never considers moves, which let the opponent win immediately</li>
+ * <li>remembers the results of explored positions in a {@link TranspositionTable}, so that positions
+ * reached through different orders of moves are only searched once</li>
+ * <li>deepens iteratively if it has a search budget, so that a best move is available even if the budget runs out</li>
+ * </ul>
+ * 
+ * Early positions are expensive to solve: on the standard board, a position after 4 moves takes
+ * tens of millions of explored positions, i.e. tens of seconds, and a larger transposition table
+ * only saves part of it. Queries of early positions should therefore be answered by an opening
+ * book (see {@link #setOpeningBook(OpeningBook)}).
+ * 
+ * A solver instance is not thread-safe, but can be reused for any number of positions. Results
+ * remembered while solving one position are reused when solving later positions of the same board size.
+ * To search with multiple threads, see {@link ParallelSolver}.
+ * 
+ * @see SolverResult
+ * @author rakadjiev
+ */
+public class Solver {
+	
+	/** The number of explored positions between two checks of the time budget (must be a power of 2) */
+	private static final int TIME_CHECK_INTERVAL = 1024;
+	/** The number of moves by which each iteration searches deeper than the previous one */
+	private static final int DEPTH_STEP = 2;
+	/** The memory used by the transposition table, if none is specified */
+	public static final long DEFAULT_TABLE_BYTES = 32L * 1024 * 1024;
+	
+	/** The maximum number of positions to explore (0 if unlimited) */
+	private final long maxNodes;
+	/** The maximum time to search in milliseconds (0 if unlimited) */
+	private final long maxMillis;
+	/** The results of explored positions */
+	private final TranspositionTable table;
+	/** If the table is only used by this solver, and can be cleared when the board size changes */
+	private final boolean ownsTable;
+	/** The index of the thread in a parallel search, which varies the move order (0 for the main thread) */
+	private final int thread;
+	/** Stops the search of a helper thread of a parallel search (null if the search can't be stopped) */
+	private final AtomicBoolean stop;
+	/** The scores of early positions (null if there is no book) */
+	private OpeningBook book;
+	/** The maximum number of moves of the positions in the book (-1 if there is no book) */
+	private int bookMaxMoves = -1;
+	
+	/** Counts the positions explored by all solvers */
+	private final IMetrics.Counter nodeCounter = Metrics.get().counter("solver.nodes");
+	/** Times the searches of the main threads */
+	private final IMetrics.Histogram solveTimer = Metrics.get().histogram("solver.solveNanos");
+	/** Counts the lookups in transposition tables, which are only used by one solver */
+	private final IMetrics.Counter tableProbeCounter = Metrics.get().counter("solver.tableProbes");
+	/** Counts the successful lookups in transposition tables, which are only used by one solver */
+	private final IMetrics.Counter tableHitCounter = Metrics.get().counter("solver.tableHits");
+	
+	/** The position being searched */
+	private Position position;
+	/** The order in which columns are tried (0-based indices, center first) */
+	private int[] columnOrder;
+	/** The moves to try at each ply, sorted by their score */
+	private long[][] sortedMoves;
+	/** The scores of the moves to try at each ply */
+	private int[][] sortedScores;
+	
+	/** The number of positions explored in the current search */
+	private long nodes;
+	/** The number of positions cut off by the depth limit of the current iteration */
+	private long horizonNodes;
+	/** The time at which to abort the search (0 if unlimited) */
+	private long deadline;
+	/** If the search has been aborted, since it ran out of budget */
+	private boolean aborted;
+	/** The move which has been proven best by the latest search at the root */
+	private long rootBestMove;
+	
+	/**
+	 * Create a solver, which searches until the exact score has been found.
+	 */
+	public Solver() {
+		this(0, 0);
+	}
+	
+	/**
+	 * Create a solver with a search budget, and a transposition table of {@value #DEFAULT_TABLE_BYTES} bytes,
+	 * which prefers results of deeper searches.
+	 * 
+	 * @param maxNodes The maximum number of positions to explore per search (0 if unlimited)
+	 * @param maxMillis The maximum time per search in milliseconds (0 if unlimited)
+	 * @throws IllegalArgumentException If a negative budget has been specified
+	 */
+	public Solver(final long maxNodes, final long maxMillis) throws IllegalArgumentException {
+		this(maxNodes, maxMillis, new TranspositionTable(DEFAULT_TABLE_BYTES, TranspositionTable.ReplacementPolicy.DEPTH_PREFERRED));
+	}
+	
+	/**
+	 * Create a solver with a search budget and a transposition table.
+	 * 
+	 * @param maxNodes The maximum number of positions to explore per search (0 if unlimited)
+	 * @param maxMillis The maximum time per search in milliseconds (0 if unlimited)
+	 * @param table The transposition table, which must not be used by any other solver
+	 * @throws IllegalArgumentException If a negative budget has been specified
+	 * @throws NullPointerException If table is null
+	 */
+	public Solver(final long maxNodes, final long maxMillis, final TranspositionTable table) throws IllegalArgumentException, NullPointerException {
+		if (maxNodes < 0 || maxMillis < 0) {
+			throw new IllegalArgumentException("Search budget must not be negative.");
+		}
+		if (table == null) {
+			throw new NullPointerException("Transposition table must not be null.");
+		}
+		this.maxNodes = maxNodes;
+		this.maxMillis = maxMillis;
+		this.table = table;
+		this.ownsTable = true;
+		this.thread = 0;
+		this.stop = null;
+	}
+	
+	/**
+	 * Create a solver for one thread of a parallel search, which shares the transposition table
+	 * with the other threads.
+	 * 
+	 * @param maxNodes The maximum number of positions to explore per search (0 if unlimited)
+	 * @param maxMillis The maximum time per search in milliseconds (0 if unlimited)
+	 * @param table The shared transposition table, which is cleared by the caller when the board size changes
+	 * @param thread The index of the thread (0 for the main thread)
+	 * @param stop Stops the search once set (null if the search can't be stopped)
+	 */
+	Solver(final long maxNodes, final long maxMillis, final TranspositionTable table, final int thread, final AtomicBoolean stop) {
+		this.maxNodes = maxNodes;
+		this.maxMillis = maxMillis;
+		this.table = table;
+		this.ownsTable = false;
+		this.thread = thread;
+		this.stop = stop;
+	}
+	
+	/**
+	 * Solve the current position of a game, for the specified player.
+	 * 
+	 * @param game The game
+	 * @param player The player whose turn it is
+	 * @return The result, from the point of view of the player
+	 * @throws IllegalArgumentException If the game's rules or board size aren't supported
+	 * @throws IllegalStateException If the game has already finished
+	 */
+	public SolverResult solve(final IConnect4 game, final IPlayer player) throws IllegalArgumentException, IllegalStateException {
+		if (game.isFinished()) {
+			throw new IllegalStateException("The game has already finished.");
+		}
+		if (game.getDiscsToWin() != Position.DISCS_TO_WIN) {
+			throw new IllegalArgumentException("Unsupported number of discs to win: " + game.getDiscsToWin() + ". Only " + Position.DISCS_TO_WIN + " is supported.");
+		}
+		
+		return solve(new Position(game.getBoard(), player.getDisc()));
+	}
+	
+	/**
+	 * Solve a position, which hasn't been won yet.
+	 * 
+	 * @param root The position to solve. It isn't modified.
+	 * @return The result, from the point of view of the player whose turn it is
+	 * @throws IllegalStateException If the board is already full
+	 */
+	public SolverResult solve(final Position root) throws IllegalStateException {
+		if (root.getMoves() == root.getSize()) {
+			throw new IllegalStateException("The board is already full.");
+		}
+		
+		// Helper threads search as long as the main thread, so only the main thread is timed
+		long start = thread == 0 ? solveTimer.startTimer() : 0;
+		long probes = table.getProbes();
+		long hits = table.getHits();
+		
+		SolverResult result = solvePosition(root);
+		
+		if (thread == 0) {
+			solveTimer.stopTimer(start);
+		}
+		nodeCounter.add(result.getNodes());
+		// A shared table is counted by the parallel solver, since lookups of other threads would be counted too
+		if (ownsTable) {
+			// The table is cleared when the board size changes
+			boolean cleared = table.getProbes() < probes;
+			tableProbeCounter.add(table.getProbes() - (cleared ? 0 : probes));
+			tableHitCounter.add(table.getHits() - (cleared ? 0 : hits));
+		}
+		return result;
+	}
+	
+	/**
+	 * Solve a position, which hasn't been won yet, and isn't full.
+	 * 
+	 * @param root The position to solve. It isn't modified.
+	 * @return The result, from the point of view of the player whose turn it is
+	 */
+	private SolverResult solvePosition(final Position root) {
+		prepare(root);
+		
+		int remaining = position.getSize() - position.getMoves();
+		
+		// The search assumes that the player can't win immediately, so we check that separately
+		if (position.canWinNext()) {
+			for (int col : columnOrder) {
+				if (position.canPlay(col + 1) && position.isWinningMove(col + 1)) {
+					return new SolverResult((position.getSize() + 1 - position.getMoves()) / 2, col + 1, true, 1, 1);
+				}
+			}
+		}
+		
+		// Positions in the book don't have to be searched at all
+		if (book != null && position.getMoves() <= bookMaxMoves) {
+			int score = book.getScore(position);
+			int bookMove = book.getBestMove(position);
+			if (score != OpeningBook.NOT_FOUND && bookMove != 0) {
+				return new SolverResult(score, bookMove, true, remaining, 0);
+			}
+		}
+		
+		// If the search can't even complete the first iteration, we fall back to the first sensible move
+		int fallbackMove = fallbackMove();
+		SolverResult result = new SolverResult(0, fallbackMove, false, 0, 0);
+		
+		// Without a budget, shallower iterations would only repeat work
+		int firstDepth = maxNodes == 0 && maxMillis == 0 ? remaining : Math.min(DEPTH_STEP, remaining);
+		
+		for (int depth = firstDepth; !aborted; depth = Math.min(depth + DEPTH_STEP, remaining)) {
+			horizonNodes = 0;
+			rootBestMove = 0;
+			
+			int score = search(depth);
+			if (aborted) {
+				break;
+			}
+			
+			int bestMove = rootBestMove != 0 ? position.columnOf(rootBestMove) : fallbackMove;
+			// If no position has been cut off by the depth limit, deeper searches can't change the score
+			boolean exact = horizonNodes == 0;
+			result = new SolverResult(score, bestMove, exact, depth, nodes);
+			
+			if (exact) {
+				break;
+			}
+		}
+		
+		if (aborted) {
+			result = new SolverResult(result.getScore(), result.getBestMove(), false, result.getDepth(), nodes);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Get the maximum number of positions to explore per search.
+	 * 
+	 * @return The maximum number of positions (0 if unlimited)
+	 */
+	public long getMaxNodes() {
+		return maxNodes;
+	}
+	
+	/**
+	 * Get the maximum time per search.
+	 * 
+	 * @return The maximum time in milliseconds (0 if unlimited)
+	 */
+	public long getMaxMillis() {
+		return maxMillis;
+	}
+	
+	/**
+	 * Set an opening book, whose scores are used instead of searching the positions in it.
+	 * The book must contain the exact scores of all positions up to its maximum number of moves.
+	 * 
+	 * @param book The opening book, or null to search all positions
+	 */
+	public void setOpeningBook(final OpeningBook book) {
+		this.book = book;
+		this.bookMaxMoves = book != null ? book.getMaxMoves() : -1;
+	}
+	
+	/**
+	 * Get the transposition table, e.g. to check its hit rate.
+	 * 
+	 * @return The transposition table
+	 */
+	public TranspositionTable getTranspositionTable() {
+		return table;
+	}
+	
+	/**
+	 * Set up the search state for a new root position.
+	 * 
+	 * @param root The root position
+	 */
+	private void prepare(final Position root) {
+		position = new Position(root);
+		
+		int cols = position.getCols();
+		// Only reallocate the buffers if the board size has changed
+		if (columnOrder == null || columnOrder.length != cols || sortedMoves.length != position.getSize() + 1) {
+			columnOrder = new int[cols];
+			for (int i = 0; i < cols; i++) {
+				// Helper threads of a parallel search rotate the order, so that they explore different moves first
+				int j = (i + thread) % cols;
+				columnOrder[i] = cols / 2 + (1 - 2 * (j % 2)) * (j + 1) / 2;
+			}
+			sortedMoves = new long[position.getSize() + 1][cols];
+			sortedScores = new int[position.getSize() + 1][cols];
+			// Keys of different board sizes aren't comparable
+			if (ownsTable) {
+				table.clear();
+			}
+		}
+		
+		nodes = 0;
+		aborted = false;
+		deadline = maxMillis > 0 ? System.nanoTime() + maxMillis * 1000000L : 0;
+	}
+	
+	/**
+	 * Get the first column in the search order, which doesn't let the opponent win immediately.
+	 * If there is none, get the first playable column.
+	 * 
+	 * @return The column (1-based index)
+	 */
+	private int fallbackMove() {
+		long candidates = position.possibleNonLosingMoves();
+		if (candidates == 0) {
+			candidates = position.possibleMoves();
+		}
+		for (int col : columnOrder) {
+			if ((candidates & position.columnMask(col)) != 0) {
+				return col + 1;
+			}
+		}
+		throw new IllegalStateException("No playable column.");
+	}
+	
+	/**
+	 * Find the score of the root position up to the specified depth, by narrowing down the range of
+	 * possible scores with null-window searches.
+	 * 
+	 * @param depth The maximum number of moves to search
+	 * @return The score of the root position
+	 */
+	private int search(final int depth) {
+		int min = -(position.getSize() - position.getMoves()) / 2;
+		int max = (position.getSize() + 1 - position.getMoves()) / 2;
+		
+		while (min < max && !aborted) {
+			int med = min + (max - min) / 2;
+			// Prefer windows close to 0 first, since most positions are close to a tie
+			if (med <= 0 && min / 2 < med) {
+				med = min / 2;
+			} else if (med >= 0 && max / 2 > med) {
+				med = max / 2;
+			}
+			
+			int score = negamax(med, med + 1, depth, 0);
+			if (score <= med) {
+				max = score;
+			} else {
+				min = score;
+			}
+		}
+		
+		return min;
+	}
+	
+	/**
+	 * Search the current position with alpha-beta pruning.
+	 * The current player must not be able to win with their next move.
+	 * 
+	 * @param alpha The score which the current player can already achieve elsewhere
+	 * @param beta The score which the opponent can already hold the current player to elsewhere
+	 * @param depth The maximum number of moves to search
+	 * @param ply The number of moves since the root position
+	 * @return The score if it is within (alpha, beta), an upper bound if it is at most alpha,
+	 * or a lower bound if it is at least beta
+	 */
+	private int negamax(int alpha, int beta, final int depth, final int ply) {
+		// Once the budget has been used up, the search unwinds without exploring any further
+		if (aborted) {
+			return 0;
+		}
+		if (++nodes == maxNodes || ((nodes & (TIME_CHECK_INTERVAL - 1)) == 0 && isOutOfTime())) {
+			aborted = true;
+			return 0;
+		}
+		
+		final Position p = position;
+		final int size = p.getSize();
+		final int moves = p.getMoves();
+		
+		long next = p.possibleNonLosingMoves();
+		// Every move lets the opponent win
+		if (next == 0) {
+			return -(size - moves) / 2;
+		}
+		// Neither player can win with their remaining discs
+		if (moves >= size - 2) {
+			return 0;
+		}
+		
+		// The opponent can't win with their next move, so we can't lose faster than this
+		int min = -(size - 2 - moves) / 2;
+		if (alpha < min) {
+			alpha = min;
+			if (alpha >= beta) {
+				return alpha;
+			}
+		}
+		// We can't win with our next move, so we can't win faster than this
+		int max = (size - 1 - moves) / 2;
+		if (beta > max) {
+			beta = max;
+			if (alpha >= beta) {
+				return beta;
+			}
+		}
+		
+		// The book has the exact scores of early positions
+		if (moves <= bookMaxMoves && ply > 0) {
+			int score = book.getScore(p);
+			if (score != OpeningBook.NOT_FOUND) {
+				return score;
+			}
+		}
+		
+		final long key = p.getKey();
+		final long horizonNodesBefore = horizonNodes;
+		int tableMove = 0;
+		
+		int entry = table.probe(key);
+		if (entry != TranspositionTable.NO_ENTRY) {
+			tableMove = TranspositionTable.getBestMove(entry);
+			int entryDepth = TranspositionTable.getDepth(entry);
+			
+			// At the root, the entry is only used for move ordering, since we need to know the best move
+			if (entryDepth >= depth && ply > 0) {
+				// A result which depends on a depth limit can't make this search exact
+				if (entryDepth != TranspositionTable.MAX_DEPTH) {
+					horizonNodes++;
+				}
+				
+				int bound = TranspositionTable.getBound(entry);
+				int value = TranspositionTable.getScore(entry);
+				if (bound == TranspositionTable.EXACT
+						|| (bound == TranspositionTable.LOWER_BOUND && value >= beta)
+						|| (bound == TranspositionTable.UPPER_BOUND && value <= alpha)) {
+					return value;
+				}
+				if (bound == TranspositionTable.LOWER_BOUND) {
+					alpha = Math.max(alpha, value);
+				} else {
+					beta = Math.min(beta, value);
+				}
+			}
+		}
+		
+		// Positions beyond the depth limit are scored as ties
+		if (depth == 0) {
+			horizonNodes++;
+			return 0;
+		}
+		
+		// Sort the moves by score with insertion sort. Among equal scores, moves added later are tried first.
+		// The best move of a previous search is always tried first.
+		final long[] moveList = sortedMoves[ply];
+		final int[] scoreList = sortedScores[ply];
+		// A single move doesn't have to be scored
+		final boolean single = (next & (next - 1)) == 0;
+		int count = 0;
+		for (int i = columnOrder.length - 1; i >= 0; i--) {
+			long move = next & p.columnMask(columnOrder[i]);
+			if (move != 0) {
+				int score = single || columnOrder[i] + 1 == tableMove ? Integer.MAX_VALUE : p.moveScore(move);
+				int pos = count++;
+				for (; pos > 0 && scoreList[pos - 1] > score; pos--) {
+					moveList[pos] = moveList[pos - 1];
+					scoreList[pos] = scoreList[pos - 1];
+				}
+				moveList[pos] = move;
+				scoreList[pos] = score;
+			}
+		}
+		
+		final int alphaBefore = alpha;
+		int bestMove = tableMove;
+		
+		for (int i = count - 1; i >= 0; i--) {
+			long move = moveList[i];
+			p.playMove(move);
+			int score = -negamax(-beta, -alpha, depth - 1, ply + 1);
+			p.undoMove(move);
+			
+			if (aborted) {
+				return 0;
+			}
+			if (score >= beta) {
+				if (ply == 0) {
+					rootBestMove = move;
+				}
+				table.store(key, TranspositionTable.LOWER_BOUND, score, p.columnOf(move), tableDepth(depth, horizonNodesBefore));
+				return score;
+			}
+			if (score > alpha) {
+				alpha = score;
+				bestMove = p.columnOf(move);
+			}
+		}
+		
+		table.store(key, alpha > alphaBefore ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND, alpha, bestMove, tableDepth(depth, horizonNodesBefore));
+		return alpha;
+	}
+	
+	/**
+	 * Check if the time budget has been used up, or the search has been stopped from outside.
+	 * 
+	 * @return true if the search has to be aborted
+	 */
+	private boolean isOutOfTime() {
+		return (deadline != 0 && System.nanoTime() > deadline) || (stop != null && stop.get());
+	}
+	
+	/**
+	 * Get the depth to store with a search result in the transposition table.
+	 * 
+	 * @param depth The depth limit of the search
+	 * @param horizonNodesBefore The number of positions cut off by the depth limit before the search
+	 * @return The depth limit, or {@link TranspositionTable#MAX_DEPTH} if the result doesn't depend on it
+	 */
+	private int tableDepth(final int depth, final long horizonNodesBefore) {
+		return horizonNodes == horizonNodesBefore ? TranspositionTable.MAX_DEPTH : depth;
+	}
+
+}
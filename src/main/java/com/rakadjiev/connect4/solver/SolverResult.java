@@ -0,0 +1,98 @@
+package com.rakadjiev.connect4.solver;
+
+/**
+ * The result of solving a Connect4 position.
+ * 
+ * The score is given from the point of view of the player whose turn it is:
+ * <ul>
+ * <li>0 if the game ends with a tie (with perfect play of both players)</li>
+ * <li>a positive score if the player can win. The faster the win, the higher the score:
+ * winning with the player's last possible disc scores 1, winning with the disc before that scores 2, etc.</li>
+ * <li>a negative score if the player loses, symmetrically to winning</li>
+ * </ul>
+ * 
+ * @author rakadjiev
+ */
+public class SolverResult {
+	
+	/** The score of the position */
+	private final int score;
+	/** The best move (1-based column index) */
+	private final int bestMove;
+	/** If the score is the exact game-theoretic score */
+	private final boolean exact;
+	/** The depth (number of moves) of the last completed search */
+	private final int depth;
+	/** The number of positions explored */
+	private final long nodes;
+	
+	/**
+	 * Create a new result.
+	 * 
+	 * @param score The score of the position
+	 * @param bestMove The best move (1-based column index)
+	 * @param exact If the score is the exact game-theoretic score
+	 * @param depth The depth (number of moves) of the last completed search
+	 * @param nodes The number of positions explored
+	 */
+	public SolverResult(final int score, final int bestMove, final boolean exact, final int depth, final long nodes) {
+		this.score = score;
+		this.bestMove = bestMove;
+		this.exact = exact;
+		this.depth = depth;
+		this.nodes = nodes;
+	}
+	
+	/**
+	 * Get the score of the position. If the search ran out of budget, this is the score of the deepest
+	 * completed search, which treats positions beyond its depth as ties.
+	 * 
+	 * @return The score of the position
+	 */
+	public int getScore() {
+		return score;
+	}
+	
+	/**
+	 * Get the best move, i.e. the column into which the player should insert their disc.
+	 * 
+	 * @return The best move (1-based column index)
+	 */
+	public int getBestMove() {
+		return bestMove;
+	}
+	
+	/**
+	 * Check if the score is the exact game-theoretic score, i.e. the search hasn't been cut short by
+	 * the search budget.
+	 * 
+	 * @return true if the score is exact
+	 */
+	public boolean isExact() {
+		return exact;
+	}
+	
+	/**
+	 * Get the depth of the last completed search.
+	 * 
+	 * @return The depth (number of moves) of the last completed search
+	 */
+	public int getDepth() {
+		return depth;
+	}
+	
+	/**
+	 * Get the number of positions explored while solving.
+	 * 
+	 * @return The number of positions explored
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+	
+	@Override
+	public String toString() {
+		return "score=" + score + ", bestMove=" + bestMove + ", exact=" + exact + ", depth=" + depth + ", nodes=" + nodes;
+	}
+
+}
@@ -0,0 +1,293 @@
+package com.rakadjiev.connect4.solver;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size table of search results, keyed by position key, which lets the search skip positions
+ * it has already explored through a different order of moves.
+ * 
+ * Each entry stores the full key (so lookups never return results of a different position), and a
+ * packed <code>int</code> with the score, whether the score is exact or a bound, the best move, and
+ * the depth of the search which produced it. Entries are kept in primitive arrays, so the table
+ * doesn't allocate anything after construction. When two positions map to the same slot, the
+ * {@link ReplacementPolicy} decides which one is kept.
+ * 
+ * The table can be shared by concurrent searches without locking: the key is stored XORed with
+ * the packed data, so if a lookup reads the key and the data of two different writes, the key
+ * doesn't match, and the entry is treated as missing. Only the statistics are approximate, if
+ * the table is shared, since concurrent updates of the counters may get lost.
+ * 
+ * @author rakadjiev
+ */
+public class TranspositionTable {
+	
+	/**
+	 * Decides whether a new entry replaces an existing entry of a different position in the same slot.
+	 */
+	public enum ReplacementPolicy {
+		/** The new entry always replaces the existing one */
+		ALWAYS_REPLACE,
+		/** The new entry only replaces the existing one if it comes from a search at least as deep */
+		DEPTH_PREFERRED
+	}
+	
+	/** The number of bytes used per entry (8 for the key, and 4 for the packed data) */
+	public static final int BYTES_PER_ENTRY = Long.BYTES + Integer.BYTES;
+	
+	/** The score is a lower bound of the position's score */
+	public static final int LOWER_BOUND = 1;
+	/** The score is an upper bound of the position's score */
+	public static final int UPPER_BOUND = 2;
+	/** The score is the position's score */
+	public static final int EXACT = 3;
+	
+	/** The maximum depth which can be stored, used for results which don't depend on the depth limit */
+	public static final int MAX_DEPTH = 0xFF;
+	
+	/** The value of a slot, which doesn't contain an entry (the bound of a valid entry is never 0) */
+	public static final int NO_ENTRY = 0;
+	
+	/** The mask of the slot index bits (the number of entries is a power of 2) */
+	private final int indexMask;
+	/** The keys of the entries, XORed with the packed data */
+	private final long[] keys;
+	/** The packed data of the entries */
+	private final int[] data;
+	/** The replacement policy */
+	private final ReplacementPolicy policy;
+	
+	/** The number of lookups */
+	private long probes;
+	/** The number of successful lookups */
+	private long hits;
+	/** The number of stored entries */
+	private long stores;
+	/** The number of entries which replaced an entry of a different position */
+	private long overwrites;
+	/** The number of entries which haven't been stored, due to the replacement policy */
+	private long rejections;
+	
+	/**
+	 * Create a table, which uses at most the specified amount of memory.
+	 * The number of entries is the largest power of 2 which fits into the memory.
+	 * 
+	 * @param maxBytes The maximum memory to use in bytes
+	 * @param policy The replacement policy
+	 * @throws IllegalArgumentException If the memory doesn't fit a single entry
+	 * @throws NullPointerException If policy is null
+	 */
+	public TranspositionTable(final long maxBytes, final ReplacementPolicy policy) throws IllegalArgumentException, NullPointerException {
+		if (maxBytes < BYTES_PER_ENTRY) {
+			throw new IllegalArgumentException("Invalid memory size: " + maxBytes + ". Memory must fit at least one entry (" + BYTES_PER_ENTRY + " bytes).");
+		}
+		if (policy == null) {
+			throw new NullPointerException("Replacement policy must not be null.");
+		}
+		
+		// Arrays are limited to Integer.MAX_VALUE elements
+		int capacity = (int) Math.min(Long.highestOneBit(maxBytes / BYTES_PER_ENTRY), 1L << 30);
+		
+		this.indexMask = capacity - 1;
+		this.keys = new long[capacity];
+		this.data = new int[capacity];
+		this.policy = policy;
+	}
+	
+	/**
+	 * Look up the entry of a position.
+	 * 
+	 * @param key The key of the position
+	 * @return The packed entry, or {@link #NO_ENTRY} if the position isn't in the table
+	 */
+	public int probe(final long key) {
+		probes++;
+		int index = index(key);
+		int entry = data[index];
+		if (entry != NO_ENTRY && (keys[index] ^ entry) == key) {
+			hits++;
+			return entry;
+		}
+		return NO_ENTRY;
+	}
+	
+	/**
+	 * Store the result of a search.
+	 * 
+	 * @param key The key of the position
+	 * @param bound The type of the score ({@link #LOWER_BOUND}, {@link #UPPER_BOUND} or {@link #EXACT})
+	 * @param score The score (between -128 and 127)
+	 * @param bestMove The best move (1-based column index up to 255), or 0 if unknown
+	 * @param depth The depth of the search (up to {@value #MAX_DEPTH})
+	 */
+	public void store(final long key, final int bound, final int score, final int bestMove, final int depth) {
+		int index = index(key);
+		int existing = data[index];
+		
+		if (existing != NO_ENTRY && (keys[index] ^ existing) != key) {
+			if (policy == ReplacementPolicy.DEPTH_PREFERRED && getDepth(existing) > depth) {
+				rejections++;
+				return;
+			}
+			overwrites++;
+		}
+		
+		int entry = (score + 128) | (bound << 8) | (bestMove << 10) | (depth << 18);
+		keys[index] = key ^ entry;
+		data[index] = entry;
+		stores++;
+	}
+	
+	/**
+	 * Get the score type of a packed entry.
+	 * 
+	 * @param entry The packed entry
+	 * @return {@link #LOWER_BOUND}, {@link #UPPER_BOUND} or {@link #EXACT}
+	 */
+	public static int getBound(final int entry) {
+		return (entry >>> 8) & 0x3;
+	}
+	
+	/**
+	 * Get the score of a packed entry.
+	 * 
+	 * @param entry The packed entry
+	 * @return The score
+	 */
+	public static int getScore(final int entry) {
+		return (entry & 0xFF) - 128;
+	}
+	
+	/**
+	 * Get the best move of a packed entry.
+	 * 
+	 * @param entry The packed entry
+	 * @return The best move (1-based column index), or 0 if unknown
+	 */
+	public static int getBestMove(final int entry) {
+		return (entry >>> 10) & 0xFF;
+	}
+	
+	/**
+	 * Get the search depth of a packed entry.
+	 * 
+	 * @param entry The packed entry
+	 * @return The depth of the search which produced the entry
+	 */
+	public static int getDepth(final int entry) {
+		return (entry >>> 18) & 0xFF;
+	}
+	
+	/**
+	 * Remove all entries and reset the statistics.
+	 */
+	public void clear() {
+		Arrays.fill(data, NO_ENTRY);
+		probes = 0;
+		hits = 0;
+		stores = 0;
+		overwrites = 0;
+		rejections = 0;
+	}
+	
+	/**
+	 * Get the replacement policy.
+	 * 
+	 * @return The replacement policy
+	 */
+	public ReplacementPolicy getPolicy() {
+		return policy;
+	}
+	
+	/**
+	 * Get the number of entries the table can hold.
+	 * 
+	 * @return The number of entries
+	 */
+	public int getCapacity() {
+		return keys.length;
+	}
+	
+	/**
+	 * Get the number of bytes used per entry.
+	 * 
+	 * @return The number of bytes per entry
+	 */
+	public int getBytesPerEntry() {
+		return BYTES_PER_ENTRY;
+	}
+	
+	/**
+	 * Get the memory used by the entries.
+	 * 
+	 * @return The memory in bytes
+	 */
+	public long getMemoryBytes() {
+		return (long) getCapacity() * BYTES_PER_ENTRY;
+	}
+	
+	/**
+	 * Get the number of lookups since the table has been created or cleared.
+	 * 
+	 * @return The number of lookups
+	 */
+	public long getProbes() {
+		return probes;
+	}
+	
+	/**
+	 * Get the number of successful lookups since the table has been created or cleared.
+	 * 
+	 * @return The number of successful lookups
+	 */
+	public long getHits() {
+		return hits;
+	}
+	
+	/**
+	 * Get the share of successful lookups since the table has been created or cleared.
+	 * 
+	 * @return The hit rate between 0 and 1
+	 */
+	public double getHitRate() {
+		return probes == 0 ? 0 : (double) hits / probes;
+	}
+	
+	/**
+	 * Get the number of stored entries since the table has been created or cleared.
+	 * 
+	 * @return The number of stored entries
+	 */
+	public long getStores() {
+		return stores;
+	}
+	
+	/**
+	 * Get the number of stored entries, which replaced an entry of a different position.
+	 * 
+	 * @return The number of replacing entries
+	 */
+	public long getOverwrites() {
+		return overwrites;
+	}
+	
+	/**
+	 * Get the number of entries, which haven't been stored due to the replacement policy.
+	 * 
+	 * @return The number of rejected entries
+	 */
+	public long getRejections() {
+		return rejections;
+	}
+	
+	/**
+	 * Get the slot index of a key. Position keys have very regular bits, so they are scrambled by
+	 * multiplying them with a large odd constant, and the upper half of the product is used.
+	 * 
+	 * @param key The key
+	 * @return The slot index
+	 */
+	private int index(final long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & indexMask;
+	}
+
+}
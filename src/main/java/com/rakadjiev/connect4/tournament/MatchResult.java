@@ -0,0 +1,78 @@
+package com.rakadjiev.connect4.tournament;
+
+import com.rakadjiev.connect4.simulation.SimulationResult;
+
+/**
+ * The result of a match of a tournament, i.e. a series of games between two entrants, in which
+ * the entrants take turns in making the first move.
+ * 
+ * @author rakadjiev
+ */
+public class MatchResult {
+	
+	/** The round of the match (0-based index) */
+	private final int round;
+	/** The first entrant */
+	private final int one;
+	/** The second entrant */
+	private final int two;
+	/** The statistics of the games, from the point of view of the first entrant */
+	private final SimulationResult result;
+	
+	/**
+	 * Create a new result.
+	 * 
+	 * @param round The round of the match (0-based index)
+	 * @param one The first entrant
+	 * @param two The second entrant
+	 * @param result The statistics of the games, from the point of view of the first entrant
+	 */
+	public MatchResult(final int round, final int one, final int two, final SimulationResult result) {
+		this.round = round;
+		this.one = one;
+		this.two = two;
+		this.result = result;
+	}
+	
+	/**
+	 * Get the round of the match.
+	 * 
+	 * @return The round (0-based index)
+	 */
+	public int getRound() {
+		return round;
+	}
+	
+	/**
+	 * Get the first entrant, which made the first move in the first game.
+	 * 
+	 * @return The index of the first entrant
+	 */
+	public int getEntrantOne() {
+		return one;
+	}
+	
+	/**
+	 * Get the second entrant.
+	 * 
+	 * @return The index of the second entrant
+	 */
+	public int getEntrantTwo() {
+		return two;
+	}
+	
+	/**
+	 * Get the statistics of the games.
+	 * 
+	 * @return The statistics, from the point of view of the first entrant
+	 */
+	public SimulationResult getResult() {
+		return result;
+	}
+	
+	@Override
+	public String toString() {
+		return "round=" + round + ", " + one + " vs. " + two + ": " + result;
+	}
+
+}
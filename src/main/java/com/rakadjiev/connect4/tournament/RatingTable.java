@@ -0,0 +1,236 @@
+package com.rakadjiev.connect4.tournament;
+
+import java.util.Arrays;
+
+import com.rakadjiev.connect4.simulation.SimulationResult;
+
+/**
+ * The ratings of the entrants of a tournament, which are updated as the results of matches come in.
+ * 
+ * Two ratings are kept, both on the Elo scale, where a difference of 400 points means that the
+ * stronger entrant scores 10 times as much as the weaker one:
+ * <ul>
+ * <li>The Elo rating is updated by each game, and depends on the order of the matches, like the
+ * ratings of human players. Only the total score of a match is known, so its games are rated one
+ * after the other, as if each had scored the average of the match. The ratings thus approach the
+ * difference, at which the average is expected, but never overshoot it, however long the match is.
+ * Recording a match takes time linear in its number of games.</li>
+ * <li>The Bradley-Terry rating is the maximum-likelihood estimate of all results so far, so it
+ * doesn't depend on the order of the matches. It is fitted with minorization-maximization iterations
+ * when it is read, starting from the previous estimates, so that only new results need a few more
+ * iterations. Each entrant is given one virtual tie against an entrant rated {@value #INITIAL_RATING},
+ * so that entrants, which have won or lost all their games, still get finite ratings.</li>
+ * </ul>
+ * The confidence interval of a Bradley-Terry rating is approximated from the diagonal of the
+ * Fisher information, i.e. as if the ratings of the opponents were exact.
+ * 
+ * Ties count as half a win. A table is not thread-safe.
+ * 
+ * @author rakadjiev
+ */
+public class RatingTable {
+	
+	/** The rating of entrants without games */
+	public static final double INITIAL_RATING = 1500;
+	/** The maximum change of an Elo rating per game */
+	public static final double K_FACTOR = 16;
+	/** The z-score of the 95% confidence interval */
+	private static final double Z_95 = 1.96;
+	/** The number of Elo points per natural logarithm of the strength */
+	private static final double ELO_PER_LOG = 400 / Math.log(10);
+	/** The maximum relative change of a strength, below which the fit has converged */
+	private static final double TOLERANCE = 1e-9;
+	/** The maximum number of iterations of a fit */
+	private static final int MAX_ITERATIONS = 10000;
+	
+	/** The Elo ratings */
+	private final double[] elo;
+	/** The number of games between each pair of entrants */
+	private final long[][] games;
+	/** The points of each entrant, i.e. wins and half the ties */
+	private final double[] points;
+	/** The number of games of each entrant */
+	private final long[] gamesPlayed;
+	/** The Bradley-Terry strengths, i.e. 10^(rating / 400) relative to the virtual opponent */
+	private final double[] strength;
+	/** If results have been recorded since the strengths have been fitted */
+	private boolean dirty;
+	
+	/**
+	 * Create a table, in which all entrants have the initial rating.
+	 * 
+	 * @param entrants The number of entrants
+	 * @throws IllegalArgumentException If entrants is negative
+	 */
+	public RatingTable(final int entrants) throws IllegalArgumentException {
+		if (entrants < 0) {
+			throw new IllegalArgumentException("Invalid number of entrants: " + entrants + ". The number of entrants must not be negative.");
+		}
+		this.elo = new double[entrants];
+		this.games = new long[entrants][entrants];
+		this.points = new double[entrants];
+		this.gamesPlayed = new long[entrants];
+		this.strength = new double[entrants];
+		Arrays.fill(elo, INITIAL_RATING);
+		Arrays.fill(strength, 1);
+	}
+	
+	/**
+	 * Record the result of a match.
+	 * 
+	 * @param one The first entrant
+	 * @param two The second entrant
+	 * @param result The result, from the point of view of the first entrant
+	 * @throws IllegalArgumentException If the entrants are the same
+	 * @throws IndexOutOfBoundsException If an entrant doesn't exist
+	 */
+	public void record(final int one, final int two, final SimulationResult result) throws IllegalArgumentException, IndexOutOfBoundsException {
+		if (one == two) {
+			throw new IllegalArgumentException("Invalid match: entrant " + one + " can't play against itself.");
+		}
+		long n = result.getGames();
+		if (n == 0) {
+			return;
+		}
+		double score = result.getWins() + result.getTies() / 2.0;
+		
+		double average = score / n;
+		for (long game = 0; game < n; game++) {
+			double expected = 1 / (1 + Math.pow(10, (elo[two] - elo[one]) / 400));
+			double change = K_FACTOR * (average - expected);
+			elo[one] += change;
+			elo[two] -= change;
+		}
+		
+		games[one][two] += n;
+		games[two][one] += n;
+		points[one] += score;
+		points[two] += n - score;
+		gamesPlayed[one] += n;
+		gamesPlayed[two] += n;
+		dirty = true;
+	}
+	
+	/**
+	 * Get the number of entrants.
+	 * 
+	 * @return The number of entrants
+	 */
+	public int getEntrants() {
+		return elo.length;
+	}
+	
+	/**
+	 * Get the Elo rating of an entrant.
+	 * 
+	 * @param entrant The entrant
+	 * @return The Elo rating
+	 */
+	public double getElo(final int entrant) {
+		return elo[entrant];
+	}
+	
+	/**
+	 * Get the Bradley-Terry rating of an entrant.
+	 * 
+	 * @param entrant The entrant
+	 * @return The rating
+	 */
+	public double getRating(final int entrant) {
+		fit();
+		return INITIAL_RATING + ELO_PER_LOG * Math.log(strength[entrant]);
+	}
+	
+	/**
+	 * Get the half-width of the 95% confidence interval of the Bradley-Terry rating of an entrant.
+	 * 
+	 * @param entrant The entrant
+	 * @return The rating, which the true rating is within with 95% probability, is the rating plus or minus the half-width
+	 */
+	public double getConfidence(final int entrant) {
+		fit();
+		// The virtual tie against an opponent of strength 1
+		double information = information(strength[entrant], 1, 1);
+		for (int j = 0; j < strength.length; j++) {
+			if (games[entrant][j] > 0) {
+				information += information(strength[entrant], strength[j], games[entrant][j]);
+			}
+		}
+		return Z_95 * ELO_PER_LOG / Math.sqrt(information);
+	}
+	
+	/**
+	 * Get the points of an entrant, i.e. its wins and half its ties.
+	 * 
+	 * @param entrant The entrant
+	 * @return The points
+	 */
+	public double getPoints(final int entrant) {
+		return points[entrant];
+	}
+	
+	/**
+	 * Get the number of games of an entrant.
+	 * 
+	 * @param entrant The entrant
+	 * @return The number of games
+	 */
+	public long getGames(final int entrant) {
+		return gamesPlayed[entrant];
+	}
+	
+	/**
+	 * Get the number of games between two entrants.
+	 * 
+	 * @param one The first entrant
+	 * @param two The second entrant
+	 * @return The number of games
+	 */
+	public long getGames(final int one, final int two) {
+		return games[one][two];
+	}
+	
+	/**
+	 * Fit the Bradley-Terry strengths to the results, if results have been recorded since the last fit.
+	 */
+	private void fit() {
+		if (!dirty) {
+			return;
+		}
+		dirty = false;
+		int n = strength.length;
+		for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+			double maxChange = 0;
+			for (int i = 0; i < n; i++) {
+				// The virtual tie against an opponent of strength 1
+				double wins = points[i] + 0.5;
+				double sum = 1 / (strength[i] + 1);
+				for (int j = 0; j < n; j++) {
+					if (games[i][j] > 0) {
+						sum += games[i][j] / (strength[i] + strength[j]);
+					}
+				}
+				double updated = wins / sum;
+				maxChange = Math.max(maxChange, Math.abs(updated - strength[i]) / strength[i]);
+				strength[i] = updated;
+			}
+			if (maxChange < TOLERANCE) {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Get the Fisher information, which games against an opponent provide about the log-strength of an entrant.
+	 * 
+	 * @param entrantStrength The strength of the entrant
+	 * @param opponentStrength The strength of the opponent
+	 * @param n The number of games
+	 * @return The information
+	 */
+	private static double information(final double entrantStrength, final double opponentStrength, final long n) {
+		double p = entrantStrength / (entrantStrength + opponentStrength);
+		return n * p * (1 - p);
+	}
+
+}
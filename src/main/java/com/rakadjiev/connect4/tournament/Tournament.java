@@ -0,0 +1,503 @@
+package com.rakadjiev.connect4.tournament;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.rakadjiev.connect4.IStrategy;
+import com.rakadjiev.connect4.impl.Board;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.impl.Player;
+import com.rakadjiev.connect4.simulation.Simulator;
+
+/**
+ * Plays tournaments between strategies, and rates them.
+ * 
+ * Each pairing of two entrants plays a match of an even number of games, in which the entrants
+ * take turns in making the first move, so that neither has the advantage of the first move. The
+ * pairings are scheduled either
+ * <ul>
+ * <li>round-robin, i.e. every entrant plays every other entrant once, or</li>
+ * <li>Swiss, i.e. for a fixed number of rounds, entrants with similar points play each other, and
+ * rematches are avoided where possible. With an odd number of entrants, the lowest ranked entrant,
+ * which has sat out the fewest rounds, sits out each round.</li>
+ * </ul>
+ * 
+ * The matches are played by a pool of worker threads. Every worker thread creates its own
+ * instances of the strategies, and reuses them for all its matches. Each match draws its random
+ * decisions from a generator seeded by the tournament's seed and the match's place in the schedule,
+ * so the results don't depend on the number of threads. As the results come in, they are recorded
+ * in a {@link RatingTable} on the calling thread in the order of the schedule, so that the Elo
+ * ratings don't depend on the number of threads either, and passed to an optional listener.
+ * 
+ * A tournament is not thread-safe.
+ * 
+ * @author rakadjiev
+ */
+public class Tournament {
+	
+	/** The number of games per match, if none is specified */
+	public static final int DEFAULT_GAMES_PER_MATCH = 100;
+	
+	/** The number of columns of the board */
+	private final int cols;
+	/** The number of rows of the board */
+	private final int rows;
+	/** The number of connected discs required to win */
+	private final int discsToWin;
+	/** The number of games per match */
+	private final int gamesPerMatch;
+	/** The seed, from which the seeds of the matches are derived */
+	private final long seed;
+	/** The number of worker threads */
+	private final int parallelism;
+	
+	/** The names of the entrants */
+	private final List<String> names = new ArrayList<>();
+	/** Create the strategies of the entrants for each worker thread */
+	private final List<Supplier<IStrategy>> strategies = new ArrayList<>();
+	/** The ratings of the latest tournament */
+	private RatingTable ratings = new RatingTable(0);
+	
+	/**
+	 * Create a tournament for the standard game with {@value #DEFAULT_GAMES_PER_MATCH} games per match.
+	 * 
+	 * @param seed The seed of the random number generators
+	 * @param parallelism The number of worker threads
+	 * @throws IllegalArgumentException If parallelism is less than 1
+	 */
+	public Tournament(final long seed, final int parallelism) throws IllegalArgumentException {
+		this(Board.COLS, Board.ROWS, Connect4.DISCS_TO_WIN, DEFAULT_GAMES_PER_MATCH, seed, parallelism);
+	}
+	
+	/**
+	 * Create a tournament for a game with the specified rules.
+	 * 
+	 * @param cols The number of columns of the board
+	 * @param rows The number of rows of the board
+	 * @param discsToWin The number of connected discs required to win
+	 * @param gamesPerMatch The number of games per match (even, so that both entrants start equally often)
+	 * @param seed The seed of the random number generators
+	 * @param parallelism The number of worker threads
+	 * @throws IllegalArgumentException If the rules are invalid, gamesPerMatch isn't even and positive, or parallelism is less than 1
+	 */
+	public Tournament(final int cols, final int rows, final int discsToWin, final int gamesPerMatch, final long seed, final int parallelism) throws IllegalArgumentException {
+		if (gamesPerMatch < 2 || gamesPerMatch % 2 != 0) {
+			throw new IllegalArgumentException("Invalid number of games per match: " + gamesPerMatch + ". The number of games must be even and positive.");
+		}
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Invalid parallelism: " + parallelism + ". At least one thread is required.");
+		}
+		// Fail in the calling thread if the rules are invalid
+		new Connect4(cols, rows, discsToWin, new Player("One", 'X'), new Player("Two", 'O'));
+		this.cols = cols;
+		this.rows = rows;
+		this.discsToWin = discsToWin;
+		this.gamesPerMatch = gamesPerMatch;
+		this.seed = seed;
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * Add an entrant to the tournaments played afterwards.
+	 * 
+	 * @param name The name of the entrant
+	 * @param strategy Creates a new instance of the entrant's strategy
+	 * @return The index of the entrant
+	 * @throws NullPointerException If name or strategy is null
+	 */
+	public int addEntrant(final String name, final Supplier<IStrategy> strategy) throws NullPointerException {
+		if (name == null || strategy == null) {
+			throw new NullPointerException("Name and strategy must not be null.");
+		}
+		names.add(name);
+		strategies.add(strategy);
+		return names.size() - 1;
+	}
+	
+	/**
+	 * Get the number of entrants.
+	 * 
+	 * @return The number of entrants
+	 */
+	public int getEntrants() {
+		return names.size();
+	}
+	
+	/**
+	 * Get the name of an entrant.
+	 * 
+	 * @param entrant The index of the entrant
+	 * @return The name
+	 */
+	public String getName(final int entrant) {
+		return names.get(entrant);
+	}
+	
+	/**
+	 * Get the ratings of the latest tournament, which are updated while it is played.
+	 * 
+	 * @return The ratings
+	 */
+	public RatingTable getRatings() {
+		return ratings;
+	}
+	
+	/**
+	 * Play a round-robin tournament, in which every entrant plays every other entrant once. All
+	 * matches are scheduled at once, so the workers are never idle between rounds.
+	 * 
+	 * @param listener Receives each result on the calling thread, once it has been rated (may be null)
+	 * @return The results of the matches, in the order of the schedule
+	 * @throws IllegalStateException If there are less than 2 entrants, or a strategy chooses an invalid move
+	 * @throws InterruptedException If the calling thread is interrupted while waiting for the matches
+	 */
+	public List<MatchResult> playRoundRobin(final Consumer<MatchResult> listener) throws IllegalStateException, InterruptedException {
+		start();
+		int n = names.size();
+		// The circle method: the first entrant stays, the others rotate, and an odd entrant out sits out
+		int slots = n + n % 2;
+		int[] circle = new int[slots];
+		for (int i = 0; i < slots; i++) {
+			circle[i] = i < n ? i : -1;
+		}
+		List<int[]> matches = new ArrayList<>();
+		for (int round = 0; round < slots - 1; round++) {
+			for (int i = 0; i < slots / 2; i++) {
+				int one = circle[i];
+				int two = circle[slots - 1 - i];
+				if (one >= 0 && two >= 0) {
+					matches.add(new int[] { round, one, two });
+				}
+			}
+			int last = circle[slots - 1];
+			System.arraycopy(circle, 1, circle, 2, slots - 2);
+			circle[1] = last;
+		}
+		
+		ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+		try {
+			return playMatches(pool, newInstances(), matches, listener);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Play a Swiss tournament. The pairings of each round depend on the points of the previous
+	 * rounds, so a round starts once all matches of the previous round have been played.
+	 * 
+	 * @param rounds The number of rounds
+	 * @param listener Receives each result on the calling thread, once it has been rated (may be null)
+	 * @return The results of the matches, in the order of the schedule
+	 * @throws IllegalArgumentException If rounds is negative
+	 * @throws IllegalStateException If there are less than 2 entrants, or a strategy chooses an invalid move
+	 * @throws InterruptedException If the calling thread is interrupted while waiting for the matches
+	 */
+	public List<MatchResult> playSwiss(final int rounds, final Consumer<MatchResult> listener) throws IllegalArgumentException, IllegalStateException, InterruptedException {
+		if (rounds < 0) {
+			throw new IllegalArgumentException("Invalid number of rounds: " + rounds + ". The number of rounds must not be negative.");
+		}
+		start();
+		int[] byes = new int[names.size()];
+		List<MatchResult> results = new ArrayList<>();
+		ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+		try {
+			ThreadLocal<IStrategy[]> instances = newInstances();
+			for (int round = 0; round < rounds; round++) {
+				results.addAll(playMatches(pool, instances, swissPairings(round, byes), listener));
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return results;
+	}
+	
+	/**
+	 * Get the standings of the latest tournament, ordered by rating.
+	 * 
+	 * @return A line per entrant with its rank, name, Bradley-Terry rating with confidence interval, Elo rating, points and games
+	 */
+	public String getStandings() {
+		Integer[] order = rank();
+		StringBuilder standings = new StringBuilder();
+		for (int rank = 0; rank < order.length; rank++) {
+			int entrant = order[rank];
+			standings.append(String.format("%d. %s: rating=%.0f +/- %.0f, elo=%.0f, points=%.1f/%d%n", rank + 1, names.get(entrant),
+					ratings.getRating(entrant), ratings.getConfidence(entrant), ratings.getElo(entrant), ratings.getPoints(entrant), ratings.getGames(entrant)));
+		}
+		return standings.toString();
+	}
+	
+	@Override
+	public String toString() {
+		return getStandings();
+	}
+	
+	/**
+	 * Check the entrants, and reset the ratings for a new tournament.
+	 * 
+	 * @throws IllegalStateException If there are less than 2 entrants
+	 */
+	private void start() throws IllegalStateException {
+		if (names.size() < 2) {
+			throw new IllegalStateException("A tournament needs at least 2 entrants, but has " + names.size() + ".");
+		}
+		ratings = new RatingTable(names.size());
+	}
+	
+	/**
+	 * Create the thread-confined strategy instances of a tournament.
+	 * 
+	 * @return The instances of each worker thread, by entrant, which are created when first needed
+	 */
+	private ThreadLocal<IStrategy[]> newInstances() {
+		int n = names.size();
+		return ThreadLocal.withInitial(() -> new IStrategy[n]);
+	}
+	
+	/**
+	 * Pair the entrants for a round of a Swiss tournament. Entrants are ranked by points, and each
+	 * entrant is paired with the highest ranked entrant below it, which it hasn't played yet, and
+	 * which leaves a pairing without rematches for the entrants below. If there is no such pairing,
+	 * each entrant is paired with the highest ranked entrant below it, which it has played the least.
+	 * 
+	 * @param round The round
+	 * @param byes The number of rounds, which each entrant has sat out, which is updated
+	 * @return The matches, as round, first and second entrant
+	 */
+	private List<int[]> swissPairings(final int round, final int[] byes) {
+		Integer[] order = rank();
+		boolean[] paired = new boolean[order.length];
+		if (order.length % 2 != 0) {
+			int minByes = Arrays.stream(byes).min().getAsInt();
+			for (int i = order.length - 1; i >= 0; i--) {
+				if (byes[order[i]] == minByes) {
+					paired[i] = true;
+					byes[order[i]]++;
+					break;
+				}
+			}
+		}
+		
+		List<int[]> matches = new ArrayList<>();
+		if (pairWithoutRematches(round, order, paired.clone(), 0, matches)) {
+			return matches;
+		}
+		for (int i = 0; i < order.length; i++) {
+			if (paired[i]) {
+				continue;
+			}
+			int opponent = -1;
+			for (int j = i + 1; j < order.length; j++) {
+				if (!paired[j] && (opponent < 0 || ratings.getGames(order[i], order[j]) < ratings.getGames(order[i], order[opponent]))) {
+					opponent = j;
+				}
+			}
+			paired[i] = true;
+			paired[opponent] = true;
+			matches.add(new int[] { round, order[i], order[opponent] });
+		}
+		return matches;
+	}
+	
+	/**
+	 * Pair the unpaired entrants without rematches, by backtracking over the opponents of each entrant in rank order.
+	 * 
+	 * @param round The round
+	 * @param order The entrants, the highest ranked first
+	 * @param paired If each entrant of the order has been paired already, which is updated
+	 * @param from The first entrant of the order, which may be unpaired
+	 * @param matches The matches, to which the pairings are added
+	 * @return true if all entrants have been paired
+	 */
+	private boolean pairWithoutRematches(final int round, final Integer[] order, final boolean[] paired, final int from, final List<int[]> matches) {
+		int i = from;
+		while (i < order.length && paired[i]) {
+			i++;
+		}
+		if (i == order.length) {
+			return true;
+		}
+		paired[i] = true;
+		for (int j = i + 1; j < order.length; j++) {
+			if (!paired[j] && ratings.getGames(order[i], order[j]) == 0) {
+				paired[j] = true;
+				matches.add(new int[] { round, order[i], order[j] });
+				if (pairWithoutRematches(round, order, paired, i + 1, matches)) {
+					return true;
+				}
+				matches.remove(matches.size() - 1);
+				paired[j] = false;
+			}
+		}
+		paired[i] = false;
+		return false;
+	}
+	
+	/**
+	 * Rank the entrants by points, then by rating, then by index.
+	 * 
+	 * @return The entrants, the highest ranked first
+	 */
+	private Integer[] rank() {
+		Integer[] order = new Integer[ratings.getEntrants()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparingDouble((Integer entrant) -> -ratings.getPoints(entrant))
+				.thenComparingDouble(entrant -> -ratings.getRating(entrant))
+				.thenComparingInt(entrant -> entrant));
+		return order;
+	}
+	
+	/**
+	 * Play matches on the worker threads, and rate their results as they come in.
+	 * 
+	 * @param pool The worker threads
+	 * @param instances The strategy instances of the worker threads
+	 * @param matches The matches, as round, first and second entrant
+	 * @param listener Receives each result, once it has been rated (may be null)
+	 * @return The results, in the order of the matches
+	 * @throws IllegalStateException If a strategy chooses an invalid move
+	 * @throws InterruptedException If the calling thread is interrupted while waiting for the matches
+	 */
+	private List<MatchResult> playMatches(final ExecutorService pool, final ThreadLocal<IStrategy[]> instances, final List<int[]> matches, final Consumer<MatchResult> listener) throws IllegalStateException, InterruptedException {
+		CompletionService<MatchResult> completion = new ExecutorCompletionService<>(pool);
+		List<Future<MatchResult>> futures = new ArrayList<>(matches.size());
+		for (int[] match : matches) {
+			long matchSeed = matchSeed(match[0], futures.size());
+			futures.add(completion.submit(() -> playMatch(instances.get(), match[0], match[1], match[2], matchSeed)));
+		}
+		
+		// Results are rated in the order of the schedule, as soon as all earlier matches have been played
+		int rated = 0;
+		for (int i = 0; i < matches.size(); i++) {
+			get(completion.take());
+			for (; rated < futures.size() && futures.get(rated).isDone(); rated++) {
+				MatchResult result = get(futures.get(rated));
+				ratings.record(result.getEntrantOne(), result.getEntrantTwo(), result.getResult());
+				if (listener != null) {
+					listener.accept(result);
+				}
+			}
+		}
+		
+		List<MatchResult> results = new ArrayList<>(futures.size());
+		for (Future<MatchResult> future : futures) {
+			results.add(get(future));
+		}
+		return results;
+	}
+	
+	/**
+	 * Play a match on the current worker thread.
+	 * 
+	 * @param instances The strategy instances of the current thread
+	 * @param round The round of the match
+	 * @param one The first entrant
+	 * @param two The second entrant
+	 * @param matchSeed The seed of the match
+	 * @return The result
+	 * @throws IllegalStateException If a strategy chooses an invalid move
+	 */
+	private MatchResult playMatch(final IStrategy[] instances, final int round, final int one, final int two, final long matchSeed) throws IllegalStateException {
+		for (int entrant : new int[] { one, two }) {
+			if (instances[entrant] == null) {
+				instances[entrant] = strategies.get(entrant).get();
+			}
+		}
+		Simulator simulator = new Simulator(cols, rows, discsToWin, instances[one], instances[two], matchSeed);
+		return new MatchResult(round, one, two, simulator.play(gamesPerMatch));
+	}
+	
+	/**
+	 * Get the seed of a match, so that neighboring matches get unrelated random numbers.
+	 * 
+	 * @param round The round of the match
+	 * @param index The index of the match within the scheduled matches
+	 * @return The seed of the match
+	 */
+	private long matchSeed(final int round, final int index) {
+		long z = seed + (((long) round << 32 | index) + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+	
+	/**
+	 * Get the result of a finished match, and rethrow the exception of a failed one.
+	 * 
+	 * @param future The match
+	 * @return The result
+	 * @throws IllegalStateException If the match has failed
+	 * @throws InterruptedException If the calling thread is interrupted while waiting for the match
+	 */
+	private static MatchResult get(final Future<MatchResult> future) throws IllegalStateException, InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException("Match failed: " + e.getCause(), e.getCause());
+		}
+	}
+	
+	/**
+	 * Plays a tournament between strategies on all cores, and prints the results and standings.
+	 * 
+	 * Usage: <code>Tournament [roundrobin|swiss] [rounds] [gamesPerMatch] [seed] [strategy...]</code>,
+	 * e.g. <code>Tournament swiss 3 200 42 random heuristic evaluator mcts</code>. The number of
+	 * rounds is ignored by round-robin tournaments.
+	 * 
+	 * @param args The command-line arguments
+	 */
+	public static void main(String[] args) {
+		try {
+			String format = args.length > 0 ? args[0] : "roundrobin";
+			int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+			int gamesPerMatch = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_GAMES_PER_MATCH;
+			long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+			String[] entrants = args.length > 4 ? Arrays.copyOfRange(args, 4, args.length) : new String[] { "random", "heuristic", "evaluator" };
+			
+			Tournament tournament = new Tournament(Board.COLS, Board.ROWS, Connect4.DISCS_TO_WIN, gamesPerMatch, seed, Runtime.getRuntime().availableProcessors());
+			for (String entrant : entrants) {
+				String name = Simulator.createStrategy(entrant).getName();
+				tournament.addEntrant(name, () -> Simulator.createStrategy(entrant));
+			}
+			Consumer<MatchResult> printer = result -> System.out.println("Round " + (result.getRound() + 1) + ": "
+					+ tournament.getName(result.getEntrantOne()) + " vs. " + tournament.getName(result.getEntrantTwo()) + ": " + result.getResult());
+			
+			switch (format) {
+			case "roundrobin":
+				tournament.playRoundRobin(printer);
+				break;
+			case "swiss":
+				tournament.playSwiss(rounds, printer);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown format: '" + format + "'. Format must be roundrobin or swiss.");
+			}
+			System.out.print(tournament.getStandings());
+		} catch (IllegalArgumentException | IllegalStateException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: Tournament [roundrobin|swiss] [rounds] [gamesPerMatch] [seed] [strategy...]");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
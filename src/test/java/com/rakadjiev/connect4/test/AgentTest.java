@@ -0,0 +1,127 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.rakadjiev.connect4.IAgent;
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.agent.GameDriver;
+import com.rakadjiev.connect4.agent.StrategyAgent;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.replay.Outcome;
+import com.rakadjiev.connect4.simulation.HeuristicStrategy;
+import com.rakadjiev.connect4.simulation.RandomStrategy;
+
+public class AgentTest {
+	
+	/**
+	 * Test that agents play whole games, and that a stronger strategy wins most of them
+	 */
+	@Test
+	public void testStrategyAgents() {
+		IAgent heuristic = new StrategyAgent(new HeuristicStrategy(), 'R', 1);
+		IAgent random = new StrategyAgent(new RandomStrategy(), 'G', 2);
+		IConnect4 game = new Connect4(heuristic, random);
+		GameDriver driver = new GameDriver(game, heuristic, random, 100);
+		
+		int wins = 0;
+		for (int i = 0; i < 50; i++) {
+			Outcome outcome = driver.play();
+			assertTrue(outcome != Outcome.ILLEGAL_MOVE);
+			assertNull(driver.getOffender());
+			assertTrue(game.isFinished());
+			if (outcome == Outcome.FIRST_PLAYER_WINS) {
+				wins++;
+			}
+		}
+		assertTrue("Heuristic strategy should win almost all games against the random strategy, but won " + wins, wins >= 45);
+		assertTrue(driver.getLongestMoveNanos() > 0);
+		
+		// The second agent moves first in a driver with the agents swapped
+		GameDriver swapped = new GameDriver(game, random, heuristic, 0);
+		Outcome outcome = swapped.play();
+		if (outcome != Outcome.TIE) {
+			assertEquals(outcome == Outcome.FIRST_PLAYER_WINS ? 1 : 0, game.getBoard().getNumberOfDiscs() % 2);
+		}
+	}
+	
+	/**
+	 * Test that agents can't modify the board, and that an invalid move loses the game
+	 */
+	@Test
+	public void testInvalidMoves() {
+		IAgent cheater = new Agent("Cheater", 'R') {
+			@Override
+			public int chooseMove(final IBoard board, final int discsToWin, final IPlayer opponent, final long budgetMillis) {
+				board.tryInsertDisc(getDisc(), 1);
+				return 1;
+			}
+		};
+		IAgent confused = new Agent("Confused", 'G') {
+			@Override
+			public int chooseMove(final IBoard board, final int discsToWin, final IPlayer opponent, final long budgetMillis) {
+				assertTrue("The view should show the opponent's move", board.isPopulated(4, 1));
+				return 0;
+			}
+		};
+		IAgent first = new Agent("First", 'R') {
+			@Override
+			public int chooseMove(final IBoard board, final int discsToWin, final IPlayer opponent, final long budgetMillis) {
+				return 4;
+			}
+		};
+		
+		GameDriver driver = new GameDriver(new Connect4(cheater, confused), cheater, confused, 0);
+		try {
+			driver.play();
+			assertTrue(false);
+		} catch (UnsupportedOperationException e) {
+			assertEquals("The board is read-only.", e.getMessage());
+		}
+		assertEquals(0, driver.getGame().getBoard().getNumberOfDiscs());
+		
+		driver = new GameDriver(new Connect4(first, confused), first, confused, 0);
+		assertEquals(Outcome.ILLEGAL_MOVE, driver.play());
+		assertSame(confused, driver.getOffender());
+		assertEquals(1, driver.getGame().getBoard().getNumberOfDiscs());
+	}
+	
+	/**
+	 * An agent with a name and a disc.
+	 */
+	private abstract static class Agent implements IAgent {
+		
+		/** The name */
+		private final String name;
+		/** The disc */
+		private final char disc;
+		
+		/**
+		 * Create an agent.
+		 * 
+		 * @param name The name
+		 * @param disc The disc
+		 */
+		Agent(final String name, final char disc) {
+			this.name = name;
+			this.disc = disc;
+		}
+		
+		@Override
+		public String getName() {
+			return name;
+		}
+		
+		@Override
+		public char getDisc() {
+			return disc;
+		}
+	}
+
+}
@@ -0,0 +1,150 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IGameListener;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.event.AsyncDispatcher;
+import com.rakadjiev.connect4.exceptions.InvalidRemoveException;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.impl.Player;
+
+public class AsyncDispatcherTest {
+	
+	IPlayer playerOne = new Player("One", 'R');
+	IPlayer playerTwo = new Player("Two", 'G');
+	
+	/**
+	 * Test that the events of concurrent games are passed to the listener in the order of each game
+	 */
+	@Test
+	public void testDispatch() throws InterruptedException {
+		List<String> events = new ArrayList<>();
+		Thread[] listenerThread = new Thread[1];
+		IGameListener listener = new IGameListener() {
+			@Override
+			public void onMove(final IConnect4 game, final IPlayer player, final int col, final int row) {
+				listenerThread[0] = Thread.currentThread();
+				events.add(game.hashCode() + " move " + col + " " + row);
+			}
+			
+			@Override
+			public void onTie(final IConnect4 game) {
+				events.add(game.hashCode() + " tie");
+			}
+			
+			@Override
+			public void onRestart(final IConnect4 game) {
+				events.add(game.hashCode() + " restart");
+			}
+		};
+		
+		try (AsyncDispatcher dispatcher = new AsyncDispatcher(listener)) {
+			Thread[] threads = new Thread[4];
+			IConnect4[] games = new IConnect4[threads.length];
+			for (int t = 0; t < threads.length; t++) {
+				IConnect4 game = new Connect4(3, 2, 4, playerOne, playerTwo);
+				games[t] = game;
+				game.addListener(dispatcher);
+				threads[t] = new Thread(() -> {
+					for (int round = 0; round < 100; round++) {
+						game.restart();
+						for (int i = 0; i < 6; i++) {
+							game.tryInsertDisc(i % 2 == 0 ? playerOne : playerTwo, i / 2 + 1);
+						}
+					}
+				});
+				threads[t].start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			dispatcher.flush();
+			
+			assertEquals(threads.length * 100 * 8, dispatcher.getDispatched());
+			assertEquals(0, dispatcher.getDropped());
+			assertTrue("Listener should be called by the dispatcher thread", listenerThread[0].getName().equals("game-listener"));
+			for (IConnect4 game : games) {
+				int event = 0;
+				for (String e : events) {
+					if (!e.startsWith(game.hashCode() + " ")) {
+						continue;
+					}
+					String expected = event % 8 == 0 ? "restart" : event % 8 == 7 ? "tie" : "move " + ((event % 8 - 1) / 2 + 1) + " " + ((event % 8 - 1) % 2 + 1);
+					assertEquals(game.hashCode() + " " + expected, e);
+					event++;
+				}
+				assertEquals(800, event);
+			}
+		}
+	}
+	
+	/**
+	 * Test that events are dropped instead of blocking the game, if the listener can't keep up
+	 */
+	@Test
+	public void testDrop() throws InterruptedException {
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		IGameListener slow = new IGameListener() {
+			@Override
+			public void onRestart(final IConnect4 game) {
+				blocked.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		
+		AsyncDispatcher dispatcher = new AsyncDispatcher(slow, 4);
+		IConnect4 game = new Connect4(playerOne, playerTwo);
+		game.addListener(dispatcher);
+		game.restart();
+		blocked.await();
+		for (int i = 0; i < 10; i++) {
+			game.restart();
+		}
+		assertEquals(6, dispatcher.getDropped());
+		release.countDown();
+		dispatcher.close();
+		assertEquals(5, dispatcher.getDispatched());
+		
+		game.restart();
+		assertEquals("Events after closing should be dropped", 7, dispatcher.getDropped());
+	}
+	
+	/**
+	 * Test that exceptions of the listener don't stop the following events
+	 */
+	@Test
+	public void testFailures() throws InterruptedException, InvalidRemoveException {
+		IGameListener failing = new IGameListener() {
+			@Override
+			public void onUndo(final IConnect4 game, final int col) {
+				throw new IllegalStateException("Failed");
+			}
+		};
+		try (AsyncDispatcher dispatcher = new AsyncDispatcher(failing)) {
+			IConnect4 game = new Connect4(playerOne, playerTwo);
+			game.addListener(dispatcher);
+			for (int i = 0; i < 3; i++) {
+				game.tryInsertDisc(playerOne, 1);
+				game.undo();
+			}
+			dispatcher.flush();
+			assertEquals(6, dispatcher.getDispatched());
+			assertEquals(3, dispatcher.getFailures());
+		}
+	}
+	
+}
@@ -0,0 +1,353 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.exceptions.InvalidLocationException;
+import com.rakadjiev.connect4.exceptions.InvalidRemoveException;
+import com.rakadjiev.connect4.impl.BitBoard;
+import com.rakadjiev.connect4.impl.Board;
+
+public class BitBoardTest {
+	
+	IBoard board;
+	
+	@Before
+	public void setUp() {
+		board = new BitBoard();
+	}
+	
+	/**
+	 * Test that resetting the board sets the state to the initial one
+	 */
+	@Test
+	public void testReset() {
+		try {
+			Connect4TestUtil.fillBoard(board);
+		} catch(InvalidInsertException e) {
+			fail("Filling the board should not result in an exception");
+		}
+		board.setWon();
+		
+		board.reset();
+		
+		assertFalse("Board should not be full after reset", board.isFull());
+		assertFalse("Board should not be won after reset", board.isWon());
+		assertEquals("Board should have 0 discs after reset", board.getNumberOfDiscs(), 0);
+		for (int i = 1; i <= board.getCols(); i++) {
+			for (int j = 1; j <= board.getRows(); j++) {
+				assertFalse("No field should be populated after reset", board.isPopulated(i, j));
+				assertFalse("No field should be connected after reset", board.isConnected(i, j, 1));
+			}
+		}
+	}
+	
+	/**
+	 * Test that the board behaves like {@link Board} when filled up
+	 */
+	@Test
+	public void testFillBoard() {
+		IBoard reference = new Board();
+		try {
+			Connect4TestUtil.fillBoard(board);
+			Connect4TestUtil.fillBoard(reference);
+		} catch (InvalidInsertException e) {
+			fail("Filling the board should not result in an exception");
+		}
+		
+		assertTrue("Board should be full after inserting max number of discs", board.isFull());
+		assertEquals("After filling the board, the number of discs inserted should be COLS*ROWS", board.getNumberOfDiscs(), board.getCols()*board.getRows());
+		assertEquals("Board should look the same as the reference board", reference.toString(), board.toString());
+		
+		try {
+			board.insertDisc('R', 1);
+			fail("Inserting a disc to a full board should result in an exception");
+		} catch (InvalidInsertException e) {
+			assertTrue(e.getMessage().contains("completed"));
+		}
+	}
+	
+	/**
+	 * Test disc insertion into invalid locations and with invalid discs
+	 */
+	@Test
+	public void testInsertDiscInvalid() {
+		try {
+			board.insertDisc('R', 0);
+			fail("Inserting a disc to an invalid column should result in an exception");
+		} catch (InvalidLocationException e) {
+			assertTrue(e.getMessage().contains("Invalid column"));
+		} catch (InvalidInsertException e) {
+			fail("Trying to insert a disc to an invalid column should result in an InvalidLocationException");
+		}
+		try {
+			board.insertDisc('\0', 1);
+			fail("Inserting an invalid disc should result in an exception");
+		} catch (InvalidInsertException e) {
+			assertTrue(e.getMessage().contains("Invalid disc"));
+		}
+		try {
+			for (int j = 1; j <= board.getRows(); j++) {
+				board.insertDisc((j%2 == 0) ? 'R' : 'G', 1);
+			}
+		} catch(InvalidInsertException e) {
+			fail("Inserting a disc should not result in an exception");
+		}
+		try {
+			board.insertDisc('R', 1);
+			fail("Inserting a disc into a full column should result in an exception");
+		} catch (InvalidInsertException e) {
+			assertTrue(e.getMessage().contains("already full"));
+		}
+	}
+	
+	/**
+	 * Test that connected discs are found in all directions, including discs in the middle of a sequence
+	 */
+	@Test
+	public void testIsConnected() throws InvalidInsertException {
+		// Horizontal: R R _ R, then fill the gap
+		board.insertDisc('R', 1);
+		board.insertDisc('R', 2);
+		board.insertDisc('R', 4);
+		assertFalse("Discs with a gap should not be connected", board.isConnected(4, 1, 4));
+		board.insertDisc('R', 3);
+		assertTrue("Disc in the middle of a horizontal sequence should be connected", board.isConnected(3, 1, 4));
+		assertTrue("Disc at the end of a horizontal sequence should be connected", board.isConnected(1, 1, 4));
+		assertFalse("Sequence should not be longer than it is", board.isConnected(3, 1, 5));
+		
+		// Vertical
+		board.reset();
+		for (int j = 1; j <= 4; j++) {
+			board.insertDisc('G', 7);
+		}
+		assertTrue("Vertical sequence should be connected", board.isConnected(7, 2, 4));
+		assertFalse("Vertical sequence should not be connected in another column", board.isConnected(6, 1, 1));
+		
+		// Diagonal: G at (1,1), (2,2), (3,3), (4,4)
+		board.reset();
+		for (int i = 1; i <= 4; i++) {
+			for (int j = 1; j < i; j++) {
+				board.insertDisc('x', i);
+			}
+			board.insertDisc('G', i);
+		}
+		assertTrue("Diagonal sequence should be connected", board.isConnected(2, 2, 4));
+		assertFalse("Other discs should not be connected", board.isConnected(4, 1, 4));
+		
+		// Anti-diagonal: G at (4,1), (3,2), (2,3), (1,4)
+		board.reset();
+		for (int i = 4; i >= 1; i--) {
+			for (int j = 1; j < 5 - i; j++) {
+				board.insertDisc('x', i);
+			}
+			board.insertDisc('G', i);
+		}
+		assertTrue("Anti-diagonal sequence should be connected", board.isConnected(3, 2, 4));
+	}
+	
+	/**
+	 * Test that sequences don't wrap around from the top of one column to the bottom of the next one
+	 */
+	@Test
+	public void testIsConnectedNoWrapAround() throws InvalidInsertException {
+		for (int j = 1; j <= board.getRows(); j++) {
+			board.insertDisc(j > 4 ? 'R' : 'G', 1);
+		}
+		board.insertDisc('R', 2);
+		board.insertDisc('R', 2);
+		assertFalse("Discs of different columns should not be vertically connected", board.isConnected(2, 1, 4));
+	}
+	
+	/**
+	 * Test that connected discs are found in the same way as by {@link Board} for random games
+	 */
+	@Test
+	public void testIsConnectedRandom() throws InvalidInsertException {
+		Random random = new Random(42);
+		IBoard reference = new Board();
+		
+		for (int game = 0; game < 200; game++) {
+			board.reset();
+			reference.reset();
+			while (!board.isFull()) {
+				int col = random.nextInt(board.getCols()) + 1;
+				if (board.isPopulated(col, board.getRows())) {
+					continue;
+				}
+				char disc = random.nextBoolean() ? 'R' : 'G';
+				int row = board.insertDisc(disc, col);
+				assertEquals(reference.insertDisc(disc, col), row);
+				for (int discs = 1; discs <= 5; discs++) {
+					assertEquals("Bitboard should find the same sequences as the reference board",
+							reference.isConnected(col, row, discs), board.isConnected(col, row, discs));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Test that keys and equality are the same as for {@link Board}
+	 */
+	@Test
+	public void testKey() throws InvalidInsertException {
+		IBoard reference = new Board();
+		Connect4TestUtil.fillBoard(board);
+		Connect4TestUtil.fillBoard(reference);
+		
+		assertEquals("Key should be the same as the one of the reference board", reference.getKey(), board.getKey());
+		assertEquals("Canonical key should be the same as the one of the reference board", reference.getCanonicalKey(), board.getCanonicalKey());
+		assertEquals("Board should be equal to the reference board", reference, board);
+		assertEquals("Reference board should be equal to the board", board, reference);
+		
+		IBoard other = new BitBoard();
+		Connect4TestUtil.fillBoard(other);
+		assertEquals("Boards with the same discs should be equal", board, other);
+		assertEquals("Boards with the same discs should have the same hash code", board.hashCode(), other.hashCode());
+	}
+	
+	/**
+	 * Test that the playable columns match the heights of the columns during random games
+	 */
+	@Test
+	public void testPlayableColumns() {
+		Random random = new Random(5);
+		
+		for (int game = 0; game < 50; game++) {
+			board.reset();
+			while (!board.isFull()) {
+				long playable = board.getPlayableColumns();
+				for (int col = 1; col <= board.getCols(); col++) {
+					boolean canPlay = !board.isPopulated(col, board.getRows());
+					assertEquals(canPlay, board.canPlay(col));
+					assertEquals(canPlay, (playable & (1L << (col - 1))) != 0);
+				}
+				
+				// Only playable columns are chosen, so all inserts succeed
+				int col = Long.numberOfTrailingZeros(playable) + 1;
+				if (random.nextBoolean()) {
+					col = randomColumn(random);
+				}
+				assertTrue(board.tryInsertDisc(random.nextBoolean() ? 'R' : 'G', col) > 0);
+			}
+			assertEquals("Full board should not have playable columns", 0L, board.getPlayableColumns());
+		}
+	}
+	
+	/**
+	 * Test that inserting and then removing discs in reverse order restores the previous state of the board
+	 */
+	@Test
+	public void testRemoveDisc() throws InvalidInsertException, InvalidRemoveException {
+		Random random = new Random(3);
+		IBoard reference = new BitBoard();
+		int[] cols = new int[board.getCols() * board.getRows()];
+		
+		for (int game = 0; game < 50; game++) {
+			// Play a random prefix, and remember the state
+			board.reset();
+			reference.reset();
+			int prefix = random.nextInt(cols.length);
+			for (int i = 0; i < prefix; i++) {
+				int col = randomColumn(random);
+				board.insertDisc('R', col);
+				reference.insertDisc('R', col);
+			}
+			
+			// Fill the board, then take back all discs of the fill
+			int inserted = 0;
+			while (!board.isFull()) {
+				int col = randomColumn(random);
+				board.insertDisc(random.nextBoolean() ? 'R' : 'G', col);
+				cols[inserted++] = col;
+			}
+			while (inserted > 0) {
+				board.removeDisc(cols[--inserted]);
+			}
+			
+			assertEquals("Removing discs should restore the board", reference, board);
+			assertEquals("Removing discs should restore the key", reference.getKey(), board.getKey());
+			assertEquals("Removing discs should restore the number of discs", reference.getNumberOfDiscs(), board.getNumberOfDiscs());
+			assertEquals("Removing discs should restore the board's representation", reference.toString(), board.toString());
+		}
+	}
+	
+	/**
+	 * Get a random column, which isn't full.
+	 * 
+	 * @param random The random number generator
+	 * @return The column
+	 */
+	private int randomColumn(final Random random) {
+		int col;
+		do {
+			col = random.nextInt(board.getCols()) + 1;
+		} while (board.isPopulated(col, board.getRows()));
+		return col;
+	}
+	
+	/**
+	 * Test that boards of other sizes work, as long as they fit into a bitboard
+	 */
+	@Test
+	public void testSize() throws InvalidInsertException {
+		IBoard large = new BitBoard(8, 7);
+		IBoard reference = new Board(8, 7);
+		Connect4TestUtil.fillBoard(large);
+		Connect4TestUtil.fillBoard(reference);
+		assertEquals("Board should be equal to the reference board", reference, large);
+		assertTrue(large.isFull());
+		assertTrue("Disc in the top right corner should be connected", large.isConnected(8, 7, 1));
+		
+		try {
+			new BitBoard(9, 7);
+			fail("Creating a board, which doesn't fit into a bitboard, should result in an exception");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	
+	/**
+	 * Test that random boards of 2 colors are written compactly, and read back unchanged
+	 */
+	@Test
+	public void testWriteRead() throws InvalidInsertException, IOException {
+		Random random = new Random(17);
+		IBoard copy = new BitBoard();
+		for (int i = 0; i < 100; i++) {
+			board.reset();
+			int discs = random.nextInt(board.getCols() * board.getRows() + 1);
+			for (int j = 0; j < discs; j++) {
+				board.insertDisc(j % 2 == 0 ? 'R' : 'G', randomColumn(random));
+			}
+			
+			byte[] bytes = BoardTest.write(board);
+			assertTrue("Board of 2 colors should take at most 19 bytes", bytes.length <= 19);
+			copy.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+			assertEquals("Board read should be equal to the written board", board, copy);
+			assertEquals(board.getNumberOfDiscs(), copy.getNumberOfDiscs());
+			
+			if (discs > 0) {
+				try {
+					copy.read(new DataInputStream(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1))));
+					fail("Reading a truncated board should result in an exception");
+				} catch (EOFException e) {
+				}
+			}
+		}
+	}
+
+}
@@ -5,16 +5,26 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 import org.junit.Before;
 import org.junit.Test;
 
 import com.rakadjiev.connect4.IBoard;
 import com.rakadjiev.connect4.exceptions.InvalidInsertException;
 import com.rakadjiev.connect4.exceptions.InvalidLocationException;
+import com.rakadjiev.connect4.exceptions.InvalidRemoveException;
+import com.rakadjiev.connect4.impl.BitBoard;
 import com.rakadjiev.connect4.impl.Board;
+import com.rakadjiev.connect4.impl.BoardFactory;
+import com.rakadjiev.connect4.io.VarInt;
 
 public class BoardTest {
-
+	
 	IBoard board;
 	
 	@Before
@@ -98,7 +108,7 @@ public class BoardTest {
 		
 		assertEquals("After filling the board, the number of discs inserted should be COLS*ROWS", board.getNumberOfDiscs(), board.getCols()*board.getRows());
 	}
-
+	
 	/**
 	 * Test if cells are populated correctly
 	 */
@@ -247,4 +257,238 @@ public class BoardTest {
 			fail("Inserting a disc should not result in an exception");
 		}
 	}
+	
+	/**
+	 * Test that the key depends on the discs, but not on the order of insertion
+	 */
+	@Test
+	public void testKey() throws InvalidInsertException {
+		assertEquals("Empty board should have key 0", 0L, board.getKey());
+		
+		IBoard other = new Board();
+		board.insertDisc('R', 1);
+		board.insertDisc('G', 2);
+		other.insertDisc('G', 2);
+		other.insertDisc('R', 1);
+		assertEquals("Boards with the same discs should have the same key", board.getKey(), other.getKey());
+		assertEquals("Boards with the same discs should be equal", board, other);
+		assertEquals("Boards with the same discs should have the same hash code", board.hashCode(), other.hashCode());
+		
+		other.reset();
+		other.insertDisc('G', 1);
+		other.insertDisc('R', 2);
+		assertTrue("Boards with different discs should have different keys", board.getKey() != other.getKey());
+		assertFalse("Boards with different discs should not be equal", board.equals(other));
+		
+		board.reset();
+		assertEquals("Reset board should have key 0", 0L, board.getKey());
+	}
+	
+	/**
+	 * Test that a board and its mirror image have the same canonical key
+	 */
+	@Test
+	public void testCanonicalKey() throws InvalidInsertException {
+		IBoard mirror = new Board();
+		board.insertDisc('R', 1);
+		board.insertDisc('G', 3);
+		board.insertDisc('R', 3);
+		mirror.insertDisc('R', Board.COLS);
+		mirror.insertDisc('G', Board.COLS - 2);
+		mirror.insertDisc('R', Board.COLS - 2);
+		
+		assertTrue("Mirrored boards should have different keys", board.getKey() != mirror.getKey());
+		assertEquals("Mirrored boards should have the same canonical key", board.getCanonicalKey(), mirror.getCanonicalKey());
+		assertFalse("Mirrored boards should not be equal", board.equals(mirror));
+	}
+	
+	/**
+	 * Test that removing discs restores the previous state of the board
+	 */
+	@Test
+	public void testRemoveDisc() throws InvalidInsertException, InvalidRemoveException {
+		board.insertDisc('R', 1);
+		long key = board.getKey();
+		board.insertDisc('G', 1);
+		board.setWon();
+		
+		assertEquals("Removed disc should be the top disc of the column", 'G', board.removeDisc(1));
+		assertEquals("Board should have 1 disc after removing a disc", 1, board.getNumberOfDiscs());
+		assertFalse("Board should not be won after removing the latest disc", board.isWon());
+		assertFalse("Cell of the removed disc should be empty", board.isPopulated(1, 2));
+		assertEquals("Key should be restored after removing a disc", key, board.getKey());
+		
+		assertEquals('R', board.removeDisc(1));
+		assertEquals("Empty board should have key 0", 0L, board.getKey());
+		
+		try {
+			board.removeDisc(1);
+			fail("Removing a disc from an empty column should result in an exception");
+		} catch (InvalidRemoveException e) {
+			assertTrue(e.getMessage().contains("empty"));
+		}
+		try {
+			board.removeDisc(Board.COLS + 1);
+			fail("Removing a disc from an invalid column should result in an exception");
+		} catch (InvalidLocationException e) {
+			assertTrue(e.getMessage().contains("Invalid column"));
+		}
+	}
+	
+	/**
+	 * Test that the exception-free API reports the same failures as the throwing API, and doesn't change the board on failure
+	 */
+	@Test
+	public void testTryInsertDisc() {
+		assertEquals("All columns of the empty board should be playable", (1L << Board.COLS) - 1, board.getPlayableColumns());
+		assertEquals(IBoard.INVALID_COLUMN, board.tryInsertDisc('R', 0));
+		assertEquals(IBoard.INVALID_COLUMN, board.tryInsertDisc('R', Board.COLS + 1));
+		assertEquals(IBoard.INVALID_DISC, board.tryInsertDisc('\n', 1));
+		assertEquals(IBoard.COLUMN_EMPTY, board.tryRemoveDisc(1));
+		assertEquals(IBoard.INVALID_COLUMN, board.tryRemoveDisc(0));
+		assertFalse(board.canPlay(0));
+		assertFalse(board.canPlay(Board.COLS + 1));
+		assertEquals("Failed inserts should not change the board", 0, board.getNumberOfDiscs());
+		assertEquals(0L, board.getKey());
+		
+		for (int j = 1; j <= Board.ROWS; j++) {
+			assertTrue(board.canPlay(2));
+			assertEquals("Insert should return the row of the disc", j, board.tryInsertDisc('R', 2));
+		}
+		assertFalse("Full column should not be playable", board.canPlay(2));
+		assertEquals(IBoard.COLUMN_FULL, board.tryInsertDisc('R', 2));
+		assertEquals("Full column should not be in the playable columns", ((1L << Board.COLS) - 1) & ~0x2L, board.getPlayableColumns());
+		
+		assertEquals('R', board.tryRemoveDisc(2));
+		assertTrue("Column should be playable after removing a disc", board.canPlay(2));
+		assertEquals((1L << Board.COLS) - 1, board.getPlayableColumns());
+		
+		board.setWon();
+		assertFalse("Won board should not be playable", board.canPlay(1));
+		assertEquals(0L, board.getPlayableColumns());
+		assertEquals(IBoard.BOARD_COMPLETED, board.tryInsertDisc('R', 1));
+		
+		board.reset();
+		assertEquals("Reset should make all columns playable", (1L << Board.COLS) - 1, board.getPlayableColumns());
+	}
+	
+	/**
+	 * Test that iterating over the playable columns skips full columns, also beyond the first 64 columns
+	 */
+	@Test
+	public void testNextPlayableColumn() throws InvalidInsertException {
+		for (int j = 1; j <= Board.ROWS; j++) {
+			board.insertDisc('R', 1);
+			board.insertDisc('R', 3);
+		}
+		assertEquals(2, board.nextPlayableColumn(0));
+		assertEquals(4, board.nextPlayableColumn(2));
+		assertEquals(0, board.nextPlayableColumn(Board.COLS));
+		
+		IBoard wide = new Board(70, 1);
+		for (int col : new int[] {10, 63, 64, 65, 70}) {
+			wide.insertDisc('R', col);
+		}
+		int playable = 0;
+		int last = 0;
+		for (int col = wide.nextPlayableColumn(0); col != 0; col = wide.nextPlayableColumn(col)) {
+			assertTrue("Columns should be iterated in increasing order", col > last);
+			assertTrue("Only playable columns should be iterated", wide.canPlay(col));
+			last = col;
+			playable++;
+		}
+		assertEquals(70 - 5, playable);
+		assertEquals("Iteration should continue past the bitmask", 66, wide.nextPlayableColumn(62));
+		assertEquals(0, wide.nextPlayableColumn(69));
+	}
+	
+	/**
+	 * Test boards of other sizes
+	 */
+	@Test
+	public void testSize() throws InvalidInsertException {
+		IBoard large = new Board(12, 10);
+		assertEquals(12, large.getCols());
+		assertEquals(10, large.getRows());
+		Connect4TestUtil.fillBoard(large);
+		assertTrue(large.isFull());
+		assertEquals(120, large.getNumberOfDiscs());
+		
+		try {
+			new Board(7, 0);
+			fail("Creating a board without rows should result in an exception");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	
+	/**
+	 * Test that a board read from its binary format has the same discs and state, regardless of the implementation
+	 */
+	@Test
+	public void testWriteRead() throws InvalidInsertException, IOException {
+		// The filled board has many colors
+		Connect4TestUtil.fillBoard(board);
+		board.setWon();
+		byte[] bytes = write(board);
+		
+		IBoard copy = new BitBoard();
+		copy.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+		assertEquals("Board read should be equal to the written board", board, copy);
+		assertEquals(board.toString(), copy.toString());
+		assertEquals(board.getKey(), copy.getKey());
+		assertTrue("Board read should keep the won mark", copy.isWon());
+		
+		copy = BoardFactory.readBoard(new DataInputStream(new ByteArrayInputStream(bytes)));
+		assertEquals("Board created from the input should be equal to the written board", board, copy);
+		
+		// The empty board only consists of its size, flags, heights and the number of colors
+		board.reset();
+		assertEquals(2 + 1 + board.getCols() + 1, write(board).length);
+	}
+	
+	/**
+	 * Test that a board of a different size is rejected
+	 */
+	@Test(expected = IOException.class)
+	public void testReadOtherSize() throws IOException {
+		board.read(new DataInputStream(new ByteArrayInputStream(write(new Board(8, 7)))));
+	}
+	
+	/**
+	 * Test that boards beyond the size limit of records are rejected before they are allocated
+	 */
+	@Test
+	public void testReadOversized() throws IOException {
+		int[][] sizes = { { 40000, 40000 }, { BoardFactory.MAX_RECORD_SIZE + 1, 1 }, { 1, BoardFactory.MAX_RECORD_SIZE + 1 } };
+		for (int[] size : sizes) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			VarInt.write(out, size[0]);
+			VarInt.write(out, size[1]);
+			try {
+				BoardFactory.readBoard(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+				fail("Reading an oversized board should result in an exception");
+			} catch (IOException e) {
+				assertEquals("Invalid board: " + size[0] + "x" + size[1] + ". Records must have at most " + BoardFactory.MAX_RECORD_SIZE + " columns and rows.", e.getMessage());
+			}
+		}
+		
+		// The largest board can be read back
+		IBoard largest = BoardFactory.createBoard(BoardFactory.MAX_RECORD_SIZE, BoardFactory.MAX_RECORD_SIZE);
+		assertEquals(largest, BoardFactory.readBoard(new DataInputStream(new ByteArrayInputStream(write(largest)))));
+	}
+	
+	/**
+	 * Write a board into a byte array.
+	 * 
+	 * @param board The board
+	 * @return The binary format of the board
+	 * @throws IOException If writing fails
+	 */
+	static byte[] write(final IBoard board) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		board.write(new DataOutputStream(bytes));
+		return bytes.toByteArray();
+	}
+
 }
@@ -0,0 +1,124 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rakadjiev.connect4.cache.ResultCache;
+import com.rakadjiev.connect4.cache.ResultCache.EvictionPolicy;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.impl.Player;
+import com.rakadjiev.connect4.solver.CachingSolver;
+import com.rakadjiev.connect4.solver.ParallelSolver;
+import com.rakadjiev.connect4.solver.Position;
+import com.rakadjiev.connect4.solver.Solver;
+import com.rakadjiev.connect4.solver.SolverResult;
+
+public class CachingSolverTest {
+	
+	/**
+	 * Test that repeated queries, also of mirrored positions, are answered from the cache with the same results
+	 */
+	@Test
+	public void testRepeatedQueries() {
+		Random random = new Random(13);
+		Solver solver = new Solver();
+		CachingSolver caching = new CachingSolver(new Solver());
+		
+		for (int i = 0; i < 20; i++) {
+			Position position = new Position(7, 6);
+			Position mirror = new Position(7, 6);
+			while (position.getMoves() < 22) {
+				int col = random.nextInt(7) + 1;
+				if (position.canPlay(col) && !position.isWinningMove(col)) {
+					position.play(col);
+					mirror.play(8 - col);
+				}
+			}
+			
+			SolverResult expected = solver.solve(position);
+			assertEquals(expected.getScore(), caching.solve(position).getScore());
+			
+			SolverResult cached = caching.solve(position);
+			assertEquals("Cached result should have the same score", expected.getScore(), cached.getScore());
+			assertEquals("Cached result should not search", 0, cached.getNodes());
+			
+			SolverResult mirrored = caching.solve(mirror);
+			assertEquals("Mirrored position should have the same score", expected.getScore(), mirrored.getScore());
+			assertEquals("Mirrored position should be found in the cache", 0, mirrored.getNodes());
+			
+			// The mirrored best move has to achieve the score
+			Position child = new Position(mirror);
+			if (!child.isWinningMove(mirrored.getBestMove())) {
+				child.play(mirrored.getBestMove());
+				assertEquals("Best move should achieve the score", expected.getScore(), -solver.solve(child).getScore());
+			}
+		}
+		
+		assertEquals(40, caching.getCache().getHits());
+		assertEquals(20, caching.getCache().getMisses());
+	}
+	
+	/**
+	 * Test that results of searches, which ran out of budget, aren't cached, so a later query can find the exact score
+	 */
+	@Test
+	public void testInexactResults() {
+		Random random = new Random(18);
+		Position position = new Position(7, 6);
+		while (position.getMoves() < 16) {
+			int col = random.nextInt(7) + 1;
+			if (position.canPlay(col) && !position.isWinningMove(col)) {
+				position.play(col);
+			}
+		}
+		boolean[] budget = { true };
+		Solver limited = new Solver(100, 0);
+		Solver unlimited = new Solver();
+		CachingSolver caching = new CachingSolver(p -> budget[0] ? limited.solve(p) : unlimited.solve(p), new ResultCache<>(1000, EvictionPolicy.LRU));
+		
+		SolverResult inexact = caching.solve(position);
+		assertFalse(inexact.isExact());
+		assertEquals("Inexact result should not be cached", 0, caching.getCache().size());
+		
+		budget[0] = false;
+		SolverResult exact = caching.solve(position);
+		assertTrue("Position should be searched again", exact.isExact());
+		assertTrue(exact.getNodes() > 0);
+		assertEquals(exact.getScore(), caching.solve(position).getScore());
+		assertEquals(1, caching.getCache().getHits());
+	}
+	
+	/**
+	 * Test that games are solved through the cache, which is cleared when the board size changes
+	 */
+	@Test
+	public void testGames() throws InvalidInsertException {
+		try (ParallelSolver parallel = new ParallelSolver(2)) {
+			CachingSolver caching = new CachingSolver(parallel::solve, new ResultCache<>(1000, EvictionPolicy.LRU));
+			Player one = new Player("one", 'x');
+			Player two = new Player("two", 'o');
+			
+			Connect4 small = new Connect4(5, 4, 4, one, two);
+			small.insertDisc(one, 3);
+			SolverResult result = caching.solve(small, two);
+			assertEquals(result.getScore(), caching.solve(small, two).getScore());
+			assertEquals(1, caching.getCache().getHits());
+			
+			Connect4 large = new Connect4(6, 5, 4, one, two);
+			int[] moves = { 1, 2, 3, 4, 5, 6, 2, 1, 4, 3, 6, 5 };
+			for (int i = 0; i < moves.length; i++) {
+				large.insertDisc(i % 2 == 0 ? one : two, moves[i]);
+			}
+			caching.solve(large, one);
+			assertEquals("Cache should be cleared when the board size changes", 0, caching.getCache().getHits());
+			assertEquals(1, caching.getCache().size());
+		}
+	}
+
+}
@@ -5,20 +5,30 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 import org.junit.Before;
 import org.junit.Test;
 
 import com.rakadjiev.connect4.IBoard;
 import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IGameListener;
 import com.rakadjiev.connect4.IPlayer;
 import com.rakadjiev.connect4.exceptions.InvalidInsertException;
 import com.rakadjiev.connect4.exceptions.InvalidLocationException;
 import com.rakadjiev.connect4.exceptions.InvalidPlayerException;
+import com.rakadjiev.connect4.exceptions.InvalidRemoveException;
+import com.rakadjiev.connect4.impl.BitBoard;
 import com.rakadjiev.connect4.impl.Connect4;
 import com.rakadjiev.connect4.impl.Player;
+import com.rakadjiev.connect4.io.VarInt;
 
 public class Connect4Test {
-
+	
 	IConnect4 game;
 	IBoard board;
 	IPlayer playerOne;
@@ -33,7 +43,7 @@ public class Connect4Test {
 		game = new Connect4(playerOne, playerTwo);
 		board = game.getBoard();
 	}
-
+	
 	/**
 	 * Test that the board can fit at least as many connected discs as needed to win
 	 */
@@ -90,6 +100,42 @@ public class Connect4Test {
 		assertFalse("Game should not be tie after the winning move", game.isTie());
 	}
 	
+	/**
+	 * Test that a win is recognized if the last disc completes a sequence in the middle
+	 */
+	@Test
+	public void testIsWonMiddleDisc() {
+		try {
+			game.insertDisc(playerOne, 1);
+			game.insertDisc(playerOne, 2);
+			game.insertDisc(playerOne, 4);
+			assertFalse("Game should not be won before the winning move", game.isWon());
+			assertTrue("insertDisc should return true after the winning move", game.insertDisc(playerOne, 3));
+		} catch(InvalidInsertException | InvalidLocationException | InvalidPlayerException e) {
+			fail("Winning the game should not result in an exception");
+		}
+		
+		assertTrue("Game should be won after the winning move", game.isWon());
+	}
+	
+	/**
+	 * Test a game on a bitboard
+	 */
+	@Test
+	public void testBitBoard() {
+		game = new Connect4(new BitBoard(), playerOne, playerTwo);
+		
+		try {
+			assertTrue("insertDisc should return true after the winning move", Connect4TestUtil.winGame(game, playerOne));
+		} catch(InvalidInsertException | InvalidLocationException | InvalidPlayerException e) {
+			fail("Winning the game should not result in an exception");
+		}
+		assertTrue("Game should be won after the winning move", game.isWon());
+		
+		game.restart();
+		assertFalse("Game should not be won after restarting", game.isWon());
+	}
+	
 	/**
 	 * Test if a tie is recognized correctly
 	 */
@@ -124,6 +170,28 @@ public class Connect4Test {
 		}
 	}
 	
+	/**
+	 * Test that the exception-free insert reports the result of the move, and invalid moves don't change the game
+	 */
+	@Test
+	public void testTryInsertDisc() throws InvalidRemoveException {
+		assertEquals(IConnect4.INVALID_PLAYER, game.tryInsertDisc(playerThree, 1));
+		assertEquals(IConnect4.INVALID_PLAYER, game.tryInsertDisc(null, 1));
+		assertEquals(IBoard.INVALID_COLUMN, game.tryInsertDisc(playerOne, 0));
+		assertEquals("Invalid moves should not change the board", 0, board.getNumberOfDiscs());
+		
+		for (int i = 0; i < 3; i++) {
+			assertEquals(IConnect4.PLAYED, game.tryInsertDisc(playerOne, 1));
+			assertEquals(IConnect4.PLAYED, game.tryInsertDisc(playerTwo, 2));
+		}
+		assertEquals(IConnect4.WON, game.tryInsertDisc(playerOne, 1));
+		assertTrue(game.isWon());
+		assertEquals(IBoard.BOARD_COMPLETED, game.tryInsertDisc(playerTwo, 2));
+		
+		assertEquals("Invalid moves should not be recorded", 1, game.undo());
+		assertFalse(game.isWon());
+	}
+	
 	/**
 	 * Test that restarting the game sets the state to the initial one
 	 */
@@ -146,6 +214,57 @@ public class Connect4Test {
 		assertEquals("Board should have 0 discs after reset", board.getNumberOfDiscs(), 0);
 	}
 	
+	/**
+	 * Test that undoing moves restores the state of the game
+	 */
+	@Test
+	public void testUndo() throws InvalidInsertException, InvalidRemoveException {
+		try {
+			game.undo();
+			fail("Undoing a move before any move has been made should result in an exception");
+		} catch (InvalidRemoveException e) {
+		}
+		
+		assertTrue("Winning move should win the game", Connect4TestUtil.winGame(game, playerOne));
+		int col = game.undo();
+		assertEquals("Undone move should be the winning move", game.getDiscsToWin() <= board.getCols() ? game.getDiscsToWin() : 1, col);
+		assertFalse("Game should not be won after undoing the winning move", game.isWon());
+		assertFalse("Board should not be won after undoing the winning move", board.isWon());
+		assertEquals("Board should not contain the undone disc", game.getDiscsToWin() - 1, board.getNumberOfDiscs());
+		
+		assertTrue("Winning move should win the game again", game.insertDisc(playerOne, col));
+		
+		game.restart();
+		try {
+			game.undo();
+			fail("Undoing a move after restarting should result in an exception");
+		} catch (InvalidRemoveException e) {
+		}
+	}
+	
+	/**
+	 * Test a variant game with a larger board, which requires 5 connected discs to win
+	 */
+	@Test
+	public void testVariant() throws InvalidInsertException {
+		game = new Connect4(9, 7, 5, playerOne, playerTwo);
+		board = game.getBoard();
+		assertEquals(9, board.getCols());
+		assertEquals(7, board.getRows());
+		assertEquals(5, game.getDiscsToWin());
+		
+		for (int col = 1; col <= 4; col++) {
+			assertFalse("Less than 5 connected discs should not win", game.insertDisc(playerOne, col));
+		}
+		assertTrue("5 connected discs should win", game.insertDisc(playerOne, 5));
+		
+		try {
+			new Connect4(9, 7, 0, playerOne, playerTwo);
+			fail("Creating a game without discs to win should result in an exception");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+	
 	/**
 	 * Test normal disc insertion
 	 */
@@ -182,4 +301,135 @@ public class Connect4Test {
 		}
 	}
 	
+	
+	/**
+	 * Test that a game read from its record has the same board and moves
+	 */
+	@Test
+	public void testWriteRead() throws InvalidInsertException, InvalidRemoveException, IOException {
+		int[] moves = { 4, 4, 3, 5, 2, 1 };
+		for (int i = 0; i < moves.length; i++) {
+			game.insertDisc(i % 2 == 0 ? playerOne : playerTwo, moves[i]);
+		}
+		// Players don't have to alternate
+		game.insertDisc(playerOne, 7);
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		game.write(new DataOutputStream(bytes));
+		assertEquals("Record should take a byte per move, and 4 bytes of rules", 4 + moves.length + 1, bytes.size());
+		
+		Connect4 copy = Connect4.readGame(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), playerOne, playerTwo);
+		assertEquals("Game read should have the same board", board, copy.getBoard());
+		assertEquals("Game read should have the same moves", 7, copy.undo());
+		assertEquals(1, copy.undo());
+		
+		game.restart();
+		game.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertEquals("Game should replay the record", 7, board.getNumberOfDiscs());
+		assertEquals("Replayed game should have the same moves", 7, game.undo());
+	}
+	
+	/**
+	 * Test that records of games with different rules, oversized games and records with invalid moves are rejected
+	 */
+	@Test
+	public void testReadInvalid() throws InvalidInsertException, IOException {
+		IConnect4 other = new Connect4(7, 6, 5, playerOne, playerTwo);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		other.write(new DataOutputStream(bytes));
+		try {
+			game.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+			fail("Reading a record of a game with different rules should result in an exception");
+		} catch (IOException e) {
+		}
+		
+		// 7 discs in the first column
+		byte[] overfull = { 7, 6, 4, 7, 0, 1, 0, 1, 0, 1, 0 };
+		try {
+			game.read(new DataInputStream(new ByteArrayInputStream(overfull)));
+			fail("Reading a record with an invalid move should result in an exception");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("Invalid move 7"));
+		}
+		
+		// A corrupt header must not allocate a huge board
+		bytes.reset();
+		DataOutputStream out = new DataOutputStream(bytes);
+		VarInt.write(out, 1 << 20);
+		VarInt.write(out, 1 << 20);
+		VarInt.write(out, 4);
+		VarInt.write(out, 0);
+		try {
+			Connect4.readGame(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), playerOne, playerTwo);
+			fail("Reading a record of an oversized game should result in an exception");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().startsWith("Invalid board: 1048576x1048576."));
+		}
+	}
+	
+	/**
+	 * Test that listeners receive the events of the game in order, and can be removed
+	 */
+	@Test
+	public void testListeners() throws InvalidRemoveException {
+		StringBuilder events = new StringBuilder();
+		IGameListener listener = new IGameListener() {
+			@Override
+			public void onMove(final IConnect4 source, final IPlayer player, final int col, final int row) {
+				events.append("move ").append(player.getDisc()).append(col).append(row).append(';');
+			}
+			
+			@Override
+			public void onWon(final IConnect4 source, final IPlayer player) {
+				events.append("won ").append(player.getDisc()).append(';');
+			}
+			
+			@Override
+			public void onTie(final IConnect4 source) {
+				events.append("tie;");
+			}
+			
+			@Override
+			public void onUndo(final IConnect4 source, final int col) {
+				events.append("undo ").append(col).append(';');
+			}
+			
+			@Override
+			public void onRestart(final IConnect4 source) {
+				events.append("restart;");
+			}
+		};
+		IGameListener defaults = new IGameListener() {
+		};
+		game.addListener(listener);
+		game.addListener(defaults);
+		
+		game.tryInsertDisc(playerOne, 1);
+		game.tryInsertDisc(playerTwo, 9);
+		game.tryInsertDisc(playerTwo, 1);
+		assertEquals("Invalid moves should not fire events", "move R11;move G12;", events.toString());
+		game.undo();
+		game.restart();
+		assertEquals("move R11;move G12;undo 1;restart;", events.toString());
+		for (int i = 0; i < 3; i++) {
+			game.tryInsertDisc(playerOne, 1);
+			game.tryInsertDisc(playerTwo, 2);
+		}
+		events.setLength(0);
+		game.tryInsertDisc(playerOne, 1);
+		assertEquals("move R14;won R;", events.toString());
+		
+		assertTrue(game.removeListener(listener));
+		assertFalse(game.removeListener(listener));
+		events.setLength(0);
+		game.restart();
+		assertEquals("", events.toString());
+		
+		IConnect4 small = new Connect4(2, 1, 2, playerOne, playerTwo);
+		small.addListener(listener);
+		small.tryInsertDisc(playerOne, 1);
+		small.tryInsertDisc(playerTwo, 2);
+		assertEquals("Filling the board without winning should be a tie", "move R11;move G21;tie;", events.toString());
+	}
+
 }
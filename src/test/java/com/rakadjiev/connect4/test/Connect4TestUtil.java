@@ -6,7 +6,6 @@ import com.rakadjiev.connect4.IPlayer;
 import com.rakadjiev.connect4.exceptions.InvalidInsertException;
 import com.rakadjiev.connect4.exceptions.InvalidLocationException;
 import com.rakadjiev.connect4.exceptions.InvalidPlayerException;
-import com.rakadjiev.connect4.impl.Board;
 
 public class Connect4TestUtil {
 
@@ -19,8 +18,8 @@ public class Connect4TestUtil {
 	public static void fillBoard(IBoard board) throws InvalidInsertException, InvalidLocationException {
 		// Fill all fields with different discs
 		char disc = 32;
-		for (int i = 1; i <= Board.COLS; i++) {
-			for (int j = 1; j <= Board.ROWS; j++) {
+		for (int i = 1; i <= board.getCols(); i++) {
+			for (int j = 1; j <= board.getRows(); j++) {
 				if (disc > 126) {
 					disc = 32;
 				}
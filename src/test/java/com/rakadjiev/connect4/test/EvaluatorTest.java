@@ -0,0 +1,120 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.IEvaluator;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.evaluator.ThreatEvaluator;
+import com.rakadjiev.connect4.impl.Board;
+import com.rakadjiev.connect4.solver.Position;
+
+public class EvaluatorTest {
+	
+	/**
+	 * Test that the empty board is even, and immediate wins and double threats are scored as wins
+	 */
+	@Test
+	public void testWins() {
+		IEvaluator evaluator = new ThreatEvaluator();
+		Position position = new Position(Board.COLS, Board.ROWS);
+		assertEquals("Empty board should be even", 0, evaluator.evaluate(position));
+		
+		play(position, 1, 2, 1, 2, 1);
+		assertTrue("Opponent's threat should be bad for the current player", evaluator.evaluate(position) < 0);
+		position.play(7);
+		assertEquals("Current player should win with the next move", IEvaluator.MAX_SCORE - 1, evaluator.evaluate(position));
+		
+		position.reset();
+		// The first player connects 3 discs on the bottom row, with both ends open
+		play(position, 3, 3, 4, 4, 5);
+		assertEquals("Opponent's double threat should lose", -(IEvaluator.MAX_SCORE - 2), evaluator.evaluate(position));
+	}
+	
+	/**
+	 * Test that threats only count for the parity, if they are in a row of the player's parity
+	 */
+	@Test
+	public void testParity() throws InvalidInsertException {
+		IEvaluator threats = new ThreatEvaluator(1, 0, 0, 0);
+		IEvaluator parity = new ThreatEvaluator(0, 1, 0, 0);
+		
+		// Red is the first player, and threatens to win in the second row of column 4
+		IBoard board = new Board();
+		insert(board, 1, 'G', 'R');
+		insert(board, 2, 'R', 'R');
+		insert(board, 3, 'G', 'R');
+		Position position = new Position(board, 'R');
+		assertEquals(1, threats.evaluate(position));
+		assertEquals("Threat in an even row should not count for the first player", 0, parity.evaluate(position));
+		
+		// Red threatens to win in the third row of column 4
+		board.reset();
+		insert(board, 1, 'G', 'R', 'R');
+		insert(board, 2, 'R', 'G', 'R');
+		insert(board, 3, 'G', 'R', 'R');
+		insert(board, 7, 'G');
+		position = new Position(board, 'R');
+		assertEquals(1, threats.evaluate(position));
+		assertEquals("Threat in an odd row should count for the first player", 1, parity.evaluate(position));
+		assertEquals("Opponent's threat should count against the current player", -1, threats.evaluate(new Position(board, 'G')));
+	}
+	
+	/**
+	 * Test that threats above each other and discs in the center are scored
+	 */
+	@Test
+	public void testStackedAndCenter() throws InvalidInsertException {
+		IBoard board = new Board();
+		insert(board, 4, 'R');
+		insert(board, 1, 'G');
+		assertEquals(1, new ThreatEvaluator(0, 0, 0, 1).evaluate(new Position(board, 'R')));
+		
+		// Red threatens to win in the second and third row of column 4
+		board.reset();
+		insert(board, 1, 'G', 'R', 'R');
+		insert(board, 2, 'G', 'R', 'R');
+		insert(board, 3, 'G', 'R', 'R');
+		insert(board, 7, 'G', 'G');
+		insert(board, 6, 'G');
+		Position position = new Position(board, 'R');
+		assertEquals(1, new ThreatEvaluator(0, 0, 1, 0).evaluate(position));
+	}
+	
+	/**
+	 * Test that invalid weights are rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidWeight() {
+		new ThreatEvaluator(ThreatEvaluator.MAX_WEIGHT + 1, 0, 0, 0);
+	}
+	
+	/**
+	 * Play the specified columns, alternating between the players.
+	 * 
+	 * @param position The position
+	 * @param cols The columns (1-based index)
+	 */
+	private static void play(final Position position, final int... cols) {
+		for (int col : cols) {
+			position.play(col);
+		}
+	}
+	
+	/**
+	 * Insert discs into a column, from the bottom up.
+	 * 
+	 * @param board The board
+	 * @param col The column (1-based index)
+	 * @param discs The discs
+	 */
+	private static void insert(final IBoard board, final int col, final char... discs) throws InvalidInsertException {
+		for (char disc : discs) {
+			board.insertDisc(disc, col);
+		}
+	}
+	
+}
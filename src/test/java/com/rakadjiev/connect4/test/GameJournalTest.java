@@ -0,0 +1,346 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.exceptions.InvalidRemoveException;
+import com.rakadjiev.connect4.impl.BoardFactory;
+import com.rakadjiev.connect4.impl.Player;
+import com.rakadjiev.connect4.journal.GameJournal;
+import com.rakadjiev.connect4.journal.JournaledGame;
+
+public class GameJournalTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Test that games, their players, moves, undone moves, restarts and removals are recovered
+	 */
+	@Test
+	public void testRecovery() throws IOException, InvalidRemoveException {
+		Path dir = folder.getRoot().toPath();
+		Map<Long, byte[]> expected = new HashMap<>();
+		long removed;
+		try (GameJournal journal = new GameJournal(dir)) {
+			JournaledGame one = journal.create(7, 6, 4, new Player("Alice", 'R'), new Player("Bob", 'G'));
+			JournaledGame two = journal.create(9, 7, 5, new Player("Carol", 'X'), new Player("Dave", 'O'));
+			JournaledGame three = journal.create(7, 6, 4, new Player("Eve", 'R'), new Player("Frank", 'G'));
+			assertEquals(3, journal.size());
+			
+			play(one, 4, 4, 3, 5);
+			one.undo();
+			assertEquals(IBoard.COLUMN_FULL, tryFullColumn(two));
+			two.restart();
+			play(two, 1, 2);
+			play(three, 1);
+			removed = three.getId();
+			assertTrue(journal.remove(removed));
+			assertFalse(journal.remove(removed));
+			play(three, 2);
+			
+			expected.put(one.getId(), record(one));
+			expected.put(two.getId(), record(two));
+		}
+		
+		try (GameJournal journal = new GameJournal(dir)) {
+			assertEquals(2, journal.size());
+			assertNull(journal.get(removed));
+			for (Map.Entry<Long, byte[]> entry : expected.entrySet()) {
+				assertArrayEquals(entry.getValue(), record(journal.get(entry.getKey())));
+			}
+			JournaledGame two = journal.get(2);
+			assertEquals("Carol", two.getPlayerOne().getName());
+			assertEquals('O', two.getPlayerTwo().getDisc());
+			
+			// The recovered games are journaled, and new games get new ids
+			play(two, 3);
+			expected.put(two.getId(), record(two));
+			assertEquals(4, journal.create(7, 6, 4, new Player("Gina", 'R'), new Player("Hal", 'G')).getId());
+		}
+		
+		try (GameJournal journal = new GameJournal(dir)) {
+			assertEquals(3, journal.size());
+			assertArrayEquals(expected.get(2L), record(journal.get(2)));
+		}
+	}
+	
+	/**
+	 * Test that recovery combines a snapshot with the records appended after it, and deletes older files
+	 */
+	@Test
+	public void testSnapshot() throws IOException {
+		Path dir = folder.getRoot().toPath();
+		byte[] expected;
+		try (GameJournal journal = new GameJournal(dir)) {
+			JournaledGame game = journal.create(7, 6, 4, new Player("One", 'R'), new Player("Two", 'G'));
+			play(game, 4, 3, 4);
+			journal.snapshot();
+			play(game, 3, 5);
+			journal.sync();
+			assertEquals(journal.getSequence(), journal.getDurableSequence());
+			expected = record(game);
+			assertEquals(2, countFiles(dir));
+		}
+		
+		try (GameJournal journal = new GameJournal(dir)) {
+			assertArrayEquals(expected, record(journal.get(1)));
+			assertEquals("Opening should replace the files with a new snapshot and segment", 2, countFiles(dir));
+		}
+	}
+	
+	/**
+	 * Test that a game, which is removed while a snapshot is being written, isn't restored
+	 */
+	@Test
+	public void testRemoveDuringSnapshot() throws IOException, InterruptedException {
+		Path dir = folder.getRoot().toPath();
+		byte[] expected;
+		try (GameJournal journal = new GameJournal(dir)) {
+			JournaledGame one = journal.create(7, 6, 4, new Player("One", 'R'), new Player("Two", 'G'));
+			JournaledGame two = journal.create(7, 6, 4, new Player("One", 'R'), new Player("Two", 'G'));
+			play(two, 4, 3);
+			expected = record(two);
+			
+			AtomicReference<IOException> failure = new AtomicReference<>();
+			Thread snapshot = new Thread(() -> {
+				try {
+					journal.snapshot();
+				} catch (IOException e) {
+					failure.set(e);
+				}
+			});
+			// The snapshot waits for the games, and one of them is removed meanwhile
+			synchronized (one) {
+				synchronized (two) {
+					snapshot.start();
+					while (snapshot.getState() != Thread.State.BLOCKED && snapshot.isAlive()) {
+						Thread.yield();
+					}
+					assertTrue(journal.remove(one.getId()));
+				}
+			}
+			snapshot.join();
+			assertNull(failure.get());
+		}
+		
+		try (GameJournal journal = new GameJournal(dir)) {
+			assertNull("Removed game should stay removed", journal.get(1));
+			assertEquals(1, journal.size());
+			assertArrayEquals(expected, record(journal.get(2)));
+		}
+	}
+	
+	/**
+	 * Test that games, whose records couldn't be read back, aren't journaled
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testOversizedGame() throws IOException {
+		try (GameJournal journal = new GameJournal(folder.getRoot().toPath())) {
+			journal.create(BoardFactory.MAX_RECORD_SIZE + 1, 6, 4, new Player("One", 'R'), new Player("Two", 'G'));
+		}
+	}
+	
+	/**
+	 * Test that a block, which has only been written partly before a crash, is discarded
+	 */
+	@Test
+	public void testIncompleteBlock() throws IOException {
+		Path dir = folder.getRoot().toPath();
+		byte[] expected;
+		try (GameJournal journal = new GameJournal(dir, 1)) {
+			JournaledGame game = journal.create(7, 6, 4, new Player("One", 'R'), new Player("Two", 'G'));
+			play(game, 4, 3, 4);
+			expected = record(game);
+		}
+		Path segment;
+		try (Stream<Path> files = Files.list(dir)) {
+			segment = files.filter(file -> file.toString().endsWith(".log")).findFirst().get();
+		}
+		byte[] bytes = Files.readAllBytes(segment);
+		Files.write(segment, new byte[] { 0, 0, 0, 9, 1, 2, 3, 4, 0, 0, 0, 0, 0, 0, 0, 9, 2, 0 }, StandardOpenOption.APPEND);
+		
+		try (GameJournal journal = new GameJournal(dir)) {
+			assertArrayEquals(expected, record(journal.get(1)));
+		}
+		
+		// Blocks, which aren't in the last segment, must be valid
+		Files.write(dir.resolve("journal-9999999999999999.log"), new byte[0]);
+		try (Stream<Path> files = Files.list(dir)) {
+			segment = files.filter(file -> file.toString().endsWith(".log")).sorted().findFirst().get();
+		}
+		bytes[bytes.length - 1] ^= 1;
+		Files.write(segment, bytes);
+		try {
+			new GameJournal(dir).close();
+			assertTrue(false);
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid journal"));
+		}
+	}
+	
+	/**
+	 * Test a crash during the recovery of an incomplete block, after the next segment has been started
+	 */
+	@Test
+	public void testCrashDuringRecovery() throws IOException {
+		Path dir = folder.getRoot().toPath();
+		byte[] expected;
+		try (GameJournal journal = new GameJournal(dir, 1)) {
+			JournaledGame game = journal.create(7, 6, 4, new Player("One", 'R'), new Player("Two", 'G'));
+			play(game, 4, 3, 4);
+			expected = record(game);
+		}
+		Path segment;
+		try (Stream<Path> files = Files.list(dir)) {
+			segment = files.filter(file -> file.toString().endsWith(".log")).findFirst().get();
+		}
+		Files.write(segment, new byte[] { 0, 0, 0, 9, 1, 2, 3, 4, 0, 0, 0, 0, 0, 0, 0, 9, 2, 0 }, StandardOpenOption.APPEND);
+		
+		// The snapshot of the recovery fails after the next segment has been started, like after a crash
+		Path temp = Files.createDirectory(dir.resolve("snapshot.tmp"));
+		try {
+			new GameJournal(dir).close();
+			assertTrue(false);
+		} catch (IOException e) {
+			// Expected
+		}
+		Files.delete(temp);
+		try (Stream<Path> files = Files.list(dir)) {
+			assertEquals(2, files.filter(file -> file.toString().endsWith(".log")).count());
+		}
+		
+		try (GameJournal journal = new GameJournal(dir)) {
+			assertArrayEquals(expected, record(journal.get(1)));
+		}
+	}
+	
+	/**
+	 * Test games played by concurrent threads, while snapshots are taken and the journal is synced
+	 */
+	@Test
+	public void testConcurrentGames() throws IOException, InterruptedException {
+		Path dir = folder.getRoot().toPath();
+		int threads = 4;
+		int gamesPerThread = 50;
+		Map<Long, byte[]> expected = new HashMap<>();
+		try (GameJournal journal = new GameJournal(dir, 256)) {
+			JournaledGame[] games = new JournaledGame[threads * gamesPerThread];
+			for (int i = 0; i < games.length; i++) {
+				games[i] = journal.create(7, 6, 4, new Player("One", 'R'), new Player("Two", 'G'));
+			}
+			Thread[] workers = new Thread[threads];
+			for (int t = 0; t < threads; t++) {
+				int first = t * gamesPerThread;
+				workers[t] = new Thread(() -> {
+					Random random = new Random(first);
+					try {
+						for (int round = 0; round < 20; round++) {
+							for (int i = first; i < first + gamesPerThread; i++) {
+								JournaledGame game = games[i];
+								if (game.isFinished()) {
+									game.restart();
+								}
+								int moves = game.getBoard().getNumberOfDiscs();
+								game.tryInsertDisc(moves % 2 == 0 ? game.getPlayerOne() : game.getPlayerTwo(), random.nextInt(7) + 1);
+							}
+							journal.sync();
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+				workers[t].start();
+			}
+			for (int i = 0; i < 5; i++) {
+				journal.snapshot();
+			}
+			for (Thread worker : workers) {
+				worker.join();
+			}
+			for (JournaledGame game : games) {
+				expected.put(game.getId(), record(game));
+			}
+		}
+		
+		try (GameJournal journal = new GameJournal(dir)) {
+			assertEquals(expected.size(), journal.size());
+			for (Map.Entry<Long, byte[]> entry : expected.entrySet()) {
+				assertArrayEquals(entry.getValue(), record(journal.get(entry.getKey())));
+			}
+		}
+	}
+	
+	/**
+	 * Make moves in a game.
+	 * 
+	 * @param game The game
+	 * @param cols The columns of the moves
+	 */
+	private static void play(final JournaledGame game, final int... cols) {
+		for (int col : cols) {
+			int moves = game.getBoard().getNumberOfDiscs();
+			assertTrue(game.tryInsertDisc(moves % 2 == 0 ? game.getPlayerOne() : game.getPlayerTwo(), col) >= 0);
+		}
+	}
+	
+	/**
+	 * Fill the first column of a game.
+	 * 
+	 * @param game The game
+	 * @return The status of the move into the full column
+	 */
+	private static int tryFullColumn(final JournaledGame game) {
+		for (int row = 1; row <= game.getBoard().getRows(); row++) {
+			game.tryInsertDisc(row % 2 == 1 ? game.getPlayerOne() : game.getPlayerTwo(), 1);
+		}
+		return game.tryInsertDisc(game.getPlayerOne(), 1);
+	}
+	
+	/**
+	 * Get the record of a game.
+	 * 
+	 * @param game The game
+	 * @return The record written by {@link IConnect4#write(java.io.DataOutput)}
+	 */
+	private static byte[] record(final IConnect4 game) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		game.write(new DataOutputStream(bytes));
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * Count the files in a directory.
+	 * 
+	 * @param dir The directory
+	 * @return The number of files
+	 */
+	private static long countFiles(final Path dir) throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.count();
+		}
+	}
+
+}
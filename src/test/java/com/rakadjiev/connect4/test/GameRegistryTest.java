@@ -0,0 +1,164 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.impl.Player;
+import com.rakadjiev.connect4.server.GameRegistry;
+
+public class GameRegistryTest {
+	
+	IPlayer playerOne = new Player("One", 'R');
+	IPlayer playerTwo = new Player("Two", 'G');
+	AtomicLong clock = new AtomicLong();
+	
+	/**
+	 * Test registering, playing and removing games
+	 */
+	@Test
+	public void testRegistry() {
+		GameRegistry registry = new GameRegistry(5, 1000, clock::get);
+		assertEquals(8, registry.getShards());
+		long one = registry.register(new Connect4(playerOne, playerTwo));
+		long two = registry.register(new Connect4(playerOne, playerTwo));
+		assertTrue(one != two);
+		assertEquals(2, registry.size());
+		assertTrue(registry.contains(one));
+		
+		assertEquals(IConnect4.PLAYED, registry.tryInsertDisc(one, playerOne, 4));
+		assertEquals(IConnect4.INVALID_PLAYER, registry.tryInsertDisc(one, new Player("Three", 'R'), 4));
+		assertEquals(1, (int) registry.withGame(one, game -> game.getBoard().getNumberOfDiscs()));
+		assertEquals(0, (int) registry.withGame(two, game -> game.getBoard().getNumberOfDiscs()));
+		
+		assertTrue(registry.remove(one));
+		assertFalse(registry.remove(one));
+		assertFalse(registry.contains(one));
+		assertEquals(GameRegistry.UNKNOWN_GAME, registry.tryInsertDisc(one, playerTwo, 4));
+		assertEquals(1, registry.size());
+		try {
+			registry.withGame(one, game -> null);
+			assertTrue(false);
+		} catch (IllegalArgumentException e) {
+			assertEquals("Unknown game: " + one + ".", e.getMessage());
+		}
+	}
+	
+	/**
+	 * Test the eviction of idle and finished games
+	 */
+	@Test
+	public void testEviction() {
+		GameRegistry registry = new GameRegistry(4, 1000, clock::get);
+		long idle = registry.register(new Connect4(playerOne, playerTwo));
+		long active = registry.register(new Connect4(playerOne, playerTwo));
+		long finished = registry.register(new Connect4(7, 6, 1, playerOne, playerTwo));
+		assertEquals(IConnect4.WON, registry.tryInsertDisc(finished, playerOne, 1));
+		
+		clock.set(600);
+		assertEquals(IConnect4.PLAYED, registry.tryInsertDisc(active, playerOne, 1));
+		assertEquals(1, registry.evict());
+		assertFalse(registry.contains(finished));
+		
+		clock.set(1000);
+		assertEquals(1, registry.evict());
+		assertFalse(registry.contains(idle));
+		assertTrue(registry.contains(active));
+		
+		clock.set(1600);
+		assertEquals(1, registry.evict());
+		assertEquals(0, registry.size());
+	}
+	
+	/**
+	 * Test actions, which use the registry themselves, also while an eviction waits for their game
+	 */
+	@Test
+	public void testReentrantActions() throws InterruptedException {
+		GameRegistry registry = new GameRegistry(1, 1000, clock::get);
+		long one = registry.register(new Connect4(playerOne, playerTwo));
+		assertTrue(registry.withGame(one, game -> registry.remove(one)));
+		assertFalse(registry.contains(one));
+		
+		long two = registry.register(new Connect4(playerOne, playerTwo));
+		long three = registry.register(new Connect4(playerOne, playerTwo));
+		AtomicInteger evicted = new AtomicInteger();
+		List<IConnect4> games = new ArrayList<>();
+		Thread evictor = new Thread(() -> evicted.set(registry.evict(games::add)));
+		boolean found = registry.withGame(two, game -> {
+			clock.set(1000);
+			evictor.start();
+			while (evictor.getState() != Thread.State.BLOCKED && evictor.isAlive()) {
+				Thread.yield();
+			}
+			// The evictor waits for this game, but doesn't hold the lock of the shard
+			return registry.contains(three);
+		});
+		evictor.join(10_000);
+		assertFalse("Eviction should finish", evictor.isAlive());
+		assertTrue(found);
+		assertEquals(2, evicted.get());
+		assertEquals(2, games.size());
+		assertEquals(0, registry.size());
+	}
+	
+	/**
+	 * Test that moves of concurrent threads on the same game are applied one at a time
+	 */
+	@Test
+	public void testConcurrentMoves() throws InterruptedException {
+		GameRegistry registry = new GameRegistry(1000);
+		long id = registry.register(new Connect4(7, 6, 100, playerOne, playerTwo));
+		AtomicInteger played = new AtomicInteger();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			IPlayer player = i % 2 == 0 ? playerOne : playerTwo;
+			threads[i] = new Thread(() -> {
+				for (int col = 1; !registry.withGame(id, IConnect4::isFinished); col = col % 7 + 1) {
+					if (registry.tryInsertDisc(id, player, col) == IConnect4.PLAYED) {
+						played.incrementAndGet();
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(42, played.get());
+		assertEquals(42, (int) registry.withGame(id, game -> game.getBoard().getNumberOfDiscs()));
+	}
+	
+	/**
+	 * Test a large number of games, removed in a different order than registered
+	 */
+	@Test
+	public void testManyGames() {
+		GameRegistry registry = new GameRegistry(16, 1000, clock::get);
+		long[] ids = new long[20000];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = registry.register(new Connect4(playerOne, playerTwo));
+		}
+		assertEquals(ids.length, registry.size());
+		for (int i = 0; i < ids.length; i += 3) {
+			assertTrue(registry.remove(ids[i]));
+		}
+		for (int i = 0; i < ids.length; i++) {
+			assertEquals(i % 3 != 0, registry.contains(ids[i]));
+		}
+		clock.set(1000);
+		assertEquals(ids.length - (ids.length + 2) / 3, registry.evict());
+		assertEquals(0, registry.size());
+	}
+
+}
@@ -0,0 +1,294 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.impl.Player;
+import com.rakadjiev.connect4.server.GameServer;
+
+public class GameServerTest {
+	
+	GameServer server;
+	
+	@Before
+	public void setUp() throws IOException {
+		server = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 42);
+		server.start();
+	}
+	
+	@After
+	public void tearDown() {
+		server.close();
+	}
+	
+	/**
+	 * Test a game between two clients, including invalid moves and the game record
+	 */
+	@Test
+	public void testTwoClients() throws IOException {
+		try (Client one = new Client(); Client two = new Client()) {
+			one.send("NEW");
+			assertEquals("GAME 1 R 7 6 4", one.receive());
+			
+			two.send("JOIN 1");
+			assertEquals("GAME 1 G 7 6 4", two.receive());
+			assertEquals("START", one.receive());
+			assertEquals("START", two.receive());
+			
+			two.send("MOVE 1");
+			assertTrue(two.receive().startsWith("ERROR It's not your turn"));
+			one.send("MOVE 8");
+			assertTrue(one.receive().startsWith("ERROR Invalid column: '8'"));
+			one.send("FOO");
+			assertEquals("ERROR Unknown command: 'FOO'.", one.receive());
+			
+			for (int i = 0; i < 3; i++) {
+				one.send("MOVE 1");
+				assertEquals("MOVED R 1", one.receive());
+				assertEquals("MOVED R 1", two.receive());
+				two.send("MOVE 2");
+				assertEquals("MOVED G 2", one.receive());
+				assertEquals("MOVED G 2", two.receive());
+			}
+			
+			one.send("STATE");
+			String state = one.receive();
+			assertTrue(state.startsWith("STATE "));
+			byte[] record = Base64.getDecoder().decode(state.substring("STATE ".length()));
+			Connect4 copy = Connect4.readGame(new DataInputStream(new ByteArrayInputStream(record)), new Player("RED", 'R'), new Player("GREEN", 'G'));
+			assertEquals("Game record should contain all moves", 6, copy.getBoard().getNumberOfDiscs());
+			
+			one.send("MOVE 1");
+			assertEquals("MOVED R 1", one.receive());
+			assertEquals("WIN R", one.receive());
+			assertEquals("MOVED R 1", two.receive());
+			assertEquals("WIN R", two.receive());
+			
+			one.send("MOVE 3");
+			assertTrue("Finished game should not accept moves", one.receive().startsWith("ERROR"));
+		}
+	}
+	
+	/**
+	 * Test that many clients can play against bots on variant boards at the same time
+	 */
+	@Test
+	public void testBots() throws IOException {
+		Client[] clients = new Client[50];
+		try {
+			for (int i = 0; i < clients.length; i++) {
+				clients[i] = new Client();
+				clients[i].send("NEW 9 7 5 heuristic");
+			}
+			for (Client client : clients) {
+				assertTrue(client.receive().matches("GAME \\d+ R 9 7 5"));
+				assertEquals("START", client.receive());
+			}
+			
+			// Every client plays the leftmost column, which isn't full, until its game ends
+			int finished = 0;
+			int[] heights = new int[clients.length * 9];
+			boolean[] done = new boolean[clients.length];
+			while (finished < clients.length) {
+				for (int i = 0; i < clients.length; i++) {
+					if (done[i]) {
+						continue;
+					}
+					int col = 1;
+					while (heights[i * 9 + col - 1] == 7) {
+						col++;
+					}
+					clients[i].send("MOVE " + col);
+					
+					// Read the client's move and the bot's reply
+					for (int moves = 0; moves < 2 && !done[i]; ) {
+						String line = clients[i].receive();
+						if (line.startsWith("MOVED ")) {
+							heights[i * 9 + Integer.parseInt(line.substring(8)) - 1]++;
+							moves++;
+						} else {
+							assertTrue("Unexpected reply: " + line, line.equals("TIE") || line.startsWith("WIN "));
+							done[i] = true;
+							finished++;
+						}
+					}
+				}
+			}
+			assertEquals("Finished games should be removed", 0, server.getGames());
+		} finally {
+			for (Client client : clients) {
+				if (client != null) {
+					client.close();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Test that the opponent is notified, if a client leaves the game
+	 */
+	@Test
+	public void testLeave() throws IOException {
+		try (Client one = new Client(); Client two = new Client()) {
+			one.send("NEW 6 5 4");
+			assertEquals("GAME 1 R 6 5 4", one.receive());
+			two.send("JOIN 1");
+			two.receive();
+			one.receive();
+			two.receive();
+			
+			one.send("QUIT");
+			assertEquals("LEFT", two.receive());
+			two.send("NEW heuristic");
+			assertEquals("Client should be able to start another game after the opponent left", "GAME 2 R 7 6 4", two.receive());
+		}
+	}
+	
+	/**
+	 * Test that games, which aren't played, expire
+	 */
+	@Test
+	public void testExpiry() throws IOException {
+		try (GameServer expiring = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 42, 200)) {
+			expiring.start();
+			try (Client one = new Client(expiring); Client two = new Client(expiring)) {
+				one.send("NEW");
+				assertEquals("GAME 1 R 7 6 4", one.receive());
+				assertEquals("Game should expire, if nobody joins it", "EXPIRED", one.receive());
+				assertEquals(0, expiring.getGames());
+				two.send("JOIN 1");
+				assertEquals("ERROR Unknown game: '1'.", two.receive());
+				
+				one.send("NEW heuristic");
+				assertEquals("Client should be able to start another game after the game expired", "GAME 2 R 7 6 4", one.receive());
+				assertEquals("START", one.receive());
+				one.send("MOVE 4");
+				assertEquals("MOVED R 4", one.receive());
+				assertTrue(one.receive().startsWith("MOVED G "));
+				assertEquals("EXPIRED", one.receive());
+			}
+		}
+	}
+	
+	/**
+	 * Test that boards beyond the limit and search strategies for bots are rejected, and that the record of the largest board fits into the output
+	 */
+	@Test
+	public void testBoardLimit() throws IOException {
+		try (Client one = new Client()) {
+			one.send("NEW 40000 40000 4");
+			assertTrue(one.receive().startsWith("ERROR Invalid board: 40000x40000."));
+			one.send("NEW 7 6 65");
+			assertTrue(one.receive().startsWith("ERROR Invalid number of discs to win: 65."));
+			one.send("NEW 0 6 4");
+			assertTrue(one.receive().startsWith("ERROR Invalid board: 0x6."));
+			one.send("NEW mcts");
+			assertTrue(one.receive().startsWith("ERROR Unknown bot strategy: 'mcts'."));
+			one.send("NEW 9 7 5 solver");
+			assertTrue(one.receive().startsWith("ERROR Unknown bot strategy: 'solver'."));
+			
+			int size = GameServer.MAX_BOARD_SIZE;
+			one.send("NEW " + size + " " + size + " " + size + " random");
+			assertEquals("Server should still accept games after rejecting a board", "GAME 1 R " + size + " " + size + " " + size, one.receive());
+			assertEquals("START", one.receive());
+			// Fill the board almost completely, skipping full columns
+			int moves = 0;
+			for (int col = 1; moves < size * size - size; col = col % size + 1) {
+				one.send("MOVE " + col);
+				String reply = one.receive();
+				if (!reply.startsWith("ERROR")) {
+					assertEquals("MOVED R " + col, reply);
+					assertTrue(one.receive().startsWith("MOVED G "));
+					moves += 2;
+				}
+			}
+			one.send("STATE");
+			String state = one.receive();
+			assertTrue(state.startsWith("STATE "));
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(state.substring(6))));
+			Connect4 game = new Connect4(size, size, size, new Player("One", 'R'), new Player("Two", 'G'));
+			game.read(in);
+			assertEquals(moves, game.getBoard().getNumberOfDiscs());
+		}
+	}
+	
+	/**
+	 * A client, which connects to the server over loopback.
+	 */
+	private class Client implements AutoCloseable {
+		
+		/** The connection */
+		private final Socket socket;
+		/** The lines received */
+		private final BufferedReader in;
+		/** The lines to send */
+		private final OutputStream out;
+		
+		/**
+		 * Connect to the server.
+		 * 
+		 * @throws IOException If the connection fails
+		 */
+		Client() throws IOException {
+			this(server);
+		}
+		
+		/**
+		 * Connect to a server.
+		 * 
+		 * @param server The server
+		 * @throws IOException If the connection fails
+		 */
+		Client(final GameServer server) throws IOException {
+			socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+			socket.setSoTimeout(10_000);
+			in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			out = socket.getOutputStream();
+		}
+		
+		/**
+		 * Send a command.
+		 * 
+		 * @param line The command
+		 * @throws IOException If sending fails
+		 */
+		void send(final String line) throws IOException {
+			out.write((line + "\n").getBytes(StandardCharsets.US_ASCII));
+			out.flush();
+		}
+		
+		/**
+		 * Receive a reply.
+		 * 
+		 * @return The reply
+		 * @throws IOException If receiving fails, or times out
+		 */
+		String receive() throws IOException {
+			return in.readLine();
+		}
+		
+		@Override
+		public void close() throws IOException {
+			socket.close();
+		}
+		
+	}
+	
+}
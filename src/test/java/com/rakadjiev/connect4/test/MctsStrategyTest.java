@@ -0,0 +1,145 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.impl.Player;
+import com.rakadjiev.connect4.mcts.MctsStrategy;
+import com.rakadjiev.connect4.simulation.HeuristicStrategy;
+import com.rakadjiev.connect4.simulation.RandomStrategy;
+
+public class MctsStrategyTest {
+	
+	IConnect4 game;
+	IBoard board;
+	IPlayer playerOne;
+	IPlayer playerTwo;
+	SplittableRandom random;
+	
+	@Before
+	public void setUp() {
+		playerOne = new Player("RED", 'R');
+		playerTwo = new Player("GREEN", 'G');
+		game = new Connect4(playerOne, playerTwo);
+		board = game.getBoard();
+		random = new SplittableRandom(0);
+	}
+	
+	/**
+	 * Play the specified columns, alternating between the players, starting with player one.
+	 * 
+	 * @param cols The columns (1-based index)
+	 */
+	private void play(final int... cols) throws InvalidInsertException {
+		for (int i = 0; i < cols.length; i++) {
+			game.insertDisc(i % 2 == 0 ? playerOne : playerTwo, cols[i]);
+		}
+	}
+	
+	/**
+	 * Test that the strategy wins if possible, blocks the opponent's win, and leaves the board unchanged
+	 */
+	@Test
+	public void testWinAndBlock() throws InvalidInsertException {
+		MctsStrategy strategy = new MctsStrategy(2_000, 0);
+		play(1, 1, 2, 2, 3);
+		String before = board.toString();
+		assertEquals("MCTS strategy should block the opponent's win", 4, strategy.chooseMove(game, playerTwo, playerOne, random));
+		assertEquals("Choosing a move should not change the board", before, board.toString());
+		assertEquals("All iterations of the budget should run", 2_000, strategy.getIterations());
+		
+		play(6);
+		assertEquals("MCTS strategy should win", 4, strategy.chooseMove(game, playerOne, playerTwo, random));
+	}
+	
+	/**
+	 * Test that the subtree of the position after the opponent's reply is kept for the next move
+	 */
+	@Test
+	public void testTreeReuse() throws InvalidInsertException {
+		MctsStrategy strategy = new MctsStrategy(5_000, 0);
+		int col = strategy.chooseMove(game, playerOne, playerTwo, random);
+		assertEquals("First move should not reuse a tree", 0, strategy.getReusedVisits());
+		game.insertDisc(playerOne, col);
+		game.insertDisc(playerTwo, col);
+		
+		strategy.chooseMove(game, playerOne, playerTwo, random);
+		assertTrue("Second move should reuse the playouts of the reply", strategy.getReusedVisits() > 0);
+		
+		// Another game doesn't continue the previous one
+		game.restart();
+		strategy.chooseMove(game, playerOne, playerTwo, random);
+		assertEquals(0, strategy.getReusedVisits());
+	}
+	
+	/**
+	 * Test that the tree doesn't grow beyond its memory, and the search goes on when it is full
+	 */
+	@Test
+	public void testMemoryLimit() {
+		MctsStrategy strategy = new MctsStrategy(MctsStrategy.DEFAULT_EXPLORATION, RandomStrategy::new, 5_000, 0, 64 * 1024, 1);
+		int col = strategy.chooseMove(game, playerOne, playerTwo, random);
+		assertTrue(board.canPlay(col));
+		assertTrue("Tree should not exceed its capacity", strategy.getTreeSize() <= strategy.getTreeCapacity());
+		assertTrue("Capacity should fit into the memory", strategy.getTreeCapacity() < 64 * 1024 / 16);
+		assertEquals(5_000, strategy.getIterations());
+	}
+	
+	/**
+	 * Test that the tree grows beyond the initial size of the arena while several threads search it
+	 */
+	@Test
+	public void testTreeGrows() {
+		MctsStrategy strategy = new MctsStrategy(MctsStrategy.DEFAULT_EXPLORATION, RandomStrategy::new, 20_000, 0, MctsStrategy.DEFAULT_MAX_BYTES, 4);
+		int col = strategy.chooseMove(game, playerOne, playerTwo, random);
+		assertTrue(board.canPlay(col));
+		assertTrue("Tree should have grown: " + strategy.getTreeSize(), strategy.getTreeSize() > 4 * 1024);
+		assertTrue(strategy.getTreeSize() <= strategy.getTreeCapacity());
+		assertEquals(20_000, strategy.getIterations());
+	}
+	
+	/**
+	 * Test that several threads run the budget together, and still find the winning move
+	 */
+	@Test
+	public void testThreads() throws InvalidInsertException {
+		MctsStrategy strategy = new MctsStrategy(MctsStrategy.DEFAULT_EXPLORATION, HeuristicStrategy::new, 2_000, 0, MctsStrategy.DEFAULT_MAX_BYTES, 3);
+		assertEquals(3, strategy.getThreads());
+		play(1, 1, 2, 2, 3, 3);
+		assertEquals("MCTS strategy should win", 4, strategy.chooseMove(game, playerOne, playerTwo, random));
+		assertEquals(2_000, strategy.getIterations());
+	}
+	
+	/**
+	 * Test that boards and rules, which the solver doesn't support, can be played to the end
+	 */
+	@Test
+	public void testVariant() throws InvalidInsertException {
+		game = new Connect4(9, 7, 5, playerOne, playerTwo);
+		MctsStrategy strategy = new MctsStrategy(200, 0);
+		IPlayer current = playerOne;
+		while (!game.isFinished()) {
+			game.insertDisc(current, strategy.chooseMove(game, current, current == playerOne ? playerTwo : playerOne, random));
+			current = current == playerOne ? playerTwo : playerOne;
+		}
+	}
+	
+	/**
+	 * Test that an unlimited budget is rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnlimitedBudget() {
+		new MctsStrategy(0, 0);
+	}
+	
+}
@@ -0,0 +1,166 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IMetrics;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.impl.Player;
+import com.rakadjiev.connect4.metrics.LogHistogram;
+import com.rakadjiev.connect4.metrics.Metrics;
+import com.rakadjiev.connect4.metrics.MetricsRegistry;
+import com.rakadjiev.connect4.metrics.NoMetrics;
+import com.rakadjiev.connect4.solver.Solver;
+
+public class MetricsTest {
+	
+	IPlayer playerOne = new Player("One", 'R');
+	IPlayer playerTwo = new Player("Two", 'G');
+	
+	@After
+	public void resetMetrics() {
+		Metrics.set(NoMetrics.INSTANCE);
+	}
+	
+	/**
+	 * Test that each value is counted in a bucket, whose largest value is at most 1/32 above it
+	 */
+	@Test
+	public void testBuckets() {
+		long[] values = { 0, 1, 31, 32, 33, 63, 64, 65, 1000, 123456789, Long.MAX_VALUE / 3, Long.MAX_VALUE };
+		for (long value : values) {
+			int bucket = LogHistogram.getBucket(value);
+			assertTrue(bucket >= 0 && bucket < LogHistogram.BUCKETS);
+			long highest = LogHistogram.getHighestValue(bucket);
+			assertTrue(value + " in bucket up to " + highest, highest >= value);
+			assertTrue(value + " in bucket up to " + highest, highest - value <= value / LogHistogram.SUB_BUCKETS);
+			if (bucket > 0) {
+				assertTrue(LogHistogram.getHighestValue(bucket - 1) < value);
+			}
+		}
+	}
+	
+	/**
+	 * Test the count, mean, maximum and percentiles of a histogram
+	 */
+	@Test
+	public void testHistogram() {
+		LogHistogram histogram = new LogHistogram();
+		assertEquals(0, histogram.getValueAtPercentile(50));
+		for (int value = 1; value <= 100000; value++) {
+			histogram.record(value);
+		}
+		histogram.record(-5);
+		assertEquals(100001, histogram.getCount());
+		assertEquals(100000, histogram.getMax());
+		assertEquals(50000.0, histogram.getMean(), 1);
+		long[][] percentiles = { { 50, 50000 }, { 90, 90000 }, { 99, 99000 } };
+		for (long[] percentile : percentiles) {
+			long value = histogram.getValueAtPercentile(percentile[0]);
+			assertTrue(percentile[0] + "th percentile: " + value, value >= percentile[1] && value <= percentile[1] + percentile[1] / LogHistogram.SUB_BUCKETS);
+		}
+		assertEquals(100000, histogram.getValueAtPercentile(100));
+		assertEquals(0, histogram.getValueAtPercentile(0));
+	}
+	
+	/**
+	 * Test that counters and histograms don't lose values recorded by concurrent threads
+	 */
+	@Test
+	public void testConcurrentRecording() throws InterruptedException {
+		MetricsRegistry registry = new MetricsRegistry();
+		IMetrics.Counter counter = registry.counter("test.counter");
+		IMetrics.Histogram histogram = registry.histogram("test.histogram");
+		int threads = 4;
+		int values = 100000;
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			workers[t] = new Thread(() -> {
+				for (int i = 0; i < values; i++) {
+					counter.increment();
+					histogram.record(i);
+				}
+			});
+			workers[t].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		assertEquals(threads * values, counter.get());
+		assertEquals(threads * values, histogram.getCount());
+		assertEquals(values - 1, histogram.getMax());
+	}
+	
+	/**
+	 * Test that metrics are shared by name, can't change their kind, and are reported in the order of their names
+	 */
+	@Test
+	public void testRegistry() {
+		MetricsRegistry registry = new MetricsRegistry();
+		assertSame(registry.counter("b.counter"), registry.counter("b.counter"));
+		assertSame(registry.histogram("a.histogram"), registry.histogram("a.histogram"));
+		try {
+			registry.histogram("b.counter");
+			assertTrue(false);
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().startsWith("Invalid metric"));
+		}
+		
+		AtomicLong value = new AtomicLong(7);
+		registry.gauge("c.gauge", value::get);
+		registry.counter("b.counter").add(3);
+		registry.histogram("a.histogram").record(5);
+		value.set(8);
+		
+		String[] lines = registry.report().split("\n");
+		assertEquals(3, lines.length);
+		assertTrue(lines[0], lines[0].startsWith("a.histogram count=1 "));
+		assertTrue(lines[0], lines[0].endsWith(" max=5"));
+		assertEquals("b.counter 3", lines[1]);
+		assertEquals("c.gauge 8", lines[2]);
+	}
+	
+	/**
+	 * Test that games and solvers report to the registry, which was set when they were created
+	 */
+	@Test
+	public void testInstrumentation() {
+		MetricsRegistry registry = new MetricsRegistry();
+		Metrics.set(registry);
+		
+		IConnect4 game = new Connect4(playerOne, playerTwo);
+		int moves = 0;
+		for (int i = 0; i < Connect4.TIMER_SAMPLE_INTERVAL * 2; i++) {
+			if (game.isFinished()) {
+				game.restart();
+			}
+			assertTrue(game.tryInsertDisc(moves % 2 == 0 ? playerOne : playerTwo, i % 7 + 1) >= 0);
+			moves++;
+		}
+		game.restart();
+		assertEquals(IBoard.INVALID_COLUMN, game.tryInsertDisc(playerOne, 0));
+		assertEquals(moves, registry.counter("connect4.moves").get());
+		assertEquals(1, registry.counter("connect4.illegalMoves").get());
+		assertEquals(moves / Connect4.TIMER_SAMPLE_INTERVAL, registry.histogram("connect4.insertNanos").getCount(), 1);
+		
+		new Solver(10000, 0).solve(new Connect4(playerOne, playerTwo), playerOne);
+		assertTrue(registry.counter("solver.nodes").get() > 0);
+		assertTrue(registry.counter("solver.tableProbes").get() >= registry.counter("solver.tableHits").get());
+		assertEquals(1, registry.histogram("solver.solveNanos").getCount());
+		
+		// Components created afterwards don't report anymore
+		Metrics.set(NoMetrics.INSTANCE);
+		new Connect4(playerOne, playerTwo).tryInsertDisc(playerOne, 1);
+		assertEquals(moves, registry.counter("connect4.moves").get());
+	}
+
+}
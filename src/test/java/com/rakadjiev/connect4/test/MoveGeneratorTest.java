@@ -0,0 +1,93 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.impl.BitBoard;
+import com.rakadjiev.connect4.impl.Board;
+import com.rakadjiev.connect4.simulation.MoveGenerator;
+
+public class MoveGeneratorTest {
+	
+	/**
+	 * Test that the columns are ordered around the center, for odd and even numbers of columns
+	 */
+	@Test
+	public void testCenterOrder() {
+		assertArrayEquals(new int[] {4, 3, 5, 2, 6, 1, 7}, centerOrder(new MoveGenerator(7)));
+		assertArrayEquals(new int[] {3, 4, 2, 5, 1, 6}, centerOrder(new MoveGenerator(6)));
+		assertArrayEquals(new int[] {1}, centerOrder(new MoveGenerator(1)));
+	}
+	
+	/**
+	 * Test that a generator without columns is rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoColumns() {
+		new MoveGenerator(0);
+	}
+	
+	/**
+	 * Test that full columns are skipped
+	 */
+	@Test
+	public void testCenterFirst() throws InvalidInsertException {
+		IBoard board = new BitBoard();
+		for (int j = 0; j < board.getRows(); j++) {
+			board.insertDisc(j % 2 == 0 ? 'R' : 'G', 4);
+			board.insertDisc(j % 2 == 0 ? 'G' : 'R', 1);
+		}
+		
+		int[] moves = new int[board.getCols()];
+		int count = new MoveGenerator(board.getCols()).centerFirst(board, moves);
+		assertArrayEquals(new int[] {3, 5, 2, 6, 7}, Arrays.copyOf(moves, count));
+	}
+	
+	/**
+	 * Test that winning moves come first, then blocking moves, then the others center first
+	 */
+	@Test
+	public void testThreatsFirst() throws InvalidInsertException {
+		IBoard board = new Board();
+		// Red threatens to win in column 1, green in columns 2 and 6
+		for (int j = 0; j < 3; j++) {
+			board.insertDisc('R', 1);
+		}
+		board.insertDisc('G', 3);
+		board.insertDisc('G', 4);
+		board.insertDisc('G', 5);
+		
+		MoveGenerator generator = new MoveGenerator(board.getCols());
+		int[] moves = new int[board.getCols()];
+		long key = board.getKey();
+		
+		int count = generator.threatsFirst(board, 'R', 'G', 4, moves);
+		assertArrayEquals(new int[] {1, 2, 6, 4}, Arrays.copyOf(moves, 4));
+		assertEquals(board.getCols(), count);
+		assertEquals("Generating moves should not change the board", key, board.getKey());
+		
+		count = generator.threatsFirst(board, 'G', 'R', 4, moves);
+		assertArrayEquals("Wins should come before blocks", new int[] {2, 6, 1, 4}, Arrays.copyOf(moves, 4));
+	}
+	
+	/**
+	 * Get the center-first order of a generator.
+	 * 
+	 * @param generator The generator
+	 * @return The columns, center first
+	 */
+	private static int[] centerOrder(final MoveGenerator generator) {
+		int[] order = new int[generator.getCols()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = generator.getCenterOrder(i);
+		}
+		return order;
+	}
+	
+}
@@ -0,0 +1,95 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.exceptions.InvalidRemoveException;
+import com.rakadjiev.connect4.impl.BitBoard;
+import com.rakadjiev.connect4.impl.Board;
+import com.rakadjiev.connect4.impl.BoardFactory;
+import com.rakadjiev.connect4.impl.MultiBitBoard;
+
+public class MultiBitBoardTest {
+	
+	/**
+	 * Test that connected discs, keys and removals are the same as for {@link Board} for random games on boards of various sizes
+	 */
+	@Test
+	public void testRandom() throws InvalidInsertException, InvalidRemoveException {
+		Random random = new Random(7);
+		int[][] sizes = {{9, 7}, {1, 70}, {70, 1}, {12, 10}, {7, 6}};
+		
+		for (int[] size : sizes) {
+			IBoard board = new MultiBitBoard(size[0], size[1]);
+			IBoard reference = new Board(size[0], size[1]);
+			
+			for (int game = 0; game < 20; game++) {
+				board.reset();
+				reference.reset();
+				while (!board.isFull()) {
+					int col = random.nextInt(board.getCols()) + 1;
+					if (board.isPopulated(col, board.getRows())) {
+						continue;
+					}
+					char disc = random.nextBoolean() ? 'R' : 'G';
+					int row = board.insertDisc(disc, col);
+					assertEquals(reference.insertDisc(disc, col), row);
+					for (int discs = 1; discs <= 6; discs++) {
+						assertEquals("Bitset board should find the same sequences as the reference board",
+								reference.isConnected(col, row, discs), board.isConnected(col, row, discs));
+					}
+				}
+				assertEquals("Key should be the same as the one of the reference board", reference.getKey(), board.getKey());
+				assertEquals("Board should be equal to the reference board", reference, board);
+				assertEquals("Reference board should be equal to the board", board, reference);
+				assertEquals(reference.toString(), board.toString());
+				
+				// Take back some discs
+				for (int col = 1; col <= board.getCols(); col++) {
+					assertEquals(reference.removeDisc(col), board.removeDisc(col));
+				}
+				assertEquals("Board should be equal to the reference board after removing discs", reference, board);
+			}
+		}
+	}
+	
+	/**
+	 * Test that a too large board is rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooLarge() {
+		new MultiBitBoard(MultiBitBoard.MAX_BITS, 1);
+	}
+	
+	/**
+	 * Test that the factory picks the fastest implementation, which fits the board
+	 */
+	@Test
+	public void testFactory() {
+		assertTrue(BoardFactory.createBoard() instanceof BitBoard);
+		assertTrue(BoardFactory.createBoard(8, 7) instanceof BitBoard);
+		assertTrue(BoardFactory.createBoard(9, 7) instanceof MultiBitBoard);
+		assertTrue(BoardFactory.createBoard(MultiBitBoard.MAX_BITS, 1) instanceof Board);
+		
+		IBoard board = BoardFactory.createBoard(9, 7);
+		assertEquals(9, board.getCols());
+		assertEquals(7, board.getRows());
+		assertFalse(board.isFull());
+	}
+	
+	/**
+	 * Test that boards without columns or rows are rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testFactoryInvalidSize() {
+		BoardFactory.createBoard(0, 6);
+	}
+
+}
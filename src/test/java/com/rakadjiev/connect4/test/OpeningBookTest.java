@@ -0,0 +1,135 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.rakadjiev.connect4.book.OpeningBook;
+import com.rakadjiev.connect4.book.OpeningBookGenerator;
+import com.rakadjiev.connect4.solver.Position;
+import com.rakadjiev.connect4.solver.Solver;
+import com.rakadjiev.connect4.solver.SolverResult;
+
+public class OpeningBookTest {
+	
+	/** The board size and maximum number of moves of the test book, which is quick to generate */
+	private static final int COLS = 5;
+	private static final int ROWS = 4;
+	private static final int MAX_MOVES = 6;
+	
+	@ClassRule
+	public static TemporaryFolder folder = new TemporaryFolder();
+	
+	static Path file;
+	static int count;
+	
+	@BeforeClass
+	public static void generate() throws IOException {
+		file = folder.newFile("book.bin").toPath();
+		count = new OpeningBookGenerator(new Solver()).generate(COLS, ROWS, MAX_MOVES, file);
+	}
+	
+	/**
+	 * Test that the book contains the solver's scores of all positions up to its maximum number of moves
+	 */
+	@Test
+	public void testScores() throws IOException {
+		OpeningBook book = new OpeningBook(file);
+		assertEquals(count, book.size());
+		assertEquals(COLS, book.getCols());
+		assertEquals(ROWS, book.getRows());
+		assertEquals(MAX_MOVES, book.getMaxMoves());
+		assertEquals("File should consist of the header and 8 bytes per position", OpeningBook.HEADER_BYTES + 8L * count, Files.size(file));
+		
+		Solver solver = new Solver();
+		Random random = new Random(3);
+		for (int i = 0; i < 100; i++) {
+			Position position = new Position(COLS, ROWS);
+			Position mirror = new Position(COLS, ROWS);
+			int moves = random.nextInt(MAX_MOVES + 1);
+			for (int j = 0; j < moves; j++) {
+				int col = random.nextInt(COLS) + 1;
+				position.play(col);
+				mirror.play(COLS + 1 - col);
+			}
+			
+			int score = book.getScore(position);
+			assertEquals("Book should contain the solver's score", solver.solve(position).getScore(), score);
+			
+			assertEquals("Mirrored positions should have the same score", score, book.getScore(mirror));
+		}
+		
+		Position deep = new Position(COLS, ROWS);
+		for (int j = 0; j <= MAX_MOVES; j++) {
+			deep.play(1 + j % 2);
+		}
+		assertEquals("Positions with more moves should not be in the book", OpeningBook.NOT_FOUND, book.getScore(deep));
+		assertEquals("Positions of other board sizes should not be in the book", OpeningBook.NOT_FOUND, book.getScore(new Position(7, 6)));
+	}
+	
+	/**
+	 * Test that mirrored positions have the same canonical key
+	 */
+	@Test
+	public void testCanonicalKey() {
+		Position position = new Position(COLS, ROWS);
+		position.play(1);
+		position.play(2);
+		Position mirror = new Position(COLS, ROWS);
+		mirror.play(COLS);
+		mirror.play(COLS - 1);
+		
+		assertTrue(position.getKey() != mirror.getKey());
+		assertEquals(position.getCanonicalKey(), mirror.getCanonicalKey());
+	}
+	
+	/**
+	 * Test that a solver with a book finds the same results without searching book positions
+	 */
+	@Test
+	public void testSolverWithBook() throws IOException {
+		Solver solver = new Solver();
+		Solver bookSolver = new Solver();
+		bookSolver.setOpeningBook(new OpeningBook(file));
+		
+		Position position = new Position(COLS, ROWS);
+		position.play(3);
+		SolverResult expected = solver.solve(position);
+		SolverResult result = bookSolver.solve(position);
+		assertEquals(expected.getScore(), result.getScore());
+		assertTrue(result.isExact());
+		assertEquals("Book positions should not be searched", 0, result.getNodes());
+		
+		// The best move has to achieve the score
+		Position child = new Position(position);
+		child.play(result.getBestMove());
+		assertEquals(expected.getScore(), -solver.solve(child).getScore());
+		
+		// Positions just beyond the book use it for their children
+		position.play(3);
+		position.play(4);
+		position.play(4);
+		position.play(2);
+		assertEquals(solver.solve(position).getScore(), bookSolver.solve(position).getScore());
+	}
+	
+	/**
+	 * Test that files which aren't books are rejected
+	 */
+	@Test(expected = IOException.class)
+	public void testInvalidFile() throws IOException {
+		Path invalid = folder.newFile("invalid.bin").toPath();
+		Files.write(invalid, new byte[OpeningBook.HEADER_BYTES]);
+		new OpeningBook(invalid);
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.rakadjiev.connect4.impl.Board;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.simulation.HeuristicStrategy;
+import com.rakadjiev.connect4.simulation.ParallelSimulator;
+import com.rakadjiev.connect4.simulation.RandomStrategy;
+import com.rakadjiev.connect4.simulation.SimulationResult;
+import com.rakadjiev.connect4.simulation.SolverStrategy;
+
+public class ParallelSimulatorTest {
+	
+	/**
+	 * Test that all games are played, and that the results don't depend on the number of threads
+	 */
+	@Test
+	public void testPlay() {
+		long games = 5 * ParallelSimulator.BATCH_GAMES + 17;
+		SimulationResult single = new ParallelSimulator(Board.COLS, Board.ROWS, Connect4.DISCS_TO_WIN,
+				RandomStrategy::new, RandomStrategy::new, 42, 1).play(games);
+		SimulationResult parallel = new ParallelSimulator(Board.COLS, Board.ROWS, Connect4.DISCS_TO_WIN,
+				RandomStrategy::new, RandomStrategy::new, 42, 4).play(games);
+		
+		assertEquals("All games should be played", games, single.getGames());
+		assertEquals("Every game should be a win, a loss or a tie", games, single.getWins() + single.getLosses() + single.getTies());
+		assertEquals("Results should not depend on the number of threads", single.toString(), parallel.toString());
+		assertEquals(single.getMoves(), parallel.getMoves());
+		
+		SimulationResult other = new ParallelSimulator(Board.COLS, Board.ROWS, Connect4.DISCS_TO_WIN,
+				RandomStrategy::new, RandomStrategy::new, 43, 4).play(games);
+		assertTrue("Different seeds should yield different games", single.getMoves() != other.getMoves());
+	}
+	
+	/**
+	 * Test that strategies, which keep state between moves, get the same results regardless of the number of threads
+	 */
+	@Test
+	public void testStatefulStrategies() {
+		long games = 2 * ParallelSimulator.BATCH_GAMES + 17;
+		SimulationResult single = new ParallelSimulator(Board.COLS, Board.ROWS, Connect4.DISCS_TO_WIN,
+				() -> new SolverStrategy(200), RandomStrategy::new, 7, 1).play(games);
+		SimulationResult parallel = new ParallelSimulator(Board.COLS, Board.ROWS, Connect4.DISCS_TO_WIN,
+				() -> new SolverStrategy(200), RandomStrategy::new, 7, 3).play(games);
+		
+		assertEquals("Results should not depend on the number of threads", single.toString(), parallel.toString());
+		assertEquals(single.getMoves(), parallel.getMoves());
+	}
+	
+	/**
+	 * Test that every thread gets its own strategies, and that no games are played for 0 games
+	 */
+	@Test
+	public void testStrategies() {
+		SimulationResult result = new ParallelSimulator(Board.COLS, Board.ROWS, Connect4.DISCS_TO_WIN,
+				HeuristicStrategy::new, RandomStrategy::new, 1, 3).play(2000);
+		assertTrue("Heuristic strategy should win almost all games against the random strategy", result.getWinRate() > 0.9);
+		
+		result = new ParallelSimulator(Board.COLS, Board.ROWS, Connect4.DISCS_TO_WIN,
+				HeuristicStrategy::new, RandomStrategy::new, 1, 3).play(0);
+		assertEquals(0, result.getGames());
+	}
+	
+	/**
+	 * Test that invalid rules are reported to the caller
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidRules() {
+		new ParallelSimulator(0, Board.ROWS, Connect4.DISCS_TO_WIN, RandomStrategy::new, RandomStrategy::new, 1, 2).play(10);
+	}
+
+}
@@ -0,0 +1,152 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rakadjiev.connect4.solver.ParallelSolver;
+import com.rakadjiev.connect4.solver.Position;
+import com.rakadjiev.connect4.solver.Solver;
+import com.rakadjiev.connect4.solver.SolverResult;
+import com.rakadjiev.connect4.solver.TranspositionTable;
+import com.rakadjiev.connect4.solver.TranspositionTable.ReplacementPolicy;
+
+public class ParallelSolverTest {
+	
+	/**
+	 * Test that the parallel search finds the same scores as the single-threaded search, and best moves which achieve them
+	 */
+	@Test
+	public void testSameScores() {
+		Random random = new Random(5);
+		Solver solver = new Solver();
+		try (ParallelSolver parallel = new ParallelSolver(4, 0, 0, new TranspositionTable(1 << 20, ReplacementPolicy.DEPTH_PREFERRED))) {
+			for (int i = 0; i < 20; i++) {
+				Position position = randomPosition(random, 20);
+				SolverResult expected = solver.solve(position);
+				SolverResult result = parallel.solve(position);
+				
+				assertTrue("Result should be exact", result.isExact());
+				assertEquals("Score should be the same as the single-threaded score", expected.getScore(), result.getScore());
+				assertTrue("All threads should count their positions", result.getNodes() >= 1);
+				
+				// The best move has to achieve the score
+				Position child = new Position(position);
+				assertTrue("Best move should be playable", child.canPlay(result.getBestMove()));
+				if (!child.isWinningMove(result.getBestMove())) {
+					child.play(result.getBestMove());
+					assertEquals("Best move should achieve the score", expected.getScore(), -solver.solve(child).getScore());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Test that the budget of the main thread stops all threads
+	 */
+	@Test(timeout = 10000)
+	public void testBudget() {
+		try (ParallelSolver parallel = new ParallelSolver(3, 10000, 0, new TranspositionTable(1 << 20, ReplacementPolicy.DEPTH_PREFERRED))) {
+			SolverResult result = parallel.solve(new Position(7, 6));
+			
+			assertFalse("Result of the empty board should not be exact within the budget", result.isExact());
+			assertTrue("Best move should be playable", result.getBestMove() >= 1 && result.getBestMove() <= 7);
+		}
+	}
+	
+	/**
+	 * Test that the helper threads are reused for all positions, and stopped when the solver is closed
+	 */
+	@Test(timeout = 10000)
+	public void testHelperThreads() throws InterruptedException {
+		Random random = new Random(7);
+		ParallelSolver parallel = new ParallelSolver(3, 0, 0, new TranspositionTable(1 << 20, ReplacementPolicy.DEPTH_PREFERRED));
+		for (int i = 0; i < 10; i++) {
+			parallel.solve(randomPosition(random, 24));
+		}
+		assertEquals("Helper threads should be reused", 2, helperThreads().size());
+		
+		parallel.close();
+		for (Thread helper : helperThreads()) {
+			helper.join();
+		}
+		try {
+			parallel.solve(randomPosition(random, 24));
+			fail("Closed solver should not solve positions");
+		} catch (IllegalStateException e) {
+			assertEquals("The solver has been closed.", e.getMessage());
+		}
+	}
+	
+	/**
+	 * Test that a single thread searches exactly like the single-threaded solver
+	 */
+	@Test
+	public void testSingleThread() {
+		Random random = new Random(9);
+		Solver solver = new Solver(0, 0, new TranspositionTable(1 << 20, ReplacementPolicy.DEPTH_PREFERRED));
+		try (ParallelSolver parallel = new ParallelSolver(1, 0, 0, new TranspositionTable(1 << 20, ReplacementPolicy.DEPTH_PREFERRED))) {
+			for (int i = 0; i < 10; i++) {
+				Position position = randomPosition(random, 24);
+				assertEquals(solver.solve(position).toString(), parallel.solve(position).toString());
+			}
+		}
+	}
+	
+	/**
+	 * Test that at least one thread is required
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoThreads() {
+		new ParallelSolver(0);
+	}
+	
+	/**
+	 * Get the live helper threads of all parallel solvers.
+	 * 
+	 * @return The helper threads
+	 */
+	private static List<Thread> helperThreads() {
+		List<Thread> helpers = new ArrayList<>();
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith("solver-helper-")) {
+				helpers.add(thread);
+			}
+		}
+		return helpers;
+	}
+	
+	/**
+	 * Create a random position, in which neither player has won yet.
+	 * 
+	 * @param random The random number generator
+	 * @param moves The number of moves to play
+	 * @return The position
+	 */
+	private static Position randomPosition(final Random random, final int moves) {
+		while (true) {
+			Position position = new Position(7, 6);
+			while (position.getMoves() < moves) {
+				int col = random.nextInt(7) + 1;
+				if (!position.canPlay(col)) {
+					continue;
+				}
+				if (position.isWinningMove(col)) {
+					break;
+				}
+				position.play(col);
+			}
+			if (position.getMoves() == moves) {
+				return position;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.impl.Player;
+import com.rakadjiev.connect4.replay.Outcome;
+import com.rakadjiev.connect4.replay.ReplaySummary;
+import com.rakadjiev.connect4.replay.ReplayValidator;
+
+public class ReplayValidatorTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Test the outcomes of games with known moves
+	 */
+	@Test
+	public void testOutcomes() throws IOException {
+		String log = "1212121\n"
+				+ "\n"
+				+ "4444444\n"
+				+ "12121212\r\n"
+				+ "48\n"
+				+ "4a3\n"
+				+ "1 2 1 2\t1 2 1\n"
+				+ "43\n"
+				+ "12121232";
+		
+		List<String> games = new ArrayList<>();
+		ReplaySummary summary = new ReplayValidator().validate(Channels.newChannel(new ByteArrayInputStream(log.getBytes(StandardCharsets.US_ASCII))),
+				(line, outcome, moves, illegalMove) -> games.add(line + " " + outcome + " " + moves + " " + illegalMove));
+		
+		assertEquals("1 FIRST_PLAYER_WINS 7 0", games.get(0));
+		assertEquals("Empty lines should be skipped", "3 ILLEGAL_MOVE 6 7", games.get(1));
+		assertEquals("Moves after a win should be illegal", "4 ILLEGAL_MOVE 7 8", games.get(2));
+		assertEquals("Columns outside the board should be illegal", "5 ILLEGAL_MOVE 1 2", games.get(3));
+		assertEquals("Other characters should be illegal", "6 ILLEGAL_MOVE 1 2", games.get(4));
+		assertEquals("Whitespace should be ignored", "7 FIRST_PLAYER_WINS 7 0", games.get(5));
+		assertEquals("8 UNFINISHED 2 0", games.get(6));
+		assertEquals("Last game should be reported without a line break", "9 SECOND_PLAYER_WINS 8 0", games.get(7));
+		assertEquals(8, games.size());
+		
+		assertEquals(8, summary.getGames());
+		assertEquals(2, summary.getGames(Outcome.FIRST_PLAYER_WINS));
+		assertEquals(1, summary.getGames(Outcome.SECOND_PLAYER_WINS));
+		assertEquals(4, summary.getGames(Outcome.ILLEGAL_MOVE));
+		assertEquals(1, summary.getGames(Outcome.UNFINISHED));
+		assertEquals(7 + 6 + 7 + 1 + 1 + 7 + 2 + 8, summary.getMoves());
+		assertEquals(log.length(), summary.getBytes());
+	}
+	
+	/**
+	 * Test that a log of random games, some of them corrupted, is validated like replaying the
+	 * games with {@link Connect4}, regardless of how the file is split into mapped windows
+	 */
+	@Test
+	public void testRandomGames() throws IOException, InvalidInsertException {
+		Random random = new Random(23);
+		IPlayer playerOne = new Player("one", 'x');
+		IPlayer playerTwo = new Player("two", 'o');
+		Connect4 game = new Connect4(playerOne, playerTwo);
+		
+		StringBuilder log = new StringBuilder();
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			game.restart();
+			StringBuilder moves = new StringBuilder();
+			while (!game.isFinished()) {
+				int col = random.nextInt(7) + 1;
+				if (!game.getBoard().isPopulated(col, 6)) {
+					game.insertDisc(moves.length() % 2 == 0 ? playerOne : playerTwo, col);
+					moves.append(col);
+				}
+			}
+			
+			// Corrupt some games by changing a move, or cutting them short
+			int corruption = random.nextInt(10);
+			if (corruption == 0) {
+				moves.setCharAt(random.nextInt(moves.length()), (char) ('0' + random.nextInt(10)));
+			} else if (corruption == 1) {
+				moves.setLength(random.nextInt(moves.length()));
+			}
+			
+			log.append(moves).append('\n');
+			if (moves.length() > 0) {
+				expected.add((i + 1) + " " + replay(game, playerOne, playerTwo, moves));
+			}
+		}
+		
+		Path file = folder.newFile("games.log").toPath();
+		Files.write(file, log.toString().getBytes(StandardCharsets.US_ASCII));
+		
+		for (int bufferBytes : new int[] { 7, 4096, ReplayValidator.DEFAULT_BUFFER_BYTES }) {
+			List<String> games = new ArrayList<>();
+			ReplaySummary summary = new ReplayValidator(7, 6, bufferBytes).validate(file,
+					(line, outcome, moves, illegalMove) -> games.add(line + " " + outcome + " " + moves + " " + illegalMove));
+			assertEquals("Games should be validated like replaying them", expected, games);
+			assertEquals(expected.size(), summary.getGames());
+			assertEquals(log.length(), summary.getBytes());
+		}
+	}
+	
+	/**
+	 * Replay the moves of a game with {@link Connect4}.
+	 * 
+	 * @param game The game
+	 * @param playerOne The first player
+	 * @param playerTwo The second player
+	 * @param moves The moves
+	 * @return The outcome, the number of valid moves, and the first illegal move, separated by spaces
+	 */
+	private static String replay(final Connect4 game, final IPlayer playerOne, final IPlayer playerTwo, final CharSequence moves) {
+		game.restart();
+		int valid = 0;
+		Outcome outcome = Outcome.UNFINISHED;
+		for (int i = 0; i < moves.length(); i++) {
+			if (game.isFinished()) {
+				return Outcome.ILLEGAL_MOVE + " " + valid + " " + (valid + 1);
+			}
+			try {
+				if (game.insertDisc(i % 2 == 0 ? playerOne : playerTwo, moves.charAt(i) - '0')) {
+					outcome = i % 2 == 0 ? Outcome.FIRST_PLAYER_WINS : Outcome.SECOND_PLAYER_WINS;
+				} else if (game.isTie()) {
+					outcome = Outcome.TIE;
+				}
+			} catch (InvalidInsertException | IllegalArgumentException e) {
+				return Outcome.ILLEGAL_MOVE + " " + valid + " " + (valid + 1);
+			}
+			valid++;
+		}
+		return outcome + " " + valid + " 0";
+	}
+
+}
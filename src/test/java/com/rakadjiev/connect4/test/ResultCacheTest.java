@@ -0,0 +1,155 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.rakadjiev.connect4.cache.ResultCache;
+import com.rakadjiev.connect4.cache.ResultCache.EvictionPolicy;
+
+public class ResultCacheTest {
+	
+	/**
+	 * Test that the capacity is derived from the memory, and invalid capacities are rejected
+	 */
+	@Test
+	public void testCapacity() {
+		ResultCache<String> cache = ResultCache.withMaxBytes(1000, 10, EvictionPolicy.LRU);
+		assertEquals(1000 / (ResultCache.BYTES_PER_ENTRY + 10), cache.getCapacity());
+		assertEquals(EvictionPolicy.LRU, cache.getPolicy());
+		assertEquals(0, cache.size());
+	}
+	
+	/**
+	 * Test that an empty cache is rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCapacityTooSmall() {
+		new ResultCache<String>(0, EvictionPolicy.W_TINY_LFU);
+	}
+	
+	/**
+	 * Test that stored results are found, and lookups are counted
+	 */
+	@Test
+	public void testGetPut() {
+		ResultCache<String> cache = new ResultCache<>(100, EvictionPolicy.W_TINY_LFU);
+		assertNull("Empty cache should not contain results", cache.get(42L));
+		
+		cache.put(42L, "a");
+		cache.put(-42L, "b");
+		assertEquals("a", cache.get(42L));
+		assertEquals("b", cache.get(-42L));
+		cache.put(42L, "c");
+		assertEquals("Storing a result again should replace it", "c", cache.get(42L));
+		assertEquals(2, cache.size());
+		
+		assertEquals("d", cache.computeIfAbsent(7L, key -> "d"));
+		assertEquals("d", cache.computeIfAbsent(7L, key -> "e"));
+		
+		assertEquals(4, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		assertEquals(4.0 / 6, cache.getHitRate(), 1e-9);
+		assertEquals(0, cache.getEvictions());
+		
+		cache.clear();
+		assertNull("Cleared cache should not contain results", cache.get(42L));
+		assertEquals(0, cache.size());
+		assertEquals("Clearing should reset the counters", 0, cache.getHits());
+	}
+	
+	/**
+	 * Test that null results are rejected
+	 */
+	@Test(expected = NullPointerException.class)
+	public void testPutNull() {
+		new ResultCache<String>(10, EvictionPolicy.LRU).put(1L, null);
+	}
+	
+	/**
+	 * Test that the LRU policy evicts the least recently used result
+	 */
+	@Test
+	public void testLru() {
+		ResultCache<String> cache = new ResultCache<>(3, EvictionPolicy.LRU);
+		cache.put(1L, "1");
+		cache.put(2L, "2");
+		cache.put(3L, "3");
+		cache.get(1L);
+		cache.put(4L, "4");
+		
+		assertNull("Least recently used result should have been evicted", cache.get(2L));
+		assertEquals("1", cache.get(1L));
+		assertEquals("3", cache.get(3L));
+		assertEquals("4", cache.get(4L));
+		assertEquals(3, cache.size());
+		assertEquals(1, cache.getEvictions());
+	}
+	
+	/**
+	 * Test that scans of positions queried once push out frequently queried positions with the
+	 * LRU policy, but not with the W-TinyLFU policy
+	 */
+	@Test
+	public void testFrequencyAwareEviction() {
+		assertEquals(0, hotResultsAfterScans(EvictionPolicy.LRU));
+		assertTrue("Frequently queried results should survive the scans", hotResultsAfterScans(EvictionPolicy.W_TINY_LFU) >= 45);
+	}
+	
+	/**
+	 * Query the same 50 positions and 200 other positions, which are only queried once, in rounds,
+	 * with a cache of 100 results.
+	 * 
+	 * @param policy The eviction policy
+	 * @return The number of the repeatedly queried positions, which are in the cache after the last round
+	 */
+	private static int hotResultsAfterScans(final EvictionPolicy policy) {
+		ResultCache<Long> cache = new ResultCache<>(100, policy);
+		long scanKey = 1000;
+		for (int round = 0; round < 20; round++) {
+			for (long key = 0; key < 50; key++) {
+				cache.computeIfAbsent(key, Long::valueOf);
+			}
+			for (int i = 0; i < 200; i++) {
+				cache.computeIfAbsent(scanKey++, Long::valueOf);
+			}
+		}
+		
+		int hot = 0;
+		for (long key = 0; key < 50; key++) {
+			if (cache.get(key) != null) {
+				hot++;
+			}
+		}
+		return hot;
+	}
+	
+	/**
+	 * Test that the cache stays consistent under many random lookups and evictions
+	 */
+	@Test
+	public void testRandomQueries() {
+		for (EvictionPolicy policy : EvictionPolicy.values()) {
+			Random random = new Random(11);
+			ResultCache<Long> cache = new ResultCache<>(64, policy);
+			for (int i = 0; i < 100000; i++) {
+				// Few bits of the keys differ, like in position keys, which provokes collisions in the index
+				long key = (long) random.nextInt(200) << 40;
+				Long value = cache.get(key);
+				if (value == null) {
+					cache.put(key, key);
+				} else {
+					assertEquals("Lookup should return the result of the key", key, value.longValue());
+				}
+				assertTrue("Cache should not exceed its capacity", cache.size() <= 64);
+			}
+			assertEquals(64, cache.size());
+			assertEquals(cache.getMisses() - 64, cache.getEvictions());
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.IStrategy;
+import com.rakadjiev.connect4.simulation.HeuristicStrategy;
+import com.rakadjiev.connect4.simulation.RandomStrategy;
+import com.rakadjiev.connect4.simulation.SimulationResult;
+import com.rakadjiev.connect4.simulation.Simulator;
+
+public class SimulatorTest {
+	
+	/**
+	 * Test that the statistics add up, and that the same seed yields the same games
+	 */
+	@Test
+	public void testPlay() {
+		SimulationResult result = new Simulator(new RandomStrategy(), new RandomStrategy(), 42).play(1000);
+		assertEquals(1000, result.getGames());
+		assertEquals("Every game should be a win, a loss or a tie", result.getGames(), result.getWins() + result.getLosses() + result.getTies());
+		assertTrue("Starter wins should be a subset of all wins", result.getStarterWins() <= result.getWins() + result.getLosses());
+		assertTrue("Games should last at least 7 moves", result.getAverageMoves() >= 7);
+		
+		SimulationResult again = new Simulator(new RandomStrategy(), new RandomStrategy(), 42).play(1000);
+		assertEquals("The same seed should yield the same games", result.toString(), again.toString());
+		assertEquals(result.getMoves(), again.getMoves());
+	}
+	
+	/**
+	 * Test that the heuristic strategy beats the random strategy, also on a variant board
+	 */
+	@Test
+	public void testHeuristicBeatsRandom() {
+		SimulationResult result = new Simulator(new HeuristicStrategy(), new RandomStrategy(), 1).play(1000);
+		assertTrue("Heuristic strategy should win almost all games against the random strategy", result.getWinRate() > 0.9);
+		
+		result = new Simulator(9, 7, 5, new HeuristicStrategy(), new RandomStrategy(), 1).play(200);
+		assertTrue("Heuristic strategy should win almost all games against the random strategy", result.getWinRate() > 0.9);
+	}
+	
+	/**
+	 * Test that combining results adds up all statistics
+	 */
+	@Test
+	public void testAdd() {
+		SimulationResult result = new SimulationResult(10, 5, 3, 2, 6, 200).add(new SimulationResult(1, 0, 0, 1, 0, 42));
+		assertEquals(11, result.getGames());
+		assertEquals(5, result.getWins());
+		assertEquals(3, result.getLosses());
+		assertEquals(3, result.getTies());
+		assertEquals(6, result.getStarterWins());
+		assertEquals(242, result.getMoves());
+	}
+	
+	/**
+	 * Test that an invalid move of a strategy is reported
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testInvalidMove() {
+		IStrategy invalid = new IStrategy() {
+			@Override
+			public String getName() {
+				return "invalid";
+			}
+			
+			@Override
+			public int chooseMove(final IConnect4 game, final IPlayer player, final IPlayer opponent, final SplittableRandom random) {
+				return 1;
+			}
+		};
+		new Simulator(invalid, invalid, 0).play(1);
+	}
+	
+	/**
+	 * Test that unknown strategies are rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownStrategy() {
+		Simulator.createStrategy("unknown");
+	}
+
+}
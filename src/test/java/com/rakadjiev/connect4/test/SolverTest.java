@@ -0,0 +1,229 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.impl.BitBoard;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.impl.Player;
+import com.rakadjiev.connect4.solver.Position;
+import com.rakadjiev.connect4.solver.Solver;
+import com.rakadjiev.connect4.solver.SolverResult;
+import com.rakadjiev.connect4.solver.TranspositionTable;
+import com.rakadjiev.connect4.solver.TranspositionTable.ReplacementPolicy;
+
+public class SolverTest {
+	
+	IConnect4 game;
+	IPlayer playerOne;
+	IPlayer playerTwo;
+	Solver solver;
+	
+	@Before
+	public void setUp() {
+		playerOne = new Player("RED", 'R');
+		playerTwo = new Player("GREEN", 'G');
+		game = new Connect4(new BitBoard(), playerOne, playerTwo);
+		solver = new Solver();
+	}
+	
+	/**
+	 * Test that an immediate win is found
+	 */
+	@Test
+	public void testImmediateWin() throws InvalidInsertException {
+		game.insertDisc(playerOne, 1);
+		game.insertDisc(playerTwo, 7);
+		game.insertDisc(playerOne, 2);
+		game.insertDisc(playerTwo, 7);
+		game.insertDisc(playerOne, 3);
+		game.insertDisc(playerTwo, 7);
+		
+		SolverResult result = solver.solve(game, playerOne);
+		assertEquals("Player should win with their 4th disc", (42 + 1 - 6) / 2, result.getScore());
+		assertEquals("Player should complete the sequence", 4, result.getBestMove());
+		assertTrue("Immediate win should be exact", result.isExact());
+	}
+	
+	/**
+	 * Test that the opponent's threat is blocked
+	 */
+	@Test
+	public void testBlock() throws InvalidInsertException {
+		game.insertDisc(playerOne, 4);
+		game.insertDisc(playerTwo, 1);
+		game.insertDisc(playerOne, 4);
+		game.insertDisc(playerTwo, 1);
+		game.insertDisc(playerOne, 4);
+		
+		SolverResult result = solver.solve(game, playerTwo);
+		assertEquals("Player should block the vertical sequence", 4, result.getBestMove());
+		assertTrue("Result should be exact", result.isExact());
+	}
+	
+	/**
+	 * Test that a finished game can't be solved
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testFinished() throws InvalidInsertException {
+		Connect4TestUtil.winGame(game, playerOne);
+		solver.solve(game, playerTwo);
+	}
+	
+	/**
+	 * Test that the solver finds the same scores as a plain minimax search for random late positions
+	 */
+	@Test
+	public void testRandomPositions() {
+		Random random = new Random(7);
+		
+		for (int i = 0; i < 50; i++) {
+			Position position = null;
+			while (position == null) {
+				position = randomPosition(random, 34);
+			}
+			int expected = minimax(position);
+			
+			SolverResult result = solver.solve(position);
+			assertTrue("Result should be exact", result.isExact());
+			assertEquals("Score should be the same as the minimax score", expected, result.getScore());
+			
+			// The best move has to achieve the score
+			Position child = new Position(position);
+			int bestMove = result.getBestMove();
+			assertTrue("Best move should be playable", child.canPlay(bestMove));
+			if (!child.isWinningMove(bestMove)) {
+				child.play(bestMove);
+				assertEquals("Best move should achieve the score", expected, child.getMoves() == child.getSize() ? 0 : -minimax(child));
+			}
+		}
+	}
+	
+	/**
+	 * Test that the solver stays correct if most results can't be kept in the transposition table
+	 */
+	@Test
+	public void testSmallTable() {
+		Random random = new Random(11);
+		TranspositionTable table = new TranspositionTable(64 * TranspositionTable.BYTES_PER_ENTRY, ReplacementPolicy.ALWAYS_REPLACE);
+		Solver smallSolver = new Solver(0, 0, table);
+		
+		for (int i = 0; i < 20; i++) {
+			Position position = null;
+			while (position == null) {
+				position = randomPosition(random, 24);
+			}
+			assertEquals("Score should be the same as with a large table", solver.solve(position).getScore(), smallSolver.solve(position).getScore());
+		}
+		assertTrue("Table should have been used", table.getHits() > 0);
+	}
+	
+	/**
+	 * Test that the search stops once the budget has been used up
+	 */
+	@Test
+	public void testBudget() {
+		Solver limited = new Solver(10000, 0);
+		SolverResult result = limited.solve(new Position(7, 6));
+		
+		assertFalse("Result of the empty board should not be exact within the budget", result.isExact());
+		assertTrue("Budget should be respected", result.getNodes() <= 10000);
+		assertTrue("Best move should be playable", result.getBestMove() >= 1 && result.getBestMove() <= 7);
+	}
+	
+	/**
+	 * Test that a budget must not be negative
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeBudget() {
+		new Solver(-1, 0);
+	}
+	
+	/**
+	 * Create a random position, in which neither player has won yet.
+	 * 
+	 * @param random The random number generator
+	 * @param moves The number of moves to play
+	 * @return The position, or null if the random game has been won before reaching the number of moves
+	 */
+	private static Position randomPosition(final Random random, final int moves) {
+		Position position = new Position(7, 6);
+		while (position.getMoves() < moves) {
+			int col = random.nextInt(7) + 1;
+			if (!position.canPlay(col)) {
+				continue;
+			}
+			if (position.isWinningMove(col)) {
+				return null;
+			}
+			position.play(col);
+		}
+		return position;
+	}
+	
+	/**
+	 * Compute the score of a position without any pruning.
+	 * 
+	 * @param position The position, which must not be full
+	 * @return The score of the position
+	 */
+	private static int minimax(final Position position) {
+		for (int col = 1; col <= position.getCols(); col++) {
+			if (position.canPlay(col) && position.isWinningMove(col)) {
+				return (position.getSize() + 1 - position.getMoves()) / 2;
+			}
+		}
+		
+		int best = Integer.MIN_VALUE;
+		for (int col = 1; col <= position.getCols(); col++) {
+			if (position.canPlay(col)) {
+				Position child = new Position(position);
+				child.play(col);
+				int score = child.getMoves() == child.getSize() ? 0 : -minimax(child);
+				best = Math.max(best, score);
+			}
+		}
+		if (best == Integer.MIN_VALUE) {
+			fail("Position should not be full");
+		}
+		return best;
+	}
+	
+	/**
+	 * Test that positions are restored from their keys, and invalid keys are rejected
+	 */
+	@Test
+	public void testPositionKey() {
+		Random random = new Random(19);
+		for (int i = 0; i < 100; i++) {
+			Position position = randomPosition(random, random.nextInt(30));
+			if (position == null) {
+				continue;
+			}
+			Position copy = new Position(7, 6, position.getKey());
+			assertEquals(position.getKey(), copy.getKey());
+			assertEquals(position.getMoves(), copy.getMoves());
+			for (int col = 1; col <= 7; col++) {
+				assertEquals(position.canPlay(col), copy.canPlay(col));
+				assertEquals(position.canPlay(col) && position.isWinningMove(col), copy.canPlay(col) && copy.isWinningMove(col));
+			}
+		}
+		
+		try {
+			new Position(7, 6, -1L);
+			fail("Creating a position from a key of a larger board should result in an exception");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.rakadjiev.connect4.IBoard;
+import com.rakadjiev.connect4.IConnect4;
+import com.rakadjiev.connect4.IPlayer;
+import com.rakadjiev.connect4.IStrategy;
+import com.rakadjiev.connect4.exceptions.InvalidInsertException;
+import com.rakadjiev.connect4.impl.Connect4;
+import com.rakadjiev.connect4.impl.Player;
+import com.rakadjiev.connect4.simulation.EvaluatorStrategy;
+import com.rakadjiev.connect4.simulation.HeuristicStrategy;
+import com.rakadjiev.connect4.simulation.RandomStrategy;
+import com.rakadjiev.connect4.simulation.SolverStrategy;
+
+public class StrategyTest {
+	
+	IConnect4 game;
+	IBoard board;
+	IPlayer playerOne;
+	IPlayer playerTwo;
+	SplittableRandom random;
+	
+	@Before
+	public void setUp() {
+		playerOne = new Player("RED", 'R');
+		playerTwo = new Player("GREEN", 'G');
+		game = new Connect4(playerOne, playerTwo);
+		board = game.getBoard();
+		random = new SplittableRandom(0);
+	}
+	
+	/**
+	 * Play the specified columns, alternating between the players, starting with player one.
+	 * 
+	 * @param cols The columns (1-based index)
+	 */
+	private void play(final int... cols) throws InvalidInsertException {
+		for (int i = 0; i < cols.length; i++) {
+			game.insertDisc(i % 2 == 0 ? playerOne : playerTwo, cols[i]);
+		}
+	}
+	
+	/**
+	 * Test that the random strategy only plays columns, which aren't full
+	 */
+	@Test
+	public void testRandom() throws InvalidInsertException {
+		// Fill all columns except the last one, without connecting 4 discs
+		play(1, 2, 1, 2, 1, 2, 2, 1, 2, 1, 2, 1, 3, 4, 3, 4, 3, 4, 4, 3, 4, 3, 4, 3, 5, 6, 5, 6, 5, 6, 6, 5, 6, 5, 6, 5);
+		IStrategy strategy = new RandomStrategy();
+		for (int i = 0; i < 100; i++) {
+			assertEquals("Random strategy should only play the last column, which isn't full", 7, strategy.chooseMove(game, playerOne, playerTwo, random));
+		}
+	}
+	
+	/**
+	 * Test that the heuristic strategy wins if possible, then blocks the opponent's win, and leaves the board unchanged
+	 */
+	@Test
+	public void testHeuristic() throws InvalidInsertException {
+		IStrategy strategy = new HeuristicStrategy();
+		play(1, 1, 2, 2, 3);
+		String before = board.toString();
+		assertEquals("Heuristic strategy should block the opponent's win", 4, strategy.chooseMove(game, playerTwo, playerOne, random));
+		assertEquals("Choosing a move should not change the board", before, board.toString());
+		
+		play(6);
+		assertEquals("Heuristic strategy should win", 4, strategy.chooseMove(game, playerOne, playerTwo, random));
+		assertFalse(game.isWon());
+		
+		game.restart();
+		assertEquals("Heuristic strategy should play the center on an empty board", 4, strategy.chooseMove(game, playerOne, playerTwo, random));
+	}
+	
+	/**
+	 * Test that the heuristic strategy doesn't let the opponent win on top of its move
+	 */
+	@Test
+	public void testHeuristicSafe() throws InvalidInsertException {
+		IStrategy strategy = new HeuristicStrategy();
+		// Player one connects 3 discs on the second row, and threatens to win in the second row of column 4
+		play(3, 1, 1, 2, 2, 7, 3);
+		for (int i = 0; i < 100; i++) {
+			int col = strategy.chooseMove(game, playerTwo, playerOne, random);
+			assertFalse("Heuristic strategy should not let the opponent win on top of its move", col == 4);
+		}
+	}
+	
+	/**
+	 * Test that the evaluator strategy wins if possible, blocks the opponent's win, and leaves the board unchanged
+	 */
+	@Test
+	public void testEvaluator() throws InvalidInsertException {
+		EvaluatorStrategy strategy = new EvaluatorStrategy();
+		play(1, 1, 2, 2, 3);
+		String before = board.toString();
+		assertEquals("Evaluator strategy should block the opponent's win", 4, strategy.chooseMove(game, playerTwo, playerOne, random));
+		assertEquals("Choosing a move should not change the board", before, board.toString());
+		assertTrue("Evaluator strategy should evaluate positions", strategy.getEvaluations() > 0);
+		
+		play(6);
+		assertEquals("Evaluator strategy should win", 4, strategy.chooseMove(game, playerOne, playerTwo, random));
+	}
+	
+	/**
+	 * Test that the solver strategy plays the winning move
+	 */
+	@Test
+	public void testSolver() throws InvalidInsertException {
+		IStrategy strategy = new SolverStrategy();
+		play(1, 1, 2, 2, 3, 3);
+		assertEquals("Solver strategy should win", 4, strategy.chooseMove(game, playerOne, playerTwo, random));
+	}
+
+}
@@ -0,0 +1,166 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.rakadjiev.connect4.simulation.HeuristicStrategy;
+import com.rakadjiev.connect4.simulation.RandomStrategy;
+import com.rakadjiev.connect4.simulation.SimulationResult;
+import com.rakadjiev.connect4.tournament.MatchResult;
+import com.rakadjiev.connect4.tournament.RatingTable;
+import com.rakadjiev.connect4.tournament.Tournament;
+
+public class TournamentTest {
+	
+	/**
+	 * Test that every entrant plays every other entrant once, and that the results don't depend on the number of threads
+	 */
+	@Test
+	public void testRoundRobin() throws InterruptedException {
+		Tournament single = tournament(5, 1);
+		List<MatchResult> streamed = new ArrayList<>();
+		List<MatchResult> results = single.playRoundRobin(streamed::add);
+		
+		assertEquals(10, results.size());
+		assertEquals(10, streamed.size());
+		Set<String> pairings = new HashSet<>();
+		for (MatchResult result : results) {
+			int one = Math.min(result.getEntrantOne(), result.getEntrantTwo());
+			int two = Math.max(result.getEntrantOne(), result.getEntrantTwo());
+			assertTrue("Each pairing should play once", pairings.add(one + "-" + two));
+			assertTrue(result.getRound() >= 0 && result.getRound() < 5);
+			assertEquals(20, result.getResult().getGames());
+		}
+		RatingTable ratings = single.getRatings();
+		for (int entrant = 0; entrant < 5; entrant++) {
+			assertEquals(80, ratings.getGames(entrant));
+		}
+		assertTrue("Heuristic strategies should be rated above random ones", ratings.getRating(0) > ratings.getRating(2) + ratings.getConfidence(0));
+		assertTrue("Heuristic strategies should have a higher Elo than random ones", Math.min(ratings.getElo(0), ratings.getElo(1)) > Math.max(ratings.getElo(2), ratings.getElo(3)));
+		assertEquals(results, streamed);
+		
+		Tournament parallel = tournament(5, 4);
+		List<MatchResult> parallelResults = parallel.playRoundRobin(null);
+		for (int i = 0; i < results.size(); i++) {
+			assertEquals(results.get(i).toString(), parallelResults.get(i).toString());
+		}
+		for (int entrant = 0; entrant < 5; entrant++) {
+			assertEquals(ratings.getRating(entrant), parallel.getRatings().getRating(entrant), 1e-6);
+			assertEquals("Elo ratings shouldn't depend on the number of threads", ratings.getElo(entrant), parallel.getRatings().getElo(entrant), 1e-9);
+		}
+	}
+	
+	/**
+	 * Test that Swiss rounds pair every entrant but one, avoid rematches, and let entrants sit out in turns
+	 */
+	@Test
+	public void testSwiss() throws InterruptedException {
+		Tournament tournament = tournament(5, 3);
+		List<MatchResult> results = tournament.playSwiss(4, null);
+		
+		assertEquals(8, results.size());
+		Set<String> pairings = new HashSet<>();
+		int[] matches = new int[5];
+		for (int round = 0; round < 4; round++) {
+			Set<Integer> playing = new HashSet<>();
+			for (MatchResult result : results.subList(round * 2, round * 2 + 2)) {
+				assertEquals(round, result.getRound());
+				assertTrue(playing.add(result.getEntrantOne()));
+				assertTrue(playing.add(result.getEntrantTwo()));
+				int one = Math.min(result.getEntrantOne(), result.getEntrantTwo());
+				int two = Math.max(result.getEntrantOne(), result.getEntrantTwo());
+				assertTrue("Rematches should be avoided", pairings.add(one + "-" + two));
+				matches[one]++;
+				matches[two]++;
+			}
+		}
+		for (int entrant = 0; entrant < 5; entrant++) {
+			assertTrue("Entrant " + entrant + " should sit out at most once", matches[entrant] >= 3);
+		}
+	}
+	
+	/**
+	 * Test the Elo and Bradley-Terry ratings of known results
+	 */
+	@Test
+	public void testRatings() {
+		RatingTable ratings = new RatingTable(3);
+		assertEquals(RatingTable.INITIAL_RATING, ratings.getRating(0), 1e-9);
+		
+		// Equal results yield equal ratings
+		ratings.record(0, 1, new SimulationResult(10, 4, 4, 2, 4, 0));
+		assertEquals(RatingTable.INITIAL_RATING, ratings.getElo(0), 1e-9);
+		assertEquals(ratings.getRating(0), ratings.getRating(1), 1e-6);
+		double confidence = ratings.getConfidence(0);
+		
+		// Scoring 10 times as much as the opponent is worth about 400 points
+		ratings.record(0, 1, new SimulationResult(1100, 1000, 100, 0, 550, 0));
+		assertTrue(ratings.getElo(0) > ratings.getElo(1));
+		assertEquals(400, ratings.getRating(0) - ratings.getRating(1), 15);
+		assertTrue("More games should narrow the confidence interval", ratings.getConfidence(0) < confidence);
+		assertEquals(ratings.getGames(0), ratings.getGames(1, 0));
+		
+		// Entrants, which have won all their games, still get a finite rating
+		ratings.record(2, 0, new SimulationResult(20, 20, 0, 0, 10, 0));
+		assertTrue(ratings.getRating(2) > ratings.getRating(0));
+		assertTrue(Double.isFinite(ratings.getRating(2)));
+		assertEquals(20, ratings.getPoints(2), 1e-9);
+		
+		// Long matches don't move the Elo ratings beyond their results: the strongest entrant ends highest
+		RatingTable elo = new RatingTable(3);
+		elo.record(1, 2, new SimulationResult(100, 14, 79, 7, 50, 0));
+		elo.record(0, 1, new SimulationResult(100, 0, 100, 0, 50, 0));
+		elo.record(0, 2, new SimulationResult(100, 0, 100, 0, 50, 0));
+		assertTrue(elo.getElo(2) > elo.getElo(1));
+		assertTrue(elo.getElo(1) > elo.getElo(0));
+		assertTrue("Ratings should stay within a plausible range", elo.getElo(0) > 500 && elo.getElo(2) < 2500);
+	}
+	
+	/**
+	 * Test that tournaments need at least 2 entrants, and matches an even number of games
+	 */
+	@Test
+	public void testInvalidTournaments() throws InterruptedException {
+		Tournament tournament = new Tournament(1, 2);
+		tournament.addEntrant("random", RandomStrategy::new);
+		try {
+			tournament.playRoundRobin(null);
+			assertTrue(false);
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().startsWith("A tournament needs at least 2 entrants"));
+		}
+		try {
+			new Tournament(7, 6, 4, 3, 1, 2);
+			assertTrue(false);
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().startsWith("Invalid number of games per match"));
+		}
+	}
+	
+	/**
+	 * Create a tournament between two heuristic and three random strategies.
+	 * 
+	 * @param entrants The number of entrants
+	 * @param parallelism The number of worker threads
+	 * @return The tournament
+	 */
+	private static Tournament tournament(final int entrants, final int parallelism) {
+		Tournament tournament = new Tournament(7, 6, 4, 20, 42, parallelism);
+		for (int i = 0; i < entrants; i++) {
+			if (i < 2) {
+				tournament.addEntrant("heuristic" + i, HeuristicStrategy::new);
+			} else {
+				tournament.addEntrant("random" + i, RandomStrategy::new);
+			}
+		}
+		return tournament;
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.rakadjiev.connect4.solver.TranspositionTable;
+import com.rakadjiev.connect4.solver.TranspositionTable.ReplacementPolicy;
+
+public class TranspositionTableTest {
+	
+	/**
+	 * Test that the table doesn't use more memory than allowed
+	 */
+	@Test
+	public void testCapacity() {
+		TranspositionTable table = new TranspositionTable(1000, ReplacementPolicy.ALWAYS_REPLACE);
+		assertEquals("Capacity should be the largest power of 2 fitting into the memory", 64, table.getCapacity());
+		assertTrue("Memory should not exceed the maximum", table.getMemoryBytes() <= 1000);
+		assertEquals(TranspositionTable.BYTES_PER_ENTRY, table.getBytesPerEntry());
+		
+		table = new TranspositionTable(TranspositionTable.BYTES_PER_ENTRY, ReplacementPolicy.ALWAYS_REPLACE);
+		assertEquals("Minimal table should have a single entry", 1, table.getCapacity());
+	}
+	
+	/**
+	 * Test that a too small memory size is rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testCapacityTooSmall() {
+		new TranspositionTable(TranspositionTable.BYTES_PER_ENTRY - 1, ReplacementPolicy.ALWAYS_REPLACE);
+	}
+	
+	/**
+	 * Test that stored entries are found with all their data
+	 */
+	@Test
+	public void testStoreProbe() {
+		TranspositionTable table = new TranspositionTable(1 << 20, ReplacementPolicy.ALWAYS_REPLACE);
+		
+		assertEquals("Empty table should not contain entries", TranspositionTable.NO_ENTRY, table.probe(42L));
+		
+		table.store(42L, TranspositionTable.UPPER_BOUND, -17, 4, 12);
+		int entry = table.probe(42L);
+		assertEquals(TranspositionTable.UPPER_BOUND, TranspositionTable.getBound(entry));
+		assertEquals(-17, TranspositionTable.getScore(entry));
+		assertEquals(4, TranspositionTable.getBestMove(entry));
+		assertEquals(12, TranspositionTable.getDepth(entry));
+		
+		table.store(43L, TranspositionTable.EXACT, 21, 0, TranspositionTable.MAX_DEPTH);
+		entry = table.probe(43L);
+		assertEquals(TranspositionTable.EXACT, TranspositionTable.getBound(entry));
+		assertEquals(21, TranspositionTable.getScore(entry));
+		assertEquals(0, TranspositionTable.getBestMove(entry));
+		assertEquals(TranspositionTable.MAX_DEPTH, TranspositionTable.getDepth(entry));
+		
+		assertEquals(3, table.getProbes());
+		assertEquals(2, table.getHits());
+		assertEquals(2.0 / 3, table.getHitRate(), 1e-9);
+		
+		table.clear();
+		assertEquals("Cleared table should not contain entries", TranspositionTable.NO_ENTRY, table.probe(42L));
+		assertEquals("Clearing should reset the statistics", 0, table.getHits());
+	}
+	
+	/**
+	 * Test the replacement policies with a single-entry table, in which all keys collide
+	 */
+	@Test
+	public void testReplacementPolicy() {
+		TranspositionTable table = new TranspositionTable(TranspositionTable.BYTES_PER_ENTRY, ReplacementPolicy.DEPTH_PREFERRED);
+		table.store(1L, TranspositionTable.EXACT, 0, 1, 10);
+		table.store(2L, TranspositionTable.EXACT, 0, 1, 5);
+		assertTrue("Shallower entry should not replace a deeper one", table.probe(1L) != TranspositionTable.NO_ENTRY);
+		assertEquals(1, table.getRejections());
+		table.store(2L, TranspositionTable.EXACT, 0, 1, 10);
+		assertTrue("Entry at least as deep should replace the existing one", table.probe(2L) != TranspositionTable.NO_ENTRY);
+		assertEquals(1, table.getOverwrites());
+		
+		table = new TranspositionTable(TranspositionTable.BYTES_PER_ENTRY, ReplacementPolicy.ALWAYS_REPLACE);
+		table.store(1L, TranspositionTable.EXACT, 0, 1, 10);
+		table.store(2L, TranspositionTable.EXACT, 0, 1, 5);
+		assertTrue("New entry should always replace the existing one", table.probe(2L) != TranspositionTable.NO_ENTRY);
+		assertEquals(TranspositionTable.NO_ENTRY, table.probe(1L));
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.rakadjiev.connect4.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.rakadjiev.connect4.io.VarInt;
+
+public class VarIntTest {
+	
+	/**
+	 * Test that values are read back unchanged, with the expected number of bytes
+	 */
+	@Test
+	public void testWriteRead() throws IOException {
+		int[] values = { 0, 1, 127, 128, 16383, 16384, 1 << 21, (1 << 28) - 1, 1 << 28, Integer.MAX_VALUE };
+		int[] sizes = { 1, 1, 1, 2, 2, 3, 4, 4, 5, 5 };
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		int total = 0;
+		for (int i = 0; i < values.length; i++) {
+			VarInt.write(out, values[i]);
+			assertEquals(sizes[i], VarInt.size(values[i]));
+			total += sizes[i];
+		}
+		assertEquals(total, bytes.size());
+		
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		for (int value : values) {
+			assertEquals(value, VarInt.read(in));
+		}
+	}
+	
+	/**
+	 * Test that negative values are rejected
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testWriteNegative() throws IOException {
+		VarInt.write(new DataOutputStream(new ByteArrayOutputStream()), -1);
+	}
+	
+	/**
+	 * Test that values, which don't fit into an int, are rejected
+	 */
+	@Test(expected = IOException.class)
+	public void testReadTooLarge() throws IOException {
+		byte[] bytes = { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x08 };
+		VarInt.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+}